@@ -257,16 +257,16 @@ public class CloudStackComputeServiceContextModule extends
    @Provides
    @Singleton
    protected final LoadingCache<String, Set<IPForwardingRule>> getIPForwardingRulesByVirtualMachine(
-      CacheLoader<String, Set<IPForwardingRule>> in) {
-      return CacheBuilder.newBuilder().build(in);
+      @Named(PROPERTY_SESSION_INTERVAL) long seconds, CacheLoader<String, Set<IPForwardingRule>> in) {
+      return CacheBuilder.newBuilder().expireAfterWrite(seconds, SECONDS).build(in);
    }
 
 
    @Provides
    @Singleton
    protected final LoadingCache<String, Set<FirewallRule>> getFirewallRulesByVirtualMachine(
-      CacheLoader<String, Set<FirewallRule>> getFirewallRules) {
-      return CacheBuilder.newBuilder().build(getFirewallRules);
+      @Named(PROPERTY_SESSION_INTERVAL) long seconds, CacheLoader<String, Set<FirewallRule>> getFirewallRules) {
+      return CacheBuilder.newBuilder().expireAfterWrite(seconds, SECONDS).build(getFirewallRules);
    }
 
    @Provides
@@ -19,9 +19,11 @@ package org.jclouds.cloudstack.compute.strategy;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
-import static com.google.common.collect.Iterables.contains;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.get;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.cloudstack.options.DeployVirtualMachineOptions.Builder.displayName;
 import static org.jclouds.cloudstack.options.ListTemplatesOptions.Builder.id;
 import static org.jclouds.cloudstack.predicates.TemplatePredicates.isReady;
@@ -35,16 +37,24 @@ import javax.inject.Singleton;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
+import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSet.Builder;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimaps;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import org.jclouds.cloudstack.CloudStackApi;
 import org.jclouds.cloudstack.compute.options.CloudStackTemplateOptions;
 import org.jclouds.cloudstack.domain.AsyncCreateResponse;
@@ -73,6 +83,7 @@ import org.jclouds.cloudstack.functions.StaticNATVirtualMachineInNetwork.Factory
 import org.jclouds.cloudstack.options.CreateTagsOptions;
 import org.jclouds.cloudstack.options.DeployVirtualMachineOptions;
 import org.jclouds.cloudstack.options.ListFirewallRulesOptions;
+import org.jclouds.cloudstack.options.ListIPForwardingRulesOptions;
 import org.jclouds.cloudstack.options.ListTemplatesOptions;
 import org.jclouds.cloudstack.strategy.BlockUntilJobCompletesAndReturnResult;
 import org.jclouds.collect.Memoized;
@@ -92,6 +103,17 @@ import org.jclouds.logging.Logger;
 public class CloudStackComputeServiceAdapter implements
    ComputeServiceAdapter<VirtualMachine, ServiceOffering, Template, Zone> {
 
+   /**
+    * page size used when listing all ip forwarding rules of the account
+    */
+   static final int RULES_PAGE_SIZE = 500;
+
+   /**
+    * fewer virtual machines than this are listed by id without listing all ip forwarding rules of the account;
+    * their rules are looked up one virtual machine at a time instead
+    */
+   static final int MIN_IDS_FOR_RULES_LISTING = 5;
+
    @Resource
    @Named(ComputeServiceConstants.COMPUTE_LOGGER)
    protected Logger logger = Logger.NULL;
@@ -112,6 +134,7 @@ public class CloudStackComputeServiceAdapter implements
    private final LoadingCache<String, SshKeyPair> keyPairCache;
    private final GroupNamingConvention.Factory namingConvention;
    private final GetLoginForProviderFromPropertiesAndStoreCredentialsOrReturnNull credentialsProvider;
+   private final ListeningExecutorService userExecutor;
 
    @Inject
    public CloudStackComputeServiceAdapter(CloudStackApi client, Predicate<String> jobComplete,
@@ -128,7 +151,8 @@ public class CloudStackComputeServiceAdapter implements
                                           LoadingCache<ZoneAndName, SecurityGroup> securityGroupCache,
                                           LoadingCache<String, SshKeyPair> keyPairCache,
                                           GroupNamingConvention.Factory namingConvention,
-                                          GetLoginForProviderFromPropertiesAndStoreCredentialsOrReturnNull credentialsProvider) {
+                                          GetLoginForProviderFromPropertiesAndStoreCredentialsOrReturnNull credentialsProvider,
+                                          @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
       this.client = checkNotNull(client, "client");
       this.jobComplete = checkNotNull(jobComplete, "jobComplete");
       this.networkSupplier = checkNotNull(networkSupplier, "networkSupplier");
@@ -146,6 +170,7 @@ public class CloudStackComputeServiceAdapter implements
       this.zoneIdToZone = zoneIdToZone;
       this.namingConvention = namingConvention;
       this.credentialsProvider = credentialsProvider;
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
    }
 
    @Override
@@ -319,11 +344,20 @@ public class CloudStackComputeServiceAdapter implements
 
    @Override
    public Iterable<Template> listImages() {
-      TemplateApi templateApi = client.getTemplateApi();
+      final TemplateApi templateApi = client.getTemplateApi();
+      List<ListenableFuture<Set<Template>>> projectTemplates = Lists.newArrayList();
+      for (final String project : projectSupplier.get().keySet()) {
+         projectTemplates.add(userExecutor.submit(new Callable<Set<Template>>() {
+            @Override
+            public Set<Template> call() {
+               return templateApi.listTemplates(ListTemplatesOptions.Builder.projectId(project));
+            }
+         }));
+      }
       ImmutableSet.Builder<Template> templates = ImmutableSet.builder();
       templates.addAll(templateApi.listTemplates());
-      for (String project : projectSupplier.get().keySet()) {
-         templates.addAll(templateApi.listTemplates(ListTemplatesOptions.Builder.projectId(project)));
+      for (Set<Template> forProject : getUnchecked(allAsList(projectTemplates))) {
+         templates.addAll(forProject);
       }
 
       return filter(templates.build(), isReady());
@@ -336,18 +370,64 @@ public class CloudStackComputeServiceAdapter implements
 
    @Override
    public Iterable<VirtualMachine> listNodes() {
-      return client.getVirtualMachineApi().listVirtualMachines();
+      return withForwardingRulesCached(client.getVirtualMachineApi().listVirtualMachines());
    }
 
    @Override
-   public Iterable<VirtualMachine> listNodesByIds(final Iterable<String> ids) {
-      return filter(listNodes(), new Predicate<VirtualMachine>() {
+   public Iterable<VirtualMachine> listNodesByIds(Iterable<String> ids) {
+      final Set<String> idSet = ImmutableSet.copyOf(ids);
+      Iterable<VirtualMachine> vms = filter(client.getVirtualMachineApi().listVirtualMachines(),
+            new Predicate<VirtualMachine>() {
 
             @Override
             public boolean apply(VirtualMachine vm) {
-               return contains(ids, vm.getId());
+               return idSet.contains(vm.getId());
             }
          });
+      return idSet.size() < MIN_IDS_FOR_RULES_LISTING ? vms : withForwardingRulesCached(vms);
+   }
+
+   /**
+    * Lists the ip forwarding rules of the account page by page and caches them per virtual machine, so that
+    * converting {@code vms} to nodes doesn't look up the rules of each one.
+    */
+   private Iterable<VirtualMachine> withForwardingRulesCached(Iterable<VirtualMachine> vms) {
+      Set<VirtualMachine> batch = ImmutableSet.copyOf(vms);
+      if (batch.isEmpty()) {
+         return batch;
+      }
+      // the server may cap the page size below the one asked for, so only an empty page ends the listing; a page
+      // without any new rule also does, in case the server ignores paging altogether
+      Map<String, IPForwardingRule> rulesById = Maps.newLinkedHashMap();
+      for (int page = 1;; page++) {
+         Set<IPForwardingRule> onPage = client.getNATApi().listIPForwardingRules(
+               ListIPForwardingRulesOptions.Builder.page(page).pageSize(RULES_PAGE_SIZE));
+         int before = rulesById.size();
+         for (IPForwardingRule rule : onPage) {
+            rulesById.put(rule.getId(), rule);
+         }
+         if (rulesById.size() == before) {
+            break;
+         }
+      }
+      List<IPForwardingRule> rules = Lists.newArrayList();
+      for (IPForwardingRule rule : rulesById.values()) {
+         if (rule.getVirtualMachineId() != null) {
+            rules.add(rule);
+         }
+      }
+      ImmutableListMultimap<String, IPForwardingRule> rulesByVirtualMachine = Multimaps.index(rules,
+            new Function<IPForwardingRule, String>() {
+               @Override
+               public String apply(IPForwardingRule rule) {
+                  return rule.getVirtualMachineId();
+               }
+            });
+      for (VirtualMachine vm : batch) {
+         vmToRules.put(vm.getId(), ImmutableSet.copyOf(rulesByVirtualMachine.get(vm.getId())));
+      }
+      logger.debug("<< cached %d ip forwarding rules for %d virtual machines", rules.size(), batch.size());
+      return batch;
    }
 
    @Override
@@ -85,6 +85,15 @@ public class ListIPForwardingRulesOptions extends AccountInDomainOptions {
       return this;
    }
 
+   public ListIPForwardingRulesOptions page(long page) {
+      this.queryParameters.replaceValues("page", ImmutableSet.of(page + ""));
+      return this;
+   }
+
+   public ListIPForwardingRulesOptions pageSize(long pageSize) {
+      this.queryParameters.replaceValues("pagesize", ImmutableSet.of(pageSize + ""));
+      return this;
+   }
 
    public static class Builder {
 
@@ -136,6 +145,22 @@ public class ListIPForwardingRulesOptions extends AccountInDomainOptions {
          return options.projectId(projectId);
       }
 
+      /**
+       * @see ListIPForwardingRulesOptions#page
+       */
+      public static ListIPForwardingRulesOptions page(long page) {
+         ListIPForwardingRulesOptions options = new ListIPForwardingRulesOptions();
+         return options.page(page);
+      }
+
+      /**
+       * @see ListIPForwardingRulesOptions#pageSize
+       */
+      public static ListIPForwardingRulesOptions pageSize(long pageSize) {
+         ListIPForwardingRulesOptions options = new ListIPForwardingRulesOptions();
+         return options.pageSize(pageSize);
+      }
+
       /**
        * @see ListIPForwardingRulesOptions#tags
        */
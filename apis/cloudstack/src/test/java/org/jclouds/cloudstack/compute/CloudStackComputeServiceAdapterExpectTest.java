@@ -18,14 +18,17 @@ package org.jclouds.cloudstack.compute;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.Set;
 
 import org.jclouds.cloudstack.CloudStackContext;
 import org.jclouds.cloudstack.compute.options.CloudStackTemplateOptions;
 import org.jclouds.cloudstack.compute.strategy.CloudStackComputeServiceAdapter;
+import org.jclouds.cloudstack.domain.IPForwardingRule;
 import org.jclouds.cloudstack.domain.VirtualMachine;
 import org.jclouds.cloudstack.internal.BaseCloudStackComputeServiceContextExpectTest;
 import org.jclouds.compute.ComputeServiceAdapter.NodeAndInitialCredentials;
@@ -38,8 +41,13 @@ import org.jclouds.http.HttpResponse;
 import org.jclouds.util.Strings2;
 import org.testng.annotations.Test;
 
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
 
 /**
  * Tests the compute service abstraction of the cloudstack api.
@@ -448,6 +456,89 @@ public class CloudStackComputeServiceAdapterExpectTest extends BaseCloudStackCom
       assertEquals(server.getCredentials().getOptionalPrivateKey().get(), privKey);
    }   
    
+   HttpRequest listVirtualMachines = HttpRequest.builder().method("GET")
+        .endpoint("http://localhost:8080/client/api")
+        .addQueryParam("response", "json")
+        .addQueryParam("command", "listVirtualMachines")
+        .addQueryParam("listAll", "true")
+        .addQueryParam("apiKey", "APIKEY")
+        .addQueryParam("signature", "0MGokVYCqC1yyReed86Hxr+LwfM=")
+        .addHeader("Accept", "application/json")
+        .build();
+
+   HttpResponse listVirtualMachinesResponse = HttpResponse.builder().statusCode(200)
+        .payload(payloadFromResource("/listvirtualmachinesresponse.json"))
+        .build();
+
+   public void testListNodesCachesForwardingRulesUntilEmptyPage() {
+      HttpRequest listRulesPage1 = HttpRequest.builder().method("GET")
+              .endpoint("http://localhost:8080/client/api")
+              .addQueryParam("response", "json")
+              .addQueryParam("command", "listIpForwardingRules")
+              .addQueryParam("listAll", "true")
+              .addQueryParam("page", "1")
+              .addQueryParam("pagesize", "500")
+              .addQueryParam("apiKey", "APIKEY")
+              .addQueryParam("signature", "y0ZdkPLavwhk4y3hmFVoS1T5CxY=")
+              .addHeader("Accept", "application/json")
+              .build();
+
+      // fewer rules than the page size asked for, as when the server caps it
+      HttpResponse listRulesPage1Response = HttpResponse.builder().statusCode(200)
+              .payload(payloadFromStringWithContentType("{ \"listipforwardingrulesresponse\" : { \"count\" : 2, "
+                    + "\"ipforwardingrule\" : [ "
+                    + "{ \"id\" : 66, \"protocol\" : \"tcp\", \"virtualmachineid\" : 54, \"ipaddressid\" : 15, "
+                    + "\"ipaddress\" : \"10.27.27.64\", \"startport\" : 22, \"endport\" : 22, \"state\" : \"Active\" }, "
+                    + "{ \"id\" : 67, \"protocol\" : \"tcp\", \"virtualmachineid\" : 58, \"ipaddressid\" : 16, "
+                    + "\"ipaddress\" : \"10.27.27.65\", \"startport\" : 22, \"endport\" : 22, \"state\" : \"Active\" } "
+                    + "] } }", "application/json"))
+              .build();
+
+      HttpRequest listRulesPage2 = HttpRequest.builder().method("GET")
+              .endpoint("http://localhost:8080/client/api")
+              .addQueryParam("response", "json")
+              .addQueryParam("command", "listIpForwardingRules")
+              .addQueryParam("listAll", "true")
+              .addQueryParam("page", "2")
+              .addQueryParam("pagesize", "500")
+              .addQueryParam("apiKey", "APIKEY")
+              .addQueryParam("signature", "FZgXBrwSTw5j/xJLOdQL1ce1wDs=")
+              .addHeader("Accept", "application/json")
+              .build();
+
+      HttpResponse emptyPageResponse = HttpResponse.builder().statusCode(200)
+              .payload(payloadFromStringWithContentType("{ \"listipforwardingrulesresponse\" : { } }",
+                    "application/json"))
+              .build();
+
+      Injector forNode = requestsSendResponses(ImmutableMap.<HttpRequest, HttpResponse> builder()
+              .put(listVirtualMachines, listVirtualMachinesResponse)
+              .put(listRulesPage1, listRulesPage1Response)
+              .put(listRulesPage2, emptyPageResponse)
+              .build());
+
+      CloudStackComputeServiceAdapter adapter = forNode.getInstance(CloudStackComputeServiceAdapter.class);
+      assertEquals(Iterables.getOnlyElement(adapter.listNodes()).getId(), "54");
+
+      Set<IPForwardingRule> rules = vmToRules(forNode).getIfPresent("54");
+      assertNotNull(rules, "rules of virtual machine 54 were not cached");
+      assertEquals(Iterables.getOnlyElement(rules).getId(), "66");
+   }
+
+   public void testListNodesByFewIdsDoesNotListAllForwardingRules() {
+      // listing the ip forwarding rules of the account would fail, as it is not an expected request
+      Injector forNode = requestsSendResponses(ImmutableMap.of(listVirtualMachines, listVirtualMachinesResponse));
+
+      CloudStackComputeServiceAdapter adapter = forNode.getInstance(CloudStackComputeServiceAdapter.class);
+      assertEquals(Iterables.getOnlyElement(adapter.listNodesByIds(ImmutableSet.of("54"))).getId(), "54");
+      assertNull(vmToRules(forNode).getIfPresent("54"));
+   }
+
+   private static LoadingCache<String, Set<IPForwardingRule>> vmToRules(Injector injector) {
+      return injector.getInstance(Key.get(new TypeLiteral<LoadingCache<String, Set<IPForwardingRule>>>() {
+      }));
+   }
+
    @Override
    protected Injector clientFrom(CloudStackContext context) {
       return context.utils().injector();
@@ -21,6 +21,8 @@ import static org.jclouds.cloudstack.options.ListIPForwardingRulesOptions.Builde
 import static org.jclouds.cloudstack.options.ListIPForwardingRulesOptions.Builder.accountInDomain;
 import static org.jclouds.cloudstack.options.ListIPForwardingRulesOptions.Builder.domainId;
 import static org.jclouds.cloudstack.options.ListIPForwardingRulesOptions.Builder.id;
+import static org.jclouds.cloudstack.options.ListIPForwardingRulesOptions.Builder.page;
+import static org.jclouds.cloudstack.options.ListIPForwardingRulesOptions.Builder.pageSize;
 import static org.jclouds.cloudstack.options.ListIPForwardingRulesOptions.Builder.virtualMachineId;
 import static org.testng.Assert.assertEquals;
 
@@ -103,4 +105,15 @@ public class ListIPForwardingRulesOptionsTest {
       assertEquals(ImmutableList.of("val2"), options.buildQueryParameters().get("tags[1].value"));
    }
 
+   public void testPageAndPageSize() {
+      ListIPForwardingRulesOptions options = new ListIPForwardingRulesOptions().page(2).pageSize(500);
+      assertEquals(ImmutableList.of("2"), options.buildQueryParameters().get("page"));
+      assertEquals(ImmutableList.of("500"), options.buildQueryParameters().get("pagesize"));
+   }
+
+   public void testPageAndPageSizeStatic() {
+      assertEquals(ImmutableList.of("2"), page(2).buildQueryParameters().get("page"));
+      assertEquals(ImmutableList.of("500"), pageSize(500).buildQueryParameters().get("pagesize"));
+   }
+
 }
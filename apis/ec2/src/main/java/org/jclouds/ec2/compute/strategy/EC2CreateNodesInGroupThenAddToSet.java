@@ -32,18 +32,24 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.jclouds.Constants;
 import org.jclouds.aws.util.AWSUtils;
 import org.jclouds.compute.config.CustomizationResponse;
 import org.jclouds.compute.domain.NodeMetadata;
@@ -93,6 +99,7 @@ public class EC2CreateNodesInGroupThenAddToSet implements CreateNodesInGroupThen
    final PresentInstances presentInstances;
    final LoadingCache<RunningInstance, Optional<LoginCredentials>> instanceToCredentials;
    final Map<String, Credentials> credentialStore;
+   final ListeningExecutorService userExecutor;
 
    @Inject
    protected EC2CreateNodesInGroupThenAddToSet(
@@ -102,7 +109,8 @@ public class EC2CreateNodesInGroupThenAddToSet implements CreateNodesInGroupThen
          CreateKeyPairAndSecurityGroupsAsNeededAndReturnRunOptions createKeyPairAndSecurityGroupsAsNeededAndReturncustomize,
          PresentInstances presentInstances, Function<RunningInstance, NodeMetadata> runningInstanceToNodeMetadata,
          LoadingCache<RunningInstance, Optional<LoginCredentials>> instanceToCredentials,
-         Map<String, Credentials> credentialStore, ComputeUtils utils) {
+         Map<String, Credentials> credentialStore, ComputeUtils utils,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
       this.client = checkNotNull(client, "client");
       this.elasticIpCache = checkNotNull(elasticIpCache, "elasticIpCache");
       this.nodeRunning = checkNotNull(nodeRunning, "nodeRunning");
@@ -114,6 +122,7 @@ public class EC2CreateNodesInGroupThenAddToSet implements CreateNodesInGroupThen
       this.instanceToCredentials = checkNotNull(instanceToCredentials, "instanceToCredentials");
       this.credentialStore = checkNotNull(credentialStore, "credentialStore");
       this.utils = checkNotNull(utils, "utils");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
    }
 
    public static final Function<RunningInstance, RegionAndName> instanceToRegionAndName = new Function<RunningInstance, RegionAndName>() {
@@ -180,32 +189,67 @@ public class EC2CreateNodesInGroupThenAddToSet implements CreateNodesInGroupThen
             credentialStore.put("node#" + instance.slashEncode(), credentials);
    }
 
-   private void blockUntilRunningAndAssignElasticIpsToInstancesOrPutIntoBadMap(Set<RunningInstance> input,
+   /**
+    * Allocates an elastic ip per instance up front, then associates each ip as soon as its instance is running. The
+    * instances are awaited concurrently, on the user executor.
+    */
+   @VisibleForTesting
+   void blockUntilRunningAndAssignElasticIpsToInstancesOrPutIntoBadMap(Set<RunningInstance> input,
          Map<NodeMetadata, Exception> badNodes) {
       Map<RegionAndName, RunningInstance> instancesById = Maps.uniqueIndex(input, instanceToRegionAndName);
+      Map<RegionAndName, ListenableFuture<String>> allocations = Maps.newLinkedHashMap();
+      for (final RegionAndName id : instancesById.keySet()) {
+         allocations.put(id, userExecutor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+               logger.debug("<< allocating elastic IP instance(%s)", id);
+               return client.getElasticIPAddressApi().get().allocateAddressInRegion(id.getRegion());
+            }
+         }));
+      }
+      Map<RegionAndName, ListenableFuture<Void>> associations = Maps.newLinkedHashMap();
       for (Map.Entry<RegionAndName, RunningInstance> entry : instancesById.entrySet()) {
-         RegionAndName id = entry.getKey();
-         RunningInstance instance = entry.getValue();
+         final RegionAndName id = entry.getKey();
+         final RunningInstance instance = entry.getValue();
+         final ListenableFuture<String> allocation = allocations.get(id);
+         associations.put(id, userExecutor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               // block until instance is running
+               logger.debug(">> awaiting status running instance(%s)", id);
+               AtomicReference<NodeMetadata> node = newReference(runningInstanceToNodeMetadata.apply(instance));
+               nodeRunning.apply(node);
+               logger.trace("<< running instance(%s)", id);
+               String ip = getUninterruptibly(allocation);
+               logger.debug(">> associating elastic IP %s to instance %s", ip, id);
+               client.getElasticIPAddressApi().get().associateAddressInRegion(id.getRegion(), ip, id.getName());
+               logger.trace("<< associated elastic IP %s to instance %s", ip, id);
+               // add mapping of instance to ip into the cache
+               elasticIpCache.put(id, ip);
+               return null;
+            }
+         }));
+      }
+      for (Map.Entry<RegionAndName, ListenableFuture<Void>> entry : associations.entrySet()) {
          try {
-            logger.debug("<< allocating elastic IP instance(%s)", id);
-            String ip = client.getElasticIPAddressApi().get().allocateAddressInRegion(id.getRegion());
-            // block until instance is running
-            logger.debug(">> awaiting status running instance(%s)", id);
-            AtomicReference<NodeMetadata> node = newReference(runningInstanceToNodeMetadata
-                  .apply(instance));
-            nodeRunning.apply(node);
-            logger.trace("<< running instance(%s)", id);
-            logger.debug(">> associating elastic IP %s to instance %s", ip, id);
-            client.getElasticIPAddressApi().get().associateAddressInRegion(id.getRegion(), ip, id.getName());
-            logger.trace("<< associated elastic IP %s to instance %s", ip, id);
-            // add mapping of instance to ip into the cache
-            elasticIpCache.put(id, ip);
+            getUninterruptibly(entry.getValue());
          } catch (RuntimeException e) {
-            badNodes.put(runningInstanceToNodeMetadata.apply(instancesById.get(id)), e);
+            badNodes.put(runningInstanceToNodeMetadata.apply(instancesById.get(entry.getKey())), e);
          }
       }
    }
 
+   /**
+    * @return the value of {@code future}, rethrowing the exception it failed with
+    */
+   private static <T> T getUninterruptibly(ListenableFuture<T> future) {
+      try {
+         return Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
    private Set<RunningInstance> createKeyPairAndSecurityGroupsAsNeededThenRunInstances(String group, int count,
          Template template) {
       String region = AWSUtils.getRegionFromLocationOrNull(template.getLocation());
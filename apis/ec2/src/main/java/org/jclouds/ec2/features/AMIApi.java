@@ -27,6 +27,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 
 import org.jclouds.Fallbacks.EmptySetOnNotFoundOr404;
+import org.jclouds.Fallbacks.VoidOnNotFoundOr404;
 import org.jclouds.aws.filters.FormSigner;
 import org.jclouds.ec2.binders.BindFiltersToIndexedFormParams;
 import org.jclouds.ec2.binders.BindUserGroupsToIndexedFormParams;
@@ -42,6 +43,7 @@ import org.jclouds.ec2.xml.BlockDeviceMappingHandler;
 import org.jclouds.ec2.xml.DescribeImagesResponseHandler;
 import org.jclouds.ec2.xml.ImageIdHandler;
 import org.jclouds.ec2.xml.PermissionHandler;
+import org.jclouds.http.functions.ParseSax;
 import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.location.functions.RegionToEndpointOrProviderIfNull;
 import org.jclouds.rest.annotations.BinderParam;
@@ -86,6 +88,26 @@ public interface AMIApi {
             @EndpointParam(parser = RegionToEndpointOrProviderIfNull.class) @Nullable String region,
             DescribeImagesOptions... options);
 
+   /**
+    * Like {@link #describeImagesInRegion(String, DescribeImagesOptions...)}, but passes each image to
+    * {@code callback} as soon as it is parsed instead of collecting the whole listing in memory.
+    * 
+    * @param region
+    *           AMIs are tied to the Region where its files are located within Amazon S3.
+    * @param callback
+    *           receives each image described by the response
+    * @see #describeImagesInRegion(String, DescribeImagesOptions...)
+    */
+   @Named("DescribeImages")
+   @POST
+   @Path("/")
+   @FormParams(keys = ACTION, values = "DescribeImages")
+   @XMLResponseParser(DescribeImagesResponseHandler.class)
+   @Fallback(VoidOnNotFoundOr404.class)
+   void describeImagesInRegion(
+            @EndpointParam(parser = RegionToEndpointOrProviderIfNull.class) @Nullable String region,
+            ParseSax.ElementCallback<? super Image> callback, DescribeImagesOptions... options);
+
    /**
     * Returns information about AMIs, AKIs, and ARIs. This includes image type, product codes,
     * architecture, and kernel and RAM disk IDs. Images available to you include public images,
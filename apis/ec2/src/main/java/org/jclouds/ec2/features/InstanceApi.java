@@ -27,6 +27,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 
 import org.jclouds.Fallbacks.EmptySetOnNotFoundOr404;
+import org.jclouds.Fallbacks.VoidOnNotFoundOr404;
 import org.jclouds.aws.filters.FormSigner;
 import org.jclouds.ec2.binders.BindBlockDeviceMappingToIndexedFormParams;
 import org.jclouds.ec2.binders.BindFiltersToIndexedFormParams;
@@ -49,6 +50,7 @@ import org.jclouds.ec2.xml.InstanceTypeHandler;
 import org.jclouds.ec2.xml.RunInstancesResponseHandler;
 import org.jclouds.ec2.xml.StringValueHandler;
 import org.jclouds.ec2.xml.UnencodeStringValueHandler;
+import org.jclouds.http.functions.ParseSax;
 import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.location.functions.RegionToEndpointOrProviderIfNull;
 import org.jclouds.rest.annotations.BinderParam;
@@ -103,6 +105,28 @@ public interface InstanceApi {
          @EndpointParam(parser = RegionToEndpointOrProviderIfNull.class) @Nullable String region,
          @BinderParam(BindInstanceIdsToIndexedFormParams.class) String... instanceIds);
 
+   /**
+    * Like {@link #describeInstancesInRegion(String, String...)}, but passes each reservation to {@code callback} as
+    * soon as it is parsed instead of collecting the whole listing in memory.
+    * 
+    * @param region
+    *           Instances are tied to Availability Zones. However, the instance
+    *           ID is tied to the Region.
+    * @param callback
+    *           receives each reservation described by the response
+    * @see #describeInstancesInRegion(String, String...)
+    */
+   @Named("DescribeInstances")
+   @POST
+   @Path("/")
+   @FormParams(keys = ACTION, values = "DescribeInstances")
+   @XMLResponseParser(DescribeInstancesResponseHandler.class)
+   @Fallback(VoidOnNotFoundOr404.class)
+   void describeInstancesInRegion(
+         @EndpointParam(parser = RegionToEndpointOrProviderIfNull.class) @Nullable String region,
+         ParseSax.ElementCallback<? super Reservation<? extends RunningInstance>> callback,
+         @BinderParam(BindInstanceIdsToIndexedFormParams.class) String... instanceIds);
+
    /**
     * Returns information about instances that you own.
     * <p/>
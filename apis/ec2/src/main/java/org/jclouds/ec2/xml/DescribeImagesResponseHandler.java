@@ -49,7 +49,8 @@ import org.xml.sax.Attributes;
  * @see <a href="http://docs.amazonwebservices.com/AWSEC2/latest/APIReference/ApiReference-query-DescribeImages.html"
  *      />
  */
-public class DescribeImagesResponseHandler extends ParseSax.HandlerForGeneratedRequestWithResult<Set<Image>> {
+public class DescribeImagesResponseHandler extends ParseSax.HandlerForGeneratedRequestWithResult<Set<Image>>
+      implements ParseSax.StreamingHandler<Image>, ParseSax.ReusableHandler {
 
    @Inject
    public DescribeImagesResponseHandler(@Region Supplier<String> defaultRegion, TagSetHandler tagSetHandler) {
@@ -61,6 +62,7 @@ public class DescribeImagesResponseHandler extends ParseSax.HandlerForGeneratedR
    protected Logger logger = Logger.NULL;
 
    protected Set<Image> contents = Sets.newLinkedHashSet();
+   private ParseSax.ElementCallback<? super Image> callback;
    private StringBuilder currentText = new StringBuilder();
    private final Supplier<String> defaultRegion;
    private final TagSetHandler tagSetHandler;
@@ -97,6 +99,18 @@ public class DescribeImagesResponseHandler extends ParseSax.HandlerForGeneratedR
    private Integer iops;
    private String rootDeviceName;
 
+   @Override
+   public void setElementCallback(ParseSax.ElementCallback<? super Image> callback) {
+      this.callback = callback;
+   }
+
+   @Override
+   public void reset() {
+      contents = Sets.newLinkedHashSet();
+      callback = null;
+      tags = Maps.newLinkedHashMap();
+   }
+
    public Set<Image> getResult() {
       return contents;
    }
@@ -191,9 +205,14 @@ public class DescribeImagesResponseHandler extends ParseSax.HandlerForGeneratedR
                String region = getRequest() != null ? AWSUtils.findRegionInArgsOrNull(getRequest()) : null;
                if (region == null)
                   region = defaultRegion.get();
-               contents.add(new Image(region, architecture, this.name, description, imageId, imageLocation,
+               Image image = new Image(region, architecture, this.name, description, imageId, imageLocation,
                         imageOwnerId, imageState, rawState, imageType, isPublic, productCodes, kernelId, platform,
-                        ramdiskId, rootDeviceType, rootDeviceName, ebsBlockDevices, tags, virtualizationType, hypervisor));
+                        ramdiskId, rootDeviceType, rootDeviceName, ebsBlockDevices, tags, virtualizationType, hypervisor);
+               if (callback != null) {
+                  callback.onElement(image);
+               } else {
+                  contents.add(image);
+               }
             } catch (NullPointerException e) {
                logger.warn(e, "malformed image: %s", imageId);
             }
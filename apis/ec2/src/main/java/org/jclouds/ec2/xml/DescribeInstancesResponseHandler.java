@@ -25,6 +25,7 @@ import javax.inject.Inject;
 import org.jclouds.date.DateService;
 import org.jclouds.ec2.domain.Reservation;
 import org.jclouds.ec2.domain.RunningInstance;
+import org.jclouds.http.functions.ParseSax;
 import org.jclouds.location.Region;
 import org.xml.sax.Attributes;
 
@@ -40,10 +41,12 @@ import com.google.common.collect.ImmutableSet.Builder;
  * @see <a href="http: />
  */
 public class DescribeInstancesResponseHandler extends
-      BaseReservationHandler<Set<Reservation<? extends RunningInstance>>> {
+      BaseReservationHandler<Set<Reservation<? extends RunningInstance>>> implements
+      ParseSax.StreamingHandler<Reservation<? extends RunningInstance>>, ParseSax.ReusableHandler {
    private final TagSetHandler tagSetHandler;
    private Builder<Reservation<? extends RunningInstance>> reservations = ImmutableSet
          .<Reservation<? extends RunningInstance>> builder();
+   private ParseSax.ElementCallback<? super Reservation<? extends RunningInstance>> callback;
    private boolean inTagSet;
 
    @Inject
@@ -84,6 +87,17 @@ public class DescribeInstancesResponseHandler extends
       super.endElement(uri, name, qName);
    }
 
+   @Override
+   public void setElementCallback(ParseSax.ElementCallback<? super Reservation<? extends RunningInstance>> callback) {
+      this.callback = callback;
+   }
+
+   @Override
+   public void reset() {
+      reservations = ImmutableSet.builder();
+      callback = null;
+   }
+
    @Override
    public Set<Reservation<? extends RunningInstance>> getResult() {
       return reservations.build();
@@ -96,7 +110,12 @@ public class DescribeInstancesResponseHandler extends
    @Override
    protected void inItem() {
       if (endOfReservationItem()) {
-         reservations.add(super.newReservation());
+         Reservation<? extends RunningInstance> reservation = super.newReservation();
+         if (callback != null) {
+            callback.onElement(reservation);
+         } else {
+            reservations.add(reservation);
+         }
       } else {
          super.inItem();
       }
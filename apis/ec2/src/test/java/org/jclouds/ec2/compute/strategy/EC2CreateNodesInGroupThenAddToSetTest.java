@@ -16,6 +16,9 @@
  */
 package org.jclouds.ec2.compute.strategy;
 
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
@@ -25,12 +28,20 @@ import static org.easymock.EasyMock.verify;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.easymock.IArgumentMatcher;
 import org.jclouds.compute.config.CustomizationResponse;
 import org.jclouds.compute.domain.Hardware;
@@ -147,6 +158,62 @@ public class EC2CreateNodesInGroupThenAddToSetTest {
       verifyStrategy(strategy);
    }
 
+   @SuppressWarnings("unchecked")
+   public void testInstancesAreAwaitedConcurrently() {
+      RunningInstance east = createMock(RunningInstance.class);
+      RunningInstance west = createMock(RunningInstance.class);
+      NodeMetadata eastNode = new NodeMetadataBuilder().id("us-east-1/i-east").providerId("i-east")
+            .status(Status.PENDING).build();
+      NodeMetadata westNode = new NodeMetadataBuilder().id("us-west-1/i-west").providerId("i-west")
+            .status(Status.PENDING).build();
+      EC2Api client = createMock(EC2Api.class);
+      ElasticIPAddressApi ipClient = createMock(ElasticIPAddressApi.class);
+      LoadingCache<RegionAndName, String> elasticIpCache = createMock(LoadingCache.class);
+      RunningInstanceToNodeMetadata runningInstanceToNodeMetadata = createMock(RunningInstanceToNodeMetadata.class);
+
+      // each wait only returns once both instances are being awaited
+      final CountDownLatch awaiting = new CountDownLatch(2);
+      Predicate<AtomicReference<NodeMetadata>> nodeRunning = new Predicate<AtomicReference<NodeMetadata>>() {
+         @Override
+         public boolean apply(AtomicReference<NodeMetadata> input) {
+            awaiting.countDown();
+            if (!Uninterruptibles.awaitUninterruptibly(awaiting, 10, TimeUnit.SECONDS))
+               throw new IllegalStateException("instances were not awaited concurrently");
+            return true;
+         }
+      };
+
+      expect(east.getRegion()).andReturn("us-east-1").anyTimes();
+      expect(east.getId()).andReturn("i-east").anyTimes();
+      expect(west.getRegion()).andReturn("us-west-1").anyTimes();
+      expect(west.getId()).andReturn("i-west").anyTimes();
+      expect(runningInstanceToNodeMetadata.apply(east)).andReturn(eastNode).anyTimes();
+      expect(runningInstanceToNodeMetadata.apply(west)).andReturn(westNode).anyTimes();
+      expect(client.getElasticIPAddressApi()).andReturn((Optional) Optional.of(ipClient)).atLeastOnce();
+      expect(ipClient.allocateAddressInRegion("us-east-1")).andReturn("1.1.1.1");
+      expect(ipClient.allocateAddressInRegion("us-west-1")).andReturn("2.2.2.2");
+      ipClient.associateAddressInRegion("us-east-1", "1.1.1.1", "i-east");
+      ipClient.associateAddressInRegion("us-west-1", "2.2.2.2", "i-west");
+      elasticIpCache.put(new RegionAndName("us-east-1", "i-east"), "1.1.1.1");
+      elasticIpCache.put(new RegionAndName("us-west-1", "i-west"), "2.2.2.2");
+      replay(east, west, client, ipClient, elasticIpCache, runningInstanceToNodeMetadata);
+
+      ListeningExecutorService userExecutor = listeningDecorator(newCachedThreadPool());
+      try {
+         EC2CreateNodesInGroupThenAddToSet strategy = new EC2CreateNodesInGroupThenAddToSet(client, elasticIpCache,
+               nodeRunning, createMock(CreateKeyPairAndSecurityGroupsAsNeededAndReturnRunOptions.class),
+               createMock(PresentInstances.class), runningInstanceToNodeMetadata, createMock(LoadingCache.class),
+               createMock(Map.class), createMock(ComputeUtils.class), userExecutor);
+         Map<NodeMetadata, Exception> badNodes = Maps.newHashMap();
+         strategy.blockUntilRunningAndAssignElasticIpsToInstancesOrPutIntoBadMap(ImmutableSet.of(east, west),
+               badNodes);
+         Assert.assertEquals(badNodes, ImmutableMap.of());
+      } finally {
+         userExecutor.shutdownNow();
+      }
+      verify(client, ipClient, elasticIpCache);
+   }
+
    @Test
    public void testZoneAsALocation() {
       assertRegionAndZoneForLocation(ZONE_AP_SOUTHEAST_1A, "ap-southeast-1", "ap-southeast-1a");
@@ -323,7 +390,7 @@ public class EC2CreateNodesInGroupThenAddToSetTest {
       ComputeUtils utils = createMock(ComputeUtils.class);
       return new EC2CreateNodesInGroupThenAddToSet(client, elasticIpCache, new AtomicNodeRunning(nodeRunning),
             createKeyPairAndSecurityGroupsAsNeededAndReturncustomize, presentInstances, runningInstanceToNodeMetadata,
-            instanceToCredentials, credentialStore, utils);
+            instanceToCredentials, credentialStore, utils, newDirectExecutorService());
    }
 
    private void replayStrategy(EC2CreateNodesInGroupThenAddToSet strategy) {
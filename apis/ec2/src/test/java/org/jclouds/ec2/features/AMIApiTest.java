@@ -18,10 +18,14 @@ package org.jclouds.ec2.features;
 
 import static org.jclouds.ec2.options.DescribeImagesOptions.Builder.executableBy;
 import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.jclouds.Fallbacks.EmptySetOnNotFoundOr404;
+import org.jclouds.Fallbacks.VoidOnNotFoundOr404;
+import org.jclouds.ec2.domain.Image;
 import org.jclouds.ec2.options.CreateImageOptions;
 import org.jclouds.ec2.options.DescribeImagesOptions;
 import org.jclouds.ec2.options.RegisterImageBackedByEbsOptions;
@@ -31,12 +35,15 @@ import org.jclouds.ec2.xml.DescribeImagesResponseHandler;
 import org.jclouds.ec2.xml.ImageIdHandler;
 import org.jclouds.ec2.xml.PermissionHandler;
 import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
 import org.jclouds.http.functions.ParseSax;
 import org.jclouds.http.functions.ReleasePayloadAndReturn;
 import org.jclouds.rest.internal.GeneratedHttpRequest;
+import org.jclouds.rest.internal.TransformerForRequest;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.reflect.Invokable;
 /**
@@ -142,6 +149,39 @@ public class AMIApiTest extends BaseEC2ApiTest<AMIApi> {
       checkFilters(request);
    }
 
+   public void testDescribeImagesWithCallback() throws SecurityException, NoSuchMethodException, IOException {
+      Invokable<?, ?> method = method(AMIApi.class, "describeImagesInRegion", String.class,
+               ParseSax.ElementCallback.class, DescribeImagesOptions[].class);
+      final List<Image> images = Lists.newArrayList();
+      ParseSax.ElementCallback<Image> callback = new ParseSax.ElementCallback<Image>() {
+         @Override
+         public void onElement(Image image) {
+            images.add(image);
+         }
+      };
+      GeneratedHttpRequest request = processor.createRequest(method, Lists.<Object> newArrayList(null, callback));
+
+      request = (GeneratedHttpRequest) request.getFilters().get(0).filter(request);
+
+      assertRequestLineEquals(request, "POST https://ec2.us-east-1.amazonaws.com/ HTTP/1.1");
+      assertNonPayloadHeadersEqual(request, "Host: ec2.us-east-1.amazonaws.com\n");
+      assertPayloadEquals(request, describeImages.getPayload().getRawContent().toString(),
+            "application/x-www-form-urlencoded", false);
+
+      assertResponseParserClassEquals(method, request, ParseSax.class);
+      assertSaxResponseParserClassEquals(method, DescribeImagesResponseHandler.class);
+      assertFallbackClassEquals(method, VoidOnNotFoundOr404.class);
+
+      Object result = injector.getInstance(TransformerForRequest.class).apply(request).apply(
+            HttpResponse.builder().statusCode(200).payload(getClass().getResourceAsStream("/describe_images.xml")).build());
+
+      assertEquals(result, ImmutableSet.of());
+      assertEquals(images.size(), 1);
+      assertEquals(images.get(0).getId(), "ami-be3adfd7");
+
+      checkFilters(request);
+   }
+
    HttpRequest describeImagesOptions = HttpRequest.builder().method("POST")
                                                   .endpoint("https://ec2.us-east-1.amazonaws.com/")
                                                   .addHeader("Host", "ec2.us-east-1.amazonaws.com")
@@ -17,13 +17,19 @@
 package org.jclouds.ec2.features;
 
 import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.jclouds.Fallbacks.EmptySetOnNotFoundOr404;
+import org.jclouds.Fallbacks.VoidOnNotFoundOr404;
 import org.jclouds.ec2.domain.BlockDevice;
 import org.jclouds.ec2.domain.InstanceType;
+import org.jclouds.ec2.domain.Reservation;
+import org.jclouds.ec2.domain.RunningInstance;
 import org.jclouds.ec2.domain.Volume.InstanceInitiatedShutdownBehavior;
 import org.jclouds.ec2.options.RunInstancesOptions;
 import org.jclouds.ec2.xml.BlockDeviceMappingHandler;
@@ -37,12 +43,15 @@ import org.jclouds.ec2.xml.RunInstancesResponseHandler;
 import org.jclouds.ec2.xml.StringValueHandler;
 import org.jclouds.ec2.xml.UnencodeStringValueHandler;
 import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
 import org.jclouds.http.functions.ParseSax;
 import org.jclouds.http.functions.ReleasePayloadAndReturn;
 import org.jclouds.rest.internal.GeneratedHttpRequest;
+import org.jclouds.rest.internal.TransformerForRequest;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.reflect.Invokable;
@@ -68,6 +77,49 @@ public class InstanceApiTest extends BaseEC2ApiTest<InstanceApi> {
       checkFilters(request);
    }
 
+   public void testDescribeInstancesWithCallback() throws SecurityException, NoSuchMethodException, IOException {
+      Invokable<?, ?> method = method(InstanceApi.class, "describeInstancesInRegion", String.class,
+            ParseSax.ElementCallback.class, String[].class);
+      final List<Reservation<? extends RunningInstance>> reservations = Lists.newArrayList();
+      ParseSax.ElementCallback<Reservation<? extends RunningInstance>> callback =
+            new ParseSax.ElementCallback<Reservation<? extends RunningInstance>>() {
+               @Override
+               public void onElement(Reservation<? extends RunningInstance> reservation) {
+                  reservations.add(reservation);
+               }
+            };
+      GeneratedHttpRequest request = processor.createRequest(method, Lists.<Object> newArrayList(null, callback,
+            "1"));
+
+      assertRequestLineEquals(request, "POST https://ec2.us-east-1.amazonaws.com/ HTTP/1.1");
+      assertNonPayloadHeadersEqual(request, "Host: ec2.us-east-1.amazonaws.com\n");
+      assertPayloadEquals(request, "Action=DescribeInstances&InstanceId.1=1", "application/x-www-form-urlencoded",
+            false);
+
+      assertResponseParserClassEquals(method, request, ParseSax.class);
+      assertSaxResponseParserClassEquals(method, DescribeInstancesResponseHandler.class);
+      assertFallbackClassEquals(method, VoidOnNotFoundOr404.class);
+
+      TransformerForRequest transformer = injector.getInstance(TransformerForRequest.class);
+      Object result = transformer.apply(request).apply(HttpResponse.builder().statusCode(200)
+            .payload(getClass().getResourceAsStream("/describe_instances.xml")).build());
+
+      assertEquals(result, ImmutableSet.of());
+      assertEquals(reservations.size(), 1);
+      assertEquals(reservations.get(0).getReservationId(), "r-44a5402d");
+
+      // the handler this thread now reuses must not keep the callback of the previous call
+      method = method(InstanceApi.class, "describeInstancesInRegion", String.class, String[].class);
+      request = processor.createRequest(method, Lists.<Object> newArrayList((String) null));
+      result = transformer.apply(request).apply(HttpResponse.builder().statusCode(200)
+            .payload(getClass().getResourceAsStream("/describe_instances.xml")).build());
+
+      assertEquals(Set.class.cast(result).size(), 1);
+      assertEquals(reservations.size(), 1);
+
+      checkFilters(request);
+   }
+
    public void testDescribeInstancesArgs() throws SecurityException, NoSuchMethodException, IOException {
       Invokable<?, ?> method = method(InstanceApi.class, "describeInstancesInRegion", String.class, String[].class);
       GeneratedHttpRequest request = processor.createRequest(method, Lists.<Object> newArrayList(null, "1", "2"));
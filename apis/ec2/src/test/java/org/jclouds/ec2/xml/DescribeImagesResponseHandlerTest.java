@@ -21,6 +21,7 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 
 import java.io.InputStream;
+import java.util.List;
 import java.util.Set;
 
 import org.jclouds.ec2.compute.functions.EC2ImageParserTest;
@@ -41,6 +42,7 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
@@ -133,6 +135,22 @@ public class DescribeImagesResponseHandlerTest {
       assertEquals(get(result, 0).getRawState(), "available");
    }
 
+   public void testStreamsImagesToCallback() {
+      final List<Image> streamed = Lists.newArrayList();
+      ParseSax<Set<Image>> parser = createParser();
+      ((DescribeImagesResponseHandler) parser.getHandler()).setElementCallback(new ParseSax.ElementCallback<Image>() {
+         @Override
+         public void onElement(Image image) {
+            streamed.add(image);
+         }
+      });
+
+      Set<Image> result = parser.parse(EC2ImageParserTest.class.getResourceAsStream("/describe_images_ebs.xml"));
+
+      assertEquals(result, ImmutableSet.of());
+      assertEquals(streamed.toString(), parseImages("/describe_images_ebs.xml").toString());
+   }
+
    static ParseSax<Set<Image>> createParser() {
       Injector injector = Guice.createInjector(new SaxParserModule(), new AbstractModule() {
 
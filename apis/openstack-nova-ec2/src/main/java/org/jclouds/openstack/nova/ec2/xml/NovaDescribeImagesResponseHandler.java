@@ -24,6 +24,7 @@ import org.jclouds.ec2.domain.Image;
 import org.jclouds.ec2.domain.Image.ImageType;
 import org.jclouds.ec2.xml.DescribeImagesResponseHandler;
 import org.jclouds.ec2.xml.TagSetHandler;
+import org.jclouds.http.functions.ParseSax.ElementCallback;
 import org.jclouds.location.Region;
 
 import com.google.common.base.Predicate;
@@ -35,17 +36,32 @@ import com.google.common.collect.Iterables;
  * Adjusted to filter out non-MACHINE images
  */
 public class NovaDescribeImagesResponseHandler extends DescribeImagesResponseHandler {
+   private static final Predicate<Image> IS_MACHINE = new Predicate<Image>() {
+      @Override
+      public boolean apply(Image image) {
+         return image.getImageType() == ImageType.MACHINE;
+      }
+   };
+
    @Inject
    public NovaDescribeImagesResponseHandler(@Region Supplier<String> defaultRegion, TagSetHandler tagSetHandler) {
       super(defaultRegion, tagSetHandler);
    }
 
-   public Set<Image> getResult() {
-      return ImmutableSet.copyOf(Iterables.filter(contents, new Predicate<Image>() {
+   @Override
+   public void setElementCallback(final ElementCallback<? super Image> callback) {
+      super.setElementCallback(callback == null ? null : new ElementCallback<Image>() {
          @Override
-         public boolean apply(Image image) {
-            return image.getImageType() == ImageType.MACHINE;
+         public void onElement(Image image) {
+            if (IS_MACHINE.apply(image)) {
+               callback.onElement(image);
+            }
          }
-      }));
+      });
+   }
+
+   public Set<Image> getResult() {
+      return ImmutableSet.copyOf(Iterables.filter(contents, IS_MACHINE));
    }
+
 }
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.nova.v2_0.compute;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.openstack.nova.v2_0.options.ListOptions.Builder.changesSince;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.location.Region;
+import org.jclouds.logging.Logger;
+import org.jclouds.openstack.nova.v2_0.NovaApi;
+import org.jclouds.openstack.nova.v2_0.config.NovaProperties;
+import org.jclouds.openstack.nova.v2_0.domain.Server;
+import org.jclouds.openstack.nova.v2_0.domain.regionscoped.ServerInRegion;
+import org.jclouds.openstack.nova.v2_0.features.ServerApi;
+import org.jclouds.openstack.v2_0.domain.PaginatedCollection;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+
+/**
+ * Keeps the nodes of each region in memory and brings them up to date with the servers changed since the previous
+ * sync, which Nova lists with {@code changes-since}, deleted servers included. A region is listed in full the first
+ * time, after a sync failed and once its snapshot is older than
+ * {@link NovaProperties#INVENTORY_FULL_REFRESH_INTERVAL}, as Nova eventually purges the records of deleted servers.
+ * <p>
+ * Obtain it from the context:
+ * 
+ * <pre>
+ * NodeInventory inventory = context.utils().injector().getInstance(NodeInventory.class);
+ * Set&lt;NodeMetadata&gt; nodes = inventory.sync();
+ * </pre>
+ */
+@Beta
+@Singleton
+public class NodeInventory {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(NovaProperties.INVENTORY_FULL_REFRESH_INTERVAL)
+   protected long fullRefreshInterval = 3600;
+
+   private final NovaApi novaApi;
+   private final Supplier<Set<String>> regionIds;
+   private final Function<ServerInRegion, NodeMetadata> serverInRegionToNodeMetadata;
+   private final Ticker ticker;
+   private final Map<String, Snapshot> snapshots = Maps.newHashMap();
+
+   @Inject
+   NodeInventory(NovaApi novaApi, @Region Supplier<Set<String>> regionIds,
+         Function<ServerInRegion, NodeMetadata> serverInRegionToNodeMetadata) {
+      this(novaApi, regionIds, serverInRegionToNodeMetadata, Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   NodeInventory(NovaApi novaApi, Supplier<Set<String>> regionIds,
+         Function<ServerInRegion, NodeMetadata> serverInRegionToNodeMetadata, Ticker ticker) {
+      this.novaApi = checkNotNull(novaApi, "novaApi");
+      this.regionIds = checkNotNull(regionIds, "regionIds");
+      this.serverInRegionToNodeMetadata = checkNotNull(serverInRegionToNodeMetadata, "serverInRegionToNodeMetadata");
+      this.ticker = checkNotNull(ticker, "ticker");
+   }
+
+   /**
+    * Brings the snapshot of every region up to date.
+    * 
+    * @return the nodes of all regions
+    */
+   public synchronized Set<NodeMetadata> sync() {
+      ImmutableSet.Builder<NodeMetadata> nodes = ImmutableSet.builder();
+      for (String regionId : regionIds.get()) {
+         nodes.addAll(sync(regionId));
+      }
+      return nodes.build();
+   }
+
+   /**
+    * Brings the snapshot of {@code regionId} up to date.
+    * 
+    * @return the nodes of the region
+    */
+   public synchronized Set<NodeMetadata> sync(String regionId) {
+      Snapshot snapshot = snapshots.get(regionId);
+      // drop the snapshot until this sync succeeds, so that a failed delta is never built upon
+      snapshots.remove(regionId);
+      if (snapshot == null || snapshot.since == null
+            || ticker.read() - snapshot.refreshed > fullRefreshInterval * 1000000000L) {
+         snapshot = refresh(regionId);
+      } else {
+         applyChanges(regionId, snapshot);
+      }
+      snapshots.put(regionId, snapshot);
+      return ImmutableSet.copyOf(snapshot.nodes.values());
+   }
+
+   /**
+    * Discards all snapshots, so that the next sync lists every region in full.
+    */
+   public synchronized void invalidate() {
+      snapshots.clear();
+   }
+
+   private Snapshot refresh(String regionId) {
+      logger.debug(">> listing all servers in region %s", regionId);
+      Snapshot snapshot = new Snapshot(ticker.read());
+      for (Server server : novaApi.getServerApi(regionId).listInDetail().concat()) {
+         apply(regionId, snapshot, server);
+      }
+      logger.debug("<< %d servers in region %s", snapshot.nodes.size(), regionId);
+      return snapshot;
+   }
+
+   private void applyChanges(String regionId, Snapshot snapshot) {
+      logger.debug(">> listing servers in region %s changed since %s", regionId, snapshot.since);
+      ServerApi serverApi = novaApi.getServerApi(regionId);
+      int changed = 0;
+      PaginatedCollection<Server> page = serverApi.listInDetail(changesSince(snapshot.since));
+      while (true) {
+         for (Server server : page) {
+            apply(regionId, snapshot, server);
+            changed++;
+         }
+         if (!page.nextMarker().isPresent())
+            break;
+         page = serverApi.listInDetail(page.nextPaginationOptions());
+      }
+      logger.debug("<< %d servers changed in region %s", changed, regionId);
+   }
+
+   private void apply(String regionId, Snapshot snapshot, Server server) {
+      if (server.getStatus() == Server.Status.DELETED) {
+         snapshot.nodes.remove(server.getId());
+      } else {
+         snapshot.nodes.put(server.getId(), serverInRegionToNodeMetadata.apply(new ServerInRegion(server, regionId)));
+      }
+      // changes-since is inclusive, so servers updated in that very second are listed again, which is harmless
+      Date updated = server.getUpdated();
+      if (updated != null && (snapshot.since == null || updated.after(snapshot.since)))
+         snapshot.since = updated;
+   }
+
+   private static final class Snapshot {
+      private final long refreshed;
+      private final Map<String, NodeMetadata> nodes = Maps.newLinkedHashMap();
+      /**
+       * the latest update time seen, as reported by Nova, so that no clock skew applies
+       */
+      private Date since;
+
+      private Snapshot(long refreshed) {
+         this.refreshed = refreshed;
+      }
+   }
+}
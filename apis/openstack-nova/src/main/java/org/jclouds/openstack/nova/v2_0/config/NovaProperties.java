@@ -38,4 +38,11 @@ public class NovaProperties {
     */
    public static final String AUTO_GENERATE_KEYPAIRS = "jclouds.openstack-nova.auto-generate-keypairs";
 
+   /**
+    * Maximum age, in seconds, of a region snapshot kept by
+    * {@link org.jclouds.openstack.nova.v2_0.compute.NodeInventory} before it is refreshed by a full listing
+    * rather than by the servers changed since. Bounds how long records of deleted servers must be kept by Nova.
+    */
+   public static final String INVENTORY_FULL_REFRESH_INTERVAL = "jclouds.openstack-nova.inventory.full-refresh-interval";
+
 }
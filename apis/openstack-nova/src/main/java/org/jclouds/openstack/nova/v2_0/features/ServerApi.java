@@ -18,6 +18,7 @@ package org.jclouds.openstack.nova.v2_0.features;
 
 import com.google.common.base.Optional;
 
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -34,6 +35,7 @@ import javax.ws.rs.core.MediaType;
 
 import org.jclouds.Fallbacks;
 import org.jclouds.Fallbacks.AbsentOn403Or404Or500;
+import org.jclouds.Fallbacks.EmptyIteratorOnNotFoundOr404;
 import org.jclouds.Fallbacks.EmptyMapOnNotFoundOr404;
 import org.jclouds.Fallbacks.EmptyPagedIterableOnNotFoundOr404;
 import org.jclouds.Fallbacks.FalseOnNotFoundOr404;
@@ -116,6 +118,26 @@ public interface ServerApi {
    @Fallback(EmptyPaginatedCollectionOnNotFoundOr404.class)
    PaginatedCollection<Server> listInDetail(PaginationOptions options);
 
+   /**
+    * List servers (all details), parsing each one only as the iterator reaches it, so that a large page is never
+    * held in memory at once. Close the iterator through {@link java.io.Closeable} if you stop before its end.
+    *
+    * @return the servers of the first page (all details)
+    */
+   @Named("server:list")
+   @GET
+   @Path("/detail")
+   @SelectJson("servers")
+   @Fallback(EmptyIteratorOnNotFoundOr404.class)
+   Iterator<Server> streamInDetail();
+
+   @Named("server:list")
+   @GET
+   @Path("/detail")
+   @SelectJson("servers")
+   @Fallback(EmptyIteratorOnNotFoundOr404.class)
+   Iterator<Server> streamInDetail(PaginationOptions options);
+
    /**
     * List details of the specified server
     *
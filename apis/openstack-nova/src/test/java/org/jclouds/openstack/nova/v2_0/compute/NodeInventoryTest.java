@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.nova.v2_0.compute;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.jclouds.openstack.nova.v2_0.options.ListOptions.Builder.changesSince;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.util.Set;
+
+import org.jclouds.collect.IterableWithMarkers;
+import org.jclouds.collect.PagedIterables;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.openstack.nova.v2_0.NovaApi;
+import org.jclouds.openstack.nova.v2_0.domain.Server;
+import org.jclouds.openstack.nova.v2_0.domain.regionscoped.ServerInRegion;
+import org.jclouds.openstack.nova.v2_0.features.ServerApi;
+import org.jclouds.openstack.nova.v2_0.parse.ParseServerTest;
+import org.jclouds.openstack.v2_0.domain.Link;
+import org.jclouds.openstack.v2_0.domain.PaginatedCollection;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+@Test(groups = "unit", testName = "NodeInventoryTest")
+public class NodeInventoryTest {
+
+   private static final String REGION = "az-1.region-a.geo-1";
+   private static final Supplier<Set<String>> REGIONS = Suppliers.<Set<String>> ofInstance(ImmutableSet.of(REGION));
+
+   private final Server existing = new ParseServerTest().expected();
+   private final Server added = existing.toBuilder().id("71753").build();
+   private final Server deleted = existing.toBuilder().status(Server.Status.DELETED).build();
+
+   private final Function<ServerInRegion, NodeMetadata> toNode = new Function<ServerInRegion, NodeMetadata>() {
+      @Override
+      public NodeMetadata apply(ServerInRegion input) {
+         return new NodeMetadataBuilder().ids(input.getServer().getId()).status(NodeMetadata.Status.RUNNING).build();
+      }
+   };
+
+   private static class FakeTicker extends Ticker {
+      private long nanos;
+
+      @Override
+      public long read() {
+         return nanos;
+      }
+   }
+
+   public void testFirstSyncListsAllThenOnlyChanges() {
+      NovaApi novaApi = createMock(NovaApi.class);
+      ServerApi serverApi = createMock(ServerApi.class);
+
+      expect(novaApi.getServerApi(REGION)).andReturn(serverApi).times(2);
+      expect(serverApi.listInDetail()).andReturn(PagedIterables.onlyPage(IterableWithMarkers.from(
+            ImmutableList.of(existing))));
+      expect(serverApi.listInDetail(changesSince(existing.getUpdated()))).andReturn(page(added, deleted));
+
+      replay(novaApi, serverApi);
+
+      NodeInventory inventory = new NodeInventory(novaApi, REGIONS, toNode, new FakeTicker());
+      assertEquals(ids(inventory.sync()), ImmutableSet.of("71752"));
+      assertEquals(ids(inventory.sync()), ImmutableSet.of("71753"));
+
+      verify(novaApi, serverApi);
+   }
+
+   public void testListsAllOnceSnapshotIsStale() {
+      NovaApi novaApi = createMock(NovaApi.class);
+      ServerApi serverApi = createMock(ServerApi.class);
+
+      expect(novaApi.getServerApi(REGION)).andReturn(serverApi).times(2);
+      expect(serverApi.listInDetail()).andReturn(PagedIterables.onlyPage(IterableWithMarkers.from(
+            ImmutableList.of(existing)))).times(2);
+
+      replay(novaApi, serverApi);
+
+      FakeTicker ticker = new FakeTicker();
+      NodeInventory inventory = new NodeInventory(novaApi, REGIONS, toNode, ticker);
+      inventory.sync();
+      ticker.nanos += (inventory.fullRefreshInterval + 1) * 1000000000L;
+      assertEquals(ids(inventory.sync()), ImmutableSet.of("71752"));
+
+      verify(novaApi, serverApi);
+   }
+
+   public void testListsAllAfterFailedSync() {
+      NovaApi novaApi = createMock(NovaApi.class);
+      ServerApi serverApi = createMock(ServerApi.class);
+
+      expect(novaApi.getServerApi(REGION)).andReturn(serverApi).times(3);
+      expect(serverApi.listInDetail()).andReturn(PagedIterables.onlyPage(IterableWithMarkers.from(
+            ImmutableList.of(existing)))).times(2);
+      expect(serverApi.listInDetail(changesSince(existing.getUpdated()))).andThrow(new IllegalStateException("boom"));
+
+      replay(novaApi, serverApi);
+
+      NodeInventory inventory = new NodeInventory(novaApi, REGIONS, toNode, new FakeTicker());
+      inventory.sync();
+      try {
+         inventory.sync();
+         fail("expected the failure to propagate");
+      } catch (IllegalStateException e) {
+      }
+      assertEquals(ids(inventory.sync()), ImmutableSet.of("71752"));
+
+      verify(novaApi, serverApi);
+   }
+
+   private static PaginatedCollection<Server> page(Server... servers) {
+      return new PaginatedCollection<Server>(ImmutableList.copyOf(servers), ImmutableList.<Link> of()) {
+      };
+   }
+
+   private static Set<String> ids(Set<NodeMetadata> nodes) {
+      ImmutableSet.Builder<String> ids = ImmutableSet.builder();
+      for (NodeMetadata node : nodes) {
+         ids.add(node.getId());
+      }
+      return ids.build();
+   }
+}
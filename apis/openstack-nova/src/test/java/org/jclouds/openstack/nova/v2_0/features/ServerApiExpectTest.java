@@ -17,8 +17,12 @@
 package org.jclouds.openstack.nova.v2_0.features;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
+import java.io.Closeable;
+import java.util.Iterator;
+
 import com.google.common.collect.Iterables;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
@@ -38,6 +42,7 @@ import org.jclouds.openstack.nova.v2_0.parse.ParseServerListTest;
 import org.jclouds.util.Strings2;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
@@ -87,6 +92,43 @@ public class ServerApiExpectTest extends BaseNovaApiExpectTest {
               new ParseServerDetailsStatesTest().expected().toString());
    }
 
+   public void testStreamInDetailServersWhenResponseIs2xx() throws Exception {
+      HttpRequest listServers = HttpRequest
+              .builder()
+              .method("GET")
+              .endpoint("https://az-1.region-a.geo-1.compute.hpcloudsvc.com/v2/3456/servers/detail")
+              .addHeader("Accept", "application/json")
+              .addHeader("X-Auth-Token", authToken).build();
+
+      HttpResponse listInDetailServersResponse = HttpResponse.builder().statusCode(200)
+              .payload(payloadFromResource("/server_list_details_states.json")).build();
+
+      NovaApi apiWhenServersExist = requestsSendResponses(keystoneAuthWithUsernameAndPasswordAndTenantName,
+              responseWithKeystoneAccess, listServers, listInDetailServersResponse);
+
+      Iterator<Server> servers = apiWhenServersExist.getServerApi("az-1.region-a.geo-1").streamInDetail();
+
+      assertTrue(servers instanceof Closeable);
+      assertEquals(ImmutableList.copyOf(servers).toString(),
+              new ParseServerDetailsStatesTest().expected().toString());
+   }
+
+   public void testStreamInDetailServersWhenResponseIs404() throws Exception {
+      HttpRequest listServers = HttpRequest
+              .builder()
+              .method("GET")
+              .endpoint("https://az-1.region-a.geo-1.compute.hpcloudsvc.com/v2/3456/servers/detail")
+              .addHeader("Accept", "application/json")
+              .addHeader("X-Auth-Token", authToken).build();
+
+      HttpResponse listInDetailServersResponse = HttpResponse.builder().statusCode(404).build();
+
+      NovaApi apiWhenNoServersExist = requestsSendResponses(keystoneAuthWithUsernameAndPasswordAndTenantName,
+              responseWithKeystoneAccess, listServers, listInDetailServersResponse);
+
+      assertFalse(apiWhenNoServersExist.getServerApi("az-1.region-a.geo-1").streamInDetail().hasNext());
+   }
+
    public void testCreateServerWhenResponseIs202() throws Exception {
       HttpRequest createServer = HttpRequest.builder()
             .method("POST")
@@ -20,6 +20,7 @@ import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
 import static org.jclouds.openstack.keystone.config.KeystoneProperties.CREDENTIAL_TYPE;
 import static org.jclouds.openstack.keystone.config.KeystoneProperties.KEYSTONE_VERSION;
 import static org.jclouds.openstack.keystone.config.KeystoneProperties.SERVICE_TYPE;
+import static org.jclouds.openstack.swift.v1.config.SwiftProperties.EXTRACT_ARCHIVE_PUTS;
 import static org.jclouds.openstack.swift.v1.reference.TempAuthHeaders.DEFAULT_HEADER_PASS;
 import static org.jclouds.openstack.swift.v1.reference.TempAuthHeaders.DEFAULT_HEADER_USER;
 import static org.jclouds.openstack.swift.v1.reference.TempAuthHeaders.TEMP_AUTH_HEADER_PASS;
@@ -71,6 +72,7 @@ public class SwiftApiMetadata extends BaseHttpApiMetadata<SwiftApi> {
       properties.setProperty(CREDENTIAL_TYPE, CredentialTypes.PASSWORD_CREDENTIALS);
       properties.setProperty(TEMP_AUTH_HEADER_USER, DEFAULT_HEADER_USER);
       properties.setProperty(TEMP_AUTH_HEADER_PASS, DEFAULT_HEADER_PASS);
+      properties.setProperty(EXTRACT_ARCHIVE_PUTS, "false");
       return properties;
    }
 
@@ -21,8 +21,10 @@ import javax.inject.Inject;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.attr.ConsistencyModel;
+import org.jclouds.blobstore.strategy.PutBlobsStrategy;
 import org.jclouds.openstack.swift.v1.blobstore.RegionScopedBlobStoreContext;
 import org.jclouds.openstack.swift.v1.blobstore.RegionScopedSwiftBlobStore;
+import org.jclouds.openstack.swift.v1.blobstore.strategy.ExtractArchivePutBlobsStrategy;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ForwardingObject;
@@ -37,6 +39,7 @@ public class SwiftBlobStoreContextModule extends AbstractModule {
       bind(ConsistencyModel.class).toInstance(ConsistencyModel.EVENTUAL);
       bind(BlobStoreContext.class).to(RegionScopedBlobStoreContext.class);
       install(new FactoryModuleBuilder().build(Factory.class));
+      bind(PutBlobsStrategy.class).to(ExtractArchivePutBlobsStrategy.class);
    }
 
    public interface Factory {
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.swift.v1.blobstore.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.util.Strings2.urlDecode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
+import org.jclouds.blobstore.strategy.ReportingPutBlobsStrategy;
+import org.jclouds.blobstore.strategy.internal.PutBlobsWindow;
+import org.jclouds.io.ContentMetadata;
+import org.jclouds.location.Region;
+import org.jclouds.logging.Logger;
+import org.jclouds.openstack.swift.v1.SwiftApi;
+import org.jclouds.openstack.swift.v1.config.SwiftProperties;
+import org.jclouds.openstack.swift.v1.domain.ExtractArchiveResponse;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.Inject;
+
+/**
+ * Puts small blobs in batches, each uploaded as one tar archive which Swift expands with {@code extract-archive}.
+ * Blobs which are large, carry user or content metadata or have an unknown length are put individually. At most
+ * {@link BlobStoreConstants#PROPERTY_BLOBSTORE_PUT_CONCURRENCY} batches or puts are in flight at a time.
+ * <p>
+ * Objects created from an archive are reported without an ETag; their content type is guessed by Swift. When an
+ * archive cannot be extracted as a whole, for example because the bulk middleware is not installed, its blobs are
+ * put individually.
+ * <p>
+ * Archives are only used when {@link SwiftProperties#EXTRACT_ARCHIVE_PUTS} is enabled; otherwise every blob is
+ * put individually.
+ */
+@Singleton
+public class ExtractArchivePutBlobsStrategy implements ReportingPutBlobsStrategy {
+   static final long MAX_ARCHIVED_BLOB_SIZE = 1024 * 1024;
+   static final int MAX_ARCHIVE_ENTRIES = 1000;
+   static final long MAX_ARCHIVE_SIZE = 32 * 1024 * 1024;
+   private static final String DEFAULT_CONTENT_TYPE = "application/unknown";
+
+   private final SwiftApi api;
+   private final Supplier<String> implicitRegionId;
+   private final Function<String, BlobStore> blobStores;
+   private final ListeningExecutorService userExecutor;
+   @Resource
+   @Named(BlobStoreConstants.BLOBSTORE_LOGGER)
+   protected Logger logger = Logger.NULL;
+   /**
+    * maximum duration of an blob Request
+    */
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_REQUEST_TIMEOUT)
+   protected Long maxTime;
+
+   @Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_BLOBSTORE_PUT_CONCURRENCY)
+   protected int concurrency = 16;
+
+   @Inject(optional = true)
+   @Named(SwiftProperties.EXTRACT_ARCHIVE_PUTS)
+   protected boolean extractArchive = false;
+
+   @Inject
+   ExtractArchivePutBlobsStrategy(SwiftApi api, @Region Supplier<String> implicitRegionId,
+         Function<String, BlobStore> blobStores,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      this.api = checkNotNull(api, "api");
+      this.implicitRegionId = checkNotNull(implicitRegionId, "implicitRegionId");
+      this.blobStores = checkNotNull(blobStores, "blobStores");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+   }
+
+   @Override
+   public void execute(String containerName, Iterable<? extends Blob> blobs) {
+      PutBlobsWindow.executeAll(this, containerName, blobs);
+   }
+
+   @Override
+   public void execute(final String containerName, Iterable<? extends Blob> blobs, final Callback callback) {
+      final String regionId = implicitRegionId.get();
+      final BlobStore blobStore = blobStores.apply(regionId);
+      PutBlobsWindow window = new PutBlobsWindow(userExecutor, concurrency);
+      List<Blob> batch = Lists.newArrayList();
+      long batchSize = 0;
+      for (final Blob blob : blobs) {
+         if (!extractArchive || !isArchivable(blob)) {
+            submit(window, ImmutableList.of(blob), new Callable<Map<Blob, Exception>>() {
+               @Override
+               public Map<Blob, Exception> call() {
+                  blobStore.putBlob(containerName, blob);
+                  return ImmutableMap.of();
+               }
+            }, callback);
+            continue;
+         }
+         long entryLength = TarArchive.entryLength(blob.getMetadata().getContentMetadata().getContentLength());
+         if (!batch.isEmpty() && (batch.size() == MAX_ARCHIVE_ENTRIES || batchSize + entryLength > MAX_ARCHIVE_SIZE)) {
+            submitBatch(window, regionId, blobStore, containerName, batch, callback);
+            batch = Lists.newArrayList();
+            batchSize = 0;
+         }
+         batch.add(blob);
+         batchSize += entryLength;
+      }
+      if (!batch.isEmpty())
+         submitBatch(window, regionId, blobStore, containerName, batch, callback);
+      window.awaitCompletion(maxTime, containerName);
+   }
+
+   private void submitBatch(PutBlobsWindow window, final String regionId, final BlobStore blobStore,
+         final String containerName, final List<Blob> batch, Callback callback) {
+      submit(window, batch, new Callable<Map<Blob, Exception>>() {
+         @Override
+         public Map<Blob, Exception> call() {
+            logger.debug(">> extracting %d blobs into container %s", batch.size(), containerName);
+            ExtractArchiveResponse response;
+            try {
+               response = api.getBulkApi(regionId).extractArchive(containerName, TarArchive.of(batch), "tar");
+            } catch (RuntimeException e) {
+               logger.warn(e, "<< could not extract %d blobs into container %s, putting them individually",
+                     batch.size(), containerName);
+               return putIndividually(blobStore, containerName, batch, e);
+            }
+            Map<Blob, Exception> failures = Maps.newHashMap();
+            for (Map.Entry<String, String> error : response.getErrors().entrySet()) {
+               Blob blob = find(batch, containerName, error.getKey());
+               if (blob != null)
+                  failures.put(blob, new BlobRuntimeException(String.format("error extracting %s into container %s: %s",
+                        blob.getMetadata().getName(), containerName, error.getValue())));
+            }
+            logger.debug("<< extracted %d blobs into container %s", response.getCreated(), containerName);
+            return failures;
+         }
+      }, callback);
+   }
+
+   /**
+    * Puts the blobs of a batch whose archive could not be extracted one by one. Blobs whose content cannot be read
+    * again fail with {@code cause}.
+    */
+   private static Map<Blob, Exception> putIndividually(BlobStore blobStore, String containerName, List<Blob> batch,
+         Exception cause) {
+      Map<Blob, Exception> failures = Maps.newHashMap();
+      for (Blob blob : batch) {
+         if (!blob.getPayload().isRepeatable()) {
+            failures.put(blob, cause);
+            continue;
+         }
+         try {
+            blobStore.putBlob(containerName, blob);
+         } catch (RuntimeException e) {
+            failures.put(blob, e);
+         }
+      }
+      return failures;
+   }
+
+   /**
+    * Runs {@code task} once {@code window} has a free slot, then reports each blob of {@code blobs} to
+    * {@code callback}: as failed if it is in the map returned by the task or if the task itself failed.
+    */
+   private static void submit(PutBlobsWindow window, final List<Blob> blobs, Callable<Map<Blob, Exception>> task,
+         final Callback callback) {
+      window.submit(task, new FutureCallback<Map<Blob, Exception>>() {
+         @Override
+         public void onSuccess(Map<Blob, Exception> failures) {
+            for (Blob blob : blobs) {
+               Exception failure = failures.get(blob);
+               if (failure == null)
+                  callback.onSuccess(blob, null);
+               else
+                  callback.onFailure(blob, failure);
+            }
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            Exception e = t instanceof Exception ? (Exception) t : new ExecutionException(t);
+            for (Blob blob : blobs)
+               callback.onFailure(blob, e);
+         }
+      });
+   }
+
+   /**
+    * Extracted objects carry no user metadata and only the content type Swift guesses, so only small blobs of known
+    * length without any metadata of their own are archived.
+    */
+   static boolean isArchivable(Blob blob) {
+      ContentMetadata content = blob.getMetadata().getContentMetadata();
+      Long length = content.getContentLength();
+      return length != null && length <= MAX_ARCHIVED_BLOB_SIZE && blob.getMetadata().getUserMetadata().isEmpty()
+            && hasDefaultContentMetadata(content) && TarArchive.canArchive(blob.getMetadata().getName());
+   }
+
+   private static boolean hasDefaultContentMetadata(ContentMetadata content) {
+      return (content.getContentType() == null || DEFAULT_CONTENT_TYPE.equals(content.getContentType()))
+            && content.getContentEncoding() == null && content.getContentDisposition() == null
+            && content.getContentLanguage() == null && content.getCacheControl() == null
+            && content.getExpires() == null;
+   }
+
+   /**
+    * @return the blob of {@code batch} an extract-archive error path like {@code /container/name} or
+    *         {@code /v1/account/container/name}, which Swift URL-encodes, refers to
+    */
+   @VisibleForTesting
+   static Blob find(List<Blob> batch, String containerName, String encodedPath) {
+      String path = urlDecode(encodedPath);
+      String prefix = "/" + containerName + "/";
+      for (Blob blob : batch) {
+         String objectPath = prefix + blob.getMetadata().getName();
+         if (path.equals(objectPath) || objectPath.equals(withoutAccount(path, objectPath)))
+            return blob;
+      }
+      return null;
+   }
+
+   /**
+    * @return {@code path} without its leading {@code /version/account} segments, or null if it has none
+    */
+   private static String withoutAccount(String path, String objectPath) {
+      if (path.length() <= objectPath.length())
+         return null;
+      int version = path.indexOf('/', 1);
+      int account = version == -1 ? -1 : path.indexOf('/', version + 1);
+      return account == -1 ? null : path.substring(account);
+   }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.swift.v1.blobstore.strategy;
+
+import static com.google.common.base.Charsets.US_ASCII;
+import static com.google.common.base.Charsets.UTF_8;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteSource;
+
+/**
+ * Streams blobs as a POSIX ustar archive, suitable for {@code extract-archive}. Headers are generated up front, so
+ * the length of the archive is known before any blob is read.
+ */
+final class TarArchive {
+   static final int BLOCK_SIZE = 512;
+   private static final int NAME_LENGTH = 100;
+   private static final int PREFIX_LENGTH = 155;
+
+   /**
+    * @return true if {@code name} fits the name and prefix fields of a ustar header
+    */
+   static boolean canArchive(String name) {
+      byte[] bytes = name.getBytes(UTF_8);
+      return bytes.length <= NAME_LENGTH || split(bytes) != -1;
+   }
+
+   /**
+    * @return the number of bytes taken by an entry of {@code size} bytes, header included
+    */
+   static long entryLength(long size) {
+      return BLOCK_SIZE + (size + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+   }
+
+   /**
+    * @return an archive of {@code blobs}, whose content lengths must be known
+    */
+   static Payload of(List<? extends Blob> blobs) {
+      long now = System.currentTimeMillis() / 1000;
+      List<ByteSource> parts = Lists.newArrayList();
+      long length = 2 * BLOCK_SIZE;
+      for (Blob blob : blobs) {
+         long size = blob.getMetadata().getContentMetadata().getContentLength();
+         parts.add(ByteSource.wrap(header(blob.getMetadata().getName(), size, now)));
+         parts.add(content(blob.getPayload()).slice(0, size));
+         long entryLength = entryLength(size);
+         parts.add(ByteSource.wrap(new byte[(int) (entryLength - BLOCK_SIZE - size)]));
+         length += entryLength;
+      }
+      // end of archive: two empty blocks
+      parts.add(ByteSource.wrap(new byte[2 * BLOCK_SIZE]));
+      Payload archive = Payloads.newByteSourcePayload(ByteSource.concat(parts));
+      archive.getContentMetadata().setContentLength(length);
+      archive.getContentMetadata().setContentType("application/x-tar");
+      return archive;
+   }
+
+   static byte[] header(String name, long size, long modified) {
+      byte[] header = new byte[BLOCK_SIZE];
+      byte[] bytes = name.getBytes(UTF_8);
+      if (bytes.length <= NAME_LENGTH) {
+         System.arraycopy(bytes, 0, header, 0, bytes.length);
+      } else {
+         int split = split(bytes);
+         if (split == -1)
+            throw new IllegalArgumentException("name too long for a tar entry: " + name);
+         System.arraycopy(bytes, split + 1, header, 0, bytes.length - split - 1);
+         System.arraycopy(bytes, 0, header, 345, split);
+      }
+      octal(header, 100, 8, 0644);
+      octal(header, 108, 8, 0);
+      octal(header, 116, 8, 0);
+      octal(header, 124, 12, size);
+      octal(header, 136, 12, modified);
+      header[156] = '0';
+      ascii(header, 257, "ustar\0");
+      ascii(header, 263, "00");
+      // the checksum is computed with its own field set to spaces
+      ascii(header, 148, "        ");
+      long checksum = 0;
+      for (byte b : header)
+         checksum += b & 0xff;
+      octal(header, 148, 7, checksum);
+      header[155] = ' ';
+      return header;
+   }
+
+   /**
+    * @return the index of a slash splitting {@code name} into a prefix and a name that fit their fields, or -1
+    */
+   private static int split(byte[] name) {
+      for (int i = Math.min(name.length - 1, PREFIX_LENGTH); i > 0; i--) {
+         if (name[i] == '/')
+            return name.length - i - 1 <= NAME_LENGTH && name.length - i - 1 > 0 ? i : -1;
+      }
+      return -1;
+   }
+
+   /**
+    * Writes {@code value} as zero-padded octal digits followed by a NUL.
+    */
+   private static void octal(byte[] header, int offset, int length, long value) {
+      String digits = Long.toOctalString(value);
+      StringBuilder field = new StringBuilder();
+      for (int i = digits.length(); i < length - 1; i++)
+         field.append('0');
+      ascii(header, offset, field.append(digits).append('\0').toString());
+   }
+
+   private static void ascii(byte[] header, int offset, String value) {
+      byte[] bytes = value.getBytes(US_ASCII);
+      System.arraycopy(bytes, 0, header, offset, bytes.length);
+   }
+
+   private static ByteSource content(final Payload payload) {
+      return new ByteSource() {
+         @Override
+         public InputStream openStream() throws IOException {
+            return payload.openStream();
+         }
+      };
+   }
+
+   private TarArchive() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
@@ -45,6 +45,7 @@ import org.jclouds.openstack.swift.v1.options.CreateContainerOptions;
 import org.jclouds.openstack.swift.v1.options.ListContainerOptions;
 import org.jclouds.openstack.swift.v1.options.UpdateContainerOptions;
 import org.jclouds.rest.annotations.BinderParam;
+import org.jclouds.rest.annotations.ConditionalGet;
 import org.jclouds.rest.annotations.Fallback;
 import org.jclouds.rest.annotations.QueryParams;
 import org.jclouds.rest.annotations.RequestFilters;
@@ -77,6 +78,7 @@ public interface ContainerApi {
     */
    @Named("container:list")
    @GET
+   @ConditionalGet
    @Fallback(EmptyFluentIterableOnNotFoundOr404.class)
    @QueryParams(keys = "format", values = "json")
    FluentIterable<Container> list();
@@ -96,6 +98,7 @@ public interface ContainerApi {
     */
    @Named("container:list")
    @GET
+   @ConditionalGet
    @Fallback(EmptyFluentIterableOnNotFoundOr404.class)
    @QueryParams(keys = "format", values = "json")
    FluentIterable<Container> list(ListContainerOptions options);
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.swift.v1.blobstore;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.jclouds.Constants.PROPERTY_COALESCE_REQUESTS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.openstack.swift.v1.SwiftApi;
+import org.jclouds.openstack.v2_0.internal.BaseOpenStackMockTest;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.QueueDispatcher;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+@Test(groups = "unit", testName = "RegionScopedSwiftBlobStoreMockTest")
+public class RegionScopedSwiftBlobStoreMockTest extends BaseOpenStackMockTest<SwiftApi> {
+   private static final int CALLERS = 8;
+
+   public void testConcurrentBlobMetadataCallsShareOneRequest() throws Exception {
+      MockWebServer server = mockOpenStackServer();
+      final QueueDispatcher queue = getURLReplacingQueueDispatcher(server.getUrl(""));
+      server.setDispatcher(new QueueDispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            // keeps the first metadata request in flight while the other callers arrive
+            if ("HEAD".equals(request.getMethod()))
+               Thread.sleep(500);
+            return queue.dispatch(request);
+         }
+
+         @Override
+         public void enqueueResponse(MockResponse response) {
+            queue.enqueueResponse(response);
+         }
+      });
+      server.enqueue(addCommonHeaders(new MockResponse().setBody(stringFromResource("/access.json"))));
+      server.enqueue(addCommonHeaders(new MockResponse()
+            .addHeader("Last-Modified", "Fri, 12 Jun 2010 13:40:18 GMT")
+            .addHeader("ETag", "8a964ee2a5e88be344f36c22562a6486")
+            .addHeader("Content-Type", "text/plain; charset=UTF-8")));
+
+      Properties overrides = new Properties();
+      overrides.setProperty(PROPERTY_COALESCE_REQUESTS, "true");
+      final BlobStore blobStore = ContextBuilder.newBuilder("openstack-swift")
+            .credentials("jclouds:joe", "letmein")
+            .endpoint(server.getUrl("/").toString())
+            .overrides(overrides)
+            .modules(ImmutableSet.<Module> of(new ExecutorServiceModule(newDirectExecutorService())))
+            .buildView(RegionScopedBlobStoreContext.class).getBlobStore("DFW");
+      ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+      try {
+         List<Future<BlobMetadata>> results = Lists.newArrayList();
+         for (int i = 0; i < CALLERS; i++) {
+            results.add(callers.submit(new Callable<BlobMetadata>() {
+               @Override
+               public BlobMetadata call() {
+                  return blobStore.blobMetadata("myContainer", "myObject");
+               }
+            }));
+         }
+         for (Future<BlobMetadata> result : results)
+            assertEquals(result.get().getETag(), "8a964ee2a5e88be344f36c22562a6486");
+         // every caller parsed a copy of its own
+         assertNotSame(results.get(0).get(), results.get(1).get());
+
+         assertEquals(server.getRequestCount(), 2);
+         assertAuthentication(server);
+         assertEquals(server.takeRequest().getRequestLine(),
+               "HEAD /v1/MossoCloudFS_5bcf396e-39dd-45ff-93a1-712b9aba90a9/myContainer/myObject HTTP/1.1");
+      } finally {
+         callers.shutdownNow();
+         blobStore.getContext().close();
+         server.shutdown();
+      }
+   }
+}
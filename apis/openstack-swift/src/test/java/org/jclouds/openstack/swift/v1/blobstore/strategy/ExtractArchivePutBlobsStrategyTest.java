@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.swift.v1.blobstore.strategy;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.same;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
+import org.jclouds.blobstore.strategy.ReportingPutBlobsStrategy;
+import org.jclouds.io.Payload;
+import org.jclouds.openstack.swift.v1.SwiftApi;
+import org.jclouds.openstack.swift.v1.domain.ExtractArchiveResponse;
+import org.jclouds.openstack.swift.v1.features.BulkApi;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Functions;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "ExtractArchivePutBlobsStrategyTest")
+public class ExtractArchivePutBlobsStrategyTest {
+
+   private static Blob blob(String name) {
+      return new BlobBuilderImpl().name(name).payload("content of " + name).build();
+   }
+
+   public void testArchivesOnlyBlobsWithDefaultMetadata() {
+      assertTrue(ExtractArchivePutBlobsStrategy.isArchivable(blob("plain")));
+      assertTrue(ExtractArchivePutBlobsStrategy.isArchivable(new BlobBuilderImpl().name("unknown")
+            .payload("content").contentType("application/unknown").build()));
+      assertFalse(ExtractArchivePutBlobsStrategy.isArchivable(new BlobBuilderImpl().name("user")
+            .payload("content").userMetadata(ImmutableMap.of("key", "value")).build()));
+      assertFalse(ExtractArchivePutBlobsStrategy.isArchivable(new BlobBuilderImpl().name("type")
+            .payload("content").contentType("text/plain").build()));
+      assertFalse(ExtractArchivePutBlobsStrategy.isArchivable(new BlobBuilderImpl().name("encoding")
+            .payload("content").contentEncoding("gzip").build()));
+      assertFalse(ExtractArchivePutBlobsStrategy.isArchivable(new BlobBuilderImpl().name("disposition")
+            .payload("content").contentDisposition("attachment").build()));
+      assertFalse(ExtractArchivePutBlobsStrategy.isArchivable(new BlobBuilderImpl().name("cache")
+            .payload("content").cacheControl("no-cache").build()));
+      assertFalse(ExtractArchivePutBlobsStrategy.isArchivable(new BlobBuilderImpl().name("expires")
+            .payload("content").expires(new Date()).build()));
+      assertFalse(ExtractArchivePutBlobsStrategy.isArchivable(new BlobBuilderImpl().name("large")
+            .payload(new byte[(int) ExtractArchivePutBlobsStrategy.MAX_ARCHIVED_BLOB_SIZE + 1]).build()));
+   }
+
+   public void testFindMatchesExactPath() {
+      Blob a = blob("a");
+      Blob dirA = blob("dir/a");
+      List<Blob> batch = ImmutableList.of(a, dirA);
+      assertSame(ExtractArchivePutBlobsStrategy.find(batch, "container", "/container/a"), a);
+      assertSame(ExtractArchivePutBlobsStrategy.find(batch, "container", "/v1/AUTH_account/container/a"), a);
+      assertSame(ExtractArchivePutBlobsStrategy.find(batch, "container", "/v1/AUTH_account/container/dir/a"), dirA);
+      assertNull(ExtractArchivePutBlobsStrategy.find(batch, "container", "/v1/AUTH_account/other/container/a"));
+      assertNull(ExtractArchivePutBlobsStrategy.find(batch, "container", "/v1/AUTH_account/container/b/a"));
+   }
+
+   public void testFindDecodesPath() {
+      Blob spaced = blob("dir/a b");
+      assertSame(ExtractArchivePutBlobsStrategy.find(ImmutableList.of(spaced), "container",
+            "/v1/AUTH_account/container/dir/a%20b"), spaced);
+   }
+
+   private static ExtractArchivePutBlobsStrategy strategy(SwiftApi api, BlobStore blobStore, boolean extractArchive) {
+      ExtractArchivePutBlobsStrategy strategy = new ExtractArchivePutBlobsStrategy(api,
+            Suppliers.ofInstance("region"), Functions.forMap(ImmutableMap.of("region", blobStore)),
+            MoreExecutors.newDirectExecutorService());
+      strategy.extractArchive = extractArchive;
+      return strategy;
+   }
+
+   /**
+    * @return the names of the blobs which were put, followed by the names of those which failed after a "!"
+    */
+   private static List<String> execute(ExtractArchivePutBlobsStrategy strategy, List<Blob> blobs) {
+      final List<String> succeeded = new CopyOnWriteArrayList<String>();
+      final List<String> failed = new CopyOnWriteArrayList<String>();
+      strategy.execute("container", blobs, new ReportingPutBlobsStrategy.Callback() {
+         @Override
+         public void onSuccess(Blob blob, String eTag) {
+            succeeded.add(blob.getMetadata().getName());
+         }
+
+         @Override
+         public void onFailure(Blob blob, Exception e) {
+            failed.add("!" + blob.getMetadata().getName());
+         }
+      });
+      return ImmutableList.<String> builder().addAll(succeeded).addAll(failed).build();
+   }
+
+   public void testArchivesSmallBlobsAndPutsOthersIndividually() {
+      SwiftApi api = createMock(SwiftApi.class);
+      BulkApi bulkApi = createMock(BulkApi.class);
+      BlobStore blobStore = createMock(BlobStore.class);
+      Blob a = blob("a");
+      Blob b = blob("b");
+      Blob typed = new BlobBuilderImpl().name("typed").payload("content").contentType("text/plain").build();
+
+      expect(api.getBulkApi("region")).andReturn(bulkApi);
+      expect(bulkApi.extractArchive(eq("container"), anyObject(Payload.class), eq("tar"))).andReturn(
+            ExtractArchiveResponse.create(1, ImmutableMap.of("/v1/AUTH_account/container/b", "400 Bad Request")));
+      expect(blobStore.putBlob(eq("container"), same(typed))).andReturn("etag");
+      replay(api, bulkApi, blobStore);
+
+      assertEquals(execute(strategy(api, blobStore, true), ImmutableList.of(a, typed, b)),
+            ImmutableList.of("typed", "a", "!b"));
+      verify(api, bulkApi, blobStore);
+   }
+
+   public void testPutsEveryBlobIndividuallyUnlessEnabled() {
+      SwiftApi api = createMock(SwiftApi.class);
+      BlobStore blobStore = createMock(BlobStore.class);
+      Blob a = blob("a");
+      Blob b = blob("b");
+
+      expect(blobStore.putBlob(eq("container"), same(a))).andReturn("etag");
+      expect(blobStore.putBlob(eq("container"), same(b))).andReturn("etag");
+      replay(api, blobStore);
+
+      assertEquals(execute(strategy(api, blobStore, false), ImmutableList.of(a, b)), ImmutableList.of("a", "b"));
+      verify(api, blobStore);
+   }
+
+   public void testPutsBatchIndividuallyWhenArchiveFails() {
+      SwiftApi api = createMock(SwiftApi.class);
+      BulkApi bulkApi = createMock(BulkApi.class);
+      BlobStore blobStore = createMock(BlobStore.class);
+      Blob a = blob("a");
+      Blob b = blob("b");
+
+      expect(api.getBulkApi("region")).andReturn(bulkApi);
+      expect(bulkApi.extractArchive(eq("container"), anyObject(Payload.class), eq("tar"))).andThrow(
+            new IllegalStateException("extract-archive is not supported"));
+      expect(blobStore.putBlob(eq("container"), same(a))).andReturn("etag");
+      expect(blobStore.putBlob(eq("container"), same(b))).andThrow(new IllegalStateException("too bad"));
+      replay(api, bulkApi, blobStore);
+
+      assertEquals(execute(strategy(api, blobStore, true), ImmutableList.of(a, b)), ImmutableList.of("a", "!b"));
+      verify(api, bulkApi, blobStore);
+   }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.swift.v1.blobstore.strategy;
+
+import static com.google.common.base.Charsets.US_ASCII;
+import static com.google.common.base.Charsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
+import org.jclouds.io.Payload;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+
+@Test(groups = "unit", testName = "TarArchiveTest")
+public class TarArchiveTest {
+
+   public void testHeaderFields() {
+      byte[] header = TarArchive.header("dir/file.txt", 1234, 1500000000L);
+      assertEquals(field(header, 0, 12), "dir/file.txt");
+      assertEquals(field(header, 100, 7), "0000644");
+      assertEquals(field(header, 124, 11), "00000002322");
+      assertEquals(field(header, 136, 11), "13132027400");
+      assertEquals(header[156], '0');
+      assertEquals(field(header, 257, 5), "ustar");
+      assertEquals(field(header, 263, 2), "00");
+   }
+
+   public void testHeaderChecksum() {
+      byte[] header = TarArchive.header("file", 10, 0);
+      long sum = 0;
+      for (int i = 0; i < header.length; i++)
+         sum += i >= 148 && i < 156 ? ' ' : header[i] & 0xff;
+      assertEquals(Long.parseLong(field(header, 148, 6), 8), sum);
+      assertEquals(header[154], 0);
+      assertEquals(header[155], ' ');
+   }
+
+   public void testLongNameUsesPrefix() {
+      String dir = Strings.repeat("d", 120);
+      String name = dir + "/" + Strings.repeat("n", 90);
+      assertTrue(TarArchive.canArchive(name));
+      byte[] header = TarArchive.header(name, 0, 0);
+      assertEquals(field(header, 0, 90), Strings.repeat("n", 90));
+      assertEquals(field(header, 345, 120), dir);
+   }
+
+   public void testCanArchive() {
+      assertTrue(TarArchive.canArchive(Strings.repeat("n", 100)));
+      assertFalse(TarArchive.canArchive(Strings.repeat("n", 101)));
+      assertFalse(TarArchive.canArchive(Strings.repeat("d", 10) + "/" + Strings.repeat("n", 101)));
+      assertFalse(TarArchive.canArchive(Strings.repeat("d", 160) + "/" + Strings.repeat("n", 10)));
+   }
+
+   public void testArchiveLayout() throws IOException {
+      Blob small = new BlobBuilderImpl().name("a").payload("hello").build();
+      Blob block = new BlobBuilderImpl().name("b").payload(new byte[512]).build();
+      Payload archive = TarArchive.of(ImmutableList.of(small, block));
+      long length = archive.getContentMetadata().getContentLength();
+      assertEquals(length, 512 + 512 + 512 + 512 + 1024);
+      InputStream in = archive.openStream();
+      try {
+         byte[] bytes = ByteStreams.toByteArray(in);
+         assertEquals(bytes.length, length);
+         assertEquals(new String(bytes, 512, 5, UTF_8), "hello");
+         assertEquals(field(bytes, 1024, 1), "b");
+      } finally {
+         in.close();
+      }
+   }
+
+   private static String field(byte[] header, int offset, int length) {
+      return new String(header, offset, length, US_ASCII);
+   }
+}
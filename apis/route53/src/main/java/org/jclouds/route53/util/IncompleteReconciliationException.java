@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.route53.util;
+
+import java.util.List;
+
+import org.jclouds.route53.domain.Change;
+import org.jclouds.route53.domain.ChangeBatch;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Thrown by {@link ResourceRecordSetReconciler#apply} when a change batch fails. No batch is submitted after the
+ * failure; those already in flight are awaited so that the batches which did apply can be reported.
+ */
+public class IncompleteReconciliationException extends RuntimeException {
+   private static final long serialVersionUID = 1L;
+
+   private final ChangeBatch failed;
+   private final ImmutableList<ChangeBatch> applied;
+   private final ImmutableList<Change> changes;
+
+   public IncompleteReconciliationException(ChangeBatch failed, List<ChangeBatch> applied, List<Change> changes,
+         Throwable cause) {
+      super("applied " + applied.size() + " change batches before failing on " + failed, cause);
+      this.failed = failed;
+      this.applied = ImmutableList.copyOf(applied);
+      this.changes = ImmutableList.copyOf(changes);
+   }
+
+   /**
+    * the first batch which failed
+    */
+   public ChangeBatch getFailed() {
+      return failed;
+   }
+
+   /**
+    * batches which were applied, in submission order
+    */
+   public ImmutableList<ChangeBatch> getApplied() {
+      return applied;
+   }
+
+   /**
+    * the change of each {@link #getApplied() applied} batch
+    */
+   public ImmutableList<Change> getChanges() {
+      return changes;
+   }
+}
@@ -0,0 +1,416 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.route53.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jclouds.route53.Route53Api;
+import org.jclouds.route53.domain.Change;
+import org.jclouds.route53.domain.ChangeBatch;
+import org.jclouds.route53.domain.ResourceRecordSet;
+import org.jclouds.route53.domain.ResourceRecordSet.AliasTarget;
+import org.jclouds.route53.domain.ResourceRecordSet.RecordSubset;
+import org.jclouds.route53.domain.ResourceRecordSet.RecordSubset.Latency;
+import org.jclouds.route53.domain.ResourceRecordSet.RecordSubset.Weighted;
+import org.jclouds.route53.domain.ResourceRecordSetIterable;
+import org.jclouds.route53.domain.ResourceRecordSetIterable.NextRecord;
+import org.jclouds.route53.features.ResourceRecordSetApi;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Converges a hosted zone onto a desired set of resource record sets.
+ * <p/>
+ * {@link #plan} streams the current zone page by page and emits only the
+ * changes needed: unchanged record sets are left alone, changed ones become a
+ * {@code DELETE} of the current set followed by a {@code CREATE} of the desired
+ * one in the same batch, and record sets that are no longer desired are
+ * deleted. The {@code SOA} and apex {@code NS} record sets are never touched.
+ * <p/>
+ * Changes are grouped by record name so that everything affecting one name is
+ * applied atomically, then packed into as few batches as the service limits
+ * allow. {@link #apply} submits those batches in parallel, bounded by
+ * {@code maxInFlight}, as they touch disjoint names.
+ */
+@Beta
+public class ResourceRecordSetReconciler {
+
+   /**
+    * maximum number of changes in a single {@link ChangeBatch}.
+    */
+   public static final int MAX_CHANGES_PER_BATCH = 100;
+
+   /**
+    * maximum number of resource record values in a single {@link ChangeBatch}.
+    */
+   public static final int MAX_RECORDS_PER_BATCH = 1000;
+
+   /**
+    * maximum number of characters across all values in a single {@link ChangeBatch}.
+    */
+   public static final int MAX_VALUE_CHARACTERS_PER_BATCH = 32000;
+
+   private static final long MAX_POLL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+   private final Route53Api api;
+   private final ListeningExecutorService executor;
+   private final int maxInFlight;
+
+   /**
+    * @param executor
+    *           typically {@code context.utils().userExecutor()}
+    * @param maxInFlight
+    *           maximum number of change batches submitted at the same time;
+    *           keep this low as route53 throttles writes per account
+    */
+   public ResourceRecordSetReconciler(Route53Api api, ListeningExecutorService executor, int maxInFlight) {
+      this.api = checkNotNull(api, "api");
+      this.executor = checkNotNull(executor, "executor");
+      checkArgument(maxInFlight > 0, "maxInFlight must be positive");
+      this.maxInFlight = maxInFlight;
+   }
+
+   /**
+    * Plans, then applies the changes needed so that the zone contains exactly
+    * {@code desired}, apart from its {@code SOA} and apex {@code NS} records.
+    *
+    * @return the changes submitted, empty if the zone was already up to date
+    */
+   public List<Change> reconcile(String zoneId, Iterable<ResourceRecordSet> desired) {
+      return apply(zoneId, plan(zoneId, desired));
+   }
+
+   /**
+    * Computes the minimal change batches converging the zone onto
+    * {@code desired} without submitting anything.
+    */
+   public List<ChangeBatch> plan(String zoneId, Iterable<ResourceRecordSet> desired) {
+      checkNotNull(zoneId, "zoneId");
+      Map<String, ResourceRecordSet> toCreate = new LinkedHashMap<String, ResourceRecordSet>();
+      for (ResourceRecordSet rrs : checkNotNull(desired, "desired")) {
+         ResourceRecordSet replaced = toCreate.put(key(rrs), rrs);
+         checkArgument(replaced == null, "duplicate record set %s", rrs);
+      }
+      String apex = normalize(api.getHostedZoneApi().get(zoneId).getZone().getName());
+
+      Map<String, NameGroup> groups = new LinkedHashMap<String, NameGroup>();
+      ResourceRecordSetApi rrsApi = api.getResourceRecordSetApiForHostedZone(zoneId);
+      Optional<NextRecord> next = Optional.absent();
+      do {
+         ResourceRecordSetIterable page = next.isPresent() ? rrsApi.listAt(next.get()) : rrsApi.listFirstPage();
+         for (ResourceRecordSet current : page) {
+            String name = normalize(current.getName());
+            if ("SOA".equals(current.getType()) || ("NS".equals(current.getType()) && name.equals(apex)))
+               continue;
+            ResourceRecordSet wanted = toCreate.remove(key(current));
+            if (wanted == null)
+               group(groups, name).add(current, null);
+            else if (!sameContent(current, wanted))
+               group(groups, name).add(current, wanted);
+         }
+         next = page.nextRecord();
+      } while (next.isPresent());
+
+      for (ResourceRecordSet wanted : toCreate.values())
+         group(groups, normalize(wanted.getName())).add(null, wanted);
+      return pack(groups.values());
+   }
+
+   /**
+    * Submits the batches in parallel, at most {@code maxInFlight} at a time.
+    * Once a batch fails, no further batch is submitted.
+    *
+    * @return the change for each batch, in the same order as {@code batches}
+    * @throws IncompleteReconciliationException
+    *            if a batch failed, listing the batches which were applied
+    */
+   public List<Change> apply(String zoneId, Iterable<ChangeBatch> batches) {
+      final ResourceRecordSetApi rrsApi = api.getResourceRecordSetApiForHostedZone(checkNotNull(zoneId, "zoneId"));
+      final Semaphore inFlight = new Semaphore(maxInFlight);
+      final AtomicBoolean failed = new AtomicBoolean();
+      List<ChangeBatch> submitted = Lists.newArrayList();
+      List<ListenableFuture<Change>> changes = Lists.newArrayList();
+      try {
+         for (final ChangeBatch batch : batches) {
+            inFlight.acquire();
+            if (failed.get()) {
+               inFlight.release();
+               break;
+            }
+            try {
+               changes.add(executor.submit(new Callable<Change>() {
+                  @Override
+                  public Change call() {
+                     try {
+                        return rrsApi.apply(batch);
+                     } catch (RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                     } finally {
+                        inFlight.release();
+                     }
+                  }
+               }));
+               submitted.add(batch);
+            } catch (RuntimeException e) {
+               inFlight.release();
+               throw e;
+            }
+         }
+         // waits for batches in flight, even if one failed, to know which ones applied
+         Futures.successfulAsList(changes).get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+      return collect(submitted, changes);
+   }
+
+   private static List<Change> collect(List<ChangeBatch> submitted, List<ListenableFuture<Change>> changes)
+         throws IncompleteReconciliationException {
+      List<ChangeBatch> applied = Lists.newArrayList();
+      List<Change> result = Lists.newArrayList();
+      ChangeBatch firstFailed = null;
+      Throwable cause = null;
+      for (int i = 0; i < changes.size(); i++) {
+         try {
+            result.add(Uninterruptibles.getUninterruptibly(changes.get(i)));
+            applied.add(submitted.get(i));
+         } catch (ExecutionException e) {
+            if (firstFailed == null) {
+               firstFailed = submitted.get(i);
+               cause = e.getCause();
+            }
+         }
+      }
+      if (firstFailed != null)
+         throw new IncompleteReconciliationException(firstFailed, applied, result, cause);
+      return result;
+   }
+
+   /**
+    * Polls the given changes until all of them are {@link Change.Status#INSYNC}.
+    * Each round only asks for the changes still pending, backing off up to ten
+    * seconds between rounds.
+    *
+    * @return true if all changes were in sync before the timeout elapsed
+    */
+   public boolean awaitInSync(Iterable<Change> changes, long timeout, TimeUnit unit) {
+      Set<String> pending = new LinkedHashSet<String>();
+      for (Change change : changes) {
+         if (change.getStatus() != Change.Status.INSYNC)
+            pending.add(change.getId());
+      }
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      long pollMillis = 500;
+      while (true) {
+         for (String id : ImmutableList.copyOf(pending)) {
+            Change change = api.getChange(id);
+            if (change == null || change.getStatus() == Change.Status.INSYNC)
+               pending.remove(id);
+         }
+         if (pending.isEmpty())
+            return true;
+         long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+         if (remainingMillis <= 0)
+            return false;
+         Uninterruptibles.sleepUninterruptibly(Math.min(pollMillis, remainingMillis), TimeUnit.MILLISECONDS);
+         pollMillis = Math.min(pollMillis * 2, MAX_POLL_MILLIS);
+      }
+   }
+
+   private static NameGroup group(Map<String, NameGroup> groups, String name) {
+      NameGroup group = groups.get(name);
+      if (group == null) {
+         group = new NameGroup();
+         groups.put(name, group);
+      }
+      return group;
+   }
+
+   private static List<ChangeBatch> pack(Iterable<NameGroup> groups) {
+      List<ChangeBatch> batches = Lists.newArrayList();
+      BatchBuilder batch = new BatchBuilder();
+      for (NameGroup group : groups) {
+         if (!batch.fits(group.changes, group.records, group.characters)) {
+            batch.flushTo(batches);
+            batch = new BatchBuilder();
+         }
+         if (batch.fits(group.changes, group.records, group.characters)) {
+            batch.add(group.units);
+            continue;
+         }
+         // a single name exceeding the limits can only be split between replacements
+         for (Unit unit : group.units) {
+            if (!batch.fits(unit.changes(), unit.records(), unit.characters())) {
+               batch.flushTo(batches);
+               batch = new BatchBuilder();
+            }
+            batch.add(ImmutableList.of(unit));
+         }
+      }
+      batch.flushTo(batches);
+      return batches;
+   }
+
+   /**
+    * A deletion, a creation, or the replacement of one by the other, which
+    * must land in the same batch.
+    */
+   private static final class Unit {
+      private final ResourceRecordSet delete;
+      private final ResourceRecordSet create;
+
+      private Unit(ResourceRecordSet delete, ResourceRecordSet create) {
+         this.delete = delete;
+         this.create = create;
+      }
+
+      int changes() {
+         return (delete != null ? 1 : 0) + (create != null ? 1 : 0);
+      }
+
+      int records() {
+         return records(delete) + records(create);
+      }
+
+      int characters() {
+         return characters(delete) + characters(create);
+      }
+
+      private static int records(ResourceRecordSet rrs) {
+         return rrs == null ? 0 : Math.max(1, rrs.getValues().size());
+      }
+
+      private static int characters(ResourceRecordSet rrs) {
+         int characters = 0;
+         if (rrs != null) {
+            for (String value : rrs.getValues())
+               characters += value.length();
+         }
+         return characters;
+      }
+   }
+
+   private static final class NameGroup {
+      private final List<Unit> units = Lists.newArrayList();
+      private int changes;
+      private int records;
+      private int characters;
+
+      void add(ResourceRecordSet delete, ResourceRecordSet create) {
+         Unit unit = new Unit(delete, create);
+         units.add(unit);
+         changes += unit.changes();
+         records += unit.records();
+         characters += unit.characters();
+      }
+   }
+
+   private static final class BatchBuilder {
+      private final List<ResourceRecordSet> deletes = Lists.newArrayList();
+      private final List<ResourceRecordSet> creates = Lists.newArrayList();
+      private int changes;
+      private int records;
+      private int characters;
+
+      boolean fits(int moreChanges, int moreRecords, int moreCharacters) {
+         return changes + moreChanges <= MAX_CHANGES_PER_BATCH && records + moreRecords <= MAX_RECORDS_PER_BATCH
+               && characters + moreCharacters <= MAX_VALUE_CHARACTERS_PER_BATCH;
+      }
+
+      void add(Iterable<Unit> units) {
+         for (Unit unit : units) {
+            if (unit.delete != null)
+               deletes.add(unit.delete);
+            if (unit.create != null)
+               creates.add(unit.create);
+            changes += unit.changes();
+            records += unit.records();
+            characters += unit.characters();
+         }
+      }
+
+      void flushTo(List<ChangeBatch> batches) {
+         if (changes == 0)
+            return;
+         // deletes first, so that a replaced CNAME never conflicts with its successor
+         batches.add(ChangeBatch.builder().deleteAll(deletes).createAll(creates).build());
+      }
+   }
+
+   private static String key(ResourceRecordSet rrs) {
+      String id = rrs instanceof RecordSubset ? RecordSubset.class.cast(rrs).getId() : "";
+      return normalize(rrs.getName()) + ' ' + rrs.getType() + ' ' + id;
+   }
+
+   private static boolean sameContent(ResourceRecordSet current, ResourceRecordSet desired) {
+      return current.getClass() == desired.getClass()
+            && Objects.equal(current.getTTL(), desired.getTTL())
+            && ImmutableSortedSet.copyOf(current.getValues()).equals(ImmutableSortedSet.copyOf(desired.getValues()))
+            && Objects.equal(alias(current), alias(desired))
+            && Objects.equal(subset(current), subset(desired));
+   }
+
+   private static Optional<String> alias(ResourceRecordSet rrs) {
+      if (!rrs.getAliasTarget().isPresent())
+         return Optional.absent();
+      AliasTarget target = rrs.getAliasTarget().get();
+      return Optional.of(normalize(target.getDNSName()) + ' ' + target.getZoneId());
+   }
+
+   private static Object subset(ResourceRecordSet rrs) {
+      if (rrs instanceof Weighted)
+         return Weighted.class.cast(rrs).getWeight();
+      if (rrs instanceof Latency)
+         return Latency.class.cast(rrs).getRegion();
+      return null;
+   }
+
+   /**
+    * route53 returns names fully qualified, lowercase and with {@code *}
+    * escaped as {@code \052}.
+    */
+   static String normalize(String name) {
+      String normalized = name.replace("\\052", "*").toLowerCase();
+      return normalized.endsWith(".") ? normalized : normalized + ".";
+   }
+}
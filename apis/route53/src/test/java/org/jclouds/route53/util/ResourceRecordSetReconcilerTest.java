@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.route53.util;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.route53.Route53Api;
+import org.jclouds.route53.domain.Change;
+import org.jclouds.route53.domain.Change.Status;
+import org.jclouds.route53.domain.ChangeBatch;
+import org.jclouds.route53.domain.HostedZone;
+import org.jclouds.route53.domain.HostedZoneAndNameServers;
+import org.jclouds.route53.domain.ResourceRecordSet;
+import org.jclouds.route53.domain.ResourceRecordSetIterable;
+import org.jclouds.route53.domain.ResourceRecordSetIterable.NextRecord;
+import org.jclouds.route53.features.HostedZoneApi;
+import org.jclouds.route53.features.ResourceRecordSetApi;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+@Test(groups = "unit", testName = "ResourceRecordSetReconcilerTest")
+public class ResourceRecordSetReconcilerTest {
+
+   ResourceRecordSet soa = ResourceRecordSet.builder().name("jclouds.org.").type("SOA").ttl(900)
+         .add("ns-1.awsdns-1.com. awsdns-hostmaster.amazon.com. 1 7200 900 1209600 86400").build();
+   ResourceRecordSet ns = ResourceRecordSet.builder().name("jclouds.org.").type("NS").ttl(172800)
+         .add("ns-1.awsdns-1.com.").build();
+   ResourceRecordSet www = ResourceRecordSet.builder().name("www.jclouds.org.").type("A").ttl(300)
+         .add("1.1.1.1").add("2.2.2.2").build();
+   ResourceRecordSet mail = ResourceRecordSet.builder().name("mail.jclouds.org.").type("A").ttl(300)
+         .add("3.3.3.3").build();
+   ResourceRecordSet wildcard = ResourceRecordSet.builder().name("\\052.jclouds.org.").type("CNAME").ttl(300)
+         .add("www.jclouds.org.").build();
+
+   public void testPlanIsEmptyWhenZoneMatches() {
+      Route53Api api = zoneWithPages(ResourceRecordSetIterable.builder().add(soa).add(ns).add(www).add(wildcard)
+            .build());
+
+      // values out of order, names without the trailing dot and unescaped
+      ResourceRecordSet sameWww = ResourceRecordSet.builder().name("WWW.jclouds.org").type("A").ttl(300)
+            .add("2.2.2.2").add("1.1.1.1").build();
+      ResourceRecordSet sameWildcard = wildcard.toBuilder().name("*.jclouds.org.").build();
+
+      List<ChangeBatch> plan = new ResourceRecordSetReconciler(api, newDirectExecutorService(), 1).plan("Z1",
+            ImmutableList.of(sameWww, sameWildcard));
+
+      assertTrue(plan.isEmpty(), plan.toString());
+      verify(api);
+   }
+
+   public void testPlanReplacesChangedDeletesStaleAndCreatesMissing() {
+      Route53Api api = zoneWithPages(
+            ResourceRecordSetIterable.builder().add(soa).add(ns).add(mail).nextRecordName("www.jclouds.org.").build(),
+            ResourceRecordSetIterable.builder().add(www).build());
+
+      ResourceRecordSet newWww = www.toBuilder().ttl(60).build();
+      ResourceRecordSet ftp = ResourceRecordSet.builder().name("ftp.jclouds.org.").type("A").ttl(300)
+            .add("4.4.4.4").build();
+
+      List<ChangeBatch> plan = new ResourceRecordSetReconciler(api, newDirectExecutorService(), 1).plan("Z1",
+            ImmutableList.of(newWww, ftp));
+
+      assertEquals(plan, ImmutableList.of(ChangeBatch.builder().delete(mail).delete(www).create(newWww).create(ftp)
+            .build()));
+      verify(api);
+   }
+
+   public void testPlanSplitsBatchesBetweenNames() {
+      ImmutableList.Builder<ResourceRecordSet> desired = ImmutableList.builder();
+      for (int i = 0; i < ResourceRecordSetReconciler.MAX_CHANGES_PER_BATCH + 1; i++)
+         desired.add(ResourceRecordSet.builder().name("host" + i + ".jclouds.org.").type("A").ttl(300)
+               .add("10.0.0." + (i % 250)).build());
+      Route53Api api = zoneWithPages(ResourceRecordSetIterable.builder().add(soa).add(ns).build());
+
+      List<ChangeBatch> plan = new ResourceRecordSetReconciler(api, newDirectExecutorService(), 1).plan("Z1",
+            desired.build());
+
+      assertEquals(plan.size(), 2);
+      assertEquals(plan.get(0).size(), ResourceRecordSetReconciler.MAX_CHANGES_PER_BATCH);
+      assertEquals(plan.get(1).size(), 1);
+      verify(api);
+   }
+
+   public void testApplyReturnsChangesInBatchOrder() {
+      ChangeBatch first = ChangeBatch.createAll(ImmutableList.of(www));
+      ChangeBatch second = ChangeBatch.createAll(ImmutableList.of(mail));
+      Change firstChange = Change.create("C1", Status.PENDING, new Date());
+      Change secondChange = Change.create("C2", Status.PENDING, new Date());
+
+      Route53Api api = createMock(Route53Api.class);
+      ResourceRecordSetApi rrsApi = createMock(ResourceRecordSetApi.class);
+      expect(api.getResourceRecordSetApiForHostedZone("Z1")).andReturn(rrsApi);
+      expect(rrsApi.apply(first)).andReturn(firstChange);
+      expect(rrsApi.apply(second)).andReturn(secondChange);
+      replay(api, rrsApi);
+
+      assertEquals(new ResourceRecordSetReconciler(api, newDirectExecutorService(), 1).apply("Z1",
+            ImmutableList.of(first, second)), ImmutableList.of(firstChange, secondChange));
+      verify(api, rrsApi);
+   }
+
+   public void testApplyStopsAtFirstFailedBatch() {
+      ChangeBatch first = ChangeBatch.createAll(ImmutableList.of(www));
+      ChangeBatch second = ChangeBatch.createAll(ImmutableList.of(mail));
+      ChangeBatch third = ChangeBatch.createAll(ImmutableList.of(wildcard));
+      Change firstChange = Change.create("C1", Status.PENDING, new Date());
+      IllegalStateException failure = new IllegalStateException("throttled");
+
+      Route53Api api = createMock(Route53Api.class);
+      ResourceRecordSetApi rrsApi = createMock(ResourceRecordSetApi.class);
+      expect(api.getResourceRecordSetApiForHostedZone("Z1")).andReturn(rrsApi);
+      expect(rrsApi.apply(first)).andReturn(firstChange);
+      expect(rrsApi.apply(second)).andThrow(failure);
+      replay(api, rrsApi);
+
+      try {
+         new ResourceRecordSetReconciler(api, newDirectExecutorService(), 1).apply("Z1",
+               ImmutableList.of(first, second, third));
+         fail("expected IncompleteReconciliationException");
+      } catch (IncompleteReconciliationException e) {
+         assertEquals(e.getFailed(), second);
+         assertEquals(e.getApplied(), ImmutableList.of(first));
+         assertEquals(e.getChanges(), ImmutableList.of(firstChange));
+         assertSame(e.getCause(), failure);
+      }
+      // the third batch was never submitted
+      verify(api, rrsApi);
+   }
+
+   public void testAwaitInSyncOnlyPollsPendingChanges() {
+      Route53Api api = createMock(Route53Api.class);
+      expect(api.getChange("C2")).andReturn(Change.create("C2", Status.INSYNC, new Date()));
+      replay(api);
+
+      assertTrue(new ResourceRecordSetReconciler(api, newDirectExecutorService(), 1).awaitInSync(
+            ImmutableList.of(Change.create("C1", Status.INSYNC, new Date()),
+                  Change.create("C2", Status.PENDING, new Date())), 1, TimeUnit.SECONDS));
+      verify(api);
+   }
+
+   public void testAwaitInSyncTimesOut() {
+      Route53Api api = createMock(Route53Api.class);
+      expect(api.getChange("C1")).andReturn(Change.create("C1", Status.PENDING, new Date())).atLeastOnce();
+      replay(api);
+
+      assertFalse(new ResourceRecordSetReconciler(api, newDirectExecutorService(), 1).awaitInSync(
+            ImmutableList.of(Change.create("C1", Status.PENDING, new Date())), 10, TimeUnit.MILLISECONDS));
+      verify(api);
+   }
+
+   private Route53Api zoneWithPages(ResourceRecordSetIterable firstPage, ResourceRecordSetIterable... nextPages) {
+      Route53Api api = createMock(Route53Api.class);
+      HostedZoneApi zoneApi = createMock(HostedZoneApi.class);
+      ResourceRecordSetApi rrsApi = createMock(ResourceRecordSetApi.class);
+      expect(api.getHostedZoneApi()).andReturn(zoneApi);
+      expect(zoneApi.get("Z1")).andReturn(HostedZoneAndNameServers.create(
+            HostedZone.builder().id("Z1").callerReference("ref").name("jclouds.org.").build(),
+            ImmutableList.of("ns-1.awsdns-1.com.")));
+      expect(api.getResourceRecordSetApiForHostedZone("Z1")).andReturn(rrsApi);
+      expect(rrsApi.listFirstPage()).andReturn(firstPage);
+      NextRecord next = firstPage.nextRecord().orNull();
+      for (ResourceRecordSetIterable page : nextPages) {
+         expect(rrsApi.listAt(next)).andReturn(page);
+         next = page.nextRecord().orNull();
+      }
+      replay(api, zoneApi, rrsApi);
+      return api;
+   }
+}
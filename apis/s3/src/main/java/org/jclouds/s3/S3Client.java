@@ -43,6 +43,7 @@ import org.jclouds.blobstore.BlobStoreFallbacks.ThrowContainerNotFoundOn404;
 import org.jclouds.blobstore.BlobStoreFallbacks.ThrowKeyNotFoundOn404;
 import org.jclouds.blobstore.attr.BlobScope;
 import org.jclouds.http.functions.ParseETagHeader;
+import org.jclouds.http.functions.ParseSax;
 import org.jclouds.http.options.GetOptions;
 import org.jclouds.io.Payload;
 import org.jclouds.javax.annotation.Nullable;
@@ -348,6 +349,23 @@ public interface S3Client extends Closeable {
          BindAsHostPrefixIfConfigured.class) @ParamValidators(BucketNameValidator.class) String bucketName,
          ListBucketOptions... options);
 
+   /**
+    * Like {@link #listBucket(String, ListBucketOptions...)}, but passes the metadata of each object to
+    * {@code callback} as soon as it is parsed instead of collecting the whole listing in memory.
+    * 
+    * @param bucketName namespace of the objects you wish to list
+    * @param callback receives the metadata of each object in the listing
+    * @return the listing, without its objects, so that the next page can be requested
+    * @see #listBucket(String, ListBucketOptions...)
+    */
+   @Named("ListBucket")
+   @GET
+   @Path("/")
+   @XMLResponseParser(ListBucketHandler.class)
+   ListBucketResponse listBucket(@Bucket @EndpointParam(parser = AssignCorrectHostnameForBucket.class) @BinderParam(
+         BindAsHostPrefixIfConfigured.class) @ParamValidators(BucketNameValidator.class) String bucketName,
+         ParseSax.ElementCallback<? super ObjectMetadata> callback, ListBucketOptions... options);
+
    /**
     * Returns a list of all of the buckets owned by the authenticated sender of the request.
     * 
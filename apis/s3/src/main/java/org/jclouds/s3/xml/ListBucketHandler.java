@@ -43,8 +43,10 @@ import com.google.common.collect.ImmutableSet.Builder;
  * <p/>
  * ListBucketResult xmlns="http://s3.amazonaws.com/doc/2006-03-01"
  */
-public class ListBucketHandler extends ParseSax.HandlerWithResult<ListBucketResponse> {
+public class ListBucketHandler extends ParseSax.HandlerWithResult<ListBucketResponse> implements
+      ParseSax.StreamingHandler<ObjectMetadata>, ParseSax.ReusableHandler {
    private Builder<ObjectMetadata> contents = ImmutableSet.builder();
+   private ParseSax.ElementCallback<? super ObjectMetadata> callback;
    private Builder<String> commonPrefixes = ImmutableSet.builder();
    private CanonicalUser currentOwner;
    private StringBuilder currentText = new StringBuilder();
@@ -68,6 +70,29 @@ public class ListBucketHandler extends ParseSax.HandlerWithResult<ListBucketResp
       this.dateParser = dateParser;
    }
 
+   @Override
+   public void setElementCallback(ParseSax.ElementCallback<? super ObjectMetadata> callback) {
+      this.callback = callback;
+   }
+
+   @Override
+   public void reset() {
+      contents = ImmutableSet.builder();
+      callback = null;
+      commonPrefixes = ImmutableSet.builder();
+      currentOwner = null;
+      builder = new ObjectMetadataBuilder();
+      bucketName = null;
+      prefix = null;
+      marker = null;
+      maxResults = 0;
+      delimiter = null;
+      isTruncated = false;
+      inCommonPrefixes = false;
+      currentKey = null;
+      nextMarker = null;
+   }
+
    public ListBucketResponse getResult() {
       return new ListBucketResponseImpl(bucketName, contents.build(), prefix, marker,
                (isTruncated && nextMarker == null) ? currentKey : nextMarker, maxResults, delimiter, isTruncated,
@@ -116,7 +141,11 @@ public class ListBucketHandler extends ParseSax.HandlerWithResult<ListBucketResp
       } else if (qName.equals("StorageClass")) {
          builder.storageClass(ObjectMetadata.StorageClass.valueOf(currentOrNull(currentText)));
       } else if (qName.equals("Contents")) {
-         contents.add(builder.build());
+         if (callback != null) {
+            callback.onElement(builder.build());
+         } else {
+            contents.add(builder.build());
+         }
          builder = new ObjectMetadataBuilder().bucket(bucketName);
       } else if (qName.equals("Name")) {
          this.bucketName = currentOrNull(currentText);
@@ -21,6 +21,7 @@ import static org.testng.Assert.assertEquals;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import org.jclouds.Fallbacks.VoidOnNotFoundOr404;
@@ -33,6 +34,7 @@ import org.jclouds.blobstore.BlobStoreFallbacks.ThrowKeyNotFoundOn404;
 import org.jclouds.blobstore.binders.BindBlobToMultipartFormTest;
 import org.jclouds.date.TimeStamp;
 import org.jclouds.fallbacks.MapHttp4xxCodesToExceptions;
+import org.jclouds.http.HttpResponse;
 import org.jclouds.http.functions.ParseETagHeader;
 import org.jclouds.http.functions.ParseSax;
 import org.jclouds.http.functions.ReleasePayloadAndReturn;
@@ -42,6 +44,7 @@ import org.jclouds.io.Payload;
 import org.jclouds.io.Payloads;
 import org.jclouds.rest.ConfiguresHttpApi;
 import org.jclouds.rest.internal.GeneratedHttpRequest;
+import org.jclouds.rest.internal.TransformerForRequest;
 import org.jclouds.s3.S3Fallbacks.TrueOn404OrNotFoundFalseOnIllegalState;
 import org.jclouds.s3.config.S3HttpApiModule;
 import org.jclouds.s3.domain.AccessControlList;
@@ -50,6 +53,7 @@ import org.jclouds.s3.domain.AccessControlList.Grant;
 import org.jclouds.s3.domain.AccessControlList.Permission;
 import org.jclouds.s3.domain.BucketLogging;
 import org.jclouds.s3.domain.CannedAccessPolicy;
+import org.jclouds.s3.domain.ListBucketResponse;
 import org.jclouds.s3.domain.ObjectMetadata;
 import org.jclouds.s3.domain.ObjectMetadataBuilder;
 import org.jclouds.s3.domain.Payer;
@@ -185,6 +189,38 @@ public abstract class S3ClientTest<T extends S3Client> extends BaseS3ClientTest<
       checkFilters(request);
    }
 
+   public void testListBucketWithCallback() throws SecurityException, NoSuchMethodException, IOException {
+      Invokable<?, ?> method = method(S3Client.class, "listBucket", String.class, ParseSax.ElementCallback.class,
+               ListBucketOptions[].class);
+      final List<String> keys = Lists.newArrayList();
+      ParseSax.ElementCallback<ObjectMetadata> callback = new ParseSax.ElementCallback<ObjectMetadata>() {
+         @Override
+         public void onElement(ObjectMetadata object) {
+            keys.add(object.getKey());
+         }
+      };
+      GeneratedHttpRequest request = processor.createRequest(method, ImmutableList.<Object> of("bucket", callback));
+
+      assertRequestLineEquals(request, "GET https://bucket." + url + "/ HTTP/1.1");
+      assertNonPayloadHeadersEqual(request, "Host: bucket." + url + "\n");
+      assertPayloadEquals(request, null, null, false);
+
+      assertResponseParserClassEquals(method, request, ParseSax.class);
+      assertSaxResponseParserClassEquals(method, ListBucketHandler.class);
+      assertFallbackClassEquals(method, null);
+
+      ListBucketResponse result = (ListBucketResponse) injector.getInstance(TransformerForRequest.class).apply(request)
+            .apply(HttpResponse.builder().statusCode(200)
+                  .payload(getClass().getResourceAsStream("/list_bucket.xml")).build());
+
+      assertEquals(result.size(), 0);
+      assertEquals(result.getPrefix(), "apps/");
+      assertEquals(keys, ImmutableList.of("apps/0", "apps/1", "apps/2", "apps/3", "apps/4", "apps/5", "apps/6",
+               "apps/7", "apps/8", "apps/9"));
+
+      checkFilters(request);
+   }
+
    public void testBucketExists() throws SecurityException, NoSuchMethodException, IOException {
       Invokable<?, ?> method = method(S3Client.class, "bucketExists", String.class);
       GeneratedHttpRequest request = processor.createRequest(method, ImmutableList.<Object> of("bucket"));
@@ -20,8 +20,11 @@ import java.util.Iterator;
 
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.SyncResult;
 import org.jclouds.blobstore.options.ListAllOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.SyncOptions;
+import org.jclouds.blobstore.util.internal.ContainerSync;
 
 import com.google.common.annotations.Beta;
 import com.google.common.collect.AbstractIterator;
@@ -102,4 +105,35 @@ public class BlobStores {
       };
    }
 
+   /**
+    * @see sync(BlobStore, String, BlobStore, String, SyncOptions)
+    */
+   @Beta
+   public static SyncResult sync(BlobStore source, String sourceContainer, BlobStore target,
+            String targetContainer) {
+      return sync(source, sourceContainer, target, targetContainer, new SyncOptions());
+   }
+
+   /**
+    * Makes the target container hold the same blobs as the source container, transferring only
+    * blobs which are missing from the target or differ in size, ETag or content MD5.
+    * 
+    * Both containers are listed in order and merge-joined, so memory use does not grow with the
+    * number of blobs. Either side may be a cloud provider or the filesystem provider, which
+    * covers local to cloud, cloud to local and cloud to cloud transfers. When both sides are the
+    * same BlobStore, blobs are copied server side.
+    * 
+    * Failures of individual blobs do not stop the sync; they are reported in the result. If the
+    * calling thread is interrupted, outstanding transfers are cancelled, the interrupt is restored
+    * and a RuntimeException caused by the InterruptedException is thrown instead of returning a
+    * partial result; a checkpoint, if configured, records how far the sync got.
+    * 
+    * @throws ContainerNotFoundException if either container does not exist
+    */
+   @Beta
+   public static SyncResult sync(BlobStore source, String sourceContainer, BlobStore target,
+            String targetContainer, SyncOptions options) {
+      return new ContainerSync(source, sourceContainer, target, targetContainer, options).run();
+   }
+
 }
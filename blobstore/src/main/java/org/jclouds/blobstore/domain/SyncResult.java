@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.domain;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Outcome of BlobStores.sync. In a dry run, transferred and deleted blobs are those which would
+ * have been transferred or deleted.
+ */
+@Beta
+public final class SyncResult {
+   private final boolean dryRun;
+   private final long compared;
+   private final long unchanged;
+   private final List<String> transferred;
+   private final List<String> deleted;
+   private final Map<String, Exception> failed;
+   private final long bytesTransferred;
+   private final long elapsedMillis;
+
+   public SyncResult(boolean dryRun, long compared, long unchanged, Iterable<String> transferred,
+         Iterable<String> deleted, Map<String, Exception> failed, long bytesTransferred, long elapsedMillis) {
+      this.dryRun = dryRun;
+      this.compared = compared;
+      this.unchanged = unchanged;
+      this.transferred = ImmutableList.copyOf(checkNotNull(transferred, "transferred"));
+      this.deleted = ImmutableList.copyOf(checkNotNull(deleted, "deleted"));
+      this.failed = ImmutableMap.copyOf(checkNotNull(failed, "failed"));
+      this.bytesTransferred = bytesTransferred;
+      this.elapsedMillis = elapsedMillis;
+   }
+
+   public boolean isDryRun() {
+      return dryRun;
+   }
+
+   /**
+    * number of distinct blob names seen on either side
+    */
+   public long getCompared() {
+      return compared;
+   }
+
+   public long getUnchanged() {
+      return unchanged;
+   }
+
+   /**
+    * names of blobs copied from the source to the target
+    */
+   public List<String> getTransferred() {
+      return transferred;
+   }
+
+   /**
+    * names of extraneous blobs removed from the target
+    */
+   public List<String> getDeleted() {
+      return deleted;
+   }
+
+   /**
+    * blobs which could not be compared, transferred or deleted, and why
+    */
+   public Map<String, Exception> getFailed() {
+      return failed;
+   }
+
+   public long getBytesTransferred() {
+      return bytesTransferred;
+   }
+
+   public long getElapsedMillis() {
+      return elapsedMillis;
+   }
+
+   public long getBytesPerSecond() {
+      return bytesTransferred * 1000 / Math.max(1, elapsedMillis);
+   }
+
+   @Override
+   public String toString() {
+      return MoreObjects.toStringHelper(this).add("dryRun", dryRun).add("compared", compared)
+            .add("unchanged", unchanged).add("transferred", transferred.size()).add("deleted", deleted.size())
+            .add("failed", failed.keySet()).add("bytesTransferred", bytesTransferred)
+            .add("elapsedMillis", elapsedMillis).add("bytesPerSecond", getBytesPerSecond()).toString();
+   }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.options;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+
+import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Contains options supported by BlobStores.sync.
+ * 
+ * @since 2.3
+ */
+@Beta
+public class SyncOptions {
+
+   public static final int DEFAULT_MAX_CONCURRENT_TRANSFERS = 4;
+
+   private String prefix;
+   private boolean dryRun;
+   private boolean deleteExtraneous;
+   private boolean sizeOnly;
+   private int maxConcurrentTransfers = DEFAULT_MAX_CONCURRENT_TRANSFERS;
+   private long multipartThreshold = MultipartUploadSlicingAlgorithm.DEFAULT_PART_SIZE;
+   private File checkpoint;
+   private ListeningExecutorService executor;
+
+   /**
+    * Only synchronize blobs whose name starts with the given prefix.
+    */
+   public SyncOptions prefix(String prefix) {
+      this.prefix = checkNotNull(prefix, "prefix");
+      return this;
+   }
+
+   @Nullable
+   public String getPrefix() {
+      return prefix;
+   }
+
+   /**
+    * Compare both sides and report what would be transferred or deleted, without changing the target.
+    */
+   public SyncOptions dryRun() {
+      this.dryRun = true;
+      return this;
+   }
+
+   public boolean isDryRun() {
+      return dryRun;
+   }
+
+   /**
+    * Remove blobs from the target which are not present in the source.
+    */
+   public SyncOptions deleteExtraneous() {
+      this.deleteExtraneous = true;
+      return this;
+   }
+
+   public boolean isDeleteExtraneous() {
+      return deleteExtraneous;
+   }
+
+   /**
+    * Consider blobs of equal size unchanged, without comparing ETags or content MD5s.
+    */
+   public SyncOptions sizeOnly() {
+      this.sizeOnly = true;
+      return this;
+   }
+
+   public boolean isSizeOnly() {
+      return sizeOnly;
+   }
+
+   /**
+    * Maximum number of blobs compared or transferred at the same time.
+    */
+   public SyncOptions maxConcurrentTransfers(int maxConcurrentTransfers) {
+      checkArgument(maxConcurrentTransfers > 0, "maxConcurrentTransfers must be positive");
+      this.maxConcurrentTransfers = maxConcurrentTransfers;
+      return this;
+   }
+
+   public int getMaxConcurrentTransfers() {
+      return maxConcurrentTransfers;
+   }
+
+   /**
+    * Blobs of at least this many bytes are uploaded using multipart uploads.
+    */
+   public SyncOptions multipartThreshold(long multipartThreshold) {
+      checkArgument(multipartThreshold > 0, "multipartThreshold must be positive");
+      this.multipartThreshold = multipartThreshold;
+      return this;
+   }
+
+   public long getMultipartThreshold() {
+      return multipartThreshold;
+   }
+
+   /**
+    * Records progress in the given file, so that an interrupted sync resumes after the last blob
+    * known to be in sync. The file is removed once a sync completes without failures.
+    */
+   public SyncOptions checkpoint(File checkpoint) {
+      this.checkpoint = checkNotNull(checkpoint, "checkpoint");
+      return this;
+   }
+
+   @Nullable
+   public File getCheckpoint() {
+      return checkpoint;
+   }
+
+   /**
+    * Executor running comparisons and transfers; defaults to the user executor of the target.
+    */
+   public SyncOptions executor(ListeningExecutorService executor) {
+      this.executor = checkNotNull(executor, "executor");
+      return this;
+   }
+
+   @Nullable
+   public ListeningExecutorService getExecutor() {
+      return executor;
+   }
+
+   public static class Builder {
+      /**
+       * @see SyncOptions#prefix(String)
+       */
+      public static SyncOptions prefix(String prefix) {
+         return new SyncOptions().prefix(prefix);
+      }
+
+      /**
+       * @see SyncOptions#dryRun()
+       */
+      public static SyncOptions dryRun() {
+         return new SyncOptions().dryRun();
+      }
+
+      /**
+       * @see SyncOptions#deleteExtraneous()
+       */
+      public static SyncOptions deleteExtraneous() {
+         return new SyncOptions().deleteExtraneous();
+      }
+
+      /**
+       * @see SyncOptions#sizeOnly()
+       */
+      public static SyncOptions sizeOnly() {
+         return new SyncOptions().sizeOnly();
+      }
+
+      /**
+       * @see SyncOptions#maxConcurrentTransfers(int)
+       */
+      public static SyncOptions maxConcurrentTransfers(int maxConcurrentTransfers) {
+         return new SyncOptions().maxConcurrentTransfers(maxConcurrentTransfers);
+      }
+
+      /**
+       * @see SyncOptions#checkpoint(File)
+       */
+      public static SyncOptions checkpoint(File checkpoint) {
+         return new SyncOptions().checkpoint(checkpoint);
+      }
+   }
+
+   @Override
+   public String toString() {
+      return MoreObjects.toStringHelper(this).omitNullValues().add("prefix", prefix).add("dryRun", dryRun)
+            .add("deleteExtraneous", deleteExtraneous).add("sizeOnly", sizeOnly)
+            .add("maxConcurrentTransfers", maxConcurrentTransfers).add("multipartThreshold", multipartThreshold)
+            .add("checkpoint", checkpoint).toString();
+   }
+}
@@ -53,6 +53,12 @@ public final class BlobStoreConstants {
     */
    public static final String PROPERTY_USER_METADATA_PREFIX = "jclouds.blobstore.metaprefix";
 
+   /**
+    * Maximum number of puts a {@link org.jclouds.blobstore.strategy.PutBlobsStrategy} keeps in flight. Blobs are
+    * only read from the given {@code Iterable} as earlier puts complete.
+    */
+   public static final String PROPERTY_BLOBSTORE_PUT_CONCURRENCY = "jclouds.blobstore.put.concurrency";
+
    public static final String BLOBSTORE_LOGGER = "jclouds.blobstore";
    public static final String DIRECTORY_BLOB_SUFFIX = "/";
 
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy;
+
+import org.jclouds.blobstore.domain.Blob;
+
+/**
+ * A {@link PutBlobsStrategy} which can report the outcome of each blob instead of failing the whole operation.
+ */
+public interface ReportingPutBlobsStrategy extends PutBlobsStrategy {
+
+   /**
+    * Puts the blobs of {@code collection}, which is read lazily as earlier puts complete, and reports the outcome
+    * of each blob to {@code callback} instead of failing the whole operation. Returns once every blob was reported.
+    */
+   void execute(String containerName, Iterable<? extends Blob> collection, Callback callback);
+
+   /**
+    * Receives the outcome of each blob; called concurrently from the threads putting blobs.
+    */
+   interface Callback {
+      /**
+       * @param eTag
+       *           of the stored blob, or null if the provider does not report it
+       */
+      void onSuccess(Blob blob, String eTag);
+
+      void onFailure(Blob blob, Exception e);
+   }
+}
@@ -16,12 +16,8 @@
  */
 package org.jclouds.blobstore.strategy.internal;
 
-import static com.google.common.base.Throwables.propagate;
-import static org.jclouds.concurrent.FutureIterables.awaitCompletion;
-
-import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.ExecutionException;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -30,18 +26,21 @@ import javax.inject.Singleton;
 import org.jclouds.Constants;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.domain.Blob;
-import org.jclouds.blobstore.internal.BlobRuntimeException;
 import org.jclouds.blobstore.reference.BlobStoreConstants;
-import org.jclouds.blobstore.strategy.PutBlobsStrategy;
+import org.jclouds.blobstore.strategy.ReportingPutBlobsStrategy;
 import org.jclouds.logging.Logger;
 
-import com.google.common.collect.Maps;
-import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 
+/**
+ * Puts blobs on the user executor, keeping at most
+ * {@link BlobStoreConstants#PROPERTY_BLOBSTORE_PUT_CONCURRENCY} puts in flight, so that blobs are only read from
+ * their {@code Iterable} as slots free up.
+ */
 @Singleton
-public class PutBlobsStrategyImpl implements PutBlobsStrategy {
+public class PutBlobsStrategyImpl implements ReportingPutBlobsStrategy {
 
    private final BlobStore blobstore;
    private final ListeningExecutorService userExecutor;
@@ -55,6 +54,10 @@ public class PutBlobsStrategyImpl implements PutBlobsStrategy {
    @Named(Constants.PROPERTY_REQUEST_TIMEOUT)
    protected Long maxTime;
 
+   @Inject(optional = true)
+   @Named(BlobStoreConstants.PROPERTY_BLOBSTORE_PUT_CONCURRENCY)
+   protected int concurrency = 16;
+
    @Inject
    PutBlobsStrategyImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
             BlobStore blobstore) {
@@ -63,25 +66,31 @@ public class PutBlobsStrategyImpl implements PutBlobsStrategy {
    }
 
    @Override
-   public void execute(final String containerName, Iterable<? extends Blob> blobs) {
-      Map<Blob, ListenableFuture<?>> responses = Maps.newLinkedHashMap();
+   public void execute(String containerName, Iterable<? extends Blob> blobs) {
+      PutBlobsWindow.executeAll(this, containerName, blobs);
+   }
+
+   @Override
+   public void execute(final String containerName, Iterable<? extends Blob> blobs, final Callback callback) {
+      PutBlobsWindow window = new PutBlobsWindow(userExecutor, concurrency);
       for (final Blob blob : blobs) {
-         responses.put(blob, userExecutor.submit(new Callable<Object>() {
-            @Override public Object call() throws Exception {
+         window.submit(new Callable<String>() {
+            @Override
+            public String call() {
                return blobstore.putBlob(containerName, blob);
             }
-         }));
-      }
-      Map<Blob, Exception> exceptions;
-      try {
-         exceptions = awaitCompletion(responses, userExecutor, maxTime, logger,
-                  String.format("putting into containerName: %s", containerName));
-      } catch (TimeoutException te) {
-         throw propagate(te);
+         }, new FutureCallback<String>() {
+            @Override
+            public void onSuccess(String eTag) {
+               callback.onSuccess(blob, eTag);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+               callback.onFailure(blob, t instanceof Exception ? (Exception) t : new ExecutionException(t));
+            }
+         });
       }
-      if (!exceptions.isEmpty())
-         throw new BlobRuntimeException(String.format("error putting into container %s: %s",
-                  containerName, exceptions));
+      window.awaitCompletion(maxTime, containerName);
    }
-
 }
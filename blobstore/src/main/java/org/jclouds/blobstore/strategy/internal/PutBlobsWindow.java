@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.strategy.ReportingPutBlobsStrategy;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Keeps at most a fixed number of tasks of one {@link ReportingPutBlobsStrategy} call in flight on an executor.
+ * Shared by the strategy implementations.
+ */
+public final class PutBlobsWindow {
+   private final ListeningExecutorService executor;
+   private final int concurrency;
+   private final Semaphore slots;
+
+   public PutBlobsWindow(ListeningExecutorService executor, int concurrency) {
+      checkArgument(concurrency > 0, "concurrency must be positive, was %s", concurrency);
+      this.executor = checkNotNull(executor, "executor");
+      this.concurrency = concurrency;
+      this.slots = new Semaphore(concurrency);
+   }
+
+   /**
+    * Waits for a free slot, then runs {@code task} on the executor. The slot is freed once {@code callback}, which
+    * is called on the thread completing the task, returns.
+    */
+   public <T> void submit(Callable<T> task, final FutureCallback<? super T> callback) {
+      slots.acquireUninterruptibly();
+      ListenableFuture<T> future;
+      try {
+         future = executor.submit(task);
+      } catch (RuntimeException e) {
+         slots.release();
+         throw e;
+      }
+      Futures.addCallback(future, new FutureCallback<T>() {
+         @Override
+         public void onSuccess(T result) {
+            try {
+               callback.onSuccess(result);
+            } finally {
+               slots.release();
+            }
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            try {
+               callback.onFailure(t);
+            } finally {
+               slots.release();
+            }
+         }
+      }, directExecutor());
+   }
+
+   /**
+    * Waits until every submitted task completed.
+    * 
+    * @param maxTime
+    *           in milliseconds, or null to wait as long as it takes
+    */
+   public void awaitCompletion(@Nullable Long maxTime, String containerName) {
+      if (maxTime == null) {
+         slots.acquireUninterruptibly(concurrency);
+         return;
+      }
+      try {
+         if (!slots.tryAcquire(concurrency, maxTime, TimeUnit.MILLISECONDS))
+            throw propagate(new TimeoutException(String.format("putting into containerName: %s", containerName)));
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw propagate(e);
+      }
+   }
+
+   /**
+    * Puts {@code blobs} with {@code strategy}, then throws if any of them failed.
+    * 
+    * @throws BlobRuntimeException
+    *            listing the blobs which could not be put
+    */
+   public static void executeAll(ReportingPutBlobsStrategy strategy, String containerName,
+         Iterable<? extends Blob> blobs) {
+      final Map<Blob, Exception> exceptions = Maps.newConcurrentMap();
+      strategy.execute(containerName, blobs, new ReportingPutBlobsStrategy.Callback() {
+         @Override
+         public void onSuccess(Blob blob, String eTag) {
+         }
+
+         @Override
+         public void onFailure(Blob blob, Exception e) {
+            exceptions.put(blob, e);
+         }
+      });
+      if (!exceptions.isEmpty())
+         throw new BlobRuntimeException(String.format("error putting into container %s: %s",
+                  containerName, exceptions));
+   }
+}
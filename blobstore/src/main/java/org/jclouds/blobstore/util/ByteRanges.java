@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Resolves the ranges of {@link org.jclouds.blobstore.options.GetOptions} against the length of a blob.
+ */
+final class ByteRanges {
+
+   /**
+    * @param range
+    *           {@code start-end}, {@code start-} or {@code -suffixLength}
+    * @return the first and last offset, inclusive, of {@code range} in a blob of {@code length} bytes
+    */
+   static long[] resolve(String range, long length) {
+      int dash = range.indexOf('-');
+      checkArgument(dash != -1, "invalid range %s", range);
+      long start;
+      long end = length - 1;
+      if (dash == 0) {
+         start = Math.max(0, length - Long.parseLong(range.substring(1)));
+      } else {
+         start = Long.parseLong(range.substring(0, dash));
+         if (dash < range.length() - 1)
+            end = Math.min(end, Long.parseLong(range.substring(dash + 1)));
+      }
+      checkArgument(start <= end, "range %s is not satisfiable for %s bytes", range, length);
+      return new long[] { start, end };
+   }
+
+   private ByteRanges() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
@@ -0,0 +1,580 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.base.Throwables.propagateIfPossible;
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.Lock;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
+import org.jclouds.blobstore.domain.internal.BlobImpl;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.io.ContentMetadata;
+import org.jclouds.io.MutableContentMetadata;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Caches blob content and metadata on local disk, so that repeated reads of the same blob only cost a conditional
+ * request. Cached blobs are revalidated on every read with {@link GetOptions#ifETagDoesntMatch(String)}; when the
+ * blob is unchanged, the content is served from disk, and ranged reads only read the requested bytes of the cached
+ * file.
+ * <p>
+ * The cache holds at most {@code maxBytes} of content and evicts the least recently read blobs first. Concurrent
+ * misses of the same blob wait for a single fetch, and no lock is held while talking to the remote store or copying
+ * content to disk. Files are written to a temporary name and moved into place, so several processes may share a cache
+ * directory, each enforcing its own budget.
+ * <p>
+ * Reads with conditional options or several ranges, and blobs without an ETag or larger than the budget, bypass
+ * the cache. A ranged read of a blob that is not cached only fetches the whole blob when it can be cached. Writes
+ * through this BlobStore invalidate the affected entries.
+ */
+@Beta
+public final class DiskCachedBlobStore extends ForwardingBlobStore {
+   private static final String DATA = ".data";
+   private static final String METADATA = ".meta";
+   private static final String USER_METADATA_PREFIX = "user.";
+
+   public static BlobStore newDiskCachedBlobStore(BlobStore blobStore, File directory, long maxBytes) {
+      return new DiskCachedBlobStore(blobStore, directory, maxBytes);
+   }
+
+   private static final class Entry {
+      final String key;
+      final String container;
+      final String name;
+      final String eTag;
+      final long size;
+
+      Entry(String key, String container, String name, String eTag, long size) {
+         this.key = key;
+         this.container = container;
+         this.name = name;
+         this.eTag = eTag;
+         this.size = size;
+      }
+   }
+
+   private final File directory;
+   private final long maxBytes;
+   /** keeps the data and metadata files of a key consistent while they are moved into place or opened */
+   private final Striped<Lock> files = Striped.lock(64);
+   /** the revalidation or fill running for each key, so that concurrent misses wait for a single fetch */
+   private final ConcurrentMap<String, FutureTask<Object>> fetches = Maps.newConcurrentMap();
+   /** in least recently read order; guarded by itself */
+   private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+   private long cachedBytes;
+
+   private DiskCachedBlobStore(BlobStore blobStore, File directory, long maxBytes) {
+      super(blobStore);
+      checkArgument(maxBytes > 0, "maxBytes must be positive");
+      this.directory = checkNotNull(directory, "directory");
+      this.maxBytes = maxBytes;
+      load();
+   }
+
+   @Override
+   public Blob getBlob(String container, String name) {
+      return getBlob(container, name, GetOptions.NONE);
+   }
+
+   @Override
+   public Blob getBlob(String container, String name, GetOptions options) {
+      if (options.getIfMatch() != null || options.getIfNoneMatch() != null || options.getIfModifiedSince() != null
+            || options.getIfUnmodifiedSince() != null || options.getRanges().size() > 1)
+         return delegate().getBlob(container, name, options);
+      String range = options.getRanges().isEmpty() ? null : options.getRanges().get(0);
+      String key = key(container, name);
+      try {
+         if (range != null && !isCached(key)) {
+            BlobMetadata metadata = delegate().blobMetadata(container, name);
+            if (metadata == null)
+               return null;
+            if (!isCacheable(metadata))
+               return delegate().getBlob(container, name, options);
+         }
+         Object fresh = fresh(key, container, name);
+         if (fresh instanceof Entry) {
+            Blob cached = open((Entry) fresh, range);
+            if (cached != null)
+               return cached;
+            invalidate(key);
+            fresh = fresh(key, container, name);
+         }
+         if (fresh instanceof Entry)
+            return open((Entry) fresh, range);
+         Blob blob = (Blob) fresh;
+         if (blob == null || range == null)
+            return blob;
+         Closeables.closeQuietly(blob.getPayload().openStream());
+         return delegate().getBlob(container, name, options);
+      } catch (IOException e) {
+         throw propagate(e);
+      }
+   }
+
+   private boolean isCached(String key) {
+      synchronized (entries) {
+         return entries.containsKey(key);
+      }
+   }
+
+   private boolean isCacheable(BlobMetadata metadata) {
+      Long size = metadata.getContentMetadata().getContentLength();
+      return metadata.getETag() != null && size != null && size <= maxBytes;
+   }
+
+   /**
+    * Revalidates or fills the cached copy of a blob, or waits for the revalidation or fill another caller is
+    * running for it.
+    *
+    * @return the {@link Entry} of a current cached copy, the {@link Blob} itself when it cannot be cached, or null
+    *         if it does not exist
+    */
+   private Object fresh(final String key, final String container, final String name) throws IOException {
+      FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+         @Override
+         public Object call() throws IOException {
+            return fetch(key, container, name);
+         }
+      });
+      FutureTask<Object> running = fetches.putIfAbsent(key, task);
+      if (running == null) {
+         try {
+            task.run();
+         } finally {
+            fetches.remove(key, task);
+         }
+         return getDone(task);
+      }
+      Object fresh = getDone(running);
+      // the content of a blob that cannot be cached can only be read once
+      return fresh instanceof Blob ? fetch(key, container, name) : fresh;
+   }
+
+   private static Object getDone(FutureTask<Object> task) throws IOException {
+      try {
+         return Uninterruptibles.getUninterruptibly(task);
+      } catch (ExecutionException e) {
+         propagateIfPossible(e.getCause(), IOException.class);
+         throw propagate(e.getCause());
+      }
+   }
+
+   private Object fetch(String key, String container, String name) throws IOException {
+      Entry entry;
+      synchronized (entries) {
+         entry = entries.get(key);
+      }
+      Blob blob;
+      if (entry != null) {
+         try {
+            blob = delegate().getBlob(container, name, new GetOptions().ifETagDoesntMatch(entry.eTag));
+         } catch (RuntimeException e) {
+            HttpResponseException notModified = getFirstThrowableOfType(e, HttpResponseException.class);
+            if (notModified != null && notModified.getResponse() != null
+                  && notModified.getResponse().getStatusCode() == 304) {
+               file(key, DATA).setLastModified(System.currentTimeMillis());
+               return entry;
+            }
+            throw e;
+         }
+         invalidate(key);
+      } else {
+         blob = delegate().getBlob(container, name, GetOptions.NONE);
+      }
+      if (blob == null)
+         return null;
+      if (!isCacheable(blob.getMetadata()))
+         return blob;
+      return fill(key, container, name, blob);
+   }
+
+   private Entry fill(String key, String container, String name, Blob blob) throws IOException {
+      File data = file(key, DATA);
+      Files.createParentDirs(data);
+      File temp = new File(data.getParentFile(), UUID.randomUUID() + ".tmp");
+      InputStream in = blob.getPayload().openStream();
+      try {
+         OutputStream out = new FileOutputStream(temp);
+         try {
+            ByteStreams.copy(in, out);
+         } finally {
+            Closeables.close(out, true);
+         }
+      } finally {
+         Closeables.closeQuietly(in);
+      }
+      File metadata = new File(data.getParentFile(), UUID.randomUUID() + ".tmp");
+      OutputStream out = new FileOutputStream(metadata);
+      try {
+         toProperties(container, name, blob.getMetadata()).store(out, null);
+      } finally {
+         Closeables.close(out, true);
+      }
+      Lock lock = files.get(key);
+      lock.lock();
+      try {
+         Files.move(temp, data);
+         Files.move(metadata, file(key, METADATA));
+         Entry entry = new Entry(key, container, name, blob.getMetadata().getETag(), data.length());
+         add(entry);
+         return entry;
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * @return the cached blob, or null if its files were removed, for example by another process
+    */
+   private Blob open(Entry entry, String range) throws IOException {
+      Properties properties = new Properties();
+      RandomAccessFile file;
+      Lock lock = files.get(entry.key);
+      lock.lock();
+      try {
+         InputStream in = new FileInputStream(file(entry.key, METADATA));
+         try {
+            properties.load(in);
+         } finally {
+            Closeables.closeQuietly(in);
+         }
+         file = new RandomAccessFile(file(entry.key, DATA), "r");
+      } catch (FileNotFoundException e) {
+         return null;
+      } finally {
+         lock.unlock();
+      }
+      long start = 0;
+      long end = file.length() - 1;
+      FileChannel channel;
+      try {
+         if (range != null) {
+            long[] resolved = ByteRanges.resolve(range, file.length());
+            start = resolved[0];
+            end = resolved[1];
+         }
+         channel = file.getChannel().position(start);
+      } catch (RuntimeException e) {
+         Closeables.close(file, true);
+         throw e;
+      }
+      MutableBlobMetadata metadata = fromProperties(properties);
+      metadata.getContentMetadata().setContentLength(end - start + 1);
+      Payload payload = Payloads.newInputStreamPayload(ByteStreams.limit(Channels.newInputStream(channel),
+            end - start + 1));
+      HttpUtils.copy(metadata.getContentMetadata(), payload.getContentMetadata());
+      Blob blob = new BlobImpl(metadata);
+      blob.setPayload(payload);
+      return blob;
+   }
+
+   @Override
+   public void downloadBlob(String container, String name, File destination) {
+      String key = key(container, name);
+      try {
+         Object fresh = fresh(key, container, name);
+         if (fresh instanceof Entry) {
+            // copies between files without going through user space
+            FileChannel from;
+            Lock lock = files.get(key);
+            lock.lock();
+            try {
+               from = new RandomAccessFile(file(key, DATA), "r").getChannel();
+            } finally {
+               lock.unlock();
+            }
+            try {
+               FileChannel to = new FileOutputStream(destination).getChannel();
+               try {
+                  long size = from.size();
+                  for (long position = 0; position < size;)
+                     position += from.transferTo(position, size - position, to);
+               } finally {
+                  Closeables.close(to, true);
+               }
+            } finally {
+               Closeables.close(from, true);
+            }
+         } else if (fresh instanceof Blob) {
+            InputStream in = ((Blob) fresh).getPayload().openStream();
+            try {
+               Files.asByteSink(destination).writeFrom(in);
+            } finally {
+               Closeables.closeQuietly(in);
+            }
+         } else {
+            throw new KeyNotFoundException(container, name, "while downloading blob");
+         }
+      } catch (IOException e) {
+         throw propagate(e);
+      }
+   }
+
+   @Override
+   public String putBlob(String container, Blob blob) {
+      invalidate(key(container, blob.getMetadata().getName()));
+      return delegate().putBlob(container, blob);
+   }
+
+   @Override
+   public String putBlob(String container, Blob blob, PutOptions options) {
+      invalidate(key(container, blob.getMetadata().getName()));
+      return delegate().putBlob(container, blob, options);
+   }
+
+   @Override
+   public String copyBlob(String fromContainer, String fromName, String toContainer, String toName,
+         CopyOptions options) {
+      invalidate(key(toContainer, toName));
+      return delegate().copyBlob(fromContainer, fromName, toContainer, toName, options);
+   }
+
+   @Override
+   public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
+      invalidate(key(mpu.containerName(), mpu.blobName()));
+      return delegate().completeMultipartUpload(mpu, parts);
+   }
+
+   @Override
+   public void removeBlob(String container, String name) {
+      invalidate(key(container, name));
+      delegate().removeBlob(container, name);
+   }
+
+   @Override
+   public void removeBlobs(String container, Iterable<String> names) {
+      for (String name : names)
+         invalidate(key(container, name));
+      delegate().removeBlobs(container, names);
+   }
+
+   @Override
+   public void deleteDirectory(String container, String directory) {
+      invalidateAll(container, directory.endsWith("/") ? directory : directory + "/");
+      delegate().deleteDirectory(container, directory);
+   }
+
+   @Override
+   public void clearContainer(String container) {
+      invalidateAll(container, "");
+      delegate().clearContainer(container);
+   }
+
+   @Override
+   public void clearContainer(String container, ListContainerOptions options) {
+      invalidateAll(container, "");
+      delegate().clearContainer(container, options);
+   }
+
+   @Override
+   public void deleteContainer(String container) {
+      invalidateAll(container, "");
+      delegate().deleteContainer(container);
+   }
+
+   private static String key(String container, String name) {
+      return Hashing.sha256().hashString(container + "/" + name, UTF_8).toString();
+   }
+
+   private File file(String key, String suffix) {
+      return new File(new File(directory, key.substring(0, 2)), key + suffix);
+   }
+
+   private void add(Entry entry) {
+      List<Entry> evicted = Lists.newArrayList();
+      synchronized (entries) {
+         Entry previous = entries.put(entry.key, entry);
+         if (previous != null)
+            cachedBytes -= previous.size;
+         cachedBytes += entry.size;
+         for (Iterator<Entry> it = entries.values().iterator(); cachedBytes > maxBytes && it.hasNext();) {
+            Entry eldest = it.next();
+            if (eldest == entry)
+               continue;
+            it.remove();
+            cachedBytes -= eldest.size;
+            evicted.add(eldest);
+         }
+      }
+      for (Entry eldest : evicted)
+         delete(eldest.key);
+   }
+
+   private void invalidate(String key) {
+      synchronized (entries) {
+         Entry entry = entries.remove(key);
+         if (entry != null)
+            cachedBytes -= entry.size;
+      }
+      delete(key);
+   }
+
+   private void invalidateAll(String container, String prefix) {
+      List<String> keys = Lists.newArrayList();
+      synchronized (entries) {
+         for (Entry entry : entries.values()) {
+            if (container.equals(entry.container) && entry.name.startsWith(prefix))
+               keys.add(entry.key);
+         }
+      }
+      for (String key : keys)
+         invalidate(key);
+   }
+
+   private void delete(String key) {
+      file(key, METADATA).delete();
+      file(key, DATA).delete();
+   }
+
+   /**
+    * Indexes the blobs cached by a previous run, ordered by when they were last read.
+    */
+   private void load() {
+      List<File> cached = Lists.newArrayList();
+      File[] buckets = directory.listFiles();
+      for (File bucket : buckets == null ? new File[0] : buckets) {
+         File[] files = bucket.listFiles();
+         for (File file : files == null ? new File[0] : files) {
+            if (file.getName().endsWith(".tmp"))
+               file.delete();
+            else if (file.getName().endsWith(DATA))
+               cached.add(file);
+         }
+      }
+      Collections.sort(cached, new Comparator<File>() {
+         @Override
+         public int compare(File left, File right) {
+            return Long.compare(left.lastModified(), right.lastModified());
+         }
+      });
+      for (File data : cached) {
+         String key = data.getName().substring(0, data.getName().length() - DATA.length());
+         Properties properties = new Properties();
+         try {
+            InputStream in = new FileInputStream(file(key, METADATA));
+            try {
+               properties.load(in);
+            } finally {
+               Closeables.closeQuietly(in);
+            }
+         } catch (IOException e) {
+            delete(key);
+            continue;
+         }
+         add(new Entry(key, properties.getProperty("container"), properties.getProperty("name"),
+               properties.getProperty("etag"), data.length()));
+      }
+   }
+
+   private static Properties toProperties(String container, String name, BlobMetadata metadata) {
+      Properties properties = new Properties();
+      properties.setProperty("container", container);
+      properties.setProperty("name", name);
+      putIfNotNull(properties, "etag", metadata.getETag());
+      if (metadata.getLastModified() != null)
+         properties.setProperty("last-modified", Long.toString(metadata.getLastModified().getTime()));
+      ContentMetadata content = metadata.getContentMetadata();
+      putIfNotNull(properties, "content-type", content.getContentType());
+      putIfNotNull(properties, "content-encoding", content.getContentEncoding());
+      putIfNotNull(properties, "content-disposition", content.getContentDisposition());
+      putIfNotNull(properties, "content-language", content.getContentLanguage());
+      putIfNotNull(properties, "cache-control", content.getCacheControl());
+      for (Map.Entry<String, String> user : metadata.getUserMetadata().entrySet())
+         properties.setProperty(USER_METADATA_PREFIX + user.getKey(), user.getValue());
+      return properties;
+   }
+
+   private static MutableBlobMetadata fromProperties(Properties properties) {
+      MutableBlobMetadata metadata = new MutableBlobMetadataImpl();
+      metadata.setContainer(properties.getProperty("container"));
+      metadata.setName(properties.getProperty("name"));
+      metadata.setETag(properties.getProperty("etag"));
+      String lastModified = properties.getProperty("last-modified");
+      if (lastModified != null)
+         metadata.setLastModified(new Date(Long.parseLong(lastModified)));
+      MutableContentMetadata content = metadata.getContentMetadata();
+      content.setContentType(properties.getProperty("content-type"));
+      content.setContentEncoding(properties.getProperty("content-encoding"));
+      content.setContentDisposition(properties.getProperty("content-disposition"));
+      content.setContentLanguage(properties.getProperty("content-language"));
+      content.setCacheControl(properties.getProperty("cache-control"));
+      Map<String, String> userMetadata = Maps.newLinkedHashMap();
+      for (String property : properties.stringPropertyNames()) {
+         if (property.startsWith(USER_METADATA_PREFIX))
+            userMetadata.put(property.substring(USER_METADATA_PREFIX.length()), properties.getProperty(property));
+      }
+      metadata.setUserMetadata(userMetadata);
+      return metadata;
+   }
+
+   private static void putIfNotNull(Properties properties, String key, String value) {
+      if (value != null)
+         properties.setProperty(key, value);
+   }
+}
@@ -0,0 +1,542 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.crypto.SecretKey;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
+import org.jclouds.blobstore.domain.internal.BlobImpl;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Encrypts blobs on the client before they are stored, and decrypts them when they are read.
+ * <p>
+ * Content is split into fixed-size blocks, each sealed with AES-GCM under a nonce derived from a random per-blob
+ * nonce, which is kept with the block size in the user metadata of the blob. Multipart uploads encrypt their parts
+ * in parallel on the given executor, and {@linkplain GetOptions#range(long, long) ranged reads} only fetch and
+ * decrypt the blocks covering the range.
+ * <p>
+ * Caller-driven multipart uploads need the content length of the blob when they are initiated, and parts of the
+ * size {@link MultipartUploadSlicingAlgorithm} calculates for that length from the limits of this blob store, as
+ * each part is encrypted knowing where it starts. Only the last part may be shorter. The part size limits of this
+ * blob store are whole blocks and leave room for the tags added to each block.
+ * <p>
+ * The content length of encrypted blobs is known only after reading their metadata, so sizes reported by
+ * {@link #list(String)} are those of the encrypted content.
+ */
+@Beta
+public final class EncryptedBlobStore extends ForwardingBlobStore {
+   static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+   private static final int BUFFERED_PARTS = 4;
+   private static final int BLOCKS_PER_DOWNLOAD = 64;
+
+   public static BlobStore newEncryptedBlobStore(BlobStore blobStore, SecretKey key) {
+      return newEncryptedBlobStore(blobStore, key, newDirectExecutorService());
+   }
+
+   /**
+    * @param executor
+    *           runs the encryption and upload of multipart parts and the parallel download of ranges
+    */
+   public static BlobStore newEncryptedBlobStore(BlobStore blobStore, SecretKey key, ExecutorService executor) {
+      return new EncryptedBlobStore(blobStore, key, executor, DEFAULT_BLOCK_SIZE);
+   }
+
+   private final SecretKey key;
+   private final ExecutorService executor;
+   private final int blockSize;
+   private final SecureRandom random = new SecureRandom();
+
+   EncryptedBlobStore(BlobStore blobStore, SecretKey key, ExecutorService executor, int blockSize) {
+      super(blobStore);
+      this.key = checkNotNull(key, "key");
+      this.executor = checkNotNull(executor, "executor");
+      this.blockSize = EncryptedBlocks.checkBlockSize(blockSize);
+   }
+
+   @Override
+   public String putBlob(String container, Blob blob) {
+      return putBlob(container, blob, PutOptions.NONE);
+   }
+
+   @Override
+   public String putBlob(String container, Blob blob, PutOptions options) {
+      Long plainLength = blob.getMetadata().getContentMetadata().getContentLength();
+      checkArgument(plainLength != null, "content length of %s must be known to encrypt it",
+            blob.getMetadata().getName());
+      byte[] nonce = new byte[EncryptedBlocks.NONCE_LENGTH];
+      random.nextBytes(nonce);
+      EncryptedBlocks blocks = new EncryptedBlocks(key, nonce, blockSize);
+      MutableBlobMetadata metadata = sealedMetadata(blob.getMetadata(), blocks, plainLength);
+      InputStream in = openStream(blob.getPayload());
+      try {
+         if (options.isMultipart())
+            return putMultipartBlob(container, metadata, in, plainLength, blocks, options);
+         Payload payload = Payloads.newInputStreamPayload(blocks.encrypting(in, plainLength));
+         HttpUtils.copy(metadata.getContentMetadata(), payload.getContentMetadata());
+         Blob sealed = new BlobImpl(metadata);
+         sealed.setPayload(payload);
+         return delegate().putBlob(container, sealed, options);
+      } finally {
+         Closeables.closeQuietly(in);
+      }
+   }
+
+   private String putMultipartBlob(String container, MutableBlobMetadata metadata, InputStream in,
+         long plainLength, EncryptedBlocks blocks, PutOptions options) {
+      ListeningExecutorService executor = listeningDecorator(options.getUseCustomExecutor() ? options
+            .getCustomExecutor() : this.executor);
+      // parts are encrypted in memory, so their encrypted content must fit in an array
+      long blocksPerPart = Math.min(Math.max(1, partSize(plainLength) / blockSize),
+            Integer.MAX_VALUE / (blockSize + EncryptedBlocks.TAG_LENGTH));
+      long blockCount = blocks.blockCount(plainLength);
+      // bounds the plaintext held in memory while parts are encrypted and uploaded
+      Semaphore buffers = new Semaphore(BUFFERED_PARTS);
+      AtomicBoolean failed = new AtomicBoolean();
+      List<ListenableFuture<MultipartPart>> parts = Lists.newArrayList();
+      MultipartUpload mpu = delegate().initiateMultipartUpload(container, metadata, options);
+      try {
+         int partNumber = 1;
+         for (long first = 0; first < blockCount && !failed.get(); first += blocksPerPart) {
+            long start = first * (long) blockSize;
+            byte[] plain = new byte[Ints.checkedCast(Math.min(blocksPerPart * (long) blockSize,
+                  plainLength - start))];
+            buffers.acquireUninterruptibly();
+            try {
+               ByteStreams.readFully(in, plain);
+            } catch (IOException e) {
+               buffers.release();
+               throw propagate(e);
+            }
+            parts.add(executor.submit(new PartUploader(mpu, partNumber++, blocks, first, plain, plainLength,
+                  buffers, failed)));
+         }
+         // fails as soon as any part fails, rather than once the parts before it completed
+         List<MultipartPart> uploaded = Futures.getUnchecked(Futures.allAsList(parts));
+         return delegate().completeMultipartUpload(mpu, uploaded);
+      } catch (RuntimeException re) {
+         for (Future<MultipartPart> part : parts)
+            part.cancel(false);
+         delegate().abortMultipartUpload(mpu);
+         throw re;
+      }
+   }
+
+   private final class PartUploader implements Callable<MultipartPart> {
+      private final MultipartUpload mpu;
+      private final int partNumber;
+      private final EncryptedBlocks blocks;
+      private final long firstBlock;
+      private final byte[] plain;
+      private final long plainLength;
+      private final Semaphore buffers;
+      private final AtomicBoolean failed;
+
+      PartUploader(MultipartUpload mpu, int partNumber, EncryptedBlocks blocks, long firstBlock, byte[] plain,
+            long plainLength, Semaphore buffers, AtomicBoolean failed) {
+         this.mpu = mpu;
+         this.partNumber = partNumber;
+         this.blocks = blocks;
+         this.firstBlock = firstBlock;
+         this.plain = plain;
+         this.plainLength = plainLength;
+         this.buffers = buffers;
+         this.failed = failed;
+      }
+
+      @Override
+      public MultipartPart call() {
+         try {
+            return delegate().uploadMultipartPart(mpu, partNumber,
+                  Payloads.newByteArrayPayload(seal(blocks, firstBlock, plain, plainLength)));
+         } catch (RuntimeException e) {
+            // stops reading further parts
+            failed.set(true);
+            throw e;
+         } finally {
+            buffers.release();
+         }
+      }
+   }
+
+   /**
+    * Encrypts the blocks of {@code plain}, which starts at block {@code firstBlock} of a blob of {@code plainLength}
+    * bytes.
+    */
+   private static byte[] seal(EncryptedBlocks blocks, long firstBlock, byte[] plain, long plainLength) {
+      int blockSize = blocks.blockSize();
+      long lastBlock = blocks.blockCount(plainLength) - 1;
+      int count = Math.max(1, (plain.length + blockSize - 1) / blockSize);
+      ByteBuffer sealed = ByteBuffer.allocate(Ints.checkedCast(plain.length + (long) count
+            * EncryptedBlocks.TAG_LENGTH));
+      for (int i = 0; i < count; i++) {
+         long index = firstBlock + i;
+         int offset = i * blockSize;
+         sealed.put(blocks.encrypt(index, index == lastBlock, plain, offset,
+               Math.min(blockSize, plain.length - offset)));
+      }
+      return sealed.array();
+   }
+
+   @Override
+   public BlobMetadata blobMetadata(String container, String name) {
+      BlobMetadata metadata = delegate().blobMetadata(container, name);
+      if (metadata == null)
+         return null;
+      EncryptedBlocks blocks = EncryptedBlocks.fromUserMetadata(key, metadata.getUserMetadata());
+      if (blocks == null)
+         return metadata;
+      return plainMetadata(metadata, blocks.plainLength(metadata.getContentMetadata().getContentLength()));
+   }
+
+   @Override
+   public Blob getBlob(String container, String name) {
+      return getBlob(container, name, GetOptions.NONE);
+   }
+
+   @Override
+   public Blob getBlob(String container, String name, GetOptions options) {
+      BlobMetadata metadata = delegate().blobMetadata(container, name);
+      if (metadata == null)
+         return null;
+      EncryptedBlocks blocks = EncryptedBlocks.fromUserMetadata(key, metadata.getUserMetadata());
+      if (blocks == null)
+         return delegate().getBlob(container, name, options);
+      long plainLength = blocks.plainLength(metadata.getContentMetadata().getContentLength());
+      GetOptions sealedOptions = new GetOptions();
+      if (options.getIfModifiedSince() != null)
+         sealedOptions.ifModifiedSince(options.getIfModifiedSince());
+      if (options.getIfUnmodifiedSince() != null)
+         sealedOptions.ifUnmodifiedSince(options.getIfUnmodifiedSince());
+      if (options.getIfMatch() != null)
+         sealedOptions.ifETagMatches(options.getIfMatch());
+      if (options.getIfNoneMatch() != null)
+         sealedOptions.ifETagDoesntMatch(options.getIfNoneMatch());
+      // the content must still be the one the encryption parameters were read for
+      if (metadata.getETag() != null && sealedOptions.getIfMatch() == null && sealedOptions.getIfNoneMatch() == null
+            && sealedOptions.getIfModifiedSince() == null)
+         sealedOptions.ifETagMatches(metadata.getETag());
+      if (options.getRanges().isEmpty())
+         return open(container, name, blocks, plainLength, 0, plainLength - 1, sealedOptions);
+      checkArgument(options.getRanges().size() == 1, "only a single range can be read from an encrypted blob");
+      long[] range = ByteRanges.resolve(options.getRanges().get(0), plainLength);
+      return open(container, name, blocks, plainLength, range[0], range[1],
+            coveringBlocks(sealedOptions, blocks, plainLength, range[0], range[1]));
+   }
+
+   /**
+    * Requests the encrypted blocks covering plaintext bytes {@code start} to {@code end}.
+    */
+   private static GetOptions coveringBlocks(GetOptions options, EncryptedBlocks blocks, long plainLength, long start,
+         long end) {
+      long firstBlock = start / blocks.blockSize();
+      long lastBlock = end / blocks.blockSize();
+      return options.range(blocks.cipherOffset(firstBlock), blocks.cipherOffset(lastBlock)
+            + blocks.plainBlockLength(lastBlock, plainLength) + EncryptedBlocks.TAG_LENGTH - 1);
+   }
+
+   /**
+    * Fetches the blocks requested by {@code sealedOptions} and decrypts bytes {@code start} to {@code end}.
+    */
+   private Blob open(String container, String name, EncryptedBlocks blocks, long plainLength, long start,
+         long end, GetOptions sealedOptions) {
+      Blob sealed = delegate().getBlob(container, name, sealedOptions);
+      if (sealed == null)
+         return null;
+      long length = end - start + 1;
+      long firstBlock = start / blocks.blockSize();
+      MutableBlobMetadata metadata = plainMetadata(sealed.getMetadata(), length);
+      Payload payload = Payloads.newInputStreamPayload(blocks.decrypting(openStream(sealed.getPayload()),
+            plainLength, firstBlock, (int) (start - firstBlock * blocks.blockSize()), length));
+      HttpUtils.copy(metadata.getContentMetadata(), payload.getContentMetadata());
+      Blob blob = new BlobImpl(metadata);
+      blob.setPayload(payload);
+      return blob;
+   }
+
+   @Override
+   public String copyBlob(String fromContainer, String fromName, String toContainer, String toName,
+         CopyOptions options) {
+      if (options.userMetadata() != null) {
+         BlobMetadata metadata = delegate().blobMetadata(fromContainer, fromName);
+         EncryptedBlocks blocks = metadata == null ? null
+               : EncryptedBlocks.fromUserMetadata(key, metadata.getUserMetadata());
+         if (blocks != null) {
+            // replacing the user metadata must keep what is needed to decrypt the copy
+            Map<String, String> userMetadata = Maps.newLinkedHashMap(options.userMetadata());
+            blocks.addUserMetadata(userMetadata);
+            options = CopyOptions.builder().contentMetadata(options.contentMetadata()).userMetadata(userMetadata)
+                  .ifModifiedSince(options.ifModifiedSince()).ifUnmodifiedSince(options.ifUnmodifiedSince())
+                  .ifMatch(options.ifMatch()).ifNoneMatch(options.ifNoneMatch()).build();
+         }
+      }
+      return delegate().copyBlob(fromContainer, fromName, toContainer, toName, options);
+   }
+
+   @Override
+   public InputStream streamBlob(String container, String name) {
+      Blob blob = getBlob(container, name);
+      if (blob == null)
+         throw new KeyNotFoundException(container, name, "while streaming blob");
+      return openStream(blob.getPayload());
+   }
+
+   @Override
+   public InputStream streamBlob(String container, String name, ExecutorService executor) {
+      return streamBlob(container, name);
+   }
+
+   @Override
+   public void downloadBlob(String container, String name, File destination) {
+      downloadBlob(container, name, destination, newDirectExecutorService());
+   }
+
+   @Override
+   public void downloadBlob(String container, String name, File destination, ExecutorService executor) {
+      BlobMetadata metadata = delegate().blobMetadata(container, name);
+      if (metadata == null)
+         throw new KeyNotFoundException(container, name, "while downloading blob");
+      EncryptedBlocks blocks = EncryptedBlocks.fromUserMetadata(key, metadata.getUserMetadata());
+      if (blocks == null) {
+         delegate().downloadBlob(container, name, destination, executor);
+         return;
+      }
+      long plainLength = blocks.plainLength(metadata.getContentMetadata().getContentLength());
+      long rangeSize = (long) blocks.blockSize() * BLOCKS_PER_DOWNLOAD;
+      try {
+         RandomAccessFile file = new RandomAccessFile(destination, "rw");
+         try {
+            file.setLength(plainLength);
+            List<Future<Void>> ranges = Lists.newArrayList();
+            for (long start = 0; start < plainLength; start += rangeSize) {
+               ranges.add(executor.submit(new RangeDownloader(container, name, metadata.getETag(), blocks,
+                     plainLength, start, Math.min(plainLength, start + rangeSize) - 1, file.getChannel())));
+            }
+            for (Future<Void> range : ranges)
+               Futures.getUnchecked(range);
+         } finally {
+            Closeables.close(file, true);
+         }
+      } catch (IOException e) {
+         throw propagate(e);
+      }
+   }
+
+   private final class RangeDownloader implements Callable<Void> {
+      private final String container;
+      private final String name;
+      private final String eTag;
+      private final EncryptedBlocks blocks;
+      private final long plainLength;
+      private final long start;
+      private final long end;
+      private final FileChannel channel;
+
+      RangeDownloader(String container, String name, @Nullable String eTag, EncryptedBlocks blocks,
+            long plainLength, long start, long end, FileChannel channel) {
+         this.container = container;
+         this.name = name;
+         this.eTag = eTag;
+         this.blocks = blocks;
+         this.plainLength = plainLength;
+         this.start = start;
+         this.end = end;
+         this.channel = channel;
+      }
+
+      @Override
+      public Void call() throws IOException {
+         // every range must come from the content the encryption parameters were read for
+         GetOptions options = eTag == null ? new GetOptions() : new GetOptions().ifETagMatches(eTag);
+         Blob blob = open(container, name, blocks, plainLength, start, end,
+               coveringBlocks(options, blocks, plainLength, start, end));
+         if (blob == null)
+            throw new KeyNotFoundException(container, name, "while downloading blob");
+         InputStream in = blob.getPayload().openStream();
+         try {
+            byte[] buffer = new byte[blocks.blockSize()];
+            long position = start;
+            for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+               ByteBuffer written = ByteBuffer.wrap(buffer, 0, n);
+               while (written.hasRemaining())
+                  position += channel.write(written, position);
+            }
+         } finally {
+            Closeables.closeQuietly(in);
+         }
+         return null;
+      }
+   }
+
+   @Override
+   public MultipartUpload initiateMultipartUpload(String container, BlobMetadata blob, PutOptions options) {
+      Long plainLength = blob.getContentMetadata().getContentLength();
+      checkArgument(plainLength != null, "content length of %s must be known to encrypt it", blob.getName());
+      byte[] nonce = new byte[EncryptedBlocks.NONCE_LENGTH];
+      random.nextBytes(nonce);
+      EncryptedBlocks blocks = new EncryptedBlocks(key, nonce, blockSizeDividing(partSize(plainLength)));
+      MutableBlobMetadata metadata = sealedMetadata(blob, blocks, plainLength);
+      MultipartUpload mpu = delegate().initiateMultipartUpload(container, metadata, options);
+      // the encryption parameters of the parts are read back from the metadata of the upload
+      return MultipartUpload.create(mpu.containerName(), mpu.blobName(), mpu.id(), metadata, mpu.putOptions());
+   }
+
+   @Override
+   public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) {
+      BlobMetadata metadata = mpu.blobMetadata();
+      EncryptedBlocks blocks = metadata == null ? null
+            : EncryptedBlocks.fromUserMetadata(key, metadata.getUserMetadata());
+      if (blocks == null)
+         return delegate().uploadMultipartPart(mpu, partNumber, payload);
+      long plainLength = blocks.plainLength(metadata.getContentMetadata().getContentLength());
+      long partSize = partSize(plainLength);
+      long start = (partNumber - 1) * partSize;
+      byte[] plain;
+      InputStream in = openStream(payload);
+      try {
+         plain = ByteStreams.toByteArray(in);
+      } catch (IOException e) {
+         throw propagate(e);
+      } finally {
+         Closeables.closeQuietly(in);
+      }
+      checkArgument(start < plainLength || start == 0, "part %s starts after the end of %s", partNumber,
+            mpu.blobName());
+      checkArgument(plain.length == Math.min(partSize, plainLength - start),
+            "part %s of %s must hold %s bytes, was %s", partNumber, mpu.blobName(),
+            Math.min(partSize, plainLength - start), plain.length);
+      return delegate().uploadMultipartPart(mpu, partNumber,
+            Payloads.newByteArrayPayload(seal(blocks, start / blocks.blockSize(), plain, plainLength)));
+   }
+
+   /**
+    * Leaves room for the tags of the blocks of a part, so that encrypted parts stay within the limit of the
+    * underlying blob store. A whole number of blocks.
+    */
+   @Override
+   public long getMaximumMultipartPartSize() {
+      return delegate().getMaximumMultipartPartSize() / (blockSize + EncryptedBlocks.TAG_LENGTH) * blockSize;
+   }
+
+   /**
+    * A whole number of blocks.
+    */
+   @Override
+   public long getMinimumMultipartPartSize() {
+      long minimum = delegate().getMinimumMultipartPartSize();
+      return (minimum + blockSize - 1) / blockSize * blockSize;
+   }
+
+   /**
+    * @return the part size callers are expected to use for a blob of {@code plainLength} bytes
+    */
+   private long partSize(long plainLength) {
+      return new MultipartUploadSlicingAlgorithm(getMinimumMultipartPartSize(), getMaximumMultipartPartSize(),
+            getMaximumNumberOfParts()).calculateChunkSize(plainLength);
+   }
+
+   /**
+    * @return the largest block size, between {@link EncryptedBlocks#MIN_BLOCK_SIZE} and the configured one, which
+    *         divides {@code partSize} and keeps encrypted parts within the limit of the underlying blob store, so
+    *         that each part holds whole blocks
+    */
+   private int blockSizeDividing(long partSize) {
+      long maximum = delegate().getMaximumMultipartPartSize();
+      for (int size = blockSize; size >= EncryptedBlocks.MIN_BLOCK_SIZE; size--) {
+         if (partSize % size == 0 && partSize + partSize / size * EncryptedBlocks.TAG_LENGTH <= maximum)
+            return size;
+      }
+      throw new IllegalArgumentException(String.format(
+            "parts of %s bytes cannot be split into blocks of at least %s bytes", partSize,
+            EncryptedBlocks.MIN_BLOCK_SIZE));
+   }
+
+   private static MutableBlobMetadata sealedMetadata(BlobMetadata plain, EncryptedBlocks blocks, long plainLength) {
+      MutableBlobMetadata metadata = new MutableBlobMetadataImpl(plain);
+      Map<String, String> userMetadata = Maps.newLinkedHashMap(plain.getUserMetadata());
+      blocks.addUserMetadata(userMetadata);
+      metadata.setUserMetadata(userMetadata);
+      metadata.getContentMetadata().setContentLength(blocks.cipherLength(plainLength));
+      metadata.getContentMetadata().setContentMD5((HashCode) null);
+      return metadata;
+   }
+
+   private static MutableBlobMetadata plainMetadata(BlobMetadata sealed, long plainLength) {
+      MutableBlobMetadata metadata = new MutableBlobMetadataImpl(sealed);
+      Map<String, String> userMetadata = Maps.newLinkedHashMap(sealed.getUserMetadata());
+      userMetadata.remove(EncryptedBlocks.NONCE_METADATA);
+      userMetadata.remove(EncryptedBlocks.BLOCK_SIZE_METADATA);
+      metadata.setUserMetadata(userMetadata);
+      metadata.getContentMetadata().setContentLength(plainLength);
+      metadata.getContentMetadata().setContentMD5((HashCode) null);
+      return metadata;
+   }
+
+   private static InputStream openStream(Payload payload) {
+      try {
+         return payload.openStream();
+      } catch (IOException e) {
+         throw propagate(e);
+      }
+   }
+}
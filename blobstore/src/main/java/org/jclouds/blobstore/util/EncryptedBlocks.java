@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Fixed-size blocks of a blob, each sealed with AES-GCM. The nonce of a block is derived from a random per-blob
+ * nonce and the block index, and the additional authenticated data binds the block index and whether it is the
+ * last block, so blocks can neither be reordered nor truncated unnoticed.
+ * <p>
+ * A blob of {@code n} plaintext bytes is stored as {@code max(1, ceil(n / blockSize))} blocks, each followed by a
+ * {@value #TAG_LENGTH} byte tag. As blocks are independent, they can be encrypted in parallel and decrypted from
+ * any block boundary.
+ */
+final class EncryptedBlocks {
+   static final String NONCE_METADATA = "jclouds-encryption-nonce";
+   static final String BLOCK_SIZE_METADATA = "jclouds-encryption-block-size";
+   static final int NONCE_LENGTH = 12;
+   static final int TAG_LENGTH = 16;
+   /** each block carries a tag, so smaller blocks would mostly store tags */
+   static final int MIN_BLOCK_SIZE = 4 * 1024;
+   /** blocks are decrypted in memory, so their size is bounded */
+   static final int MAX_BLOCK_SIZE = 16 * 1024 * 1024;
+
+   private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+   /** looking up a cipher is costly, and a cipher can be initialized again for the next block */
+   private static final ThreadLocal<Cipher> CIPHERS = new ThreadLocal<Cipher>() {
+      @Override
+      protected Cipher initialValue() {
+         return newCipher();
+      }
+   };
+
+   private final SecretKey key;
+   private final byte[] nonce;
+   private final int blockSize;
+
+   EncryptedBlocks(SecretKey key, byte[] nonce, int blockSize) {
+      this.key = checkNotNull(key, "key");
+      this.nonce = checkNotNull(nonce, "nonce").clone();
+      checkArgument(nonce.length == NONCE_LENGTH, "nonce must be %s bytes", NONCE_LENGTH);
+      this.blockSize = checkBlockSize(blockSize);
+   }
+
+   /**
+    * @return the blocks described by {@code userMetadata}, or null if the blob was not encrypted
+    */
+   static EncryptedBlocks fromUserMetadata(SecretKey key, Map<String, String> userMetadata) {
+      String nonce = userMetadata.get(NONCE_METADATA);
+      String blockSize = userMetadata.get(BLOCK_SIZE_METADATA);
+      if (nonce == null || blockSize == null)
+         return null;
+      int parsed;
+      try {
+         parsed = Integer.parseInt(blockSize);
+      } catch (NumberFormatException e) {
+         throw new IllegalArgumentException(BLOCK_SIZE_METADATA + " is not a number: " + blockSize, e);
+      }
+      return new EncryptedBlocks(key, BaseEncoding.base64().decode(nonce), parsed);
+   }
+
+   static int checkBlockSize(int blockSize) {
+      checkArgument(blockSize >= MIN_BLOCK_SIZE && blockSize <= MAX_BLOCK_SIZE,
+            "block size must be between %s and %s bytes: %s", MIN_BLOCK_SIZE, MAX_BLOCK_SIZE, blockSize);
+      return blockSize;
+   }
+
+   void addUserMetadata(Map<String, String> userMetadata) {
+      userMetadata.put(NONCE_METADATA, BaseEncoding.base64().encode(nonce));
+      userMetadata.put(BLOCK_SIZE_METADATA, Integer.toString(blockSize));
+   }
+
+   int blockSize() {
+      return blockSize;
+   }
+
+   long blockCount(long plainLength) {
+      return Math.max(1, (plainLength + blockSize - 1) / blockSize);
+   }
+
+   long cipherLength(long plainLength) {
+      return plainLength + blockCount(plainLength) * TAG_LENGTH;
+   }
+
+   long plainLength(long cipherLength) {
+      long blocks = (cipherLength + blockSize + TAG_LENGTH - 1) / (blockSize + TAG_LENGTH);
+      return cipherLength - Math.max(1, blocks) * TAG_LENGTH;
+   }
+
+   /**
+    * @return offset of block {@code index} in the encrypted blob
+    */
+   long cipherOffset(long index) {
+      return index * (blockSize + TAG_LENGTH);
+   }
+
+   int plainBlockLength(long index, long plainLength) {
+      return (int) Math.min(blockSize, plainLength - index * blockSize);
+   }
+
+   byte[] encrypt(long index, boolean last, byte[] plain, int offset, int length) {
+      try {
+         return cipher(Cipher.ENCRYPT_MODE, index, last).doFinal(plain, offset, length);
+      } catch (GeneralSecurityException e) {
+         throw new IllegalStateException("cannot encrypt block " + index, e);
+      }
+   }
+
+   byte[] decrypt(long index, boolean last, byte[] sealed, int offset, int length) throws IOException {
+      try {
+         return cipher(Cipher.DECRYPT_MODE, index, last).doFinal(sealed, offset, length);
+      } catch (GeneralSecurityException e) {
+         throw new IOException("block " + index + " failed authentication", e);
+      }
+   }
+
+   private Cipher cipher(int mode, long index, boolean last) throws GeneralSecurityException {
+      byte[] blockNonce = nonce.clone();
+      for (int i = 0; i < 8; i++)
+         blockNonce[NONCE_LENGTH - 1 - i] ^= (byte) (index >>> (8 * i));
+      GCMParameterSpec spec = new GCMParameterSpec(TAG_LENGTH * 8, blockNonce);
+      Cipher cipher = CIPHERS.get();
+      try {
+         cipher.init(mode, key, spec);
+      } catch (InvalidAlgorithmParameterException e) {
+         // a cipher refuses to encrypt twice with the nonce it was last initialized with, as when a part is retried
+         cipher = newCipher();
+         CIPHERS.set(cipher);
+         cipher.init(mode, key, spec);
+      }
+      cipher.updateAAD(ByteBuffer.allocate(9).putLong(index).put((byte) (last ? 1 : 0)).array());
+      return cipher;
+   }
+
+   private static Cipher newCipher() {
+      try {
+         return Cipher.getInstance(TRANSFORMATION);
+      } catch (GeneralSecurityException e) {
+         throw new IllegalStateException("cannot create an " + TRANSFORMATION + " cipher", e);
+      }
+   }
+
+   /**
+    * Encrypts {@code plainLength} bytes read from {@code plain}, block by block.
+    */
+   InputStream encrypting(InputStream plain, long plainLength) {
+      return new EncryptingInputStream(plain, plainLength);
+   }
+
+   /**
+    * Decrypts {@code length} bytes starting {@code skip} bytes into block {@code firstBlock}, reading sealed
+    * blocks from {@code sealed}, which must be positioned at the start of {@code firstBlock}.
+    */
+   InputStream decrypting(InputStream sealed, long plainLength, long firstBlock, int skip, long length) {
+      return new DecryptingInputStream(sealed, plainLength, firstBlock, skip, length);
+   }
+
+   /**
+    * Hands out the content of one block at a time.
+    */
+   private abstract static class BlockInputStream extends InputStream {
+      final InputStream in;
+      byte[] block = new byte[0];
+      int position;
+
+      BlockInputStream(InputStream in) {
+         this.in = in;
+      }
+
+      /**
+       * @return false when there are no more blocks
+       */
+      abstract boolean nextBlock() throws IOException;
+
+      @Override
+      public int read() throws IOException {
+         byte[] b = new byte[1];
+         return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         if (len == 0)
+            return 0;
+         while (position == block.length) {
+            if (!nextBlock())
+               return -1;
+         }
+         int n = Math.min(len, block.length - position);
+         System.arraycopy(block, position, b, off, n);
+         position += n;
+         return n;
+      }
+
+      @Override
+      public void close() throws IOException {
+         in.close();
+      }
+   }
+
+   private final class EncryptingInputStream extends BlockInputStream {
+      private final long plainLength;
+      private final long lastBlock;
+      private final byte[] buffer;
+      private long index;
+
+      EncryptingInputStream(InputStream plain, long plainLength) {
+         super(plain);
+         this.plainLength = plainLength;
+         this.lastBlock = blockCount(plainLength) - 1;
+         this.buffer = new byte[blockSize];
+      }
+
+      @Override
+      boolean nextBlock() throws IOException {
+         if (index > lastBlock)
+            return false;
+         int length = plainBlockLength(index, plainLength);
+         ByteStreams.readFully(in, buffer, 0, length);
+         block = encrypt(index, index == lastBlock, buffer, 0, length);
+         position = 0;
+         index++;
+         return true;
+      }
+   }
+
+   private final class DecryptingInputStream extends BlockInputStream {
+      private final long plainLength;
+      private final long lastBlock;
+      private final byte[] buffer;
+      private long index;
+      private int skip;
+      private long remaining;
+
+      DecryptingInputStream(InputStream sealed, long plainLength, long firstBlock, int skip, long length) {
+         super(sealed);
+         this.plainLength = plainLength;
+         this.lastBlock = blockCount(plainLength) - 1;
+         this.buffer = new byte[blockSize + TAG_LENGTH];
+         this.index = firstBlock;
+         this.skip = skip;
+         this.remaining = length;
+      }
+
+      @Override
+      boolean nextBlock() throws IOException {
+         if (remaining == 0 || index > lastBlock)
+            return false;
+         int length = plainBlockLength(index, plainLength) + TAG_LENGTH;
+         try {
+            ByteStreams.readFully(in, buffer, 0, length);
+         } catch (EOFException e) {
+            throw new IOException("block " + index + " is truncated", e);
+         }
+         byte[] plain = decrypt(index, index == lastBlock, buffer, 0, length);
+         int end = (int) Math.min(plain.length, skip + remaining);
+         block = plain;
+         position = skip;
+         if (end < plain.length) {
+            block = new byte[end];
+            System.arraycopy(plain, 0, block, 0, end);
+         }
+         remaining -= end - skip;
+         skip = 0;
+         index++;
+         return true;
+      }
+   }
+}
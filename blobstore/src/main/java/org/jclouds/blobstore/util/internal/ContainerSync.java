@@ -0,0 +1,445 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.propagate;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStores;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.domain.SyncResult;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.options.SyncOptions;
+import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
+import org.jclouds.io.Payload;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Predicate;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+
+/**
+ * Merge-joins the sorted listings of a source and a target container and transfers only the blobs
+ * which are missing or differ in the target.
+ * <p/>
+ * Blobs are considered equal when their sizes and ETags match. When ETags are not comparable, such
+ * as a multipart ETag on one side and a plain MD5 on the other, the multipart ETag is recomputed
+ * from the content of the plain side; otherwise content MD5s from the blob metadata are compared.
+ * <p/>
+ * Progress is recorded as the last blob name below which every blob is in sync. Resuming skips
+ * names up to that checkpoint without relying on provider specific list markers.
+ * 
+ * @see BlobStores#sync
+ */
+@Beta
+public final class ContainerSync {
+
+   @VisibleForTesting
+   static final int MAXIMUM_NUMBER_OF_PARTS = 10000;
+
+   private static final Pattern MD5 = Pattern.compile("[0-9a-f]{32}");
+   private static final Pattern MULTIPART = Pattern.compile("[0-9a-f]{32}-([0-9]+)");
+   private static final long MEBIBYTE = 1024 * 1024;
+   private static final long CHECKPOINT_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+   private final BlobStore source;
+   private final String sourceContainer;
+   private final BlobStore target;
+   private final String targetContainer;
+   private final SyncOptions options;
+   private final ListeningExecutorService executor;
+   private final Semaphore permits;
+
+   // name of each blob still being handled, mapped to the name visited just before it
+   private final ConcurrentSkipListMap<String, String> inFlight = new ConcurrentSkipListMap<String, String>();
+   private final AtomicLong unchanged = new AtomicLong();
+   private final AtomicLong bytesTransferred = new AtomicLong();
+   private final List<String> transferred = Collections.synchronizedList(Lists.<String> newArrayList());
+   private final List<String> deleted = Collections.synchronizedList(Lists.<String> newArrayList());
+   private final Map<String, Exception> failed = new ConcurrentHashMap<String, Exception>();
+   private String lastVisited;
+   private long lastCheckpoint;
+
+   public ContainerSync(BlobStore source, String sourceContainer, BlobStore target, String targetContainer,
+         SyncOptions options) {
+      this.source = checkNotNull(source, "source");
+      this.sourceContainer = checkNotNull(sourceContainer, "sourceContainer");
+      this.target = checkNotNull(target, "target");
+      this.targetContainer = checkNotNull(targetContainer, "targetContainer");
+      this.options = checkNotNull(options, "options");
+      this.executor = options.getExecutor() != null ? options.getExecutor() : target.getContext().utils()
+            .injector().getInstance(Key.get(ListeningExecutorService.class, Names.named(PROPERTY_USER_THREADS)));
+      this.permits = new Semaphore(options.getMaxConcurrentTransfers());
+   }
+
+   public SyncResult run() {
+      long start = System.nanoTime();
+      String resumeAfter = readCheckpoint();
+      PeekingIterator<StorageMetadata> sources = Iterators.peekingIterator(blobs(source, sourceContainer));
+      PeekingIterator<StorageMetadata> targets = Iterators.peekingIterator(blobs(target, targetContainer));
+      List<ListenableFuture<?>> tasks = Lists.newArrayList();
+      long compared = 0;
+      boolean completed = false;
+      try {
+         while (sources.hasNext() || targets.hasNext()) {
+            int order = !sources.hasNext() ? 1 : !targets.hasNext() ? -1 : sources.peek().getName().compareTo(
+                  targets.peek().getName());
+            StorageMetadata from = order <= 0 ? sources.next() : null;
+            StorageMetadata to = order >= 0 ? targets.next() : null;
+            String name = from != null ? from.getName() : to.getName();
+            if (resumeAfter != null && name.compareTo(resumeAfter) <= 0)
+               continue;
+            compared++;
+            if (from == null) {
+               if (options.isDeleteExtraneous())
+                  tasks.add(submit(name, new Delete(name)));
+            } else if (to == null || !sameSize(from, to)) {
+               tasks.add(submit(name, new Transfer(from, null)));
+            } else if (options.isSizeOnly() || sameETag(from, to)) {
+               unchanged.incrementAndGet();
+            } else {
+               tasks.add(submit(name, new Transfer(from, to)));
+            }
+            lastVisited = name;
+            maybeWriteCheckpoint(false, false);
+         }
+         Futures.successfulAsList(tasks).get();
+         completed = true;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         for (ListenableFuture<?> task : tasks)
+            task.cancel(true);
+         // the checkpoint still records how far we got
+         throw propagate(e);
+      } catch (ExecutionException e) {
+         throw new IllegalStateException(e.getCause());
+      } finally {
+         maybeWriteCheckpoint(true, completed);
+      }
+      return new SyncResult(options.isDryRun(), compared, unchanged.get(), transferred, deleted, failed,
+            bytesTransferred.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+   }
+
+   private ListenableFuture<?> submit(final String name, final Callable<Void> task) throws InterruptedException {
+      permits.acquire();
+      inFlight.put(name, lastVisited == null ? "" : lastVisited);
+      try {
+         return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+               try {
+                  task.call();
+                  inFlight.remove(name);
+               } catch (Exception e) {
+                  // left in flight so that the checkpoint never moves past a failed blob
+                  failed.put(name, e);
+               } finally {
+                  permits.release();
+               }
+               return null;
+            }
+         });
+      } catch (RuntimeException e) {
+         permits.release();
+         throw e;
+      }
+   }
+
+   private final class Transfer implements Callable<Void> {
+      private final StorageMetadata from;
+      // present when both sides have the same size but their ETags cannot be compared directly
+      private final StorageMetadata to;
+
+      Transfer(StorageMetadata from, StorageMetadata to) {
+         this.from = from;
+         this.to = to;
+      }
+
+      @Override
+      public Void call() throws IOException {
+         String name = from.getName();
+         if (to != null && sameContent(from, to)) {
+            unchanged.incrementAndGet();
+            return null;
+         }
+         if (!options.isDryRun()) {
+            if (source == target) {
+               target.copyBlob(sourceContainer, name, targetContainer, name, CopyOptions.NONE);
+            } else if (!copy(name)) {
+               // removed from the source since it was listed
+               return null;
+            }
+         }
+         transferred.add(name);
+         if (from.getSize() != null)
+            bytesTransferred.addAndGet(from.getSize());
+         return null;
+      }
+   }
+
+   private final class Delete implements Callable<Void> {
+      private final String name;
+
+      Delete(String name) {
+         this.name = name;
+      }
+
+      @Override
+      public Void call() {
+         if (!options.isDryRun())
+            target.removeBlob(targetContainer, name);
+         deleted.add(name);
+         return null;
+      }
+   }
+
+   private boolean copy(String name) {
+      Blob blob = source.getBlob(sourceContainer, name);
+      if (blob == null)
+         return false;
+      Payload payload = blob.getPayload();
+      try {
+         Blob copy = target.blobBuilder(name).userMetadata(blob.getMetadata().getUserMetadata()).payload(payload)
+               .build();
+         Long length = payload.getContentMetadata().getContentLength();
+         target.putBlob(targetContainer, copy, length != null && length >= options.getMultipartThreshold()
+               ? PutOptions.Builder.multipart() : PutOptions.NONE);
+         return true;
+      } finally {
+         Closeables2.closeQuietly(payload);
+      }
+   }
+
+   private boolean sameContent(StorageMetadata from, StorageMetadata to) throws IOException {
+      String fromETag = normalizeETag(from.getETag());
+      String toETag = normalizeETag(to.getETag());
+      if (fromETag != null && toETag != null) {
+         if (MD5.matcher(fromETag).matches() && MD5.matcher(toETag).matches())
+            return fromETag.equals(toETag);
+         Matcher toMultipart = MULTIPART.matcher(toETag);
+         if (MD5.matcher(fromETag).matches() && toMultipart.matches())
+            return multipartETagMatches(source, sourceContainer, from, toETag, Integer.parseInt(toMultipart.group(1)));
+         Matcher fromMultipart = MULTIPART.matcher(fromETag);
+         if (fromMultipart.matches() && MD5.matcher(toETag).matches())
+            return multipartETagMatches(target, targetContainer, to, fromETag,
+                  Integer.parseInt(fromMultipart.group(1)));
+      }
+      HashCode fromMD5 = contentMD5(source, sourceContainer, from.getName());
+      return fromMD5 != null && fromMD5.equals(contentMD5(target, targetContainer, to.getName()));
+   }
+
+   /**
+    * Reads the blob holding a plain MD5 ETag and checks whether uploading it in parts of any
+    * plausible size would have produced the given multipart ETag.
+    */
+   private boolean multipartETagMatches(BlobStore store, String container, StorageMetadata plain,
+         String multipartETag, int parts) throws IOException {
+      long size = plain.getSize();
+      for (long partSize : candidatePartSizes(size, parts)) {
+         Blob blob = store.getBlob(container, plain.getName());
+         if (blob == null)
+            return false;
+         InputStream content = blob.getPayload().openStream();
+         try {
+            if (multipartETag.equals(multipartETag(content, partSize)))
+               return true;
+         } finally {
+            Closeables2.closeQuietly(content);
+         }
+      }
+      return false;
+   }
+
+   private Set<Long> candidatePartSizes(long size, int parts) {
+      Set<Long> candidates = Sets.newLinkedHashSet();
+      candidates.add(new MultipartUploadSlicingAlgorithm(target.getMinimumMultipartPartSize(), target
+            .getMaximumMultipartPartSize(), MAXIMUM_NUMBER_OF_PARTS).calculateChunkSize(size));
+      // most tools use a whole number of mebibytes
+      long evenSplit = (size + parts - 1) / parts;
+      candidates.add((evenSplit + MEBIBYTE - 1) / MEBIBYTE * MEBIBYTE);
+      Set<Long> matching = Sets.newLinkedHashSet();
+      for (long candidate : candidates) {
+         if (candidate > 0 && (size + candidate - 1) / candidate == parts)
+            matching.add(candidate);
+      }
+      return matching;
+   }
+
+   /**
+    * The ETag S3 and compatible services compute for a multipart upload: the MD5 of the
+    * concatenated part MD5s, followed by the number of parts.
+    */
+   @VisibleForTesting
+   static String multipartETag(InputStream content, long partSize) throws IOException {
+      Hasher whole = Hashing.md5().newHasher();
+      byte[] buffer = new byte[8192];
+      int parts = 0;
+      while (true) {
+         Hasher part = Hashing.md5().newHasher();
+         long read = 0;
+         while (read < partSize) {
+            int count = content.read(buffer, 0, (int) Math.min(buffer.length, partSize - read));
+            if (count == -1)
+               break;
+            part.putBytes(buffer, 0, count);
+            read += count;
+         }
+         if (read == 0)
+            break;
+         whole.putBytes(part.hash().asBytes());
+         parts++;
+         if (read < partSize)
+            break;
+      }
+      return whole.hash() + "-" + parts;
+   }
+
+   @VisibleForTesting
+   static String normalizeETag(String eTag) {
+      if (eTag == null)
+         return null;
+      if (eTag.length() >= 2 && eTag.startsWith("\"") && eTag.endsWith("\""))
+         eTag = eTag.substring(1, eTag.length() - 1);
+      return eTag.toLowerCase();
+   }
+
+   private static HashCode contentMD5(BlobStore store, String container, String name) {
+      BlobMetadata metadata = store.blobMetadata(container, name);
+      return metadata == null ? null : metadata.getContentMetadata().getContentMD5AsHashCode();
+   }
+
+   private static boolean sameSize(StorageMetadata from, StorageMetadata to) {
+      return from.getSize() != null && from.getSize().equals(to.getSize());
+   }
+
+   private static boolean sameETag(StorageMetadata from, StorageMetadata to) {
+      String fromETag = normalizeETag(from.getETag());
+      return fromETag != null && fromETag.equals(normalizeETag(to.getETag()));
+   }
+
+   /**
+    * Lists all blobs of the container, failing if the provider does not list them in order, as the
+    * merge join would otherwise delete or overwrite the wrong blobs.
+    */
+   private Iterator<StorageMetadata> blobs(final BlobStore store, final String container) {
+      ListContainerOptions listOptions = ListContainerOptions.Builder.recursive();
+      if (options.getPrefix() != null)
+         listOptions.prefix(options.getPrefix());
+      final Iterator<StorageMetadata> blobs = Iterators.filter(BlobStores.listAll(store, container, listOptions)
+            .iterator(), new Predicate<StorageMetadata>() {
+         @Override
+         public boolean apply(StorageMetadata input) {
+            return input.getType() == StorageType.BLOB;
+         }
+      });
+      return new AbstractIterator<StorageMetadata>() {
+         private String previous;
+
+         @Override
+         protected StorageMetadata computeNext() {
+            if (!blobs.hasNext())
+               return endOfData();
+            StorageMetadata next = blobs.next();
+            checkState(previous == null || previous.compareTo(next.getName()) < 0,
+                  "%s did not list %s in order: %s after %s", store, container, next.getName(), previous);
+            previous = next.getName();
+            return next;
+         }
+      };
+   }
+
+   private String readCheckpoint() {
+      File checkpoint = options.getCheckpoint();
+      if (checkpoint == null || !checkpoint.isFile())
+         return null;
+      try {
+         return Files.toString(checkpoint, Charsets.UTF_8);
+      } catch (IOException e) {
+         throw new IllegalStateException("could not read checkpoint " + checkpoint, e);
+      }
+   }
+
+   /**
+    * @param force
+    *           write even if the last checkpoint is recent
+    * @param completed
+    *           whether every blob has been visited, in which case a checkpoint is only kept if some blobs failed
+    */
+   private void maybeWriteCheckpoint(boolean force, boolean completed) {
+      File checkpoint = options.getCheckpoint();
+      if (checkpoint == null || options.isDryRun())
+         return;
+      long now = System.currentTimeMillis();
+      if (!force && now - lastCheckpoint < CHECKPOINT_INTERVAL_MILLIS)
+         return;
+      lastCheckpoint = now;
+      Map.Entry<String, String> oldest = inFlight.firstEntry();
+      String done = oldest != null ? oldest.getValue() : lastVisited;
+      try {
+         if (completed && oldest == null && failed.isEmpty()) {
+            checkpoint.delete();
+         } else if (done != null && !done.isEmpty()) {
+            File next = new File(checkpoint.getPath() + ".tmp");
+            Files.write(done, next, Charsets.UTF_8);
+            Files.move(next, checkpoint);
+         }
+      } catch (IOException e) {
+         throw new IllegalStateException("could not write checkpoint " + checkpoint, e);
+      }
+   }
+}
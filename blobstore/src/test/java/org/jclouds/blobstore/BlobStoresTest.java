@@ -18,23 +18,42 @@ package org.jclouds.blobstore;
 
 import static org.easymock.EasyMock.createMock;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.easymock.EasyMock;
 import org.jclouds.ContextBuilder;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.SyncResult;
 import org.jclouds.blobstore.domain.internal.PageSetImpl;
 import org.jclouds.blobstore.options.ListAllOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.SyncOptions;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 @Test(singleThreaded = true, testName = "BlobStoresTest")
 public class BlobStoresTest {
@@ -158,4 +177,140 @@ public class BlobStoresTest {
       Iterable<StorageMetadata> iterable = BlobStores.listAll(blobStore, containerName, options);
       assertEquals(ImmutableList.copyOf(iterable), ImmutableList.of(v1, v2));
    }
+
+   @Test
+   public void testSyncTransfersOnlyMissingAndChangedBlobs() throws Exception {
+      BlobStoreContext sourceContext = blobStoreContext();
+      BlobStoreContext targetContext = blobStoreContext();
+      try {
+         BlobStore source = populate(sourceContext, "source", ImmutableMap.of("a", "same", "b", "new", "c", "changed"));
+         BlobStore target = populate(targetContext, "target", ImmutableMap.of("a", "same", "c", "before", "d", "gone"));
+
+         SyncResult result = BlobStores.sync(source, "source", target, "target");
+
+         assertEquals(result.getCompared(), 4);
+         assertEquals(result.getUnchanged(), 1);
+         assertEquals(ImmutableSet.copyOf(result.getTransferred()), ImmutableSet.of("b", "c"));
+         assertTrue(result.getDeleted().isEmpty());
+         assertTrue(result.getFailed().isEmpty());
+         assertEquals(result.getBytesTransferred(), "new".length() + "changed".length());
+         assertEquals(contentOf(target, "target", "c"), "changed");
+         assertTrue(target.blobExists("target", "d"));
+      } finally {
+         sourceContext.close();
+         targetContext.close();
+      }
+   }
+
+   @Test
+   public void testSyncDeletesExtraneousBlobs() throws Exception {
+      BlobStoreContext sourceContext = blobStoreContext();
+      BlobStoreContext targetContext = blobStoreContext();
+      try {
+         BlobStore source = populate(sourceContext, "source", ImmutableMap.of("a", "same"));
+         BlobStore target = populate(targetContext, "target", ImmutableMap.of("a", "same", "d", "gone"));
+
+         SyncResult result = BlobStores.sync(source, "source", target, "target",
+               SyncOptions.Builder.deleteExtraneous());
+
+         assertEquals(result.getDeleted(), ImmutableList.of("d"));
+         assertTrue(result.getTransferred().isEmpty());
+         assertFalse(target.blobExists("target", "d"));
+      } finally {
+         sourceContext.close();
+         targetContext.close();
+      }
+   }
+
+   @Test
+   public void testSyncDryRunLeavesTargetUntouched() throws Exception {
+      BlobStoreContext sourceContext = blobStoreContext();
+      BlobStoreContext targetContext = blobStoreContext();
+      try {
+         BlobStore source = populate(sourceContext, "source", ImmutableMap.of("a", "new"));
+         BlobStore target = populate(targetContext, "target", ImmutableMap.of("d", "gone"));
+
+         SyncResult result = BlobStores.sync(source, "source", target, "target",
+               SyncOptions.Builder.dryRun().deleteExtraneous());
+
+         assertTrue(result.isDryRun());
+         assertEquals(result.getTransferred(), ImmutableList.of("a"));
+         assertEquals(result.getDeleted(), ImmutableList.of("d"));
+         assertFalse(target.blobExists("target", "a"));
+         assertTrue(target.blobExists("target", "d"));
+      } finally {
+         sourceContext.close();
+         targetContext.close();
+      }
+   }
+
+   @Test
+   public void testInterruptedSyncThrowsAndKeepsCheckpoint() throws Exception {
+      BlobStoreContext sourceContext = blobStoreContext();
+      BlobStoreContext targetContext = blobStoreContext();
+      final File checkpoint = File.createTempFile("sync", ".checkpoint");
+      // transfers queue up behind a task that never finishes, so the sync waits until interrupted
+      final ListeningExecutorService stalled = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
+      final CountDownLatch release = new CountDownLatch(1);
+      try {
+         final BlobStore source = populate(sourceContext, "source", ImmutableMap.of("a", "done", "b", "new"));
+         final BlobStore target = populate(targetContext, "target", ImmutableMap.<String, String> of());
+         Files.write("a", checkpoint, Charsets.UTF_8);
+         stalled.submit(new Runnable() {
+            @Override
+            public void run() {
+               Uninterruptibles.awaitUninterruptibly(release);
+            }
+         });
+
+         final AtomicReference<RuntimeException> thrown = new AtomicReference<RuntimeException>();
+         final AtomicBoolean interrupted = new AtomicBoolean();
+         Thread sync = new Thread(new Runnable() {
+            @Override
+            public void run() {
+               try {
+                  BlobStores.sync(source, "source", target, "target",
+                        SyncOptions.Builder.checkpoint(checkpoint).executor(stalled));
+               } catch (RuntimeException e) {
+                  thrown.set(e);
+               }
+               interrupted.set(Thread.currentThread().isInterrupted());
+            }
+         });
+         sync.start();
+         while (sync.getState() != Thread.State.WAITING)
+            Thread.sleep(10);
+         sync.interrupt();
+         sync.join(10000);
+
+         assertTrue(thrown.get() != null && thrown.get().getCause() instanceof InterruptedException,
+               String.valueOf(thrown.get()));
+         assertTrue(interrupted.get());
+         assertFalse(target.blobExists("target", "b"));
+         assertEquals(Files.toString(checkpoint, Charsets.UTF_8), "a");
+      } finally {
+         release.countDown();
+         stalled.shutdownNow();
+         checkpoint.delete();
+         sourceContext.close();
+         targetContext.close();
+      }
+   }
+
+   private static BlobStore populate(BlobStoreContext context, String container, Map<String, String> blobs) {
+      BlobStore blobStore = context.getBlobStore();
+      blobStore.createContainerInLocation(null, container);
+      for (Map.Entry<String, String> blob : blobs.entrySet())
+         blobStore.putBlob(container, blobStore.blobBuilder(blob.getKey()).payload(blob.getValue()).build());
+      return blobStore;
+   }
+
+   private static String contentOf(BlobStore blobStore, String container, String name) throws IOException {
+      InputStream content = blobStore.getBlob(container, name).getPayload().openStream();
+      try {
+         return new String(ByteStreams.toByteArray(content), Charsets.UTF_8);
+      } finally {
+         content.close();
+      }
+   }
 }
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.easymock.IAnswer;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.strategy.ReportingPutBlobsStrategy;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "PutBlobsStrategyImplTest", singleThreaded = true)
+public class PutBlobsStrategyImplTest {
+   private static final String CONTAINER = "container";
+
+   private ListeningExecutorService userExecutor;
+   private final AtomicInteger inFlight = new AtomicInteger();
+   private final AtomicInteger maxInFlight = new AtomicInteger();
+   private final AtomicInteger completed = new AtomicInteger();
+
+   @BeforeMethod
+   void setup() {
+      userExecutor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(8));
+      inFlight.set(0);
+      maxInFlight.set(0);
+      completed.set(0);
+   }
+
+   @AfterMethod
+   void tearDown() {
+      userExecutor.shutdownNow();
+   }
+
+   /**
+    * Tracks the puts in flight and fails blobs whose name starts with {@code fail}.
+    */
+   private BlobStore blobStore(int puts) {
+      BlobStore blobStore = createMock(BlobStore.class);
+      expect(blobStore.putBlob(eq(CONTAINER), anyObject(Blob.class))).andAnswer(new IAnswer<String>() {
+         @Override
+         public String answer() throws Throwable {
+            String name = Blob.class.cast(getCurrentArguments()[1]).getMetadata().getName();
+            int now = inFlight.incrementAndGet();
+            try {
+               for (;;) {
+                  int max = maxInFlight.get();
+                  if (now <= max || maxInFlight.compareAndSet(max, now))
+                     break;
+               }
+               Thread.sleep(5);
+               if (name.startsWith("fail"))
+                  throw new IllegalStateException("failed " + name);
+               return "etag-" + name;
+            } finally {
+               inFlight.decrementAndGet();
+               completed.incrementAndGet();
+            }
+         }
+      }).times(puts);
+      replay(blobStore);
+      return blobStore;
+   }
+
+   private PutBlobsStrategyImpl strategy(BlobStore blobStore, int concurrency) {
+      PutBlobsStrategyImpl strategy = new PutBlobsStrategyImpl(userExecutor, blobStore);
+      strategy.concurrency = concurrency;
+      return strategy;
+   }
+
+   private static List<Blob> blobs(String prefix, int count) {
+      List<Blob> blobs = Lists.newArrayList();
+      for (int i = 0; i < count; i++)
+         blobs.add(new BlobBuilderImpl().name(prefix + i).payload("content" + i).build());
+      return blobs;
+   }
+
+   public void testKeepsAtMostConcurrencyPutsInFlightAndReadsBlobsLazily() {
+      BlobStore blobStore = blobStore(20);
+      final Iterator<Blob> blobs = blobs("blob", 20).iterator();
+      final AtomicInteger read = new AtomicInteger();
+      Iterable<Blob> lazy = new Iterable<Blob>() {
+         @Override
+         public Iterator<Blob> iterator() {
+            return new AbstractIterator<Blob>() {
+               @Override
+               protected Blob computeNext() {
+                  int pending = read.get() - completed.get();
+                  assertTrue(pending <= 3, pending + " blobs pending when reading the next blob");
+                  if (!blobs.hasNext())
+                     return endOfData();
+                  read.incrementAndGet();
+                  return blobs.next();
+               }
+            };
+         }
+      };
+      strategy(blobStore, 3).execute(CONTAINER, lazy);
+      assertEquals(inFlight.get(), 0);
+      assertTrue(maxInFlight.get() <= 3, "ran " + maxInFlight.get() + " puts at once");
+      verify(blobStore);
+   }
+
+   public void testReportsEachBlobToCallback() {
+      BlobStore blobStore = blobStore(7);
+      List<Blob> blobs = blobs("blob", 5);
+      blobs.addAll(blobs("fail", 2));
+      final Map<String, String> eTags = Maps.newConcurrentMap();
+      final Map<String, Exception> failures = Maps.newConcurrentMap();
+      strategy(blobStore, 2).execute(CONTAINER, blobs, new ReportingPutBlobsStrategy.Callback() {
+         @Override
+         public void onSuccess(Blob blob, String eTag) {
+            eTags.put(blob.getMetadata().getName(), eTag);
+         }
+
+         @Override
+         public void onFailure(Blob blob, Exception e) {
+            failures.put(blob.getMetadata().getName(), e);
+         }
+      });
+      assertEquals(eTags.size(), 5);
+      assertEquals(eTags.get("blob0"), "etag-blob0");
+      assertEquals(failures.keySet(), ImmutableSet.of("fail0", "fail1"));
+      verify(blobStore);
+   }
+
+   public void testExecuteThrowsListingFailedBlobs() {
+      BlobStore blobStore = blobStore(4);
+      List<Blob> blobs = blobs("blob", 3);
+      blobs.addAll(blobs("fail", 1));
+      try {
+         strategy(blobStore, 2).execute(CONTAINER, blobs);
+         fail("expected BlobRuntimeException");
+      } catch (BlobRuntimeException e) {
+         assertTrue(e.getMessage().contains("fail0"), e.getMessage());
+      }
+      verify(blobStore);
+   }
+}
@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.options.GetOptions;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+@Test(groups = "unit", testName = "DiskCachedBlobStoreTest", singleThreaded = true)
+public class DiskCachedBlobStoreTest {
+   private static final String CONTAINER = "cached";
+
+   private BlobStoreContext context;
+   private BlobStore blobStore;
+   private File directory;
+   private final AtomicInteger bodies = new AtomicInteger();
+
+   @BeforeMethod
+   void setup() {
+      context = ContextBuilder.newBuilder("transient").build(BlobStoreContext.class);
+      blobStore = context.getBlobStore();
+      blobStore.createContainerInLocation(null, CONTAINER);
+      directory = Files.createTempDir();
+      bodies.set(0);
+   }
+
+   @AfterMethod
+   void tearDown() throws IOException {
+      context.close();
+      delete(directory);
+   }
+
+   private static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children)
+            delete(child);
+      }
+      file.delete();
+   }
+
+   /**
+    * Counts the blob bodies returned by the remote store.
+    */
+   private BlobStore cached(long maxBytes) {
+      BlobStore counting = new ForwardingBlobStore(blobStore) {
+         @Override
+         public Blob getBlob(String container, String name, GetOptions options) {
+            Blob blob = super.getBlob(container, name, options);
+            if (blob != null)
+               bodies.incrementAndGet();
+            return blob;
+         }
+      };
+      return DiskCachedBlobStore.newDiskCachedBlobStore(counting, directory, maxBytes);
+   }
+
+   private void put(String name, String content) {
+      blobStore.putBlob(CONTAINER, blobStore.blobBuilder(name).payload(content).build());
+   }
+
+   private static String read(Blob blob) throws IOException {
+      return new String(ByteStreams.toByteArray(blob.getPayload().openStream()), UTF_8);
+   }
+
+   public void testRepeatedReadsAreServedFromDisk() throws IOException {
+      put("hot", "hello world");
+      BlobStore cached = cached(1024);
+
+      assertEquals(read(cached.getBlob(CONTAINER, "hot")), "hello world");
+      assertEquals(read(cached.getBlob(CONTAINER, "hot")), "hello world");
+      assertEquals(read(cached.getBlob(CONTAINER, "hot", GetOptions.Builder.range(6, 10))), "world");
+      assertEquals(bodies.get(), 1);
+   }
+
+   public void testRangedMissOfUncacheableBlobOnlyFetchesTheRange() throws IOException {
+      put("large", "hello world");
+      BlobStore cached = cached(5);
+
+      assertEquals(read(cached.getBlob(CONTAINER, "large", GetOptions.Builder.range(6, 10))), "world");
+      assertEquals(bodies.get(), 1);
+   }
+
+   public void testRangedMissOfCacheableBlobFillsTheCache() throws IOException {
+      put("hot", "hello world");
+      BlobStore cached = cached(1024);
+
+      assertEquals(read(cached.getBlob(CONTAINER, "hot", GetOptions.Builder.range(6, 10))), "world");
+      assertEquals(read(cached.getBlob(CONTAINER, "hot")), "hello world");
+      assertEquals(bodies.get(), 1);
+   }
+
+   public void testRemoteFetchDoesNotBlockReadsOfOtherBlobs() throws Exception {
+      put("hot", "hello");
+      put("cold", "world");
+      final CountDownLatch fetching = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      BlobStore stalled = new ForwardingBlobStore(blobStore) {
+         @Override
+         public Blob getBlob(String container, String name, GetOptions options) {
+            if (name.equals("hot")) {
+               fetching.countDown();
+               Uninterruptibles.awaitUninterruptibly(release, 10, TimeUnit.SECONDS);
+            }
+            return super.getBlob(container, name, options);
+         }
+      };
+      final BlobStore cached = DiskCachedBlobStore.newDiskCachedBlobStore(stalled, directory, 1024);
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         Future<String> first = executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws IOException {
+               return read(cached.getBlob(CONTAINER, "hot"));
+            }
+         });
+         assertTrue(fetching.await(10, TimeUnit.SECONDS));
+
+         assertEquals(read(cached.getBlob(CONTAINER, "cold")), "world");
+         release.countDown();
+         assertEquals(first.get(10, TimeUnit.SECONDS), "hello");
+      } finally {
+         release.countDown();
+         executor.shutdownNow();
+      }
+   }
+
+   public void testConcurrentMissesWaitForOneFetch() throws Exception {
+      put("hot", "hello");
+      final int readers = 8;
+      final AtomicInteger fetches = new AtomicInteger();
+      final CountDownLatch fetching = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      BlobStore stalled = new ForwardingBlobStore(blobStore) {
+         @Override
+         public Blob getBlob(String container, String name, GetOptions options) {
+            fetches.incrementAndGet();
+            fetching.countDown();
+            Uninterruptibles.awaitUninterruptibly(release, 10, TimeUnit.SECONDS);
+            return super.getBlob(container, name, options);
+         }
+      };
+      final BlobStore cached = DiskCachedBlobStore.newDiskCachedBlobStore(stalled, directory, 1024);
+      ExecutorService executor = Executors.newFixedThreadPool(readers);
+      try {
+         List<Future<String>> reads = Lists.newArrayList();
+         for (int i = 0; i < readers; i++) {
+            reads.add(executor.submit(new Callable<String>() {
+               @Override
+               public String call() throws IOException {
+                  return read(cached.getBlob(CONTAINER, "hot"));
+               }
+            }));
+         }
+         assertTrue(fetching.await(10, TimeUnit.SECONDS));
+         // gives the other readers time to join the running fetch
+         Thread.sleep(200);
+         release.countDown();
+
+         for (Future<String> read : reads)
+            assertEquals(read.get(10, TimeUnit.SECONDS), "hello");
+         assertEquals(fetches.get(), 1);
+      } finally {
+         release.countDown();
+         executor.shutdownNow();
+      }
+   }
+
+   public void testChangedBlobIsRefetched() throws IOException {
+      put("hot", "version 1");
+      BlobStore cached = cached(1024);
+      assertEquals(read(cached.getBlob(CONTAINER, "hot")), "version 1");
+
+      put("hot", "version 2");
+
+      assertEquals(read(cached.getBlob(CONTAINER, "hot")), "version 2");
+      assertEquals(bodies.get(), 2);
+   }
+
+   public void testRemovedBlobIsNotServed() throws IOException {
+      put("hot", "hello");
+      BlobStore cached = cached(1024);
+      read(cached.getBlob(CONTAINER, "hot"));
+
+      blobStore.removeBlob(CONTAINER, "hot");
+
+      assertNull(cached.getBlob(CONTAINER, "hot"));
+   }
+
+   public void testLeastRecentlyReadBlobsAreEvicted() throws IOException {
+      put("a", "0123456789");
+      put("b", "0123456789");
+      put("c", "0123456789");
+      BlobStore cached = cached(25);
+      read(cached.getBlob(CONTAINER, "a"));
+      read(cached.getBlob(CONTAINER, "b"));
+      read(cached.getBlob(CONTAINER, "a"));
+      read(cached.getBlob(CONTAINER, "c"));
+      bodies.set(0);
+
+      read(cached.getBlob(CONTAINER, "a"));
+      read(cached.getBlob(CONTAINER, "c"));
+      assertEquals(bodies.get(), 0);
+      read(cached.getBlob(CONTAINER, "b"));
+      assertEquals(bodies.get(), 1);
+   }
+
+   public void testCacheSurvivesRestart() throws IOException {
+      put("hot", "hello");
+      read(cached(1024).getBlob(CONTAINER, "hot"));
+      bodies.set(0);
+
+      assertEquals(read(cached(1024).getBlob(CONTAINER, "hot")), "hello");
+      assertEquals(bodies.get(), 0);
+   }
+
+   public void testDownloadFromCache() throws IOException {
+      put("hot", "hello");
+      BlobStore cached = cached(1024);
+      File destination = new File(directory, "download");
+
+      cached.downloadBlob(CONTAINER, "hot", destination);
+
+      assertEquals(Files.toString(destination, UTF_8), "hello");
+   }
+}
@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+@Test(groups = "unit", testName = "EncryptedBlobStoreTest", singleThreaded = true)
+public class EncryptedBlobStoreTest {
+   private static final String CONTAINER = "encrypted";
+   private static final int BLOCK_SIZE = EncryptedBlocks.MIN_BLOCK_SIZE;
+
+   private final byte[] content = new byte[BLOCK_SIZE * 10 + 321];
+   private BlobStoreContext context;
+   private BlobStore plain;
+   private BlobStore encrypted;
+   private ExecutorService executor;
+   private SecretKey key;
+
+   @BeforeClass
+   void setup() {
+      new Random(42).nextBytes(content);
+      context = ContextBuilder.newBuilder("transient").build(BlobStoreContext.class);
+      plain = context.getBlobStore();
+      plain.createContainerInLocation(null, CONTAINER);
+      executor = Executors.newFixedThreadPool(4);
+      key = new SecretKeySpec(new byte[16], "AES");
+      encrypted = new EncryptedBlobStore(plain, key, executor, BLOCK_SIZE);
+   }
+
+   @AfterClass
+   void tearDown() {
+      executor.shutdownNow();
+      context.close();
+   }
+
+   private byte[] read(Blob blob) throws IOException {
+      return ByteStreams.toByteArray(blob.getPayload().openStream());
+   }
+
+   private void put(String name, byte[] bytes, PutOptions options) {
+      encrypted.putBlob(CONTAINER, encrypted.blobBuilder(name).payload(bytes).contentLength(bytes.length)
+            .userMetadata(ImmutableMap.of("owner", "test")).build(), options);
+   }
+
+   public void testRoundTrip() throws IOException {
+      put("single", content, PutOptions.NONE);
+
+      Blob stored = plain.getBlob(CONTAINER, "single");
+      assertEquals(stored.getMetadata().getContentMetadata().getContentLength().longValue(),
+            content.length + 11 * EncryptedBlocks.TAG_LENGTH);
+      assertFalse(Arrays.equals(Arrays.copyOf(read(stored), content.length), content));
+
+      Blob blob = encrypted.getBlob(CONTAINER, "single");
+      assertEquals(read(blob), content);
+      assertEquals(blob.getMetadata().getContentMetadata().getContentLength().longValue(), content.length);
+      assertEquals(blob.getMetadata().getUserMetadata(), ImmutableMap.of("owner", "test"));
+      assertEquals(encrypted.blobMetadata(CONTAINER, "single").getContentMetadata().getContentLength().longValue(),
+            content.length);
+   }
+
+   public void testMultipartRoundTrip() throws IOException {
+      put("multipart", content, PutOptions.Builder.multipart());
+
+      assertEquals(read(encrypted.getBlob(CONTAINER, "multipart")), content);
+   }
+
+   /**
+    * Limits parts to {@code maxPartSize} bytes, records the size of each uploaded part and fails part
+    * {@code failingPart}.
+    */
+   private static class LimitedParts extends ForwardingBlobStore {
+      private final long maxPartSize;
+      private final int failingPart;
+      final List<Long> partSizes = new CopyOnWriteArrayList<Long>();
+      final AtomicInteger aborted = new AtomicInteger();
+
+      LimitedParts(BlobStore blobStore, long maxPartSize, int failingPart) {
+         super(blobStore);
+         this.maxPartSize = maxPartSize;
+         this.failingPart = failingPart;
+      }
+
+      @Override
+      public long getMaximumMultipartPartSize() {
+         return maxPartSize;
+      }
+
+      @Override
+      public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) {
+         if (partNumber == failingPart)
+            throw new IllegalStateException("part " + partNumber + " failed");
+         MultipartPart part = super.uploadMultipartPart(mpu, partNumber, payload);
+         partSizes.add(part.partSize());
+         return part;
+      }
+
+      @Override
+      public void abortMultipartUpload(MultipartUpload mpu) {
+         aborted.incrementAndGet();
+         super.abortMultipartUpload(mpu);
+      }
+   }
+
+   public void testEncryptedPartsFitThePartSizeLimit() throws IOException {
+      long maxPartSize = 4 * (BLOCK_SIZE + EncryptedBlocks.TAG_LENGTH);
+      LimitedParts limited = new LimitedParts(plain, maxPartSize, -1);
+      BlobStore encrypting = new EncryptedBlobStore(limited, key, executor, BLOCK_SIZE);
+      encrypting.putBlob(CONTAINER, encrypting.blobBuilder("limited").payload(content).contentLength(content.length)
+            .build(), PutOptions.Builder.multipart());
+
+      assertEquals(encrypting.getMaximumMultipartPartSize(), 4 * BLOCK_SIZE);
+      assertEquals(limited.partSizes.size(), 3);
+      for (long partSize : limited.partSizes)
+         assertTrue(partSize <= maxPartSize, "part of " + partSize + " bytes");
+      assertEquals(read(encrypting.getBlob(CONTAINER, "limited")), content);
+   }
+
+   public void testFailedPartAbortsTheUpload() {
+      LimitedParts limited = new LimitedParts(plain, 4 * (BLOCK_SIZE + EncryptedBlocks.TAG_LENGTH), 2);
+      BlobStore encrypting = new EncryptedBlobStore(limited, key, executor, BLOCK_SIZE);
+      try {
+         encrypting.putBlob(CONTAINER, encrypting.blobBuilder("failed").payload(content)
+               .contentLength(content.length).build(), PutOptions.Builder.multipart());
+         fail("put a blob whose part failed");
+      } catch (RuntimeException expected) {
+      }
+
+      assertEquals(limited.aborted.get(), 1);
+      assertFalse(plain.blobExists(CONTAINER, "failed"));
+   }
+
+   public void testReadsRequireTheETagTheyWereDecryptedFor() throws IOException {
+      put("conditional", content, PutOptions.NONE);
+      final List<String> ifMatch = new CopyOnWriteArrayList<String>();
+      BlobStore recording = new ForwardingBlobStore(plain) {
+         @Override
+         public Blob getBlob(String container, String name, GetOptions options) {
+            ifMatch.add(String.valueOf(options.getIfMatch()));
+            return super.getBlob(container, name, options);
+         }
+      };
+      BlobStore encrypting = new EncryptedBlobStore(recording, key, executor, BLOCK_SIZE);
+      String eTag = plain.blobMetadata(CONTAINER, "conditional").getETag();
+
+      assertEquals(read(encrypting.getBlob(CONTAINER, "conditional")), content);
+      assertEquals(read(encrypting.getBlob(CONTAINER, "conditional", GetOptions.Builder.range(10, 20))),
+            Arrays.copyOfRange(content, 10, 21));
+      assertEquals(ifMatch, ImmutableList.of(eTag, eTag));
+   }
+
+   public void testCallerDrivenMultipartRoundTrip() throws IOException {
+      byte[] large = new byte[(int) (encrypted.getMaximumMultipartPartSize() * 2 + 321)];
+      new Random(7).nextBytes(large);
+      BlobMetadata metadata = encrypted.blobBuilder("caller-multipart").payload(large).contentLength(large.length)
+            .build().getMetadata();
+      MultipartUpload mpu = encrypted.initiateMultipartUpload(CONTAINER, metadata, PutOptions.NONE);
+      int partSize = (int) new MultipartUploadSlicingAlgorithm(encrypted.getMinimumMultipartPartSize(),
+            encrypted.getMaximumMultipartPartSize(), encrypted.getMaximumNumberOfParts())
+            .calculateChunkSize(large.length);
+
+      List<MultipartPart> parts = Lists.newArrayList();
+      // parts are encrypted independently, so their order does not matter
+      for (int partNumber = (large.length + partSize - 1) / partSize; partNumber > 0; partNumber--) {
+         int start = (partNumber - 1) * partSize;
+         byte[] part = Arrays.copyOfRange(large, start, Math.min(large.length, start + partSize));
+         parts.add(0, encrypted.uploadMultipartPart(mpu, partNumber, Payloads.newByteArrayPayload(part)));
+      }
+      encrypted.completeMultipartUpload(mpu, parts);
+
+      assertEquals(read(encrypted.getBlob(CONTAINER, "caller-multipart")), large);
+      assertEquals(read(encrypted.getBlob(CONTAINER, "caller-multipart",
+            GetOptions.Builder.range(partSize - 10, partSize + 10))), Arrays.copyOfRange(large, partSize - 10,
+            partSize + 11));
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testCallerDrivenPartOfUnexpectedSizeIsRejected() {
+      BlobMetadata metadata = encrypted.blobBuilder("short-part").payload(content).contentLength(content.length)
+            .build().getMetadata();
+      MultipartUpload mpu = encrypted.initiateMultipartUpload(CONTAINER, metadata, PutOptions.NONE);
+      try {
+         encrypted.uploadMultipartPart(mpu, 1, Payloads.newByteArrayPayload(Arrays.copyOf(content, 10)));
+      } finally {
+         encrypted.abortMultipartUpload(mpu);
+      }
+   }
+
+   public void testInvalidBlockSizeIsRejected() {
+      SecretKey key = new SecretKeySpec(new byte[16], "AES");
+      for (String blockSize : ImmutableList.of("0", "-1", "1", "abc",
+            Integer.toString(EncryptedBlocks.MIN_BLOCK_SIZE - 1), Integer.toString(Integer.MAX_VALUE))) {
+         try {
+            EncryptedBlocks.fromUserMetadata(key, ImmutableMap.of(EncryptedBlocks.NONCE_METADATA,
+                  BaseEncoding.base64().encode(new byte[EncryptedBlocks.NONCE_LENGTH]),
+                  EncryptedBlocks.BLOCK_SIZE_METADATA, blockSize));
+            fail("accepted block size " + blockSize);
+         } catch (IllegalArgumentException expected) {
+         }
+      }
+   }
+
+   public void testBlockCanBeEncryptedAgain() {
+      EncryptedBlocks blocks = new EncryptedBlocks(key, new byte[EncryptedBlocks.NONCE_LENGTH], BLOCK_SIZE);
+      // as when a part is retried on the thread whose cipher last encrypted it
+      assertEquals(blocks.encrypt(0, true, content, 0, 10), blocks.encrypt(0, true, content, 0, 10));
+   }
+
+   public void testEmptyBlob() throws IOException {
+      put("empty", new byte[0], PutOptions.NONE);
+
+      assertEquals(read(encrypted.getBlob(CONTAINER, "empty")), new byte[0]);
+   }
+
+   public void testRangesOnlyDecryptCoveringBlocks() throws IOException {
+      put("ranges", content, PutOptions.NONE);
+
+      assertEquals(read(encrypted.getBlob(CONTAINER, "ranges", GetOptions.Builder.range(1000, 5000))),
+            Arrays.copyOfRange(content, 1000, 5001));
+      assertEquals(read(encrypted.getBlob(CONTAINER, "ranges", new GetOptions().startAt(BLOCK_SIZE * 10))),
+            Arrays.copyOfRange(content, BLOCK_SIZE * 10, content.length));
+      assertEquals(read(encrypted.getBlob(CONTAINER, "ranges", new GetOptions().tail(10))),
+            Arrays.copyOfRange(content, content.length - 10, content.length));
+      assertEquals(read(encrypted.getBlob(CONTAINER, "ranges", GetOptions.Builder.range(0, 1 << 20))), content);
+   }
+
+   public void testParallelDownload() throws IOException {
+      put("download", content, PutOptions.NONE);
+      File file = File.createTempFile("encrypted", ".bin");
+      try {
+         encrypted.downloadBlob(CONTAINER, "download", file, executor);
+         assertEquals(Files.toByteArray(file), content);
+      } finally {
+         file.delete();
+      }
+   }
+
+   @Test(expectedExceptions = IOException.class)
+   public void testTamperedBlockIsRejected() throws IOException {
+      put("tampered", content, PutOptions.NONE);
+      Blob stored = plain.getBlob(CONTAINER, "tampered");
+      byte[] sealed = read(stored);
+      sealed[BLOCK_SIZE + 100] ^= 1;
+      plain.putBlob(CONTAINER, plain.blobBuilder("tampered").payload(sealed)
+            .userMetadata(stored.getMetadata().getUserMetadata()).build());
+
+      read(encrypted.getBlob(CONTAINER, "tampered"));
+   }
+
+   public void testUnencryptedBlobsPassThrough() throws IOException {
+      plain.putBlob(CONTAINER, plain.blobBuilder("plain").payload(content).build());
+
+      assertEquals(read(encrypted.getBlob(CONTAINER, "plain")), content);
+      assertNotNull(encrypted.blobMetadata(CONTAINER, "plain"));
+   }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.testng.annotations.Test;
+
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Bytes;
+
+@Test(groups = "unit", testName = "ContainerSyncTest")
+public class ContainerSyncTest {
+
+   private final byte[] first = "0123456789".getBytes();
+   private final byte[] second = "abcde".getBytes();
+
+   public void testMultipartETagHashesConcatenatedPartDigests() throws IOException {
+      byte[] partDigests = Bytes.concat(Hashing.md5().hashBytes(first).asBytes(), Hashing.md5().hashBytes(second)
+            .asBytes());
+
+      assertEquals(ContainerSync.multipartETag(new ByteArrayInputStream(Bytes.concat(first, second)), first.length),
+            Hashing.md5().hashBytes(partDigests) + "-2");
+   }
+
+   public void testMultipartETagOfExactMultipleHasNoEmptyPart() throws IOException {
+      assertTrue(ContainerSync.multipartETag(new ByteArrayInputStream(first), 5).endsWith("-2"));
+   }
+
+   public void testNormalizeETag() {
+      assertEquals(ContainerSync.normalizeETag("\"D41D8CD98F00B204E9800998ECF8427E\""),
+            "d41d8cd98f00b204e9800998ecf8427e");
+      assertEquals(ContainerSync.normalizeETag("0x8D5A1B2C3D4E5F6"), "0x8d5a1b2c3d4e5f6");
+      assertNull(ContainerSync.normalizeETag(null));
+   }
+}
@@ -139,6 +139,10 @@ public interface ComputeServiceAdapter<N, H, I, L> {
 
    void suspendNode(String id);
 
+   /**
+    * Adapters which can list node names cheaper than nodes may also implement
+    * {@link org.jclouds.compute.strategy.ListNodeNamesStrategy}, which is used when naming new nodes.
+    */
    Iterable<N> listNodes();
 
    Iterable<N> listNodesByIds(Iterable<String> ids);
@@ -55,6 +55,7 @@ import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIn
 import org.jclouds.compute.strategy.GetImageStrategy;
 import org.jclouds.compute.strategy.InitializeRunScriptOnNodeOrPlaceInBadMap;
 import org.jclouds.compute.suppliers.ImageCacheSupplier;
+import org.jclouds.compute.suppliers.WarmStartImagesSupplier;
 import org.jclouds.config.ValueOfConfigurationKeyOrNull;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.json.Json;
@@ -64,6 +65,7 @@ import org.jclouds.rest.suppliers.MemoizedRetryOnTimeOutButNotOnAuthorizationExc
 import org.jclouds.scriptbuilder.domain.Statement;
 import org.jclouds.scriptbuilder.statements.login.AdminAccess;
 import org.jclouds.ssh.SshClient;
+import org.jclouds.suppliers.SnapshotStore;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
@@ -244,10 +246,18 @@ public abstract class BaseComputeServiceContextModule extends AbstractModule {
    @Memoized
    protected final Supplier<Set<? extends Image>> supplyImageCache(
          AtomicReference<AuthorizationException> authException, @Named(PROPERTY_SESSION_INTERVAL) long seconds,
-         final Supplier<Set<? extends Image>> imageSupplier, com.google.inject.Provider<GetImageStrategy> imageLoader, Injector injector) {
+         final Supplier<Set<? extends Image>> imageSupplier, com.google.inject.Provider<GetImageStrategy> imageLoader,
+         SnapshotStore snapshots, Injector injector) {
       Supplier<Set<? extends Image>> parsingImageSupplier = shouldEagerlyParseImages(injector) ? imageSupplier
             : supplyNonParsingImages(imageSupplier, injector);
-      return new ImageCacheSupplier(parsingImageSupplier, seconds, authException, imageLoader);
+      if (!snapshots.isEnabled())
+         return new ImageCacheSupplier(parsingImageSupplier, seconds, authException, imageLoader);
+      // start from the previous run's images and swap in the live listing once it has been fetched
+      WarmStartImagesSupplier warmStart = new WarmStartImagesSupplier(snapshots, parsingImageSupplier);
+      injector.injectMembers(warmStart);
+      ImageCacheSupplier cache = new ImageCacheSupplier(warmStart, seconds, authException, imageLoader);
+      warmStart.onRevalidated(cache);
+      return cache;
    }
 
    protected boolean shouldEagerlyParseImages(Injector injector) {
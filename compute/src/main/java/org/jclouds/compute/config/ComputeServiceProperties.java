@@ -118,6 +118,22 @@ public final class ComputeServiceProperties {
     */
    public static final String SOCKET_FINDER_ALLOWED_INTERFACES = "jclouds.compute.socket-finder-allowed-interfaces";
 
+   /**
+    * maximum number of ssh sessions kept open per host, port and login user. When greater than zero, ssh sessions
+    * are pooled and reused across script runs, init status polling and file transfers. Defaults to 0 (no pooling).
+    */
+   public static final String SSH_POOL_MAX_SESSIONS_PER_NODE = "jclouds.ssh.pool.max-sessions-per-node";
+
+   /**
+    * time in milliseconds a pooled ssh session may stay unused before it is closed.
+    */
+   public static final String SSH_POOL_IDLE_TIMEOUT = "jclouds.ssh.pool.idle-timeout";
+
+   /**
+    * time in milliseconds to wait for a pooled ssh session when all sessions to a node are in use.
+    */
+   public static final String SSH_POOL_LEASE_TIMEOUT = "jclouds.ssh.pool.lease-timeout";
+
    private ComputeServiceProperties() {
       throw new AssertionError("intentionally unimplemented");
    }
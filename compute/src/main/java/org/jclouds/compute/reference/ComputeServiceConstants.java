@@ -20,6 +20,9 @@ import static org.jclouds.compute.config.ComputeServiceProperties.INIT_STATUS_MA
 import static org.jclouds.compute.config.ComputeServiceProperties.OS_VERSION_MAP_JSON;
 import static org.jclouds.compute.config.ComputeServiceProperties.POLL_INITIAL_PERIOD;
 import static org.jclouds.compute.config.ComputeServiceProperties.POLL_MAX_PERIOD;
+import static org.jclouds.compute.config.ComputeServiceProperties.SSH_POOL_IDLE_TIMEOUT;
+import static org.jclouds.compute.config.ComputeServiceProperties.SSH_POOL_LEASE_TIMEOUT;
+import static org.jclouds.compute.config.ComputeServiceProperties.SSH_POOL_MAX_SESSIONS_PER_NODE;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_CLEANUP_INCIDENTAL_RESOURCES;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_IMAGE_AVAILABLE;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_IMAGE_DELETED;
@@ -81,6 +84,21 @@ public final class ComputeServiceConstants {
       public long pollMaxPeriod = Predicates2.DEFAULT_MAX_PERIOD;
    }
 
+   @Singleton
+   public static class SshPoolProperties {
+      @Inject(optional = true)
+      @Named(SSH_POOL_MAX_SESSIONS_PER_NODE)
+      public int maxSessionsPerNode = 0;
+
+      @Inject(optional = true)
+      @Named(SSH_POOL_IDLE_TIMEOUT)
+      public long idleTimeout = TimeUnit.SECONDS.toMillis(60);
+
+      @Inject(optional = true)
+      @Named(SSH_POOL_LEASE_TIMEOUT)
+      public long leaseTimeout = TimeUnit.MINUTES.toMillis(5);
+   }
+
    @Singleton
    public static class ReferenceData {
       @Inject(optional = true)
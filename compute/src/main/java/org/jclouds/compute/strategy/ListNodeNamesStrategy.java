@@ -0,0 +1,31 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.strategy;
+
+/**
+ * Lists the names of nodes without building their {@link org.jclouds.compute.domain.NodeMetadata}. Optionally
+ * implemented by a {@link ListNodesStrategy}, or by the
+ * {@link org.jclouds.compute.ComputeServiceAdapter ComputeServiceAdapter} of an adapter-based provider, when the
+ * provider can list names cheaper than node details. Used to pick unique names for new nodes.
+ */
+public interface ListNodeNamesStrategy {
+
+   /**
+    * @return the names of all nodes; nodes without a name are omitted
+    */
+   Iterable<String> listNodeNames();
+}
@@ -47,11 +47,13 @@ import org.jclouds.compute.strategy.CreateNodeWithGroupEncodedIntoName;
 import org.jclouds.compute.strategy.DestroyNodeStrategy;
 import org.jclouds.compute.strategy.GetImageStrategy;
 import org.jclouds.compute.strategy.GetNodeMetadataStrategy;
+import org.jclouds.compute.strategy.ListNodeNamesStrategy;
 import org.jclouds.compute.strategy.ListNodesStrategy;
 import org.jclouds.compute.strategy.PrioritizeCredentialsFromTemplate;
 import org.jclouds.compute.strategy.RebootNodeStrategy;
 import org.jclouds.compute.strategy.ResumeNodeStrategy;
 import org.jclouds.compute.strategy.SuspendNodeStrategy;
+import org.jclouds.compute.util.ComputeServiceUtils;
 import org.jclouds.domain.Credentials;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.logging.Logger;
@@ -63,8 +65,8 @@ import com.google.common.collect.FluentIterable;
 
 @Singleton
 public class AdaptingComputeServiceStrategies<N, H, I, L> implements CreateNodeWithGroupEncodedIntoName,
-         DestroyNodeStrategy, GetNodeMetadataStrategy, GetImageStrategy, ListNodesStrategy, RebootNodeStrategy,
-         ResumeNodeStrategy, SuspendNodeStrategy {
+         DestroyNodeStrategy, GetNodeMetadataStrategy, GetImageStrategy, ListNodesStrategy, ListNodeNamesStrategy,
+         RebootNodeStrategy, ResumeNodeStrategy, SuspendNodeStrategy {
    
    @Resource
    @Named(ComputeServiceConstants.COMPUTE_LOGGER)
@@ -112,6 +114,14 @@ public class AdaptingComputeServiceStrategies<N, H, I, L> implements CreateNodeW
       return listDetailsOnNodesMatching(NodePredicates.all());
    }
 
+   /**
+    * Delegates to the adapter when it implements {@link ListNodeNamesStrategy}, otherwise lists node details.
+    */
+   @Override
+   public Iterable<String> listNodeNames() {
+      return ComputeServiceUtils.listNodeNames(client, this);
+   }
+
    @Override
    public Iterable<? extends NodeMetadata> listNodesByIds(Iterable<String> ids) {
       return FluentIterable.from(listDetailsOnNodesMatching(all())).filter(withIds(toArray(ids, String.class))).toSet();
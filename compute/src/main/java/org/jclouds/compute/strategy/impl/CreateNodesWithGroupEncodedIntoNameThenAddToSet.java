@@ -18,10 +18,10 @@ package org.jclouds.compute.strategy.impl;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.Iterables.any;
 import static com.google.common.collect.Maps.newLinkedHashMap;
 import static com.google.common.collect.Sets.newLinkedHashSet;
 import static org.jclouds.compute.util.ComputeServiceUtils.formatStatus;
+import static org.jclouds.compute.util.ComputeServiceUtils.listNodeNames;
 
 import java.util.Map;
 import java.util.Set;
@@ -36,7 +36,6 @@ import javax.inject.Singleton;
 import com.google.common.base.MoreObjects;
 import org.jclouds.Constants;
 import org.jclouds.compute.config.CustomizationResponse;
-import org.jclouds.compute.domain.ComputeMetadata;
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.Template;
 import org.jclouds.compute.functions.GroupNamingConvention;
@@ -47,10 +46,10 @@ import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIn
 import org.jclouds.compute.strategy.ListNodesStrategy;
 import org.jclouds.logging.Logger;
 
-import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
@@ -98,6 +97,11 @@ public class CreateNodesWithGroupEncodedIntoNameThenAddToSet implements CreateNo
    protected final ListeningExecutorService userExecutor;
    protected final CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory;
 
+   /**
+    * names generated by {@link #getNextNames} whose nodes are still being created, and so may not be listed yet
+    */
+   private final Set<String> reservedNames = Sets.newHashSet();
+
    @Inject
    protected CreateNodesWithGroupEncodedIntoNameThenAddToSet(
             CreateNodeWithGroupEncodedIntoName addNodeWithGroupStrategy,
@@ -120,10 +124,20 @@ public class CreateNodesWithGroupEncodedIntoNameThenAddToSet implements CreateNo
    public Map<?, ListenableFuture<Void>> execute(String group, int count, Template template, Set<NodeMetadata> goodNodes,
             Map<NodeMetadata, Exception> badNodes, Multimap<NodeMetadata, CustomizationResponse> customizationResponses) {
       Map<String, ListenableFuture<Void>> responses = newLinkedHashMap();
-      for (String name : getNextNames(group, template, count)) {
-         responses.put(name, Futures.transform(createNodeInGroupWithNameAndTemplate(group, name, template),
-                  customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory.create(template.getOptions(), goodNodes,
-                           badNodes, customizationResponses), userExecutor));
+      Set<String> nodeNames = template.getOptions().getNodeNames();
+      for (final String name : getNextNames(group, template, count)) {
+         ListenableFuture<AtomicReference<NodeMetadata>> node = createNodeInGroupWithNameAndTemplate(group, name,
+                  template);
+         if (!nodeNames.contains(name)) {
+            // once the node is created it is listed, and if it failed the name is free again
+            node.addListener(new Runnable() {
+               public void run() {
+                  releaseName(name);
+               }
+            }, userExecutor);
+         }
+         responses.put(name, Futures.transform(node, customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory
+                  .create(template.getOptions(), goodNodes, badNodes, customizationResponses), userExecutor));
       }
       return responses;
    }
@@ -191,23 +205,29 @@ public class CreateNodesWithGroupEncodedIntoNameThenAddToSet implements CreateNo
       } else {
          names.addAll(nodeNames);
       }
-      Iterable<? extends ComputeMetadata> currentNodes = listNodesStrategy.listNodes();
-      int maxTries = 100;
-      int currentTries = 0;
-      while (names.size() < count && currentTries++ < maxTries) {
-         final String name = namingConvention.createWithoutPrefix().uniqueNameForGroup(group);
-         if (!any(currentNodes, new Predicate<ComputeMetadata>() {
-
-            @Override
-            public boolean apply(ComputeMetadata input) {
-               return name.equals(input.getName());
+      Set<String> currentNames = ImmutableSet.copyOf(listNodeNames(listNodesStrategy, listNodesStrategy));
+      synchronized (reservedNames) {
+         int maxTries = 100;
+         int currentTries = 0;
+         while (names.size() < count && currentTries < maxTries) {
+            String name = namingConvention.createWithoutPrefix().uniqueNameForGroup(group);
+            if (currentNames.contains(name) || reservedNames.contains(name) || !names.add(name)) {
+               currentTries++;
+            } else {
+               reservedNames.add(name);
             }
-
-         })) {
-            names.add(name);
          }
       }
       return names;
    }
 
+   /**
+    * Makes a name returned by {@link #getNextNames} available again, once its node has been created or has failed.
+    */
+   protected void releaseName(String name) {
+      synchronized (reservedNames) {
+         reservedNames.remove(name);
+      }
+   }
+
 }
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.domain.LoginCredentials;
+import org.jclouds.location.suppliers.WarmStartLocationsSupplier.LocationRecord;
+import org.jclouds.suppliers.SnapshotStore;
+import org.jclouds.suppliers.WarmStartSupplier;
+
+import com.google.common.base.Supplier;
+
+/**
+ * Serves the images of the previous run from the {@link SnapshotStore} until the live listing is available.
+ * <p>
+ * Images are restored as plain {@link Image}s built by {@link ImageBuilder}; provider specific subclasses are not
+ * preserved. Only the login user of the default credentials is written to disk; passwords and private keys are left
+ * out, so restored images carry no secrets until the live listing replaces them.
+ */
+public class WarmStartImagesSupplier extends WarmStartSupplier<Image, WarmStartImagesSupplier.ImageRecord> {
+
+   public WarmStartImagesSupplier(SnapshotStore store, Supplier<Set<? extends Image>> delegate) {
+      super(store, "images", ImageRecord.class, delegate);
+   }
+
+   @Override
+   protected ImageRecord toRecord(Image in) {
+      return ImageRecord.fromImage(in);
+   }
+
+   @Override
+   protected Image fromRecord(ImageRecord in) {
+      return in.toImage();
+   }
+
+   public static final class ImageRecord {
+      private String id;
+      private String providerId;
+      private String name;
+      private LocationRecord location;
+      private URI uri;
+      private Map<String, String> userMetadata;
+      private Set<String> tags;
+      private OsFamily osFamily;
+      private String osName;
+      private String osArch;
+      private String osVersion;
+      private String osDescription;
+      private boolean os64Bit;
+      private String version;
+      private String description;
+      private Image.Status status;
+      private String backendStatus;
+      private String loginUser;
+      private boolean loginAuthenticateSudo;
+
+      public static ImageRecord fromImage(Image in) {
+         ImageRecord record = new ImageRecord();
+         record.id = in.getId();
+         record.providerId = in.getProviderId();
+         record.name = in.getName();
+         record.location = LocationRecord.fromLocation(in.getLocation());
+         record.uri = in.getUri();
+         record.userMetadata = in.getUserMetadata();
+         record.tags = in.getTags();
+         OperatingSystem os = in.getOperatingSystem();
+         record.osFamily = os.getFamily();
+         record.osName = os.getName();
+         record.osArch = os.getArch();
+         record.osVersion = os.getVersion();
+         record.osDescription = os.getDescription();
+         record.os64Bit = os.is64Bit();
+         record.version = in.getVersion();
+         record.description = in.getDescription();
+         record.status = in.getStatus();
+         record.backendStatus = in.getBackendStatus();
+         LoginCredentials credentials = in.getDefaultCredentials();
+         if (credentials != null) {
+            record.loginUser = credentials.getUser();
+            record.loginAuthenticateSudo = credentials.shouldAuthenticateSudo();
+         }
+         return record;
+      }
+
+      public Image toImage() {
+         OperatingSystem.Builder os = OperatingSystem.builder().family(osFamily).name(osName).arch(osArch)
+               .version(osVersion).is64Bit(os64Bit);
+         if (osDescription != null)
+            os.description(osDescription);
+         ImageBuilder builder = new ImageBuilder().id(id).providerId(providerId).name(name).uri(uri)
+               .operatingSystem(os.build()).version(version).description(description).status(status)
+               .backendStatus(backendStatus);
+         if (location != null)
+            builder.location(location.toLocation());
+         if (userMetadata != null)
+            builder.userMetadata(userMetadata);
+         if (tags != null)
+            builder.tags(tags);
+         if (loginUser != null)
+            builder.defaultCredentials(LoginCredentials.builder().user(loginUser)
+                  .authenticateSudo(loginAuthenticateSudo).build());
+         return builder.build();
+      }
+   }
+}
@@ -18,6 +18,7 @@ package org.jclouds.compute.util;
 
 import static com.google.common.base.Predicates.equalTo;
 import static com.google.common.base.Predicates.not;
+import static com.google.common.base.Predicates.notNull;
 import static com.google.common.base.Throwables.getStackTraceAsString;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Maps.filterKeys;
@@ -43,13 +44,17 @@ import org.jclouds.compute.domain.Volume;
 import org.jclouds.compute.functions.GroupNamingConvention;
 import org.jclouds.compute.options.TemplateOptions;
 import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.strategy.ListNodeNamesStrategy;
+import org.jclouds.compute.strategy.ListNodesStrategy;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.scriptbuilder.domain.Statement;
 import org.jclouds.scriptbuilder.domain.Statements;
 
+import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import com.google.common.base.Splitter;
+import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
 import com.google.common.collect.ImmutableSortedSet;
@@ -186,6 +191,26 @@ public class ComputeServiceUtils {
       });
    }
 
+   /**
+    * @param names
+    *           lists the names when it implements {@link ListNodeNamesStrategy}
+    * @param nodes
+    *           otherwise lists the nodes whose names are returned
+    * @return the names of all nodes; nodes without a name are omitted
+    */
+   public static Iterable<String> listNodeNames(Object names, ListNodesStrategy nodes) {
+      if (names instanceof ListNodeNamesStrategy) {
+         return FluentIterable.from(ListNodeNamesStrategy.class.cast(names).listNodeNames()).filter(notNull());
+      }
+      return FluentIterable.from(nodes.listNodes()).transform(new Function<ComputeMetadata, String>() {
+
+         @Override
+         public String apply(ComputeMetadata input) {
+            return input.getName();
+         }
+      }).filter(notNull());
+   }
+
    /**
     * For cloud apis that have a pattern of using empty strings as tags, return a map that contains
     * that.
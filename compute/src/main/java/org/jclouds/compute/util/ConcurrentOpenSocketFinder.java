@@ -38,6 +38,7 @@ import javax.inject.Named;
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.logging.Logger;
+import org.jclouds.predicates.InetSocketAddressConnect;
 import org.jclouds.predicates.SocketOpen;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -109,6 +110,14 @@ public class ConcurrentOpenSocketFinder implements OpenSocketFinder {
 
    }
 
+   /**
+    * @return true if sockets are tested by {@link InetSocketAddressConnect}, rather than by another {@link SocketOpen}
+    *         bound in its place
+    */
+   boolean connectsDirectly() {
+      return socketTester instanceof InetSocketAddressConnect;
+   }
+
    @VisibleForTesting
    protected <T> Predicate<T> retryPredicate(Predicate<T> findOrBreak, long timeout, long period, TimeUnit timeUnits) {
       return retry(findOrBreak, timeout, period, timeUnits);
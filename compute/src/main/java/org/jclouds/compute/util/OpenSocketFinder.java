@@ -26,7 +26,7 @@ import com.google.inject.ImplementedBy;
 /**
  * For finding an open/reachable ip:port for a node.
  */
-@ImplementedBy(ConcurrentOpenSocketFinder.class)
+@ImplementedBy(SelectorOpenSocketFinder.class)
 public interface OpenSocketFinder {
 
    /**
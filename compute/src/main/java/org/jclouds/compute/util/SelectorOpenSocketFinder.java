@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.util.concurrent.Atomics.newReference;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.compute.config.ComputeServiceProperties.SOCKET_FINDER_ALLOWED_INTERFACES;
+import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_RUNNING;
+
+import java.net.Proxy;
+import java.net.URI;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.util.ConcurrentOpenSocketFinder.AllowedInterfaces;
+import org.jclouds.logging.Logger;
+import org.jclouds.predicates.InetSocketAddressConnect;
+import org.jclouds.predicates.SocketOpen;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.Inject;
+
+/**
+ * The default {@link OpenSocketFinder}, which probes all nodes from a single selector thread, rather than submitting
+ * a blocking connect per address to the user executor on every retry.
+ * <p/>
+ * Sockets that must be reached through a proxy cannot be probed with non-blocking channels, and a {@link SocketOpen}
+ * bound in place of {@link InetSocketAddressConnect} (as by the stub provider) must still decide which sockets are
+ * open, so those nodes are delegated to {@link ConcurrentOpenSocketFinder}.
+ */
+@Singleton
+public class SelectorOpenSocketFinder implements OpenSocketFinder {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   private Logger logger = Logger.NULL;
+
+   private final SelectorSocketProber prober;
+   private final Predicate<AtomicReference<NodeMetadata>> nodeRunning;
+   private final Function<URI, Proxy> proxyForURI;
+   private final ConcurrentOpenSocketFinder blockingFinder;
+   private final ListeningExecutorService userExecutor;
+
+   @Inject(optional = true)
+   @Named(SOCKET_FINDER_ALLOWED_INTERFACES)
+   private AllowedInterfaces allowedInterfaces = AllowedInterfaces.ALL;
+
+   @Inject
+   SelectorOpenSocketFinder(SelectorSocketProber prober,
+         @Named(TIMEOUT_NODE_RUNNING) Predicate<AtomicReference<NodeMetadata>> nodeRunning,
+         Function<URI, Proxy> proxyForURI, ConcurrentOpenSocketFinder blockingFinder,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      this.prober = checkNotNull(prober, "prober");
+      this.nodeRunning = checkNotNull(nodeRunning, "nodeRunning");
+      this.proxyForURI = checkNotNull(proxyForURI, "proxyForURI");
+      this.blockingFinder = checkNotNull(blockingFinder, "blockingFinder");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+   }
+
+   /**
+    * Starts probing the node's addresses without blocking. Unlike {@link #findOpenSocketOnNode}, this does not check
+    * whether the node is still running; cancel the future to stop probing.
+    * <p/>
+    * Nodes that {@link ConcurrentOpenSocketFinder} has to probe are probed on the user executor instead, which does
+    * check that the node is still running.
+    */
+   public ListenableFuture<HostAndPort> findOpenSocketOnNodeAsync(final NodeMetadata node, final int port,
+         final long timeout, final TimeUnit timeUnits) {
+      ImmutableSet<HostAndPort> sockets = sockets(node, port);
+      if (requiresBlockingFinder(sockets)) {
+         return userExecutor.submit(new Callable<HostAndPort>() {
+            @Override
+            public HostAndPort call() {
+               return blockingFinder.findOpenSocketOnNode(node, port, timeout, timeUnits);
+            }
+         });
+      }
+      return prober.probe(sockets, timeUnits.convert(1, TimeUnit.SECONDS), timeout, timeUnits);
+   }
+
+   @Override
+   public HostAndPort findOpenSocketOnNode(NodeMetadata node, int port, long timeout, TimeUnit timeUnits) {
+      ImmutableSet<HostAndPort> sockets = sockets(node, port);
+      if (requiresBlockingFinder(sockets))
+         return blockingFinder.findOpenSocketOnNode(node, port, timeout, timeUnits);
+
+      logger.debug(">> blocking on sockets %s for %d %s", sockets, timeout, timeUnits);
+      ListenableFuture<HostAndPort> found = prober.probe(sockets, timeUnits.convert(1, TimeUnit.SECONDS), timeout,
+            timeUnits);
+      try {
+         // the probe runs on the selector thread; here we only check periodically that the node hasn't gone away
+         for (long check = 1000;; check = Math.min((long) (check * 1.5), 10000)) {
+            try {
+               HostAndPort result = found.get(check, MILLISECONDS);
+               logger.debug("<< socket %s opened", result);
+               return result;
+            } catch (TimeoutException e) {
+               if (!nodeRunning.apply(newReference(node))) {
+                  found.cancel(false);
+                  throw new IllegalStateException(node.getId() + " is no longer running; aborting socket open loop");
+               }
+            }
+         }
+      } catch (InterruptedException e) {
+         found.cancel(false);
+         Thread.currentThread().interrupt();
+         throw propagate(e);
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof NoSuchElementException) {
+            logger.warn("<< sockets %s didn't open after %d %s", sockets, timeout, timeUnits);
+            throw new NoSuchElementException(format("could not connect to any ip address port %d on node %s", port,
+                  node));
+         }
+         throw propagate(e.getCause());
+      }
+   }
+
+   private ImmutableSet<HostAndPort> sockets(NodeMetadata node, int port) {
+      ImmutableSet.Builder<HostAndPort> sockets = ImmutableSet.builder();
+      for (String ip : ConcurrentOpenSocketFinder.checkNodeHasIps(node, allowedInterfaces))
+         sockets.add(HostAndPort.fromParts(ip, port));
+      return sockets.build();
+   }
+
+   private boolean requiresBlockingFinder(Iterable<HostAndPort> sockets) {
+      if (!blockingFinder.connectsDirectly())
+         return true;
+      for (HostAndPort socket : sockets) {
+         Proxy proxy = proxyForURI.apply(URI.create("socket://" + socket.getHostText() + ":" + socket.getPort()));
+         if (proxy != null && proxy.type() != Proxy.Type.DIRECT)
+            return true;
+      }
+      return false;
+   }
+}
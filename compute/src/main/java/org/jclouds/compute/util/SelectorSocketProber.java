@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.String.format;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.inject.Inject;
+
+/**
+ * Probes sockets for reachability using non-blocking connects driven by a single {@link Selector} thread, so that
+ * waiting on thousands of booting nodes does not hold a thread per address.
+ * <p/>
+ * Each call to {@link #probe} connects to all given sockets at once; the returned future completes with the first
+ * one that accepts a connection. Failed or timed out attempts are repeated with the same exponential backoff as
+ * {@link org.jclouds.util.Predicates2#retry}, until the overall timeout elapses, at which point the future fails
+ * with {@link NoSuchElementException}. Cancelling the future abandons the probe.
+ * <p/>
+ * Host names are resolved by the caller of {@link #probe}, so a slow DNS lookup never stalls the selector thread;
+ * sockets whose host cannot be resolved are skipped.
+ */
+@Singleton
+public class SelectorSocketProber implements Closeable {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   private Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named("org.jclouds.socket_timeout")
+   @VisibleForTesting
+   int connectTimeout = 2000;
+
+   private final Queue<Probe> submitted = new ConcurrentLinkedQueue<Probe>();
+   private final List<Probe> active = Lists.newArrayList();
+   private final Object lock = new Object();
+   // guarded by lock
+   private Selector selector;
+   // guarded by lock
+   private boolean closed;
+
+   /**
+    * @param sockets
+    *           addresses to try concurrently
+    * @param period
+    *           initial delay between attempts; it grows by a factor of 1.5 up to ten times this value
+    * @param timeout
+    *           time after which the probe gives up
+    */
+   public ListenableFuture<HostAndPort> probe(Iterable<HostAndPort> sockets, long period, long timeout,
+         TimeUnit timeUnits) {
+      ImmutableSet<HostAndPort> toProbe = ImmutableSet.copyOf(checkNotNull(sockets, "sockets"));
+      checkArgument(!toProbe.isEmpty(), "no sockets to probe");
+      Probe probe = new Probe(resolve(toProbe), timeUnits.toMillis(period),
+            System.currentTimeMillis() + timeUnits.toMillis(timeout));
+      if (probe.sockets.isEmpty()) {
+         probe.result.setException(new NoSuchElementException(format("could not resolve any of sockets %s",
+               toProbe)));
+         return probe.result;
+      }
+      submitted.add(probe);
+      wakeup();
+      return probe.result;
+   }
+
+   private ImmutableMap<HostAndPort, InetSocketAddress> resolve(Iterable<HostAndPort> sockets) {
+      ImmutableMap.Builder<HostAndPort, InetSocketAddress> addresses = ImmutableMap.builder();
+      for (HostAndPort socket : sockets) {
+         InetSocketAddress address = new InetSocketAddress(socket.getHostText(), socket.getPort());
+         if (address.isUnresolved())
+            logger.warn("<< could not resolve host of socket %s", socket);
+         else
+            addresses.put(socket, address);
+      }
+      return addresses.build();
+   }
+
+   private void wakeup() {
+      synchronized (lock) {
+         if (closed)
+            throw new IllegalStateException("prober is closed");
+         if (selector == null) {
+            try {
+               selector = Selector.open();
+            } catch (IOException e) {
+               throw new IllegalStateException("could not open selector", e);
+            }
+            Thread selectorThread = new Thread(new Runnable() {
+               @Override
+               public void run() {
+                  loop();
+               }
+            }, "jclouds-socket-prober");
+            selectorThread.setDaemon(true);
+            selectorThread.start();
+         }
+         selector.wakeup();
+      }
+   }
+
+   @PreDestroy
+   @Override
+   public void close() {
+      synchronized (lock) {
+         closed = true;
+         if (selector != null)
+            selector.wakeup();
+      }
+   }
+
+   private void loop() {
+      Selector selector;
+      synchronized (lock) {
+         selector = this.selector;
+      }
+      try {
+         while (true) {
+            synchronized (lock) {
+               if (closed)
+                  break;
+            }
+            long now = System.currentTimeMillis();
+            for (Probe probe = submitted.poll(); probe != null; probe = submitted.poll()) {
+               active.add(probe);
+               probe.attempt(selector, now);
+            }
+            selector.select(nextWakeup(now));
+            for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext();) {
+               SelectionKey key = it.next();
+               it.remove();
+               if (key.isValid())
+                  ((Probe) key.attachment()).finishConnect(key);
+            }
+            now = System.currentTimeMillis();
+            for (Iterator<Probe> it = active.iterator(); it.hasNext();) {
+               if (it.next().advance(selector, now))
+                  it.remove();
+            }
+         }
+      } catch (IOException e) {
+         logger.error(e, "socket prober stopped");
+      } catch (RuntimeException e) {
+         logger.error(e, "socket prober stopped");
+      } finally {
+         synchronized (lock) {
+            // a later probe starts a fresh selector thread, unless we were closed
+            this.selector = null;
+         }
+         for (Probe probe : active)
+            probe.abort(new IllegalStateException("socket prober stopped"));
+         active.clear();
+         for (Probe probe = submitted.poll(); probe != null; probe = submitted.poll())
+            probe.abort(new IllegalStateException("socket prober stopped"));
+         try {
+            selector.close();
+         } catch (IOException ignored) {
+            // no work to do
+         }
+      }
+   }
+
+   private long nextWakeup(long now) {
+      long next = Long.MAX_VALUE;
+      for (Probe probe : active)
+         next = Math.min(next, probe.nextEvent());
+      if (next == Long.MAX_VALUE)
+         return 0; // block until a probe is submitted
+      return Math.max(1, next - now);
+   }
+
+   private final class Probe {
+      private final ImmutableMap<HostAndPort, InetSocketAddress> sockets;
+      private final long period;
+      private final long deadline;
+      private final SettableFuture<HostAndPort> result = SettableFuture.create();
+      private final Map<SocketChannel, HostAndPort> pending = Maps.newHashMap();
+      private int attempts;
+      private long attemptExpires;
+      private long nextAttempt;
+
+      private Probe(ImmutableMap<HostAndPort, InetSocketAddress> sockets, long period, long deadline) {
+         this.sockets = sockets;
+         this.period = period;
+         this.deadline = deadline;
+      }
+
+      long nextEvent() {
+         return pending.isEmpty() ? Math.min(nextAttempt, deadline) : Math.min(attemptExpires, deadline);
+      }
+
+      void attempt(Selector selector, long now) {
+         attempts++;
+         attemptExpires = now + connectTimeout;
+         for (Map.Entry<HostAndPort, InetSocketAddress> entry : sockets.entrySet()) {
+            HostAndPort socket = entry.getKey();
+            SocketChannel channel = null;
+            try {
+               channel = SocketChannel.open();
+               channel.configureBlocking(false);
+               if (channel.connect(entry.getValue())) {
+                  closeQuietly(channel);
+                  succeed(socket);
+                  return;
+               }
+               channel.register(selector, SelectionKey.OP_CONNECT, this);
+               pending.put(channel, socket);
+            } catch (IOException e) {
+               logger.trace("<< socket %s not reachable: %s", socket, e.getMessage());
+               closeQuietly(channel);
+            } catch (RuntimeException e) {
+               logger.warn(e, "Error checking reachability of ip:port %s", socket);
+               closeQuietly(channel);
+            }
+         }
+         scheduleNextIfIdle(now);
+      }
+
+      void finishConnect(SelectionKey key) {
+         SocketChannel channel = (SocketChannel) key.channel();
+         HostAndPort socket = pending.remove(channel);
+         try {
+            if (channel.finishConnect() && socket != null) {
+               succeed(socket);
+               return;
+            }
+         } catch (IOException e) {
+            logger.trace("<< socket %s not reachable: %s", socket, e.getMessage());
+         }
+         key.cancel();
+         closeQuietly(channel);
+         scheduleNextIfIdle(System.currentTimeMillis());
+      }
+
+      /**
+       * @return true if this probe is complete and should no longer be tracked
+       */
+      boolean advance(Selector selector, long now) {
+         if (result.isDone()) {
+            closePending();
+            return true;
+         }
+         if (now >= deadline) {
+            closePending();
+            result.setException(new NoSuchElementException(format("sockets %s didn't open after %d attempts",
+                  sockets.keySet(), attempts)));
+            return true;
+         }
+         if (!pending.isEmpty() && now >= attemptExpires) {
+            closePending();
+            scheduleNextIfIdle(now);
+         }
+         if (pending.isEmpty() && now >= nextAttempt)
+            attempt(selector, now);
+         return result.isDone();
+      }
+
+      void abort(Throwable cause) {
+         closePending();
+         result.setException(cause);
+      }
+
+      private void succeed(HostAndPort socket) {
+         closePending();
+         result.set(socket);
+      }
+
+      private void scheduleNextIfIdle(long now) {
+         if (pending.isEmpty() && !result.isDone()) {
+            long interval = (long) (period * Math.pow(1.5, attempts - 1));
+            nextAttempt = now + Math.min(interval, period * 10);
+         }
+      }
+
+      private void closePending() {
+         for (SocketChannel channel : pending.keySet())
+            closeQuietly(channel);
+         pending.clear();
+      }
+   }
+
+   private static void closeQuietly(SocketChannel channel) {
+      if (channel != null) {
+         try {
+            channel.close();
+         } catch (IOException ignored) {
+            // no work to do
+         }
+      }
+   }
+}
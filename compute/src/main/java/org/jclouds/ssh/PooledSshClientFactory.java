@@ -0,0 +1,405 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.ssh;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Named;
+
+import org.jclouds.compute.domain.ExecChannel;
+import org.jclouds.compute.domain.ExecResponse;
+import org.jclouds.domain.LoginCredentials;
+import org.jclouds.io.Payload;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.collect.Maps;
+import com.google.common.net.HostAndPort;
+
+/**
+ * An {@link SshClient.Factory} which keeps authenticated sessions open between uses, so that running a script,
+ * polling its status and uploading files to the same node share one ssh handshake.
+ * <p/>
+ * Sessions are pooled on host, port and login credentials, so a session is never reused by a caller presenting a
+ * different password or key. Clients returned by {@link #create} lease a session on {@link SshClient#connect connect}
+ * (or on first use) and hand it back on {@link SshClient#disconnect disconnect}. Idle sessions are health checked
+ * before reuse and closed once they have been unused for longer than the idle timeout; expired sessions are looked
+ * for whenever a client is created or a session handed back, and pools left without sessions or users are dropped.
+ * At most {@code maxSessionsPerNode} sessions are leased at once for the same key; further callers wait up to the
+ * lease timeout.
+ */
+public class PooledSshClientFactory implements SshClient.Factory {
+
+   @Resource
+   @Named("jclouds.ssh")
+   protected Logger logger = Logger.NULL;
+
+   private final SshClient.Factory delegate;
+   private final int maxSessionsPerNode;
+   private final long idleTimeoutNanos;
+   private final long leaseTimeoutMillis;
+   private final Ticker ticker;
+   private final ConcurrentMap<Key, NodePool> pools = Maps.newConcurrentMap();
+
+   public PooledSshClientFactory(SshClient.Factory delegate, int maxSessionsPerNode, long idleTimeoutMillis,
+         long leaseTimeoutMillis) {
+      this(delegate, maxSessionsPerNode, idleTimeoutMillis, leaseTimeoutMillis, Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   PooledSshClientFactory(SshClient.Factory delegate, int maxSessionsPerNode, long idleTimeoutMillis,
+         long leaseTimeoutMillis, Ticker ticker) {
+      this.delegate = checkNotNull(delegate, "delegate");
+      checkArgument(maxSessionsPerNode > 0, "maxSessionsPerNode must be positive");
+      this.maxSessionsPerNode = maxSessionsPerNode;
+      this.idleTimeoutNanos = MILLISECONDS.toNanos(idleTimeoutMillis);
+      this.leaseTimeoutMillis = leaseTimeoutMillis;
+      this.ticker = checkNotNull(ticker, "ticker");
+   }
+
+   @Override
+   public SshClient create(HostAndPort socket, LoginCredentials credentials) {
+      checkNotNull(socket, "socket");
+      checkNotNull(credentials, "credentials");
+      evictExpired();
+      return new PooledSshClient(new Key(socket, credentials.getUser(), credentials.credential), socket, credentials);
+   }
+
+   @Override
+   public boolean isAgentAvailable() {
+      return delegate.isAgentAvailable();
+   }
+
+   /**
+    * closes every idle session; sessions currently leased are closed when they are handed back.
+    */
+   @PreDestroy
+   public void close() {
+      for (NodePool pool : pools.values())
+         pool.closeIdle(true);
+   }
+
+   @VisibleForTesting
+   void evictExpired() {
+      for (NodePool pool : pools.values())
+         pool.closeIdle(false);
+   }
+
+   @VisibleForTesting
+   int idleCount(HostAndPort socket, String user) {
+      int count = 0;
+      for (NodePool pool : pools.values()) {
+         if (pool.key.socket.equals(socket) && pool.key.user.equals(user))
+            count += pool.idleCount();
+      }
+      return count;
+   }
+
+   @VisibleForTesting
+   int poolCount() {
+      return pools.size();
+   }
+
+   /**
+    * @return the pool for the key, registered as one of its users so that it is not dropped until {@link NodePool#exit}
+    */
+   private NodePool enterPool(Key key) {
+      while (true) {
+         NodePool pool = pools.get(key);
+         if (pool == null) {
+            NodePool newPool = new NodePool(key);
+            pool = pools.putIfAbsent(key, newPool);
+            if (pool == null)
+               pool = newPool;
+         }
+         if (pool.enter())
+            return pool;
+         // dropped concurrently; look again
+      }
+   }
+
+   private boolean isHealthy(SshClient client) {
+      try {
+         return client.isConnected();
+      } catch (RuntimeException e) {
+         return false;
+      }
+   }
+
+   private void disconnectQuietly(SshClient client) {
+      try {
+         client.disconnect();
+      } catch (RuntimeException e) {
+         logger.debug("<< (%s) error closing pooled session: %s", client, e.getMessage());
+      }
+   }
+
+   private static final class Key {
+      private final HostAndPort socket;
+      private final String user;
+      private final String secret;
+
+      private Key(HostAndPort socket, String user, String secret) {
+         this.socket = socket;
+         this.user = user;
+         this.secret = secret;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o)
+            return true;
+         if (!(o instanceof Key))
+            return false;
+         Key that = (Key) o;
+         return Objects.equal(socket, that.socket) && Objects.equal(user, that.user)
+               && Objects.equal(secret, that.secret);
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hashCode(socket, user, secret);
+      }
+
+      // leaves the secret out
+      @Override
+      public String toString() {
+         return user + "@" + socket;
+      }
+   }
+
+   private static final class IdleSession {
+      private final SshClient client;
+      private final long releasedAt;
+
+      private IdleSession(SshClient client, long releasedAt) {
+         this.client = client;
+         this.releasedAt = releasedAt;
+      }
+   }
+
+   private final class NodePool {
+      private final Key key;
+      private final Semaphore leases = new Semaphore(maxSessionsPerNode, true);
+      // most recently used first, so that older sessions age out
+      private final Deque<IdleSession> idle = new ArrayDeque<IdleSession>();
+      // callers waiting for or holding a lease; guarded by this
+      private int users;
+      // set once removed from pools; guarded by this
+      private boolean dropped;
+
+      private NodePool(Key key) {
+         this.key = key;
+      }
+
+      synchronized boolean enter() {
+         if (dropped)
+            return false;
+         users++;
+         return true;
+      }
+
+      synchronized void exit() {
+         users--;
+      }
+
+      /**
+       * Leases a session on behalf of a caller that has {@link #enter entered} this pool; the caller exits the pool
+       * when the session is {@link #release released} or if this throws.
+       */
+      SshClient lease(HostAndPort socket, LoginCredentials credentials) {
+         try {
+            if (!leases.tryAcquire(leaseTimeoutMillis, MILLISECONDS)) {
+               exit();
+               throw new SshException(String.format("(%s) timed out after %dms waiting for one of %d pooled sessions",
+                     key, leaseTimeoutMillis, maxSessionsPerNode));
+            }
+         } catch (InterruptedException e) {
+            exit();
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(e);
+         }
+         try {
+            for (SshClient client = pollIdle(); client != null; client = pollIdle()) {
+               if (isHealthy(client)) {
+                  logger.trace("<< (%s) reusing pooled session", key);
+                  return client;
+               }
+               disconnectQuietly(client);
+            }
+            logger.debug(">> (%s) opening pooled session", key);
+            SshClient client = delegate.create(socket, credentials);
+            client.connect();
+            return client;
+         } catch (RuntimeException e) {
+            leases.release();
+            exit();
+            throw e;
+         }
+      }
+
+      void release(SshClient client) {
+         try {
+            if (isHealthy(client)) {
+               synchronized (this) {
+                  idle.addFirst(new IdleSession(client, ticker.read()));
+               }
+            } else {
+               disconnectQuietly(client);
+            }
+         } finally {
+            leases.release();
+            exit();
+         }
+      }
+
+      private synchronized SshClient pollIdle() {
+         IdleSession session = idle.pollFirst();
+         return session == null ? null : session.client;
+      }
+
+      private synchronized int idleCount() {
+         return idle.size();
+      }
+
+      void closeIdle(boolean all) {
+         Deque<SshClient> toClose = new ArrayDeque<SshClient>();
+         synchronized (this) {
+            long now = ticker.read();
+            for (Iterator<IdleSession> it = idle.descendingIterator(); it.hasNext();) {
+               IdleSession session = it.next();
+               if (!all && now - session.releasedAt < idleTimeoutNanos)
+                  break;
+               it.remove();
+               toClose.add(session.client);
+            }
+            if (idle.isEmpty() && users == 0 && !dropped) {
+               dropped = true;
+               pools.remove(key, this);
+            }
+         }
+         for (SshClient client : toClose) {
+            logger.debug(">> (%s) closing idle pooled session", key);
+            disconnectQuietly(client);
+         }
+      }
+   }
+
+   private final class PooledSshClient implements SshClient {
+      private final Key key;
+      private final HostAndPort socket;
+      private final LoginCredentials credentials;
+      // guarded by this
+      private SshClient leased;
+      // guarded by this
+      private NodePool leasedFrom;
+
+      private PooledSshClient(Key key, HostAndPort socket, LoginCredentials credentials) {
+         this.key = key;
+         this.socket = socket;
+         this.credentials = credentials;
+      }
+
+      private synchronized SshClient leased() {
+         if (leased == null) {
+            NodePool pool = enterPool(key);
+            leased = pool.lease(socket, credentials);
+            leasedFrom = pool;
+         }
+         return leased;
+      }
+
+      @Override
+      public void connect() {
+         leased();
+      }
+
+      @Override
+      public void disconnect() {
+         SshClient toRelease;
+         NodePool pool;
+         synchronized (this) {
+            toRelease = leased;
+            pool = leasedFrom;
+            leased = null;
+            leasedFrom = null;
+         }
+         if (toRelease != null) {
+            pool.release(toRelease);
+            evictExpired();
+         }
+      }
+
+      @Override
+      public synchronized boolean isConnected() {
+         return leased != null && isHealthy(leased);
+      }
+
+      @Override
+      public String getUsername() {
+         return credentials.getUser();
+      }
+
+      @Override
+      public String getHostAddress() {
+         return socket.getHostText();
+      }
+
+      @Override
+      public void put(String path, Payload contents) {
+         leased().put(path, contents);
+      }
+
+      @Override
+      public void put(String path, String contents) {
+         leased().put(path, contents);
+      }
+
+      @Override
+      public Payload get(String path) {
+         return leased().get(path);
+      }
+
+      @Override
+      public ExecResponse exec(String command) {
+         return leased().exec(command);
+      }
+
+      @Override
+      public ExecChannel execChannel(String command) {
+         return leased().execChannel(command);
+      }
+
+      @Override
+      public String toString() {
+         return "pooled(" + key + ")";
+      }
+   }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.strategy.impl;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.testng.Assert.assertEquals;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.compute.config.CustomizationResponse;
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.compute.internal.FormatSharedNamesAndAppendUniqueStringToThoseWhichRepeat;
+import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap;
+import org.jclouds.compute.strategy.ListNodeNamesStrategy;
+import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+@Test(groups = "unit", testName = "CreateNodesWithGroupEncodedIntoNameThenAddToSetTest")
+public class CreateNodesWithGroupEncodedIntoNameThenAddToSetTest {
+
+   private static class NamesOnly implements ListNodesStrategy, ListNodeNamesStrategy {
+      private int listings;
+
+      @Override
+      public Iterable<String> listNodeNames() {
+         listings++;
+         return ImmutableList.of("group-1", "group-2");
+      }
+
+      @Override
+      public Iterable<? extends ComputeMetadata> listNodes() {
+         throw new AssertionError("names should be listed without node details");
+      }
+
+      @Override
+      public Iterable<? extends NodeMetadata> listDetailsOnNodesMatching(Predicate<? super NodeMetadata> filter) {
+         throw new AssertionError("names should be listed without node details");
+      }
+
+      @Override
+      public Iterable<? extends NodeMetadata> listNodesByIds(Iterable<String> ids) {
+         throw new AssertionError("names should be listed without node details");
+      }
+   }
+
+   public void testSkipsListedAndReservedNames() {
+      GroupNamingConvention.Factory namingConvention = createMock(GroupNamingConvention.Factory.class);
+      GroupNamingConvention convention = createMock(GroupNamingConvention.class);
+      Template template = createMock(Template.class);
+
+      expect(namingConvention.createWithoutPrefix()).andReturn(convention).anyTimes();
+      expect(convention.uniqueNameForGroup("group")).andReturn("group-1").andReturn("group-3").andReturn("group-4")
+            .andReturn("group-3").andReturn("group-5");
+      expect(template.getOptions()).andReturn(new TemplateOptions()).anyTimes();
+
+      replay(namingConvention, convention, template);
+
+      NamesOnly listNodesStrategy = new NamesOnly();
+      CreateNodesWithGroupEncodedIntoNameThenAddToSet strategy = new CreateNodesWithGroupEncodedIntoNameThenAddToSet(
+            null, listNodesStrategy, namingConvention, MoreExecutors.newDirectExecutorService(), null);
+
+      assertEquals(strategy.getNextNames("group", template, 2), ImmutableSet.of("group-3", "group-4"));
+      // group-3 is still reserved by the previous call
+      assertEquals(strategy.getNextNames("group", template, 1), ImmutableSet.of("group-5"));
+      assertEquals(listNodesStrategy.listings, 2);
+   }
+
+   public void testReleasesNamesOnceNodesAreCreatedOrFail() {
+      GroupNamingConvention.Factory namingConvention = createMock(GroupNamingConvention.Factory.class);
+      GroupNamingConvention convention = createMock(GroupNamingConvention.class);
+      Template template = createMock(Template.class);
+
+      expect(namingConvention.createWithoutPrefix()).andReturn(convention).anyTimes();
+      expect(convention.uniqueNameForGroup("group")).andReturn("group-3").andReturn("group-4").andReturn("group-4")
+            .andReturn("group-3");
+      expect(template.getOptions()).andReturn(new TemplateOptions()).anyTimes();
+
+      replay(namingConvention, convention, template);
+
+      final Map<String, SettableFuture<AtomicReference<NodeMetadata>>> nodes = Maps.newHashMap();
+      CreateNodesWithGroupEncodedIntoNameThenAddToSet strategy = new CreateNodesWithGroupEncodedIntoNameThenAddToSet(
+            null, new NamesOnly(), namingConvention, MoreExecutors.newDirectExecutorService(), new Customize()) {
+         @Override
+         protected ListenableFuture<AtomicReference<NodeMetadata>> createNodeInGroupWithNameAndTemplate(String group,
+               String name, Template template) {
+            SettableFuture<AtomicReference<NodeMetadata>> node = SettableFuture.create();
+            nodes.put(name, node);
+            return node;
+         }
+      };
+
+      strategy.execute("group", 2, template, null, null, null);
+      nodes.get("group-3").setException(new IllegalStateException("failed to create group-3"));
+
+      // group-4 is still being created, while group-3 failed and may be used again
+      assertEquals(strategy.getNextNames("group", template, 1), ImmutableSet.of("group-3"));
+   }
+
+   private static class Customize implements CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory {
+      @Override
+      public Callable<Void> create(TemplateOptions options, AtomicReference<NodeMetadata> node,
+            Set<NodeMetadata> goodNodes, Map<NodeMetadata, Exception> badNodes,
+            Multimap<NodeMetadata, CustomizationResponse> customizationResponses) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Function<AtomicReference<NodeMetadata>, Void> create(TemplateOptions options, Set<NodeMetadata> goodNodes,
+            Map<NodeMetadata, Exception> badNodes,
+            Multimap<NodeMetadata, CustomizationResponse> customizationResponses) {
+         return new Function<AtomicReference<NodeMetadata>, Void>() {
+            @Override
+            public Void apply(AtomicReference<NodeMetadata> input) {
+               return null;
+            }
+         };
+      }
+   }
+
+   public void testCountAboveMaxTries() {
+      GroupNamingConvention.Factory namingConvention =
+            new FormatSharedNamesAndAppendUniqueStringToThoseWhichRepeat.Factory();
+      Template template = createMock(Template.class);
+
+      expect(template.getOptions()).andReturn(new TemplateOptions()).anyTimes();
+
+      replay(template);
+
+      CreateNodesWithGroupEncodedIntoNameThenAddToSet strategy = new CreateNodesWithGroupEncodedIntoNameThenAddToSet(
+            null, new NamesOnly(), namingConvention, MoreExecutors.newDirectExecutorService(), null);
+
+      Set<String> names = strategy.getNextNames("group", template, 200);
+      assertEquals(names.size(), 200);
+   }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.util;
+
+import static com.google.common.base.Predicates.alwaysTrue;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_RUNNING;
+import static org.jclouds.compute.domain.NodeMetadata.Status.RUNNING;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.predicates.InetSocketAddressConnect;
+import org.jclouds.predicates.SocketOpen;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+
+@Test(groups = "unit", singleThreaded = true, testName = "SelectorOpenSocketFinderTest")
+public class SelectorOpenSocketFinderTest {
+
+   private final SocketOpen socketAlwaysOpen = new SocketOpen() {
+      @Override
+      public boolean apply(HostAndPort input) {
+         return true;
+      }
+   };
+
+   private SelectorSocketProber prober;
+   private ListeningExecutorService userExecutor;
+
+   @BeforeClass
+   public void setUp() {
+      prober = new SelectorSocketProber();
+      userExecutor = listeningDecorator(newCachedThreadPool());
+   }
+
+   @AfterClass(alwaysRun = true)
+   public void tearDown() {
+      if (prober != null)
+         prober.close();
+      if (userExecutor != null)
+         userExecutor.shutdownNow();
+   }
+
+   private static Function<URI, Proxy> proxyForURI(final Proxy proxy) {
+      return new Function<URI, Proxy>() {
+         @Override
+         public Proxy apply(URI input) {
+            return proxy;
+         }
+      };
+   }
+
+   private SelectorOpenSocketFinder finder(Proxy proxy, ConcurrentOpenSocketFinder blockingFinder) {
+      return new SelectorOpenSocketFinder(prober, alwaysTrue(), proxyForURI(proxy), blockingFinder, userExecutor);
+   }
+
+   private ConcurrentOpenSocketFinder connectingFinder() {
+      SocketOpen connect = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bind(new TypeLiteral<Function<URI, Proxy>>() {
+            }).toInstance(proxyForURI(Proxy.NO_PROXY));
+         }
+      }).getInstance(InetSocketAddressConnect.class);
+      return new ConcurrentOpenSocketFinder(connect, alwaysTrue(), userExecutor);
+   }
+
+   private static NodeMetadata node(String ip) {
+      return new NodeMetadataBuilder().id("myid").status(RUNNING).publicAddresses(ImmutableSet.of(ip)).build();
+   }
+
+   public void testAsyncProbesDirectSocketsWithSelector() throws Exception {
+      ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+      try {
+         assertEquals(finder(Proxy.NO_PROXY, connectingFinder())
+               .findOpenSocketOnNodeAsync(node("127.0.0.1"), server.getLocalPort(), 5000, MILLISECONDS)
+               .get(5, SECONDS), HostAndPort.fromParts("127.0.0.1", server.getLocalPort()));
+      } finally {
+         server.close();
+      }
+   }
+
+   public void testAsyncDelegatesProxiedSockets() throws Exception {
+      // 1.2.3.4 is not reachable directly; only the proxied finder reports it open
+      Proxy proxy = new Proxy(Proxy.Type.SOCKS, InetSocketAddress.createUnresolved("proxy", 1080));
+      ConcurrentOpenSocketFinder proxiedFinder = new ConcurrentOpenSocketFinder(socketAlwaysOpen, alwaysTrue(),
+            userExecutor) {
+         @Override
+         boolean connectsDirectly() {
+            return true;
+         }
+      };
+      assertEquals(finder(proxy, proxiedFinder).findOpenSocketOnNodeAsync(node("1.2.3.4"), 22, 5000, MILLISECONDS)
+            .get(5, SECONDS), HostAndPort.fromParts("1.2.3.4", 22));
+   }
+
+   public void testDelegatesWhenAnotherSocketOpenIsBound() {
+      // 1.2.3.4 is not reachable; only the bound SocketOpen reports it open
+      assertEquals(finder(Proxy.NO_PROXY, new ConcurrentOpenSocketFinder(socketAlwaysOpen, alwaysTrue(), userExecutor))
+            .findOpenSocketOnNode(node("1.2.3.4"), 22, 5000, MILLISECONDS), HostAndPort.fromParts("1.2.3.4", 22));
+   }
+
+   public void testInjectedFinderProbesWithSelector() throws Exception {
+      Injector injector = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bind(new TypeLiteral<Predicate<AtomicReference<NodeMetadata>>>() {
+            }).annotatedWith(Names.named(TIMEOUT_NODE_RUNNING)).toInstance(
+                  Predicates.<AtomicReference<NodeMetadata>> alwaysTrue());
+            bind(new TypeLiteral<Function<URI, Proxy>>() {
+            }).toInstance(proxyForURI(Proxy.NO_PROXY));
+            bind(ListeningExecutorService.class).annotatedWith(Names.named(PROPERTY_USER_THREADS)).toInstance(
+                  userExecutor);
+         }
+      });
+      ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+      try {
+         OpenSocketFinder finder = injector.getInstance(OpenSocketFinder.class);
+         assertTrue(finder instanceof SelectorOpenSocketFinder, finder.getClass().getName());
+         assertEquals(finder.findOpenSocketOnNode(node("127.0.0.1"), server.getLocalPort(), 5000, MILLISECONDS),
+               HostAndPort.fromParts("127.0.0.1", server.getLocalPort()));
+      } finally {
+         server.close();
+         injector.getInstance(SelectorSocketProber.class).close();
+      }
+   }
+}
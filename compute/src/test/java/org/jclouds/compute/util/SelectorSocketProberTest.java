@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.util;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.ListenableFuture;
+
+@Test(groups = "unit", singleThreaded = true, testName = "SelectorSocketProberTest")
+public class SelectorSocketProberTest {
+
+   private SelectorSocketProber prober;
+
+   @BeforeClass
+   public void setUp() {
+      prober = new SelectorSocketProber();
+      prober.connectTimeout = 200;
+   }
+
+   @AfterClass(alwaysRun = true)
+   public void tearDown() {
+      if (prober != null)
+         prober.close();
+   }
+
+   public void testReturnsListeningSocket() throws Exception {
+      ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+      try {
+         HostAndPort open = HostAndPort.fromParts("127.0.0.1", server.getLocalPort());
+         HostAndPort closed = HostAndPort.fromParts("127.0.0.1", unusedPort());
+         assertEquals(prober.probe(ImmutableSet.of(closed, open), 50, 5000, MILLISECONDS).get(), open);
+      } finally {
+         server.close();
+      }
+   }
+
+   public void testFailsAfterTimeout() throws Exception {
+      HostAndPort closed = HostAndPort.fromParts("127.0.0.1", unusedPort());
+      long start = System.currentTimeMillis();
+      try {
+         prober.probe(ImmutableSet.of(closed), 50, 500, MILLISECONDS).get();
+         fail();
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof NoSuchElementException, e.toString());
+      }
+      assertTrue(System.currentTimeMillis() - start >= 490);
+   }
+
+   public void testRetriesUntilSocketOpens() throws Exception {
+      int port = unusedPort();
+      HostAndPort socket = HostAndPort.fromParts("127.0.0.1", port);
+      ListenableFuture<HostAndPort> found = prober.probe(ImmutableSet.of(socket), 50, 5000, MILLISECONDS);
+      Thread.sleep(200);
+      assertFalse(found.isDone());
+      ServerSocket server = new ServerSocket(port, 50, InetAddress.getByName("127.0.0.1"));
+      try {
+         assertEquals(found.get(), socket);
+      } finally {
+         server.close();
+      }
+   }
+
+   public void testUnresolvableHostsAreSkipped() throws Exception {
+      ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+      try {
+         HostAndPort unresolvable = HostAndPort.fromParts("jclouds.invalid", server.getLocalPort());
+         HostAndPort open = HostAndPort.fromParts("127.0.0.1", server.getLocalPort());
+         assertEquals(prober.probe(ImmutableSet.of(unresolvable, open), 50, 5000, MILLISECONDS).get(), open);
+      } finally {
+         server.close();
+      }
+   }
+
+   public void testFailsAtOnceIfNoHostResolves() throws Exception {
+      ListenableFuture<HostAndPort> found = prober.probe(
+            ImmutableSet.of(HostAndPort.fromParts("jclouds.invalid", 22)), 50, 5000, MILLISECONDS);
+      assertTrue(found.isDone());
+      try {
+         found.get();
+         fail();
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof NoSuchElementException, e.toString());
+      }
+   }
+
+   private static int unusedPort() throws Exception {
+      ServerSocket server = new ServerSocket(0);
+      try {
+         return server.getLocalPort();
+      } finally {
+         server.close();
+      }
+   }
+}
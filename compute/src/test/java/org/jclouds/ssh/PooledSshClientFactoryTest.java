@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.ssh;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.compute.domain.ExecResponse;
+import org.jclouds.domain.LoginCredentials;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Ticker;
+import com.google.common.net.HostAndPort;
+
+@Test(groups = "unit", testName = "PooledSshClientFactoryTest")
+public class PooledSshClientFactoryTest {
+
+   private static final HostAndPort SOCKET = HostAndPort.fromParts("1.1.1.1", 22);
+   private static final LoginCredentials CREDENTIALS = LoginCredentials.builder().user("root").password("pw").build();
+
+   private static class FakeTicker extends Ticker {
+      long nanos;
+
+      @Override
+      public long read() {
+         return nanos;
+      }
+   }
+
+   public void testReusesSessionAcrossClients() {
+      SshClient.Factory delegate = createMock(SshClient.Factory.class);
+      SshClient client = createMock(SshClient.class);
+
+      expect(delegate.create(SOCKET, CREDENTIALS)).andReturn(client);
+      client.connect();
+      expect(client.isConnected()).andReturn(true).anyTimes();
+      expect(client.exec("status")).andReturn(new ExecResponse("", "", 0)).times(2);
+
+      replay(delegate, client);
+
+      PooledSshClientFactory factory = new PooledSshClientFactory(delegate, 2, 60000, 1000);
+      for (int i = 0; i < 2; i++) {
+         SshClient ssh = factory.create(SOCKET, CREDENTIALS);
+         ssh.connect();
+         ssh.exec("status");
+         ssh.disconnect();
+      }
+      assertEquals(factory.idleCount(SOCKET, "root"), 1);
+
+      verify(delegate, client);
+   }
+
+   public void testDiscardsUnhealthySession() {
+      SshClient.Factory delegate = createMock(SshClient.Factory.class);
+      SshClient broken = createMock(SshClient.class);
+      SshClient fresh = createMock(SshClient.class);
+
+      expect(delegate.create(SOCKET, CREDENTIALS)).andReturn(broken);
+      broken.connect();
+      // healthy when handed back, dropped by the time it is reused
+      expect(broken.isConnected()).andReturn(true);
+      expect(broken.isConnected()).andReturn(false);
+      broken.disconnect();
+      expect(delegate.create(SOCKET, CREDENTIALS)).andReturn(fresh);
+      fresh.connect();
+
+      replay(delegate, broken, fresh);
+
+      PooledSshClientFactory factory = new PooledSshClientFactory(delegate, 1, 60000, 1000);
+      SshClient first = factory.create(SOCKET, CREDENTIALS);
+      first.connect();
+      first.disconnect();
+      factory.create(SOCKET, CREDENTIALS).connect();
+
+      verify(delegate, broken, fresh);
+   }
+
+   public void testClosesExpiredIdleSessions() {
+      SshClient.Factory delegate = createMock(SshClient.Factory.class);
+      SshClient client = createMock(SshClient.class);
+      FakeTicker ticker = new FakeTicker();
+
+      expect(delegate.create(SOCKET, CREDENTIALS)).andReturn(client);
+      client.connect();
+      expect(client.isConnected()).andReturn(true);
+      client.disconnect();
+      expectLastCall();
+
+      replay(delegate, client);
+
+      PooledSshClientFactory factory = new PooledSshClientFactory(delegate, 1, 1000, 1000, ticker);
+      SshClient ssh = factory.create(SOCKET, CREDENTIALS);
+      ssh.connect();
+      ssh.disconnect();
+      assertEquals(factory.idleCount(SOCKET, "root"), 1);
+
+      ticker.nanos = TimeUnit.SECONDS.toNanos(2);
+      factory.evictExpired();
+      assertEquals(factory.idleCount(SOCKET, "root"), 0);
+
+      verify(delegate, client);
+   }
+
+   public void testDoesNotShareSessionsAcrossCredentials() {
+      LoginCredentials otherPassword = LoginCredentials.builder().user("root").password("other").build();
+      SshClient.Factory delegate = createMock(SshClient.Factory.class);
+      SshClient client = createMock(SshClient.class);
+      SshClient other = createMock(SshClient.class);
+
+      expect(delegate.create(SOCKET, CREDENTIALS)).andReturn(client);
+      client.connect();
+      expect(client.isConnected()).andReturn(true).anyTimes();
+      expect(delegate.create(SOCKET, otherPassword)).andReturn(other);
+      other.connect();
+      expect(other.isConnected()).andReturn(true).anyTimes();
+
+      replay(delegate, client, other);
+
+      PooledSshClientFactory factory = new PooledSshClientFactory(delegate, 2, 60000, 1000);
+      SshClient ssh = factory.create(SOCKET, CREDENTIALS);
+      ssh.connect();
+      ssh.disconnect();
+      factory.create(SOCKET, otherPassword).connect();
+      assertEquals(factory.idleCount(SOCKET, "root"), 1);
+
+      verify(delegate, client, other);
+   }
+
+   public void testReleaseClosesExpiredSessionsAndDropsEmptyPools() {
+      HostAndPort otherSocket = HostAndPort.fromParts("2.2.2.2", 22);
+      SshClient.Factory delegate = createMock(SshClient.Factory.class);
+      SshClient client = createMock(SshClient.class);
+      SshClient other = createMock(SshClient.class);
+      FakeTicker ticker = new FakeTicker();
+
+      expect(delegate.create(SOCKET, CREDENTIALS)).andReturn(client);
+      client.connect();
+      expect(client.isConnected()).andReturn(true);
+      client.disconnect();
+      expect(delegate.create(otherSocket, CREDENTIALS)).andReturn(other);
+      other.connect();
+      expect(other.isConnected()).andReturn(true);
+      other.disconnect();
+
+      replay(delegate, client, other);
+
+      PooledSshClientFactory factory = new PooledSshClientFactory(delegate, 1, 1000, 1000, ticker);
+      SshClient ssh = factory.create(SOCKET, CREDENTIALS);
+      ssh.connect();
+      ssh.disconnect();
+      SshClient otherSsh = factory.create(otherSocket, CREDENTIALS);
+      otherSsh.connect();
+      assertEquals(factory.poolCount(), 2);
+
+      // handing back the second session closes the first, which expired meanwhile, and drops its pool
+      ticker.nanos = TimeUnit.SECONDS.toNanos(2);
+      otherSsh.disconnect();
+      assertEquals(factory.idleCount(SOCKET, "root"), 0);
+      assertEquals(factory.idleCount(otherSocket, "root"), 1);
+      assertEquals(factory.poolCount(), 1);
+
+      factory.close();
+      assertEquals(factory.poolCount(), 0);
+
+      verify(delegate, client, other);
+   }
+
+   @Test(expectedExceptions = SshException.class)
+   public void testCapsSessionsPerNode() {
+      SshClient.Factory delegate = createMock(SshClient.Factory.class);
+      SshClient client = createMock(SshClient.class);
+
+      expect(delegate.create(SOCKET, CREDENTIALS)).andReturn(client);
+      client.connect();
+
+      replay(delegate, client);
+
+      PooledSshClientFactory factory = new PooledSshClientFactory(delegate, 1, 60000, 10);
+      factory.create(SOCKET, CREDENTIALS).connect();
+      factory.create(SOCKET, CREDENTIALS).connect();
+   }
+}
@@ -230,6 +230,28 @@ public final class Constants {
     * default value is false
     */
    public static final String PROPERTY_LOGGER_WIRE_LOG_SENSITIVE_INFO = "jclouds.wire.log.sensitive";
+   /**
+    * Long property.
+    * <p/>
+    * maximum number of bytes of each request or response body written to the wire log; bodies
+    * are logged as they stream, so larger ones are truncated rather than buffered. default value
+    * is -1, meaning no limit
+    */
+   public static final String PROPERTY_LOGGER_WIRE_MAX_BYTES = "jclouds.wire.max-bytes";
+   /**
+    * Double property.
+    * <p/>
+    * fraction, between 0 and 1, of http commands whose bodies are written to the wire log.
+    * default value is 1
+    */
+   public static final String PROPERTY_LOGGER_WIRE_SAMPLE_RATE = "jclouds.wire.sample-rate";
+   /**
+    * String property.
+    * <p/>
+    * regular expression; when set, only http commands whose name (ex. {@code S3Client.getObject}
+    * or the value of the method's {@code @Named} annotation) matches it are written to the wire log
+    */
+   public static final String PROPERTY_LOGGER_WIRE_SAMPLE_COMMANDS = "jclouds.wire.sample-commands";
    /**
     * Name of the logger that records all http headers from the client and the server.
     */
@@ -376,6 +398,91 @@ public final class Constants {
     */
    public static final String PROPERTY_MAX_RATE_LIMIT_WAIT = "jclouds.max-ratelimit-wait";
 
+   /**
+    * Number of requests per second the client allows itself to send, enforced with a token bucket before requests
+    * are dispatched. Zero disables the proactive rate limit.
+    * <p>
+    * Default value: 0.
+    */
+   public static final String PROPERTY_RATE_LIMIT_PERMITS_PER_SECOND = "jclouds.ratelimit.permits-per-second";
+
+   /**
+    * Number of requests that can be sent back to back when the token bucket is full.
+    * <p>
+    * Default value: one second worth of {@link #PROPERTY_RATE_LIMIT_PERMITS_PER_SECOND}.
+    */
+   public static final String PROPERTY_RATE_LIMIT_BURST = "jclouds.ratelimit.burst";
+
+   /**
+    * Upper bound of the adaptive concurrency limit. The limit is halved whenever the provider throttles a request
+    * and grows back by one per round of successful, non-degraded requests. Zero disables the concurrency limit.
+    * <p>
+    * Default value: 0.
+    */
+   public static final String PROPERTY_RATE_LIMIT_MAX_CONCURRENCY = "jclouds.ratelimit.max-concurrency";
+
+   /**
+    * What the client-side limits are shared by: {@code endpoint} (host and port) or {@code command} (the
+    * {@code @Named} value or method of the api call).
+    * <p>
+    * Default value: endpoint.
+    */
+   public static final String PROPERTY_RATE_LIMIT_SCOPE = "jclouds.ratelimit.scope";
+
+   /**
+    * When true, idempotent requests without a payload are hedged: if no response arrived after the hedge delay, a
+    * duplicate request is sent and whichever answers first is used.
+    * <p>
+    * Default value: false.
+    */
+   public static final String PROPERTY_HEDGE_REQUESTS = "jclouds.hedge.enabled";
+
+   /**
+    * Fixed delay (in milliseconds) before a request is hedged. When zero, the 95th percentile of the recent
+    * latencies of the same command is used, and requests are not hedged until enough latencies were observed.
+    * <p>
+    * Default value: 0.
+    */
+   public static final String PROPERTY_HEDGE_DELAY = "jclouds.hedge.delay";
+
+   /**
+    * Maximum share (in percent) of eligible requests that may be duplicated by hedging.
+    * <p>
+    * Default value: 5.
+    */
+   public static final String PROPERTY_HEDGE_BUDGET = "jclouds.hedge.budget";
+
+   /**
+    * Directory where catalog snapshots (locations, images) are persisted between runs. When set, a new context
+    * starts from the snapshot of the previous run and revalidates it against the provider in the background.
+    * <p>
+    * Default value: unset (snapshots disabled).
+    */
+   public static final String PROPERTY_SNAPSHOT_DIR = "jclouds.snapshot.dir";
+
+   /**
+    * Maximum age (in seconds) of a catalog snapshot before it is ignored at startup.
+    * <p>
+    * Default value: 1 day.
+    */
+   public static final String PROPERTY_SNAPSHOT_TTL = "jclouds.snapshot.ttl";
+
+   /**
+    * Maximum number of responses kept for conditional revalidation of methods annotated with
+    * {@link org.jclouds.rest.annotations.ConditionalGet}. Zero disables the cache.
+    * <p>
+    * Default value: 1000.
+    */
+   public static final String PROPERTY_CONDITIONAL_GET_CACHE_SIZE = "jclouds.conditional-get.cache-size";
+
+   /**
+    * When true, concurrent identical {@code GET} and {@code HEAD} invocations share a single in-flight request. Each
+    * caller parses its own copy of the response. {@code GET}s returning streams or blobs are not coalesced.
+    * <p>
+    * Default value: false.
+    */
+   public static final String PROPERTY_COALESCE_REQUESTS = "jclouds.coalesce.enabled";
+
    private Constants() {
       throw new AssertionError("intentionally unimplemented");
    }
@@ -25,6 +25,9 @@ import static org.jclouds.http.HttpUtils.contains404;
 import static org.jclouds.http.HttpUtils.returnValueOnCodeOrNull;
 import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
 
+import java.util.Collections;
+import java.util.Iterator;
+
 import org.jclouds.collect.IterableWithMarker;
 import org.jclouds.collect.IterableWithMarkers;
 import org.jclouds.collect.PagedIterable;
@@ -105,6 +108,12 @@ public final class Fallbacks {
       }
    }
 
+   public static final class EmptyIteratorOnNotFoundOr404 implements Fallback<Iterator<Object>> {
+      public Iterator<Object> createOrPropagate(Throwable t) throws Exception {
+         return valOnNotFoundOr404(Collections.<Object> emptyIterator(), checkNotNull(t, "throwable"));
+      }
+   }
+
    public static final class EmptyListOnNotFoundOr404 implements Fallback<ImmutableList<Object>> { // NO_UCD
       public ImmutableList<Object> createOrPropagate(Throwable t) throws Exception {
          return valOnNotFoundOr404(ImmutableList.of(), checkNotNull(t, "throwable"));
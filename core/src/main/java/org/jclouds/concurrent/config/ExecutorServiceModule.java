@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -36,7 +37,9 @@ import javax.inject.Singleton;
 
 import org.jclouds.lifecycle.Closer;
 import org.jclouds.logging.Logger;
+import org.jclouds.metrics.MetricsRecorder;
 
+import com.google.common.base.Supplier;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.SimpleTimeLimiter;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -176,10 +179,29 @@ public class ExecutorServiceModule extends AbstractModule {
    @Provides
    @Singleton
    @Named(PROPERTY_USER_THREADS)
-   final ListeningExecutorService provideListeningUserExecutorService(@Named(PROPERTY_USER_THREADS) int count, Closer closer) { // NO_UCD
+   final ListeningExecutorService provideListeningUserExecutorService(@Named(PROPERTY_USER_THREADS) int count, Closer closer, // NO_UCD
+         MetricsRecorder metrics) {
       if (userExecutorFromConstructor != null)
          return userExecutorFromConstructor;
-      return shutdownOnClose(WithSubmissionTrace.wrap(newThreadPoolNamed("user thread %d", count)), closer);
+      ExecutorService pool = newThreadPoolNamed("user thread %d", count);
+      if (pool instanceof ThreadPoolExecutor)
+         registerGauges("user", ThreadPoolExecutor.class.cast(pool), metrics);
+      return shutdownOnClose(WithSubmissionTrace.wrap(listeningDecorator(pool)), closer);
+   }
+
+   private static void registerGauges(String name, final ThreadPoolExecutor pool, MetricsRecorder metrics) {
+      metrics.registerGauge("executor." + name + ".queue", new Supplier<Integer>() {
+         @Override
+         public Integer get() {
+            return pool.getQueue().size();
+         }
+      });
+      metrics.registerGauge("executor." + name + ".active", new Supplier<Integer>() {
+         @Override
+         public Integer get() {
+            return pool.getActiveCount();
+         }
+      });
    }
 
    @Provides
@@ -194,16 +216,16 @@ public class ExecutorServiceModule extends AbstractModule {
       return service;
    }
 
-   private ListeningExecutorService newCachedThreadPoolNamed(String name) {
-      return listeningDecorator(Executors.newCachedThreadPool(namedThreadFactory(name)));
+   private ExecutorService newCachedThreadPoolNamed(String name) {
+      return Executors.newCachedThreadPool(namedThreadFactory(name));
    }
 
-   private ListeningExecutorService newThreadPoolNamed(String name, int maxCount) {
+   private ExecutorService newThreadPoolNamed(String name, int maxCount) {
       return maxCount == 0 ? newCachedThreadPoolNamed(name) : newScalingThreadPoolNamed(name, maxCount);
    }
 
-   private ListeningExecutorService newScalingThreadPoolNamed(String name, int maxCount) {
-      return listeningDecorator(newScalingThreadPool(1, maxCount, 60L * 1000, namedThreadFactory(name)));
+   private ExecutorService newScalingThreadPoolNamed(String name, int maxCount) {
+      return newScalingThreadPool(1, maxCount, 60L * 1000, namedThreadFactory(name));
    }
 
    private ThreadFactory namedThreadFactory(String name) {
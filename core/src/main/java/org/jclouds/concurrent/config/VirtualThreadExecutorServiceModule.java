@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.concurrent.config;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.metrics.MetricsRecorder;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.TimeLimiter;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+
+/**
+ * Configures the user {@link ListeningExecutorService} to run each task on its own virtual thread, so that blocking
+ * work such as polling, time limited calls or multipart uploads does not hold an OS thread while it waits.
+ * <p>
+ * Instead of capping the number of threads, {@link org.jclouds.Constants#PROPERTY_USER_THREADS} caps the number of
+ * tasks running at the same time in the context; further tasks wait for a permit on their own virtual thread. Zero,
+ * the default, leaves the number of running tasks unbounded.
+ * <p>
+ * Virtual threads require Java 21 or later. They are looked up reflectively, so this module can be referenced from
+ * code targeting older releases; use {@link #isAvailable()} to fall back to {@link ExecutorServiceModule}:
+ * 
+ * <pre>
+ * modules.add(VirtualThreadExecutorServiceModule.isAvailable() ? new VirtualThreadExecutorServiceModule()
+ *       : new ExecutorServiceModule());
+ * </pre>
+ */
+@Beta
+@ConfiguresExecutorService
+public class VirtualThreadExecutorServiceModule extends AbstractModule {
+
+   private static final Method OF_VIRTUAL;
+   private static final Method NAME;
+   private static final Method FACTORY;
+   private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+   static {
+      Method ofVirtual = null;
+      Method name = null;
+      Method factory = null;
+      Method newThreadPerTaskExecutor = null;
+      try {
+         // methods of the public Thread.Builder interface, as the builder implementations are not accessible
+         Class<?> builder = Class.forName("java.lang.Thread$Builder");
+         ofVirtual = Thread.class.getMethod("ofVirtual");
+         name = builder.getMethod("name", String.class, long.class);
+         factory = builder.getMethod("factory");
+         newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+      } catch (ClassNotFoundException e) {
+         ofVirtual = null;
+      } catch (NoSuchMethodException e) {
+         ofVirtual = null;
+      }
+      OF_VIRTUAL = ofVirtual;
+      NAME = name;
+      FACTORY = factory;
+      NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+   }
+
+   /**
+    * @return true if the running JVM supports virtual threads
+    */
+   public static boolean isAvailable() {
+      return OF_VIRTUAL != null;
+   }
+
+   /**
+    * @throws UnsupportedOperationException
+    *            if the running JVM does not support virtual threads
+    */
+   public VirtualThreadExecutorServiceModule() {
+      if (!isAvailable())
+         throw new UnsupportedOperationException("virtual threads require Java 21 or later, running "
+               + System.getProperty("java.version"));
+   }
+
+   @Override
+   protected void configure() { // NO_UCD
+   }
+
+   @Provides
+   @Singleton
+   final TimeLimiter timeLimiter(@Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      return ExecutorServiceModule.createSimpleTimeLimiter(userExecutor);
+   }
+
+   @Provides
+   @Singleton
+   @Named(PROPERTY_USER_THREADS)
+   final ListeningExecutorService provideListeningUserExecutorService(@Named(PROPERTY_USER_THREADS) int count, // NO_UCD
+         Closer closer, MetricsRecorder metrics) {
+      ExecutorService executor = newVirtualThreadPerTaskExecutor("user thread ");
+      if (count > 0) {
+         final Semaphore permits = new Semaphore(count);
+         executor = bounded(executor, permits);
+         metrics.registerGauge("executor.user.queue", new Supplier<Integer>() {
+            @Override
+            public Integer get() {
+               return permits.getQueueLength();
+            }
+         });
+      }
+      return ExecutorServiceModule.shutdownOnClose(WithSubmissionTrace.wrap(listeningDecorator(executor)), closer);
+   }
+
+   @Provides
+   @Singleton
+   @Named(PROPERTY_USER_THREADS)
+   final ExecutorService provideUserExecutorService(@Named(PROPERTY_USER_THREADS) ListeningExecutorService in) { // NO_UCD
+      return in;
+   }
+
+   /**
+    * Equivalent to {@code Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory())}.
+    */
+   private static ExecutorService newVirtualThreadPerTaskExecutor(String prefix) {
+      try {
+         Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+         return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, (ThreadFactory) FACTORY.invoke(builder));
+      } catch (IllegalAccessException e) {
+         throw new UnsupportedOperationException("Can't access virtual thread builder", e);
+      } catch (InvocationTargetException e) {
+         throw new UnsupportedOperationException("Can't create virtual thread executor", e.getCause());
+      }
+   }
+
+   /**
+    * Runs at most as many tasks at the same time as {@code permits} allows. Tasks wait for a permit on the thread
+    * the delegate runs them on, so submitting never blocks.
+    */
+   @VisibleForTesting
+   static ExecutorService bounded(ExecutorService delegate, Semaphore permits) {
+      return new BoundedExecutorService(delegate, permits);
+   }
+
+   private static final class BoundedExecutorService extends AbstractExecutorService {
+      private final ExecutorService delegate;
+      private final Semaphore permits;
+
+      private BoundedExecutorService(ExecutorService delegate, Semaphore permits) {
+         this.delegate = checkNotNull(delegate, "delegate");
+         this.permits = checkNotNull(permits, "permits");
+      }
+
+      @Override
+      public void execute(final Runnable command) {
+         checkNotNull(command, "command");
+         delegate.execute(new Runnable() {
+            @Override
+            public void run() {
+               try {
+                  permits.acquire();
+               } catch (InterruptedException e) {
+                  // shut down while waiting for a permit: cancel the task, so that callers of get() do not block
+                  if (command instanceof Future)
+                     Future.class.cast(command).cancel(false);
+                  Thread.currentThread().interrupt();
+                  return;
+               }
+               try {
+                  command.run();
+               } finally {
+                  permits.release();
+               }
+            }
+
+            @Override
+            public String toString() {
+               return command.toString();
+            }
+         });
+      }
+
+      @Override
+      public void shutdown() {
+         delegate.shutdown();
+      }
+
+      @Override
+      public List<Runnable> shutdownNow() {
+         return delegate.shutdownNow();
+      }
+
+      @Override
+      public boolean isShutdown() {
+         return delegate.isShutdown();
+      }
+
+      @Override
+      public boolean isTerminated() {
+         return delegate.isTerminated();
+      }
+
+      @Override
+      public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+         return delegate.awaitTermination(timeout, unit);
+      }
+   }
+}
@@ -51,6 +51,7 @@ import javax.inject.Singleton;
 import javax.ws.rs.HttpMethod;
 
 import org.jclouds.Constants;
+import org.jclouds.http.internal.HttpWire;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.MutableContentMetadata;
 import org.jclouds.io.Payload;
@@ -291,8 +292,14 @@ public class HttpUtils {
             || request.getPayload().getContentMetadata().getContentLength() != null, message);
    }
 
+   /**
+    * Logs the payload of {@code request} when the wire log is enabled and, for an {@link HttpWire}, the request is
+    * selected by its sampling.
+    */
    public static void wirePayloadIfEnabled(Wire wire, HttpMessage request) {
-      if (request.getPayload() != null && wire.enabled()) {
+      boolean enabled = wire instanceof HttpWire && request instanceof HttpRequest
+            ? HttpWire.class.cast(wire).enabled(HttpRequest.class.cast(request)) : wire.enabled();
+      if (request.getPayload() != null && enabled) {
          wire.output(request);
          checkRequestHasContentLengthOrChunkedEncoding(request,
                "After wiring, the request has neither chunked encoding nor content length: " + request);
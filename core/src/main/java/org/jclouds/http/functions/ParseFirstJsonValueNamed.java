@@ -17,6 +17,7 @@
 package org.jclouds.http.functions;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -66,7 +67,7 @@ public class ParseFirstJsonValueNamed<T> implements Function<HttpResponse, T> {
          return nothing();
       JsonReader reader = null;
       try {
-         reader = new JsonReader(new InputStreamReader(arg0.getPayload().getInput()));
+         reader = new JsonReader(new InputStreamReader(arg0.getPayload().getInput(), UTF_8));
          // in case keys are not in quotes
          reader.setLenient(true);
          AtomicReference<String> name = Atomics.newReference();
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.json.internal.GsonWrapper;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.base.Function;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Parses a json array from the body of an HttpResponse one element at a time, as the returned iterator is advanced,
+ * so that only the current element is held in memory, however long the array.
+ * <p>
+ * The array is either the whole document or, when names are given, the first value with one of those names, as
+ * with {@link ParseFirstJsonValueNamed}. The response stays open until the iterator is exhausted, fails, or is
+ * closed; callers that stop early should close it through {@link Closeable}.
+ */
+public class ParseJsonArrayElements<E> implements Function<HttpResponse, Iterator<E>> {
+
+   private final GsonWrapper json;
+   private final Type elementType;
+   private final ImmutableSet<String> nameChoices;
+
+   /**
+    * @param nameChoices
+    *           tried in order, first match wins; empty when the document is the array
+    */
+   public ParseJsonArrayElements(GsonWrapper json, Type elementType, String... nameChoices) {
+      this.json = checkNotNull(json, "json");
+      this.elementType = checkNotNull(elementType, "elementType");
+      this.nameChoices = ImmutableSet.copyOf(checkNotNull(nameChoices, "nameChoices"));
+   }
+
+   @Override
+   public Iterator<E> apply(HttpResponse response) {
+      if (response.getPayload() == null)
+         return Collections.emptyIterator();
+      JsonReader reader = null;
+      try {
+         reader = new JsonReader(new InputStreamReader(response.getPayload().openStream(), StandardCharsets.UTF_8));
+         // in case keys are not in quotes
+         reader.setLenient(true);
+         if (!nameChoices.isEmpty() && !advanceToValueNamed(reader)) {
+            Closeables2.closeQuietly(reader);
+            return Collections.emptyIterator();
+         }
+         if (reader.peek() == JsonToken.NULL) {
+            Closeables2.closeQuietly(reader);
+            return Collections.emptyIterator();
+         }
+         reader.beginArray();
+         @SuppressWarnings("unchecked")
+         TypeAdapter<E> adapter = (TypeAdapter<E>) json.delegate().getAdapter(TypeToken.get(elementType));
+         return new Elements<E>(reader, adapter);
+      } catch (IOException e) {
+         Closeables2.closeQuietly(reader);
+         throw new RuntimeException(String.format("error reading json array %s from http response %s", nameChoices,
+               response), e);
+      } catch (RuntimeException e) {
+         Closeables2.closeQuietly(reader);
+         throw e;
+      }
+   }
+
+   /**
+    * Lazily reads the elements of an array. Closing it releases the response.
+    */
+   public static class Elements<E> extends AbstractIterator<E> implements Closeable {
+      private final JsonReader reader;
+      private final TypeAdapter<E> adapter;
+
+      Elements(JsonReader reader, TypeAdapter<E> adapter) {
+         this.reader = reader;
+         this.adapter = adapter;
+      }
+
+      @Override
+      protected E computeNext() {
+         try {
+            if (reader.hasNext()) {
+               return adapter.read(reader);
+            }
+            reader.endArray();
+         } catch (IOException e) {
+            Closeables2.closeQuietly(reader);
+            throw new RuntimeException("error reading json array element", e);
+         } catch (RuntimeException e) {
+            Closeables2.closeQuietly(reader);
+            throw e;
+         }
+         Closeables2.closeQuietly(reader);
+         return endOfData();
+      }
+
+      @Override
+      public void close() throws IOException {
+         reader.close();
+      }
+   }
+
+   /**
+    * Walks the document depth first until the value of the first member named one of the choices.
+    */
+   private boolean advanceToValueNamed(JsonReader reader) throws IOException {
+      for (JsonToken token = reader.peek(); token != JsonToken.END_DOCUMENT; token = reader.peek()) {
+         switch (token) {
+         case NAME:
+            if (nameChoices.contains(reader.nextName()))
+               return true;
+            break;
+         case BEGIN_ARRAY:
+            reader.beginArray();
+            break;
+         case END_ARRAY:
+            reader.endArray();
+            break;
+         case BEGIN_OBJECT:
+            reader.beginObject();
+            break;
+         case END_OBJECT:
+            reader.endObject();
+            break;
+         default:
+            reader.skipValue();
+            break;
+         }
+      }
+      return false;
+   }
+}
@@ -55,8 +55,11 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
    private Logger logger = Logger.NULL;
 
    private final XMLReader parser;
+   private final ThreadLocalXMLReaders readers;
    private final HandlerWithResult<T> handler;
    private HttpRequest request;
+   private ThreadLocalHandlers handlers;
+   private Class<?> handlerType;
 
    public interface Factory {
       <T> ParseSax<T> create(HandlerWithResult<T> handler);
@@ -64,9 +67,20 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
 
    public ParseSax(XMLReader parser, HandlerWithResult<T> handler) {
       this.parser = checkNotNull(parser, "parser");
+      this.readers = null;
       this.handler = checkNotNull(handler, "handler");
    }
 
+   /**
+    * Parses with a reader borrowed from {@code readers} for the duration of each parse.
+    */
+   public ParseSax(ThreadLocalXMLReaders readers, HandlerWithResult<T> handler, Logger logger) {
+      this.parser = null;
+      this.readers = checkNotNull(readers, "readers");
+      this.handler = checkNotNull(handler, "handler");
+      this.logger = checkNotNull(logger, "logger");
+   }
+
    public T apply(HttpResponse from) {
       try {
          checkNotNull(from, "http response");
@@ -136,10 +150,34 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
    protected T doParse(InputSource from) throws IOException, SAXException {
       checkNotNull(from, "xml inputsource");
       from.setEncoding(StandardCharsets.UTF_8.name());
+      XMLReader parser = readers != null ? readers.acquire() : this.parser;
       parser.setContentHandler(getHandler());
       // This method should accept documents with a BOM (Byte-order mark)
       parser.parse(from);
-      return getHandler().getResult();
+      if (readers != null) {
+         readers.release(parser);
+      }
+      T result = getHandler().getResult();
+      if (handlers != null) {
+         // the handler may now parse another response, which must not see the request of this one
+         handler.request = null;
+         handlers.release(handlerType, handler);
+         handlers = null;
+      }
+      return result;
+   }
+
+   /**
+    * Hands the handler back to {@code handlers} once a document has been parsed, after which this instance must not
+    * parse again.
+    * 
+    * @param type
+    *           the class the handler was {@link ThreadLocalHandlers#acquire acquired} for
+    */
+   public ParseSax<T> releaseHandlerTo(ThreadLocalHandlers handlers, Class<?> type) {
+      this.handlers = checkNotNull(handlers, "handlers");
+      this.handlerType = checkNotNull(type, "type");
+      return this;
    }
 
    public T addDetailsAndPropagate(HttpResponse response, Exception e) {
@@ -203,6 +241,42 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
       }
    }
 
+   /**
+    * Receives the elements of a response, one at a time, as soon as each one has been parsed.
+    */
+   public interface ElementCallback<E> {
+      void onElement(E element);
+   }
+
+   /**
+    * Handler that can pass the elements it parses to an {@link ElementCallback} instead of collecting them into its
+    * result. As {@link ParseSax#apply} parses the payload while reading it, the callback sees each element while the
+    * rest of the response is still arriving, and memory use does not grow with the number of elements.
+    */
+   public interface StreamingHandler<E> {
+
+      /**
+       * @param callback
+       *           receives the parsed elements, which are then left out of the result, or {@code null} to collect
+       *           them into the result
+       */
+      void setElementCallback(@Nullable ElementCallback<? super E> callback);
+   }
+
+   /**
+    * Handler that can parse another document once it has completed one, so that a thread can keep using the same
+    * instance instead of creating one per response. See {@link ThreadLocalHandlers}.
+    */
+   public interface ReusableHandler {
+
+      /**
+       * Forgets everything left by the last parse, including any {@link ElementCallback}, so that the handler behaves
+       * like a new one. The result already returned by {@link HandlerWithResult#getResult()} belongs to the caller and
+       * must not be changed.
+       */
+      void reset();
+   }
+
    public abstract static class HandlerForGeneratedRequestWithResult<T> extends HandlerWithResult<T> {
 
       @Override
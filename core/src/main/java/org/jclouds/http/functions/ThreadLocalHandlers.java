@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import java.util.Map;
+
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.jclouds.http.functions.ParseSax.HandlerWithResult;
+import org.jclouds.http.functions.ParseSax.ReusableHandler;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Keeps an idle {@link ReusableHandler} per handler class and thread, so that parsing a response does not create a
+ * new handler each time.
+ * <p>
+ * A handler is taken with {@link #acquire(Class, Provider)} and handed back with
+ * {@link #release(Class, HandlerWithResult)} once its document is parsed. A thread that parses a nested document with
+ * the same handler class while its handler is in use gets a new handler. Handlers that are not
+ * {@link ReusableHandler reusable} are never kept.
+ */
+@Singleton
+public class ThreadLocalHandlers {
+   private final ThreadLocal<Map<Class<?>, HandlerWithResult<?>>> idle =
+         new ThreadLocal<Map<Class<?>, HandlerWithResult<?>>>() {
+            @Override
+            protected Map<Class<?>, HandlerWithResult<?>> initialValue() {
+               return Maps.newHashMap();
+            }
+         };
+
+   public HandlerWithResult<?> acquire(Class<?> type, Provider<? extends HandlerWithResult<?>> provider) {
+      HandlerWithResult<?> handler = idle.get().remove(type);
+      return handler != null ? handler : provider.get();
+   }
+
+   /**
+    * Resets {@code handler} and makes it available to the next parse on this thread. Only handlers whose last parse
+    * completed should be released.
+    */
+   public void release(Class<?> type, HandlerWithResult<?> handler) {
+      if (handler instanceof ReusableHandler) {
+         ReusableHandler.class.cast(handler).reset();
+         idle.get().put(type, handler);
+      }
+   }
+}
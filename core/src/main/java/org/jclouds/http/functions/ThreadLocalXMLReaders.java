@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.google.common.base.Throwables;
+
+/**
+ * Keeps an idle {@link XMLReader} per thread, so that parsing a response does not create a new parser each time.
+ * <p>
+ * A reader is taken with {@link #acquire()} and handed back with {@link #release(XMLReader)} once the document is
+ * parsed. A thread that parses a nested document while its reader is in use gets a new reader.
+ */
+@Singleton
+public class ThreadLocalXMLReaders {
+   private static final DefaultHandler NO_HANDLER = new DefaultHandler();
+
+   private final SAXParserFactory factory;
+   private final ThreadLocal<XMLReader> idle = new ThreadLocal<XMLReader>();
+
+   @Inject
+   public ThreadLocalXMLReaders(SAXParserFactory factory) {
+      this.factory = checkNotNull(factory, "factory");
+   }
+
+   public XMLReader acquire() {
+      XMLReader reader = idle.get();
+      if (reader != null) {
+         idle.remove();
+         return reader;
+      }
+      try {
+         return factory.newSAXParser().getXMLReader();
+      } catch (ParserConfigurationException e) {
+         throw Throwables.propagate(e);
+      } catch (SAXException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   /**
+    * Makes {@code reader} available to the next parse on this thread. Only readers whose last parse completed
+    * should be released.
+    */
+   public void release(XMLReader reader) {
+      // don't keep the last handler, and its result, reachable from the thread
+      reader.setContentHandler(NO_HANDLER);
+      idle.set(reader);
+   }
+}
@@ -18,16 +18,14 @@ package org.jclouds.http.functions.config;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.jclouds.http.functions.ParseSax;
 import org.jclouds.http.functions.ParseSax.HandlerWithResult;
-import org.xml.sax.XMLReader;
+import org.jclouds.http.functions.ThreadLocalXMLReaders;
+import org.jclouds.logging.Logger;
 
-import com.google.common.base.Throwables;
 import com.google.inject.AbstractModule;
-import com.google.inject.Injector;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
 
@@ -41,28 +39,22 @@ public class SaxParserModule extends AbstractModule {
    }
 
    static class Factory implements ParseSax.Factory {
-      private final SAXParserFactory factory;
-      private final Injector i;
+      private final ThreadLocalXMLReaders readers;
+      private Logger logger = Logger.NULL;
 
       @Inject
-      Factory(SAXParserFactory factory, Injector i) {
-         this.factory = factory;
-         this.i = i;
+      Factory(ThreadLocalXMLReaders readers) {
+         this.readers = readers;
       }
 
-      public <T> ParseSax<T> create(HandlerWithResult<T> handler) {
-         SAXParser saxParser;
-         try {
-            saxParser = factory.newSAXParser();
-            XMLReader parser = saxParser.getXMLReader();
-            // TODO: switch to @AssistedInject
-            ParseSax<T> returnVal = new ParseSax<T>(parser, handler);
-            i.injectMembers(returnVal);
-            return returnVal;
-         } catch (Exception e) {
-            throw Throwables.propagate(e);
-         }
+      // resolve the logger of ParseSax once, instead of injecting the members of every instance
+      @com.google.inject.Inject(optional = true)
+      void setLoggerFactory(Logger.LoggerFactory loggerFactory) {
+         this.logger = loggerFactory.getLogger(ParseSax.class.getName());
+      }
 
+      public <T> ParseSax<T> create(HandlerWithResult<T> handler) {
+         return new ParseSax<T>(readers, handler, logger);
       }
    }
 
@@ -58,6 +58,8 @@ public class RedirectionRetryHandler implements HttpRetryHandler {
 
    public boolean shouldRetryRequest(HttpCommand command, HttpResponse response) {
       closeClientButKeepContentStream(response);
+      if (response.getStatusCode() == 304) // not modified answers a conditional request; there is nowhere to go
+         return false;
       if (!command.isReplayable()) {
          logger.error("Cannot retry after redirect, command is not replayable: %s", command);
          return false;
@@ -21,7 +21,6 @@ import static com.google.common.base.Throwables.propagate;
 import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
 import static org.jclouds.http.HttpUtils.checkRequestHasContentLengthOrChunkedEncoding;
 import static org.jclouds.http.HttpUtils.releasePayload;
-import static org.jclouds.http.HttpUtils.wirePayloadIfEnabled;
 import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
 
 import java.io.IOException;
@@ -34,6 +33,7 @@ import javax.inject.Named;
 import org.jclouds.Constants;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpMessage;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpRequestFilter;
 import org.jclouds.http.HttpResponse;
@@ -44,9 +44,13 @@ import org.jclouds.http.handlers.DelegatingErrorHandler;
 import org.jclouds.http.handlers.DelegatingRetryHandler;
 import org.jclouds.io.ContentMetadataCodec;
 import org.jclouds.logging.Logger;
+import org.jclouds.metrics.MetricsRecorder;
+import org.jclouds.metrics.internal.NullMetricsRecorder;
+import org.jclouds.rest.config.InvocationConfig;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
+import com.google.inject.Inject;
 
 public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandExecutorService {
    protected final HttpUtils utils;
@@ -66,6 +70,22 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
 
    private final Set<String> idempotentMethods;
 
+   @VisibleForTesting
+   @Inject(optional = true)
+   HttpRequestLimiter limiter;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   HttpRequestHedger hedger;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   MetricsRecorder metrics = NullMetricsRecorder.INSTANCE;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   InvocationConfig config;
+
    protected BaseHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
          DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
          DelegatingErrorHandler errorHandler, HttpWire wire,
@@ -82,9 +102,11 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
    @Override
    public HttpResponse invoke(HttpCommand command) {
       HttpResponse response = null;
+      String commandName = HttpWire.commandName(config, command.getCurrentRequest());
       for (;;) {
          HttpRequest request = command.getCurrentRequest();
          Q nativeRequest = null;
+         HttpRequestLimiter.Permit permit = null;
          try {
             for (HttpRequestFilter filter : request.getFilters()) {
                request = filter.filter(request);
@@ -92,28 +114,46 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
             checkRequestHasContentLengthOrChunkedEncoding(request,
                   "After filtering, the request has neither chunked encoding nor content length: " + request);
             logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
-            wirePayloadIfEnabled(wire, request);
+            boolean wired = wire.enabled(request);
+            if (wired && request.getPayload() != null)
+               wire.output(request);
             utils.logRequest(headerLog, request, ">>");
+            if (limiter != null)
+               permit = limiter.acquire(request);
             nativeRequest = convert(request);
-            response = invoke(nativeRequest);
-
+            if (isHedged(request)) {
+               Q primary = nativeRequest;
+               nativeRequest = null; // the hedger cleans up the native requests it is handed
+               response = hedger.invoke(commandName, primary, attempt(request));
+            } else
+               response = invoke(nativeRequest);
+            if (permit != null)
+               permit.release(response);
+
+            metrics.recordResponse(commandName, response.getStatusCode());
+            metrics.recordPayload(commandName, contentLength(request), contentLength(response));
             logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
             utils.logResponse(headerLog, response, "<<");
-            if (response.getPayload() != null && wire.enabled())
+            if (response.getPayload() != null && wired)
                wire.input(response);
             nativeRequest = null; // response took ownership of streams
             int statusCode = response.getStatusCode();
             if (statusCode >= 300) {
-               if (shouldContinue(command, response))
+               if (shouldContinue(command, response)) {
+                  metrics.recordRetry(commandName);
                   continue;
-               else
+               } else {
                   break;
+               }
             } else {
                break;
             }
          } catch (Exception e) {
+            if (e instanceof InterruptedException)
+               Thread.currentThread().interrupt();
             IOException ioe = getFirstThrowableOfType(e, IOException.class);
             if (ioe != null && shouldContinue(command, ioe)) {
+               metrics.recordRetry(commandName);
                continue;
             }
             command.setException(new HttpResponseException(e.getMessage() + " connecting to "
@@ -121,6 +161,8 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
             break;
 
          } finally {
+            if (permit != null)
+               permit.release(null);
             cleanup(nativeRequest);
          }
       }
@@ -157,6 +199,40 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
       return isIdempotent(command) && ioRetryHandler.shouldRetryRequest(command, response);
    }
 
+   private static long contentLength(HttpMessage message) {
+      if (message.getPayload() == null)
+         return 0;
+      Long length = message.getPayload().getContentMetadata().getContentLength();
+      return length == null ? 0 : length;
+   }
+
+   /**
+    * Only idempotent requests without a payload are hedged, as the payload of the request could not be sent twice.
+    */
+   private boolean isHedged(HttpRequest request) {
+      return hedger != null && hedger.isEnabled() && request.getPayload() == null
+            && idempotentMethods.contains(request.getMethod());
+   }
+
+   private HttpRequestHedger.Attempt<Q> attempt(final HttpRequest request) {
+      return new HttpRequestHedger.Attempt<Q>() {
+         @Override
+         public Q convert() throws IOException, InterruptedException {
+            return BaseHttpCommandExecutorService.this.convert(request);
+         }
+
+         @Override
+         public HttpResponse invoke(Q nativeRequest) throws IOException, InterruptedException {
+            return BaseHttpCommandExecutorService.this.invoke(nativeRequest);
+         }
+
+         @Override
+         public void cleanup(Q nativeRequest) {
+            BaseHttpCommandExecutorService.this.cleanup(nativeRequest);
+         }
+      };
+   }
+
    private boolean isIdempotent(HttpCommand command) {
       String method = command.getCurrentRequest().getMethod();
       if (!idempotentMethods.contains(method)) {
@@ -0,0 +1,336 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static org.jclouds.Constants.PROPERTY_HEDGE_BUDGET;
+import static org.jclouds.Constants.PROPERTY_HEDGE_DELAY;
+import static org.jclouds.Constants.PROPERTY_HEDGE_REQUESTS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.http.HttpUtils.releasePayload;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.Inject;
+
+/**
+ * Hedges requests sent by {@link BaseHttpCommandExecutorService}: when no response arrived after the hedge delay, a
+ * duplicate request is sent and the first response wins. The other request is abandoned; its response payload is
+ * released and its native request cleaned up as soon as it completes.
+ * <p>
+ * The delay is either fixed ({@link org.jclouds.Constants#PROPERTY_HEDGE_DELAY}) or the observed 95th percentile
+ * latency of the command. The share of duplicated requests is capped by
+ * {@link org.jclouds.Constants#PROPERTY_HEDGE_BUDGET}.
+ * <p>
+ * Attempts run on the user executor. An attempt no thread has picked up yet when the caller needs its response is
+ * run on the calling thread, and the request is not hedged while its first attempt is still waiting for a thread.
+ */
+@Beta
+@Singleton
+public class HttpRequestHedger {
+
+   /**
+    * The steps of a request attempt, as implemented by the executor service.
+    */
+   public interface Attempt<Q> {
+      Q convert() throws IOException, InterruptedException;
+
+      HttpResponse invoke(Q nativeRequest) throws IOException, InterruptedException;
+
+      void cleanup(Q nativeRequest);
+   }
+
+   /** latencies kept per command to compute the hedge delay */
+   private static final int WINDOW = 128;
+   /** latencies needed before hedging on the observed percentile */
+   private static final int MIN_SAMPLES = 20;
+   /** hedges that can be saved up while requests are fast */
+   private static final double MAX_BUDGET = 10;
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   @Named(PROPERTY_HEDGE_REQUESTS)
+   boolean enabled = false;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   @Named(PROPERTY_HEDGE_DELAY)
+   long delayMillis = 0;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   @Named(PROPERTY_HEDGE_BUDGET)
+   double budgetPercent = 5;
+
+   private final LoadingCache<String, LatencyWindow> latencies = CacheBuilder.newBuilder().build(
+         new CacheLoader<String, LatencyWindow>() {
+            @Override
+            public LatencyWindow load(String command) {
+               return new LatencyWindow();
+            }
+         });
+
+   private final ListeningExecutorService userExecutor;
+   private double budget = 1;
+
+   @Inject
+   HttpRequestHedger(@Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      this.userExecutor = userExecutor;
+   }
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   /**
+    * Sends {@code primary}, hedging it with a new attempt if it did not complete within the hedge delay of
+    * {@code command}.
+    * <p>
+    * The hedger owns {@code primary} and the native requests of its hedges: all of them but the one whose response is
+    * returned are cleaned up, so callers must not clean up {@code primary} themselves.
+    */
+   public <Q> HttpResponse invoke(String command, Q primary, Attempt<Q> attempt) throws IOException,
+         InterruptedException {
+      LatencyWindow window = latencies.getUnchecked(command);
+      long delayNanos = delayMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(delayMillis) : window.percentile(0.95);
+      deposit();
+      if (delayNanos <= 0) {
+         long start = System.nanoTime();
+         HttpResponse response = null;
+         try {
+            response = attempt.invoke(primary);
+         } finally {
+            if (response == null)
+               attempt.cleanup(primary);
+         }
+         window.record(System.nanoTime() - start);
+         return response;
+      }
+
+      Race<Q> race = new Race<Q>(userExecutor, attempt, window);
+      try {
+         race.start(primary);
+         Race<Q>.Entry first = race.done.poll(delayNanos, TimeUnit.NANOSECONDS);
+         if (first == null && race.primaryStarted() && withdraw()) {
+            logger.debug("hedging %s after %dms", command, TimeUnit.NANOSECONDS.toMillis(delayNanos));
+            try {
+               race.start(attempt.convert());
+            } catch (IOException e) {
+               logger.debug("could not hedge %s: %s", command, e.getMessage());
+            }
+         }
+         return race.winner(first);
+      } finally {
+         race.abandonOthers();
+      }
+   }
+
+   private synchronized void deposit() {
+      budget = Math.min(MAX_BUDGET, budget + budgetPercent / 100);
+   }
+
+   private synchronized boolean withdraw() {
+      if (budget < 1)
+         return false;
+      budget -= 1;
+      return true;
+   }
+
+   @VisibleForTesting
+   long percentile(String command, double percentile) {
+      return latencies.getUnchecked(command).percentile(percentile);
+   }
+
+   @VisibleForTesting
+   void record(String command, long latencyNanos) {
+      latencies.getUnchecked(command).record(latencyNanos);
+   }
+
+   /**
+    * The attempts of one request. Each attempt is owned by whoever finishes last between the attempt itself and the
+    * caller giving up on it, so that abandoned responses are released exactly once.
+    */
+   private static final class Race<Q> {
+      private static final int QUEUED = 0;
+      private static final int RUNNING = 1;
+      private static final int DONE = 2;
+      private static final int ABANDONED = 3;
+
+      private final ListeningExecutorService executor;
+      private final Attempt<Q> attempt;
+      private final LatencyWindow window;
+      private final BlockingQueue<Entry> done = new LinkedBlockingQueue<Entry>();
+      private final List<Entry> entries = Lists.newArrayListWithCapacity(2);
+
+      private Race(ListeningExecutorService executor, Attempt<Q> attempt, LatencyWindow window) {
+         this.executor = executor;
+         this.attempt = attempt;
+         this.window = window;
+      }
+
+      private final class Entry implements Runnable {
+         private final Q nativeRequest;
+         private final AtomicInteger state = new AtomicInteger(QUEUED);
+         private Future<?> future;
+         private HttpResponse response;
+         private Throwable failure;
+
+         private Entry(Q nativeRequest) {
+            this.nativeRequest = nativeRequest;
+         }
+
+         @Override
+         public void run() {
+            runIfQueued();
+         }
+
+         /**
+          * Runs the attempt on the current thread unless it was already started or abandoned.
+          */
+         private boolean runIfQueued() {
+            if (!state.compareAndSet(QUEUED, RUNNING))
+               return false;
+            long start = System.nanoTime();
+            try {
+               response = attempt.invoke(nativeRequest);
+               window.record(System.nanoTime() - start);
+            } catch (Throwable t) {
+               failure = t;
+            } finally {
+               if (state.compareAndSet(RUNNING, DONE))
+                  done.add(this);
+               else
+                  discard(response);
+            }
+            return true;
+         }
+
+         private void abandon() {
+            if (state.compareAndSet(QUEUED, ABANDONED)) {
+               // the future is not set when the executor rejected the attempt
+               if (future != null)
+                  future.cancel(false);
+               attempt.cleanup(nativeRequest);
+            } else if (state.compareAndSet(RUNNING, ABANDONED)) {
+               future.cancel(true);
+            } else if (state.get() == DONE) {
+               discard(response);
+            }
+         }
+
+         private void discard(HttpResponse response) {
+            if (response != null)
+               releasePayload(response);
+            attempt.cleanup(nativeRequest);
+         }
+      }
+
+      private void start(Q nativeRequest) {
+         Entry entry = new Entry(nativeRequest);
+         entries.add(entry);
+         entry.future = executor.submit(entry);
+      }
+
+      private boolean primaryStarted() {
+         return entries.get(0).state.get() != QUEUED;
+      }
+
+      /**
+       * Returns the first successful response, or rethrows the failure of the primary attempt.
+       */
+      private HttpResponse winner(Entry first) throws IOException, InterruptedException {
+         Throwable failure = null;
+         for (int pending = entries.size();;) {
+            if (first == null) {
+               // callers usually run on the user executor: when no thread is free to pick up an attempt, the
+               // caller runs it instead of waiting for a thread it may itself be holding
+               for (Entry entry : entries) {
+                  if (entry.runIfQueued())
+                     break;
+               }
+               first = done.take();
+            }
+            if (first.failure == null) {
+               // the winner is handed to the caller instead of being abandoned
+               entries.remove(first);
+               return first.response;
+            }
+            if (failure == null || first == entries.get(0))
+               failure = first.failure;
+            if (--pending == 0)
+               break;
+            first = null;
+         }
+         Throwables.propagateIfInstanceOf(failure, IOException.class);
+         Throwables.propagateIfInstanceOf(failure, InterruptedException.class);
+         throw Throwables.propagate(failure);
+      }
+
+      private void abandonOthers() {
+         for (Entry entry : entries)
+            entry.abandon();
+      }
+   }
+
+   /**
+    * Ring buffer of the most recent latencies of a command.
+    */
+   private static final class LatencyWindow {
+      private final long[] samples = new long[WINDOW];
+      private int count;
+      private int next;
+
+      synchronized void record(long latencyNanos) {
+         samples[next] = latencyNanos;
+         next = (next + 1) % WINDOW;
+         if (count < WINDOW)
+            count++;
+      }
+
+      synchronized long percentile(double percentile) {
+         if (count < MIN_SAMPLES)
+            return -1;
+         long[] sorted = Arrays.copyOf(samples, count);
+         Arrays.sort(sorted);
+         return sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+      }
+   }
+}
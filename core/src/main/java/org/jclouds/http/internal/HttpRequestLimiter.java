@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.jclouds.Constants.PROPERTY_MAX_RATE_LIMIT_WAIT;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT_BURST;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT_MAX_CONCURRENCY;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT_PERMITS_PER_SECOND;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT_SCOPE;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.logging.Logger;
+import org.jclouds.rest.config.InvocationConfig;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.inject.Inject;
+
+/**
+ * Client-side throttling applied by {@link BaseHttpCommandExecutorService} before each request is dispatched, so
+ * that a context stays under the provider quotas instead of reacting to throttle responses only.
+ * <p>
+ * Two independent limits can be configured, each shared by all requests to the same endpoint or of the same command
+ * (see {@link org.jclouds.Constants#PROPERTY_RATE_LIMIT_SCOPE}):
+ * <ul>
+ * <li>a token bucket of {@link org.jclouds.Constants#PROPERTY_RATE_LIMIT_PERMITS_PER_SECOND} requests per second;</li>
+ * <li>an AIMD concurrency limit capped by {@link org.jclouds.Constants#PROPERTY_RATE_LIMIT_MAX_CONCURRENCY}. The
+ * limit is halved on every 429 or 503 response, and grows back additively while the observed latency stays within
+ * twice the best latency seen.</li>
+ * </ul>
+ * A request never waits longer than {@link org.jclouds.Constants#PROPERTY_MAX_RATE_LIMIT_WAIT} for either limit; it
+ * is sent anyway once that time has elapsed, leaving the retry handlers to deal with any throttling.
+ */
+@Beta
+@Singleton
+public class HttpRequestLimiter {
+
+   /**
+    * Handed out for each dispatched request; must be released once the response status is known or the request
+    * failed.
+    */
+   public interface Permit {
+      /**
+       * @param response
+       *           the response, or null if the request failed without one
+       */
+      void release(HttpResponse response);
+   }
+
+   private static final Permit NO_LIMIT = new Permit() {
+      @Override
+      public void release(HttpResponse response) {
+      }
+   };
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   @Named(PROPERTY_RATE_LIMIT_PERMITS_PER_SECOND)
+   double permitsPerSecond = 0;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   @Named(PROPERTY_RATE_LIMIT_BURST)
+   double burst = 0;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   @Named(PROPERTY_RATE_LIMIT_MAX_CONCURRENCY)
+   int maxConcurrency = 0;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   @Named(PROPERTY_RATE_LIMIT_SCOPE)
+   String scope = "endpoint";
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   InvocationConfig config;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   @Named(PROPERTY_MAX_RATE_LIMIT_WAIT)
+   int maxRateLimitWait = 2 * 60 * 1000;
+
+   private final Ticker ticker;
+
+   private final LoadingCache<String, Limits> limits = CacheBuilder.newBuilder().build(
+         new CacheLoader<String, Limits>() {
+            @Override
+            public Limits load(String key) {
+               return new Limits(permitsPerSecond > 0 ? new TokenBucket(permitsPerSecond,
+                     burst > 0 ? burst : Math.max(1, permitsPerSecond), ticker) : null,
+                     maxConcurrency > 0 ? new AdaptiveConcurrencyLimit(maxConcurrency) : null);
+            }
+         });
+
+   @Inject
+   HttpRequestLimiter() {
+      this(Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   HttpRequestLimiter(Ticker ticker) {
+      this.ticker = ticker;
+   }
+
+   public boolean isEnabled() {
+      return permitsPerSecond > 0 || maxConcurrency > 0;
+   }
+
+   /**
+    * Blocks until the request may be sent, or until the maximum rate limit wait elapsed.
+    */
+   public Permit acquire(HttpRequest request) throws InterruptedException {
+      if (!isEnabled())
+         return NO_LIMIT;
+      String key = key(request);
+      final Limits limits = this.limits.getUnchecked(key);
+      long deadline = ticker.read() + TimeUnit.MILLISECONDS.toNanos(maxRateLimitWait);
+      if (limits.bucket != null) {
+         long maxWaitNanos = deadline - ticker.read();
+         long waitNanos = limits.bucket.reserve(maxWaitNanos);
+         if (waitNanos < 0) {
+            // no token is taken, so that overload does not build up a debt every later request waits for
+            logger.debug("sending request to %s over the rate limit after %dms", key,
+                  TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+            TimeUnit.NANOSECONDS.sleep(maxWaitNanos);
+         } else if (waitNanos > 0) {
+            logger.trace("delaying request to %s by %dms", key, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+            try {
+               TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+               limits.bucket.cancel();
+               Thread.currentThread().interrupt();
+               throw e;
+            }
+         }
+      }
+      if (limits.concurrency == null)
+         return NO_LIMIT;
+      final boolean acquired = limits.concurrency.acquire(deadline - ticker.read());
+      if (!acquired)
+         logger.debug("sending request to %s over the concurrency limit of %s", key, limits.concurrency.limit());
+      final long start = ticker.read();
+      return new Permit() {
+         private boolean released;
+
+         @Override
+         public synchronized void release(HttpResponse response) {
+            if (released)
+               return;
+            released = true;
+            boolean throttled = response != null
+                  && (response.getStatusCode() == 429 || response.getStatusCode() == 503);
+            limits.concurrency.release(acquired, throttled, response != null ? ticker.read() - start : -1);
+         }
+      };
+   }
+
+   @VisibleForTesting
+   String key(HttpRequest request) {
+      if ("command".equals(scope))
+         return HttpWire.commandName(config, request);
+      URI endpoint = request.getEndpoint();
+      return endpoint.getHost() + ":" + endpoint.getPort();
+   }
+
+   @VisibleForTesting
+   double concurrencyLimit(String key) {
+      return limits.getUnchecked(key).concurrency.limit();
+   }
+
+   private static final class Limits {
+      private final TokenBucket bucket;
+      private final AdaptiveConcurrencyLimit concurrency;
+
+      private Limits(TokenBucket bucket, AdaptiveConcurrencyLimit concurrency) {
+         this.bucket = bucket;
+         this.concurrency = concurrency;
+      }
+   }
+
+   /**
+    * Token bucket handing out reservations: a request takes a token immediately and waits until the bucket would
+    * have refilled it, so that concurrent callers are spaced out instead of waking up together.
+    */
+   @VisibleForTesting
+   static final class TokenBucket {
+      private final double nanosPerPermit;
+      private final double capacity;
+      private final Ticker ticker;
+      private double tokens;
+      private long lastRefill;
+
+      TokenBucket(double permitsPerSecond, double capacity, Ticker ticker) {
+         checkArgument(permitsPerSecond > 0, "permitsPerSecond must be positive");
+         this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+         this.capacity = capacity;
+         this.ticker = ticker;
+         this.tokens = capacity;
+         this.lastRefill = ticker.read();
+      }
+
+      /**
+       * @return how long the caller must wait, in nanoseconds, before using the reserved token, or -1 if no token
+       *         would be available within {@code maxWaitNanos}, in which case none is taken
+       */
+      synchronized long reserve(long maxWaitNanos) {
+         long now = ticker.read();
+         tokens = Math.min(capacity, tokens + (now - lastRefill) / nanosPerPermit);
+         lastRefill = now;
+         long waitNanos = tokens >= 1 ? 0 : (long) ((1 - tokens) * nanosPerPermit);
+         if (waitNanos > maxWaitNanos)
+            return -1;
+         tokens -= 1;
+         return waitNanos;
+      }
+
+      /**
+       * Gives back a token reserved by a caller which will not send its request.
+       */
+      synchronized void cancel() {
+         tokens = Math.min(capacity, tokens + 1);
+      }
+   }
+
+   /**
+    * Additive increase, multiplicative decrease limit of in flight requests.
+    */
+   @VisibleForTesting
+   static final class AdaptiveConcurrencyLimit {
+      private static final double LATENCY_TOLERANCE = 2.0;
+
+      private final int max;
+      private double limit;
+      private int inFlight;
+      private long minLatency = Long.MAX_VALUE;
+
+      AdaptiveConcurrencyLimit(int max) {
+         this.max = max;
+         this.limit = max;
+      }
+
+      synchronized double limit() {
+         return limit;
+      }
+
+      /**
+       * @return false if the request goes out over the limit because {@code timeoutNanos} elapsed
+       */
+      synchronized boolean acquire(long timeoutNanos) throws InterruptedException {
+         long deadline = System.nanoTime() + timeoutNanos;
+         while (inFlight >= (int) limit) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+               return false;
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+         }
+         inFlight++;
+         return true;
+      }
+
+      synchronized void release(boolean acquired, boolean throttled, long latencyNanos) {
+         if (acquired)
+            inFlight--;
+         if (throttled) {
+            limit = Math.max(1, limit / 2);
+         } else if (latencyNanos >= 0) {
+            minLatency = Math.min(minLatency, latencyNanos);
+            if (latencyNanos <= LATENCY_TOLERANCE * minLatency)
+               limit = Math.min(max, limit + 1 / limit);
+         }
+         notifyAll();
+      }
+   }
+}
@@ -19,11 +19,16 @@ package org.jclouds.http.internal;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
 import org.jclouds.Constants;
+import org.jclouds.http.HttpRequest;
 import org.jclouds.logging.Logger;
 import org.jclouds.logging.internal.Wire;
+import org.jclouds.rest.config.InvocationConfig;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
 
 public class HttpWire extends Wire {
 
@@ -36,6 +41,27 @@ public class HttpWire extends Wire {
    @Named(Constants.PROPERTY_LOGGER_WIRE_LOG_SENSITIVE_INFO)
    boolean logSensitiveInformation = false;
 
+   @VisibleForTesting
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_LOGGER_WIRE_MAX_BYTES)
+   long maxBytes = -1;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_LOGGER_WIRE_SAMPLE_RATE)
+   double sampleRate = 1;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_LOGGER_WIRE_SAMPLE_COMMANDS)
+   String sampleCommands = "";
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   InvocationConfig config;
+
+   private volatile Pattern sampleCommandsPattern;
+
    public Logger getWireLog() {
       return wireLog;
    }
@@ -44,4 +70,34 @@ public class HttpWire extends Wire {
    protected boolean isLogSensitiveInformation() {
       return logSensitiveInformation;
    }
+
+   @Override
+   protected long getMaxBytes() {
+      return maxBytes;
+   }
+
+   /**
+    * @return true if the wire log is enabled and {@code request} is selected by the configured sampling
+    */
+   public boolean enabled(HttpRequest request) {
+      if (!enabled())
+         return false;
+      if (!sampleCommands.isEmpty()) {
+         if (sampleCommandsPattern == null)
+            sampleCommandsPattern = Pattern.compile(sampleCommands);
+         if (!sampleCommandsPattern.matcher(commandName(config, request)).matches())
+            return false;
+      }
+      return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+   }
+
+   /**
+    * @return the {@link InvocationConfig#getCommandName command name} of the api call that generated {@code request},
+    *         or its http method if it was not generated from an api or no {@code config} is bound
+    */
+   static String commandName(InvocationConfig config, HttpRequest request) {
+      if (config == null || !(request instanceof GeneratedHttpRequest))
+         return request.getMethod();
+      return config.getCommandName(GeneratedHttpRequest.class.cast(request).getInvocation());
+   }
 }
@@ -44,12 +44,14 @@ import org.jclouds.location.suppliers.ProviderURISupplier;
 import org.jclouds.location.suppliers.RegionIdToURISupplier;
 import org.jclouds.location.suppliers.RegionIdToZoneIdsSupplier;
 import org.jclouds.location.suppliers.RegionIdsSupplier;
+import org.jclouds.location.suppliers.WarmStartLocationsSupplier;
 import org.jclouds.location.suppliers.ZoneIdToURISupplier;
 import org.jclouds.location.suppliers.ZoneIdsSupplier;
 import org.jclouds.reflect.InvocationSuccess;
 import org.jclouds.rest.AuthorizationException;
 import org.jclouds.rest.functions.ImplicitOptionalConverter;
 import org.jclouds.rest.suppliers.MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier;
+import org.jclouds.suppliers.SnapshotStore;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
@@ -58,6 +60,7 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.Sets;
 import com.google.inject.AbstractModule;
+import com.google.inject.Injector;
 import com.google.inject.Provides;
 import com.google.inject.TypeLiteral;
 
@@ -105,8 +108,13 @@ public class LocationModule extends AbstractModule {
    @Memoized
    protected final Supplier<Set<? extends Location>> memoizedLocationsSupplier(
             AtomicReference<AuthorizationException> authException, @Named(PROPERTY_SESSION_INTERVAL) long seconds,
-            LocationsSupplier uncached) {
-      return MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.create(authException, uncached, seconds,
+            LocationsSupplier uncached, SnapshotStore snapshots, Injector injector) {
+      Supplier<Set<? extends Location>> locations = uncached;
+      if (snapshots.isEnabled()) {
+         locations = new WarmStartLocationsSupplier(snapshots, uncached);
+         injector.injectMembers(locations);
+      }
+      return MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.create(authException, locations, seconds,
                TimeUnit.SECONDS);
    }
 
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.location.suppliers;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.jclouds.suppliers.SnapshotStore;
+import org.jclouds.suppliers.WarmStartSupplier;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Serves the locations of the previous run from the {@link SnapshotStore} until the live listing is available.
+ * <p>
+ * Only string-valued location metadata is persisted.
+ */
+public class WarmStartLocationsSupplier extends WarmStartSupplier<Location, WarmStartLocationsSupplier.LocationRecord> {
+
+   public WarmStartLocationsSupplier(SnapshotStore store, Supplier<Set<? extends Location>> delegate) {
+      super(store, "locations", LocationRecord.class, delegate);
+   }
+
+   @Override
+   protected LocationRecord toRecord(Location in) {
+      return LocationRecord.fromLocation(in);
+   }
+
+   @Override
+   protected Location fromRecord(LocationRecord in) {
+      return in.toLocation();
+   }
+
+   public static final class LocationRecord {
+      private LocationScope scope;
+      private String id;
+      private String description;
+      private LocationRecord parent;
+      private Set<String> iso3166Codes;
+      private Map<String, String> metadata;
+
+      public static LocationRecord fromLocation(Location in) {
+         if (in == null)
+            return null;
+         LocationRecord record = new LocationRecord();
+         record.scope = in.getScope();
+         record.id = in.getId();
+         record.description = in.getDescription();
+         record.parent = fromLocation(in.getParent());
+         record.iso3166Codes = ImmutableSet.copyOf(in.getIso3166Codes());
+         ImmutableMap.Builder<String, String> metadata = ImmutableMap.builder();
+         for (Map.Entry<String, Object> entry : in.getMetadata().entrySet()) {
+            if (entry.getValue() instanceof String)
+               metadata.put(entry.getKey(), (String) entry.getValue());
+         }
+         record.metadata = metadata.build();
+         return record;
+      }
+
+      public Location toLocation() {
+         LocationBuilder builder = new LocationBuilder().scope(scope).id(id).description(description);
+         if (parent != null)
+            builder.parent(parent.toLocation());
+         if (iso3166Codes != null)
+            builder.iso3166Codes(iso3166Codes);
+         if (metadata != null)
+            builder.metadata(ImmutableMap.<String, Object> copyOf(metadata));
+         return builder.build();
+      }
+   }
+}
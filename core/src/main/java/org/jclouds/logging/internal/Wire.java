@@ -16,8 +16,6 @@
  */
 package org.jclouds.logging.internal;
 
-import com.google.common.io.ByteStreams;
-import com.google.common.io.FileBackedOutputStream;
 import org.jclouds.Constants;
 import org.jclouds.io.MutableContentMetadata;
 import org.jclouds.io.Payload;
@@ -34,11 +32,15 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.jclouds.io.Payloads.newPayload;
 import static org.jclouds.util.Closeables2.closeQuietly;
 
 /**
  * Logs data to the wire LOG, similar to {@code org.apache.HttpWire.impl.conn.Wire}
+ * <p/>
+ * Streams are logged as the caller reads them, rather than being buffered first, and at most
+ * {@link #getMaxBytes()} bytes of each message are logged.
  */
 public abstract class Wire {
 
@@ -51,11 +53,39 @@ public abstract class Wire {
       return false;
    }
 
-   private void wire(String header, InputStream instream) {
-      StringBuilder buffer = new StringBuilder();
-      int ch;
-      try {
-         while ((ch = instream.read()) != -1) {
+   /**
+    * @return maximum number of bytes logged per message, or a negative number for no limit
+    */
+   protected long getMaxBytes() {
+      return -1;
+   }
+
+   /**
+    * Formats bytes into wire log lines, emitting a line each time a newline is seen.
+    */
+   private final class LineFormatter {
+      private final String header;
+      private final long maxBytes;
+      private final StringBuilder buffer = new StringBuilder();
+      private long logged;
+      private boolean truncated;
+
+      private LineFormatter(String header) {
+         this.header = header;
+         this.maxBytes = getMaxBytes();
+      }
+
+      void append(byte[] bytes, int off, int len) {
+         if (truncated)
+            return;
+         int end = off + len;
+         if (maxBytes >= 0 && logged + len > maxBytes) {
+            end = off + (int) (maxBytes - logged);
+            truncated = true;
+         }
+         logged += end - off;
+         for (int i = off; i < end; i++) {
+            int ch = bytes[i] & 0xff;
             if (ch == 13) {
                buffer.append("[\\r]");
             } else if (ch == 10) {
@@ -72,12 +102,93 @@ public abstract class Wire {
                buffer.append((char) ch);
             }
          }
+         if (truncated) {
+            flush();
+            getWireLog().debug(header + "... truncated after " + maxBytes + " bytes");
+         }
+      }
+
+      void flush() {
          if (buffer.length() > 0) {
             buffer.append('\"');
             buffer.insert(0, '\"');
             buffer.insert(0, header);
             getWireLog().debug(buffer.toString());
+            buffer.setLength(0);
+         }
+      }
+   }
+
+   /**
+    * Logs bytes as they are read through it; the last partial line is logged at end of stream or on close.
+    */
+   private final class WireInputStream extends FilterInputStream {
+      private final LineFormatter formatter;
+      private boolean flushed;
+
+      private WireInputStream(String header, InputStream in) {
+         super(in);
+         this.formatter = new LineFormatter(header);
+      }
+
+      @Override
+      public int read() throws IOException {
+         int ch = super.read();
+         if (ch == -1)
+            flush();
+         else
+            formatter.append(new byte[] { (byte) ch }, 0, 1);
+         return ch;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         int read = super.read(b, off, len);
+         if (read == -1)
+            flush();
+         else
+            formatter.append(b, off, read);
+         return read;
+      }
+
+      @Override
+      public long skip(long n) throws IOException {
+         // skipped bytes still need to appear in the log
+         byte[] skipped = new byte[(int) Math.min(n, 8192)];
+         int read = read(skipped, 0, skipped.length);
+         return read == -1 ? 0 : read;
+      }
+
+      @Override
+      public boolean markSupported() {
+         return false;
+      }
+
+      @Override
+      public void close() throws IOException {
+         try {
+            flush();
+         } finally {
+            super.close();
+         }
+      }
+
+      private void flush() {
+         if (!flushed) {
+            flushed = true;
+            formatter.flush();
          }
+      }
+   }
+
+   private void wire(String header, InputStream instream) {
+      LineFormatter formatter = new LineFormatter(header);
+      byte[] buffer = new byte[8192];
+      try {
+         for (int read = instream.read(buffer); read != -1 && !formatter.truncated; read = instream.read(buffer)) {
+            formatter.append(buffer, 0, read);
+         }
+         formatter.flush();
       } catch (IOException e) {
          logger.error(e, "Error tapping line");
       }
@@ -87,33 +198,11 @@ public abstract class Wire {
       return getWireLog().isDebugEnabled();
    }
 
+   /**
+    * @return a stream which logs the contents of {@code instream} as they are read
+    */
    public InputStream copy(final String header, InputStream instream) {
-      int limit = 256 * 1024;
-      final FileBackedOutputStream out = new FileBackedOutputStream(limit);
-      try {
-         long bytesRead = ByteStreams.copy(instream, out);
-         if (bytesRead >= limit)
-            logger.debug("over limit %d/%d: wrote temp file", bytesRead, limit);
-         InputStream is = out.asByteSource().openStream();
-         try {
-            wire(header, is);
-         } finally {
-            is.close();
-         }
-         // we must call FileBackedOutputStream.reset to remove temporary file
-         return new FilterInputStream(out.asByteSource().openStream()) {
-            @Override
-            public void close() throws IOException {
-               super.close();
-               out.reset();
-            }
-         };
-      } catch (IOException e) {
-         throw new RuntimeException("Error tapping line", e);
-      } finally {
-         closeQuietly(out);
-         closeQuietly(instream);
-      }
+      return new WireInputStream(header, checkNotNull(instream, "instream"));
    }
 
    public InputStream input(InputStream instream) {
@@ -124,7 +213,15 @@ public abstract class Wire {
       Payload oldContent = request.getPayload();
       Payload wiredPayload;
       if (!oldContent.isSensitive() || isLogSensitiveInformation()) {
-         wiredPayload = newPayload(input(oldContent.getInput()));
+         Object raw = oldContent.getRawContent();
+         if (raw instanceof byte[] || raw instanceof String) {
+            // already in memory, so log it up front
+            byte[] bytes = raw instanceof String ? ((String) raw).getBytes(UTF_8) : (byte[]) raw;
+            wire("<< ", new ByteArrayInputStream(bytes));
+            wiredPayload = newPayload(raw);
+         } else {
+            wiredPayload = newPayload(input(oldContent.getInput()));
+         }
       } else {
          wiredPayload = newPayload(oldContent.getInput());
       }
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Measurements of a single command, accumulated by {@link InMemoryMetricsRecorder}.
+ */
+@Beta
+public final class CommandMetrics {
+
+   private final String commandName;
+   private final LatencyHistogram latency = new LatencyHistogram();
+   private final AtomicLong failures = new AtomicLong();
+   private final AtomicLong retries = new AtomicLong();
+   private final AtomicLong fallbacks = new AtomicLong();
+   private final AtomicLong bytesOut = new AtomicLong();
+   private final AtomicLong bytesIn = new AtomicLong();
+   // indexed by the first digit of the status code
+   private final AtomicLongArray statusClasses = new AtomicLongArray(6);
+
+   CommandMetrics(String commandName) {
+      this.commandName = commandName;
+   }
+
+   public String getCommandName() {
+      return commandName;
+   }
+
+   /**
+    * latency of complete invocations, including retries and parsing
+    */
+   public LatencyHistogram getLatency() {
+      return latency;
+   }
+
+   public long getFailures() {
+      return failures.get();
+   }
+
+   public long getRetries() {
+      return retries.get();
+   }
+
+   public long getFallbacks() {
+      return fallbacks.get();
+   }
+
+   public long getBytesOut() {
+      return bytesOut.get();
+   }
+
+   public long getBytesIn() {
+      return bytesIn.get();
+   }
+
+   /**
+    * @param statusClass
+    *           1 to 5, for {@code 1xx} to {@code 5xx} responses
+    */
+   public long getResponses(int statusClass) {
+      return statusClasses.get(statusClass);
+   }
+
+   void recordInvocation(long elapsedNanos, boolean failed) {
+      latency.record(elapsedNanos, TimeUnit.NANOSECONDS);
+      if (failed)
+         failures.incrementAndGet();
+   }
+
+   void recordResponse(int statusCode) {
+      int statusClass = statusCode / 100;
+      if (statusClass >= 1 && statusClass <= 5)
+         statusClasses.incrementAndGet(statusClass);
+   }
+
+   void recordRetry() {
+      retries.incrementAndGet();
+   }
+
+   void recordFallback() {
+      fallbacks.incrementAndGet();
+   }
+
+   void recordPayload(long out, long in) {
+      bytesOut.addAndGet(out);
+      bytesIn.addAndGet(in);
+   }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.metrics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Singleton;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Supplier;
+
+/**
+ * Accumulates measurements in memory, per command name, for the lifetime of the context. Bind it to
+ * {@link MetricsRecorder} to read them programmatically, or use
+ * {@link org.jclouds.metrics.config.JmxMetricsModule} to export them.
+ */
+@Beta
+@Singleton
+public class InMemoryMetricsRecorder implements MetricsRecorder {
+
+   private final ConcurrentMap<String, CommandMetrics> commands = new ConcurrentHashMap<String, CommandMetrics>();
+   private final ConcurrentMap<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<String, Supplier<? extends Number>>();
+
+   /**
+    * @return a live view of the measurements of each command seen so far
+    */
+   public Map<String, CommandMetrics> getCommands() {
+      return Collections.unmodifiableMap(commands);
+   }
+
+   public Map<String, Supplier<? extends Number>> getGauges() {
+      return Collections.unmodifiableMap(gauges);
+   }
+
+   @Override
+   public void recordInvocation(String commandName, long elapsedNanos, boolean failed) {
+      metrics(commandName).recordInvocation(elapsedNanos, failed);
+   }
+
+   @Override
+   public void recordResponse(String commandName, int statusCode) {
+      metrics(commandName).recordResponse(statusCode);
+   }
+
+   @Override
+   public void recordRetry(String commandName) {
+      metrics(commandName).recordRetry();
+   }
+
+   @Override
+   public void recordFallback(String commandName) {
+      metrics(commandName).recordFallback();
+   }
+
+   @Override
+   public void recordPayload(String commandName, long bytesOut, long bytesIn) {
+      metrics(commandName).recordPayload(bytesOut, bytesIn);
+   }
+
+   @Override
+   public void registerGauge(String name, Supplier<? extends Number> gauge) {
+      if (gauges.putIfAbsent(checkNotNull(name, "name"), checkNotNull(gauge, "gauge")) == null)
+         onNewGauge(name, gauge);
+   }
+
+   /**
+    * Called once for each command name, when it is first recorded.
+    */
+   protected void onNewCommand(CommandMetrics metrics) {
+   }
+
+   /**
+    * Called once for each gauge name, when it is first registered.
+    */
+   protected void onNewGauge(String name, Supplier<? extends Number> gauge) {
+   }
+
+   private CommandMetrics metrics(String commandName) {
+      CommandMetrics metrics = commands.get(commandName);
+      if (metrics == null) {
+         CommandMetrics created = new CommandMetrics(commandName);
+         metrics = commands.putIfAbsent(commandName, created);
+         if (metrics == null) {
+            metrics = created;
+            onNewCommand(created);
+         }
+      }
+      return metrics;
+   }
+}
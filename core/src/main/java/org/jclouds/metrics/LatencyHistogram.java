@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * A lock-free histogram of latencies in microseconds, in the spirit of HdrHistogram: values are counted in buckets
+ * whose width doubles with every power of two and which are split in {@value #SUB_BUCKETS} linear sub-buckets, so
+ * that any recorded value is reported within about 3% of its actual value while using a fixed 8KB of memory.
+ * Latencies above about 19 hours are counted in the highest bucket.
+ */
+@Beta
+public final class LatencyHistogram {
+
+   static final int SUB_BUCKET_BITS = 5;
+   static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+   static final int HIGHEST_EXPONENT = 36;
+   static final int BUCKETS = (HIGHEST_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+   private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+   private final AtomicLong count = new AtomicLong();
+   private final AtomicLong totalMicros = new AtomicLong();
+   private final AtomicLong maxMicros = new AtomicLong();
+
+   public void record(long duration, TimeUnit unit) {
+      long micros = Math.max(0, unit.toMicros(duration));
+      counts.incrementAndGet(indexOf(micros));
+      count.incrementAndGet();
+      totalMicros.addAndGet(micros);
+      for (;;) {
+         long max = maxMicros.get();
+         if (micros <= max || maxMicros.compareAndSet(max, micros))
+            break;
+      }
+   }
+
+   public long getCount() {
+      return count.get();
+   }
+
+   public long getMaxMicros() {
+      return maxMicros.get();
+   }
+
+   public double getMeanMicros() {
+      long count = getCount();
+      return count == 0 ? 0 : (double) totalMicros.get() / count;
+   }
+
+   /**
+    * @param percentile
+    *           between 0 and 100
+    * @return the highest value equivalent to the value at the given percentile, or zero when nothing was recorded
+    */
+   public long getValueAtPercentile(double percentile) {
+      checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++)
+         total += counts.get(i);
+      if (total == 0)
+         return 0;
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         seen += counts.get(i);
+         if (seen >= rank)
+            return Math.min(highestEquivalentValue(i), getMaxMicros());
+      }
+      return getMaxMicros();
+   }
+
+   static int indexOf(long micros) {
+      if (micros < SUB_BUCKETS)
+         return (int) micros;
+      int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), HIGHEST_EXPONENT);
+      if (exponent == HIGHEST_EXPONENT && micros >= 2L << HIGHEST_EXPONENT)
+         return BUCKETS - 1;
+      int top = (int) (micros >>> (exponent - SUB_BUCKET_BITS));
+      return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + top - SUB_BUCKETS;
+   }
+
+   static long lowestEquivalentValue(int index) {
+      if (index < SUB_BUCKETS)
+         return index;
+      int group = index / SUB_BUCKETS;
+      long top = index % SUB_BUCKETS + SUB_BUCKETS;
+      return top << (group - 1);
+   }
+
+   static long highestEquivalentValue(int index) {
+      if (index < SUB_BUCKETS)
+         return index;
+      return lowestEquivalentValue(index) + (1L << (index / SUB_BUCKETS - 1)) - 1;
+   }
+}
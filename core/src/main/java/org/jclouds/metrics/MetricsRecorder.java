@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.metrics;
+
+import org.jclouds.metrics.internal.NullMetricsRecorder;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Supplier;
+import com.google.inject.ImplementedBy;
+
+/**
+ * Receives measurements from the http pipeline. Bind an implementation in a module passed to the
+ * {@link org.jclouds.ContextBuilder} to collect them; by default they are discarded.
+ * <p>
+ * Commands are named after the {@code @Named} value or {@code Type.method} of the api call. Implementations are
+ * invoked on the request threads and must be thread-safe and cheap.
+ * 
+ * @see InMemoryMetricsRecorder
+ * @see org.jclouds.metrics.config.JmxMetricsModule
+ */
+@Beta
+@ImplementedBy(NullMetricsRecorder.class)
+public interface MetricsRecorder {
+
+   /**
+    * Records a completed api call, including retries and parsing of the response.
+    * 
+    * @param failed
+    *           true if the call threw, or its result was produced by a fallback
+    */
+   void recordInvocation(String commandName, long elapsedNanos, boolean failed);
+
+   /**
+    * Records a http response received for a command, once per attempt.
+    */
+   void recordResponse(String commandName, int statusCode);
+
+   /**
+    * Records that a request of the command is retried.
+    */
+   void recordRetry(String commandName);
+
+   /**
+    * Records that a failed call of the command returned the value of its fallback.
+    */
+   void recordFallback(String commandName);
+
+   /**
+    * Records the declared payload lengths of a request and its response; unknown lengths are zero.
+    */
+   void recordPayload(String commandName, long bytesOut, long bytesIn);
+
+   /**
+    * Registers a value sampled on demand, such as the depth of an executor queue.
+    */
+   void registerGauge(String name, Supplier<? extends Number> gauge);
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.metrics.config;
+
+import org.jclouds.metrics.InMemoryMetricsRecorder;
+import org.jclouds.metrics.MetricsRecorder;
+import org.jclouds.metrics.internal.JmxMetricsRecorder;
+
+import com.google.common.annotations.Beta;
+import com.google.inject.AbstractModule;
+
+/**
+ * Records per-command latency histograms, retries, fallbacks, status classes and payload sizes, and exports them
+ * over JMX. Pass an instance to {@link org.jclouds.ContextBuilder#modules(Iterable)} to enable it.
+ * 
+ * @see JmxMetricsRecorder
+ */
+@Beta
+public class JmxMetricsModule extends AbstractModule {
+
+   @Override
+   protected void configure() {
+      bind(MetricsRecorder.class).to(JmxMetricsRecorder.class);
+      bind(InMemoryMetricsRecorder.class).to(JmxMetricsRecorder.class);
+   }
+}
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.metrics.internal;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jclouds.annotations.Name;
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.logging.Logger;
+import org.jclouds.metrics.CommandMetrics;
+import org.jclouds.metrics.InMemoryMetricsRecorder;
+import org.jclouds.metrics.LatencyHistogram;
+
+import com.google.common.base.Supplier;
+
+/**
+ * Exports the measurements of each command and each gauge as an MXBean of the platform MBean server, named
+ * {@code org.jclouds:type=Command,context=<context name>,name=<command name>} and
+ * {@code org.jclouds:type=Gauge,context=<context name>,name=<gauge name>}. They are unregistered when the context is
+ * closed.
+ */
+@Singleton
+public class JmxMetricsRecorder extends InMemoryMetricsRecorder implements Closeable {
+
+   public static final String DOMAIN = "org.jclouds";
+
+   public interface CommandMXBean {
+      long getCount();
+
+      long getFailures();
+
+      long getRetries();
+
+      long getFallbacks();
+
+      double getMeanMillis();
+
+      double getP50Millis();
+
+      double getP90Millis();
+
+      double getP99Millis();
+
+      double getMaxMillis();
+
+      long getResponses2xx();
+
+      long getResponses3xx();
+
+      long getResponses4xx();
+
+      long getResponses5xx();
+
+      long getBytesOut();
+
+      long getBytesIn();
+   }
+
+   public interface GaugeMXBean {
+      double getValue();
+   }
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final String contextName;
+   private final MBeanServer server;
+   private final Set<ObjectName> registered = new CopyOnWriteArraySet<ObjectName>();
+
+   @Inject
+   JmxMetricsRecorder(@Name String contextName, Closer closer) {
+      this(contextName, ManagementFactory.getPlatformMBeanServer());
+      closer.addToClose(this);
+   }
+
+   JmxMetricsRecorder(String contextName, MBeanServer server) {
+      this.contextName = contextName;
+      this.server = server;
+   }
+
+   @Override
+   protected void onNewCommand(CommandMetrics metrics) {
+      register("Command", metrics.getCommandName(), new Command(metrics));
+   }
+
+   @Override
+   protected void onNewGauge(String name, Supplier<? extends Number> gauge) {
+      register("Gauge", name, new Gauge(gauge));
+   }
+
+   private void register(String type, String name, Object bean) {
+      try {
+         ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",context=" + ObjectName.quote(contextName)
+               + ",name=" + ObjectName.quote(name));
+         server.registerMBean(bean, objectName);
+         registered.add(objectName);
+      } catch (JMException e) {
+         logger.warn(e, "could not export metrics of %s %s", type, name);
+      }
+   }
+
+   @Override
+   public void close() {
+      for (ObjectName objectName : registered) {
+         try {
+            server.unregisterMBean(objectName);
+         } catch (JMException e) {
+            logger.debug("could not unregister %s: %s", objectName, e.getMessage());
+         }
+      }
+      registered.clear();
+   }
+
+   private static final class Command implements CommandMXBean {
+      private final CommandMetrics metrics;
+
+      private Command(CommandMetrics metrics) {
+         this.metrics = metrics;
+      }
+
+      private LatencyHistogram latency() {
+         return metrics.getLatency();
+      }
+
+      @Override
+      public long getCount() {
+         return latency().getCount();
+      }
+
+      @Override
+      public long getFailures() {
+         return metrics.getFailures();
+      }
+
+      @Override
+      public long getRetries() {
+         return metrics.getRetries();
+      }
+
+      @Override
+      public long getFallbacks() {
+         return metrics.getFallbacks();
+      }
+
+      @Override
+      public double getMeanMillis() {
+         return latency().getMeanMicros() / 1000;
+      }
+
+      @Override
+      public double getP50Millis() {
+         return latency().getValueAtPercentile(50) / 1000.0;
+      }
+
+      @Override
+      public double getP90Millis() {
+         return latency().getValueAtPercentile(90) / 1000.0;
+      }
+
+      @Override
+      public double getP99Millis() {
+         return latency().getValueAtPercentile(99) / 1000.0;
+      }
+
+      @Override
+      public double getMaxMillis() {
+         return latency().getMaxMicros() / 1000.0;
+      }
+
+      @Override
+      public long getResponses2xx() {
+         return metrics.getResponses(2);
+      }
+
+      @Override
+      public long getResponses3xx() {
+         return metrics.getResponses(3);
+      }
+
+      @Override
+      public long getResponses4xx() {
+         return metrics.getResponses(4);
+      }
+
+      @Override
+      public long getResponses5xx() {
+         return metrics.getResponses(5);
+      }
+
+      @Override
+      public long getBytesOut() {
+         return metrics.getBytesOut();
+      }
+
+      @Override
+      public long getBytesIn() {
+         return metrics.getBytesIn();
+      }
+   }
+
+   private static final class Gauge implements GaugeMXBean {
+      private final Supplier<? extends Number> gauge;
+
+      private Gauge(Supplier<? extends Number> gauge) {
+         this.gauge = gauge;
+      }
+
+      @Override
+      public double getValue() {
+         Number value = gauge.get();
+         return value == null ? Double.NaN : value.doubleValue();
+      }
+   }
+}
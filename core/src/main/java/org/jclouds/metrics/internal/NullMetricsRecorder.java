@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.metrics.internal;
+
+import javax.inject.Singleton;
+
+import org.jclouds.metrics.MetricsRecorder;
+
+import com.google.common.base.Supplier;
+
+/**
+ * Discards all measurements.
+ */
+@Singleton
+public class NullMetricsRecorder implements MetricsRecorder {
+
+   public static final NullMetricsRecorder INSTANCE = new NullMetricsRecorder();
+
+   @Override
+   public void recordInvocation(String commandName, long elapsedNanos, boolean failed) {
+   }
+
+   @Override
+   public void recordResponse(String commandName, int statusCode) {
+   }
+
+   @Override
+   public void recordRetry(String commandName) {
+   }
+
+   @Override
+   public void recordFallback(String commandName) {
+   }
+
+   @Override
+   public void recordPayload(String commandName, long bytesOut, long bytesIn) {
+   }
+
+   @Override
+   public void registerGauge(String name, Supplier<? extends Number> gauge) {
+   }
+}
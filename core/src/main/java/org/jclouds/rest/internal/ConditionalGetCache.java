@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_MODIFIED_SINCE;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
+import static com.google.common.net.HttpHeaders.LAST_MODIFIED;
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.domain.Credentials;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.location.Provider;
+import org.jclouds.logging.Logger;
+import org.jclouds.rest.annotations.ConditionalGet;
+import org.jclouds.rest.internal.SharedResponses.BufferedResponse;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import com.google.common.reflect.Invokable;
+import com.google.inject.Inject;
+
+/**
+ * Remembers the validators and the parsed result of {@code GET} requests issued by methods annotated with
+ * {@link ConditionalGet}. Subsequent identical requests are sent with {@code If-None-Match} or
+ * {@code If-Modified-Since}; when the server answers {@code 304 Not Modified}, the previous result is returned
+ * without reading a response body.
+ * <p>
+ * Only results of an immutable declared type, as defined by {@link SharedResponses#isImmutable}, are returned
+ * as is, without parsing. For other types the previous body is kept instead and parsed again for each caller, so
+ * that a caller changing its result does not change it for the others. Results which read the body lazily, such
+ * as streams and iterators, are never cached.
+ * <p>
+ * Entries are keyed by the identity of the caller and the request line and headers as generated, before any
+ * request filters (signatures, dates) are applied.
+ */
+@Beta
+@Singleton
+public class ConditionalGetCache {
+   static final int NOT_MODIFIED = 304;
+
+   @Resource
+   private Logger logger = Logger.NULL;
+
+   private final Supplier<Credentials> creds;
+   private final ConcurrentMap<Invokable<?, ?>, Boolean> annotated = Maps.newConcurrentMap();
+   private final ConcurrentMap<Invokable<?, ?>, Reuse> reuses = Maps.newConcurrentMap();
+   private Cache<String, Entry> entries = newCache(1000);
+
+   @Inject
+   ConditionalGetCache(@Provider Supplier<Credentials> creds) {
+      this.creds = checkNotNull(creds, "creds");
+   }
+
+   @Inject(optional = true)
+   void setMaxSize(@Named(Constants.PROPERTY_CONDITIONAL_GET_CACHE_SIZE) long maxSize) {
+      entries = newCache(maxSize);
+   }
+
+   private static Cache<String, Entry> newCache(long maxSize) {
+      return CacheBuilder.newBuilder().maximumSize(maxSize).build();
+   }
+
+   /**
+    * @return true if {@code request} is a {@code GET} generated from a method annotated, directly or through its
+    *         declaring type, with {@link ConditionalGet}
+    */
+   public boolean appliesTo(HttpRequest request) {
+      if (!"GET".equals(request.getMethod()) || !(request instanceof GeneratedHttpRequest))
+         return false;
+      Invokable<?, ?> invokable = GeneratedHttpRequest.class.cast(request).getInvocation().getInvokable();
+      Boolean applies = annotated.get(invokable);
+      if (applies == null) {
+         applies = invokable.isAnnotationPresent(ConditionalGet.class)
+               || invokable.getOwnerType().getRawType().isAnnotationPresent(ConditionalGet.class);
+         annotated.put(invokable, applies);
+      }
+      return applies;
+   }
+
+   /**
+    * Invokes {@code command}, conditionally if a previous result is known, and transforms the response with
+    * {@code transformer} unless the server reports that the previous result is still current.
+    */
+   public Object invoke(HttpCommand command, Function<HttpResponse, ?> transformer, HttpCommandExecutorService http) {
+      HttpRequest request = command.getCurrentRequest();
+      String key = SharedResponses.key(creds.get(), request);
+      Entry cached = entries.getIfPresent(key);
+      if (cached != null)
+         command.setCurrentRequest(withValidators(request, cached));
+      HttpResponse response;
+      try {
+         response = http.invoke(command);
+      } catch (RuntimeException e) {
+         HttpResponseException hre = getFirstThrowableOfType(e, HttpResponseException.class);
+         if (cached != null && hre != null && hre.getResponse() != null
+               && hre.getResponse().getStatusCode() == NOT_MODIFIED) {
+            logger.trace("<< not modified: %s", request.getRequestLine());
+            return cached.get(transformer);
+         }
+         throw e;
+      }
+      if (cached != null && response.getStatusCode() == NOT_MODIFIED) {
+         logger.trace("<< not modified: %s", request.getRequestLine());
+         return cached.get(transformer);
+      }
+      String etag = response.getFirstHeaderOrNull(ETAG);
+      String lastModified = response.getFirstHeaderOrNull(LAST_MODIFIED);
+      Reuse reuse = etag != null || lastModified != null ? reuseOf(request) : Reuse.NONE;
+      if (reuse == Reuse.VALUE) {
+         Object value = transformer.apply(response);
+         entries.put(key, new Entry(etag, lastModified, value, null));
+         return value;
+      } else if (reuse == Reuse.BODY) {
+         BufferedResponse body = new BufferedResponse(response);
+         Object value = transformer.apply(body.copy());
+         entries.put(key, new Entry(etag, lastModified, null, body));
+         return value;
+      }
+      if (cached != null)
+         entries.invalidate(key);
+      return transformer.apply(response);
+   }
+
+   private Reuse reuseOf(HttpRequest request) {
+      Invokable<?, ?> invokable = GeneratedHttpRequest.class.cast(request).getInvocation().getInvokable();
+      Reuse reuse = reuses.get(invokable);
+      if (reuse == null) {
+         Type returnType = invokable.getReturnType().getType();
+         reuse = SharedResponses.isImmutable(returnType) ? Reuse.VALUE
+               : SharedResponses.carriesBody(returnType) ? Reuse.NONE : Reuse.BODY;
+         reuses.put(invokable, reuse);
+      }
+      return reuse;
+   }
+
+   @VisibleForTesting
+   long size() {
+      return entries.size();
+   }
+
+   private static HttpRequest withValidators(HttpRequest request, Entry cached) {
+      HttpRequest.Builder<?> builder = request.toBuilder();
+      if (cached.etag != null)
+         builder.replaceHeader(IF_NONE_MATCH, cached.etag);
+      if (cached.lastModified != null)
+         builder.replaceHeader(IF_MODIFIED_SINCE, cached.lastModified);
+      return builder.build();
+   }
+
+   /**
+    * What is kept of a response to answer later requests.
+    */
+   private enum Reuse {
+      VALUE, BODY, NONE
+   }
+
+   static final class Entry {
+      final String etag;
+      final String lastModified;
+      final Object value;
+      final BufferedResponse body;
+
+      Entry(String etag, String lastModified, Object value, BufferedResponse body) {
+         this.etag = etag;
+         this.lastModified = lastModified;
+         this.value = value;
+         this.body = body;
+      }
+
+      Object get(Function<HttpResponse, ?> transformer) {
+         return body != null ? transformer.apply(body.copy()) : value;
+      }
+   }
+}
@@ -24,13 +24,14 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import java.util.concurrent.Callable;
 
 import javax.annotation.Resource;
-import javax.inject.Inject;
 
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.logging.Logger;
+import org.jclouds.metrics.MetricsRecorder;
+import org.jclouds.metrics.internal.NullMetricsRecorder;
 import org.jclouds.reflect.Invocation;
 import org.jclouds.rest.InvocationContext;
 import org.jclouds.rest.config.InvocationConfig;
@@ -41,6 +42,7 @@ import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.util.concurrent.TimeLimiter;
+import com.google.inject.Inject;
 
 public class InvokeHttpMethod implements Function<Invocation, Object> {
 
@@ -53,6 +55,18 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
    private final Function<HttpRequest, Function<HttpResponse, ?>> transformerForRequest;
    private final InvocationConfig config;
 
+   @VisibleForTesting
+   @Inject(optional = true)
+   ConditionalGetCache conditionalGets;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   RequestCoalescer coalescer;
+
+   @VisibleForTesting
+   @Inject(optional = true)
+   MetricsRecorder metrics = NullMetricsRecorder.INSTANCE;
+
    @Inject
    @VisibleForTesting
    InvokeHttpMethod(Function<Invocation, HttpRequest> annotationProcessor,
@@ -87,14 +101,13 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
       org.jclouds.Fallback<?> fallback = getFallback(commandName, invocation, command);
 
       logger.debug(">> invoking %s", commandName);
+      long start = System.nanoTime();
       try {
-         return transformer.apply(http.invoke(command));
+         Object result = invokeAndTransform(command, transformer);
+         metrics.recordInvocation(commandName, System.nanoTime() - start, false);
+         return result;
       } catch (Throwable t) {
-         try {
-            return fallback.createOrPropagate(t);
-         } catch (Exception e) {
-            throw propagate(e);
-         }
+         return fallback(commandName, fallback, t, start);
       }
    }
 
@@ -123,15 +136,26 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
       org.jclouds.Fallback<?> fallback = getFallback(commandName, invocation, command);
 
       logger.debug(">> blocking on %s for %s", invocation, limitNanos);
+      long start = System.nanoTime();
       try {
-         return timeLimiter
+         Object result = timeLimiter
                .callWithTimeout(new InvokeAndTransform(commandName, command), limitNanos, NANOSECONDS, true);
+         metrics.recordInvocation(commandName, System.nanoTime() - start, false);
+         return result;
       } catch (Throwable t) {
-         try {
-            return fallback.createOrPropagate(t);
-         } catch (Exception e) {
-            throw propagate(e);
-         }
+         return fallback(commandName, fallback, t, start);
+      }
+   }
+
+   private Object fallback(String commandName, org.jclouds.Fallback<?> fallback, Throwable t, long start) {
+      try {
+         Object result = fallback.createOrPropagate(t);
+         metrics.recordFallback(commandName);
+         return result;
+      } catch (Exception e) {
+         throw propagate(e);
+      } finally {
+         metrics.recordInvocation(commandName, System.nanoTime() - start, true);
       }
    }
 
@@ -158,7 +182,7 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
 
       @Override
       public Object call() throws Exception {
-         return transformer.apply(http.invoke(command));
+         return invokeAndTransform(command, transformer);
       }
 
       @Override
@@ -184,6 +208,15 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
       }
    }
 
+   private Object invokeAndTransform(HttpCommand command, Function<HttpResponse, ?> transformer) {
+      HttpRequest request = command.getCurrentRequest();
+      HttpCommandExecutorService http = coalescer != null && coalescer.appliesTo(request) ? coalescer
+            .coalescing(this.http) : this.http;
+      if (conditionalGets != null && conditionalGets.appliesTo(request))
+         return conditionalGets.invoke(command, transformer, http);
+      return transformer.apply(http.invoke(command));
+   }
+
    private HttpCommand toCommand(String commandName, Invocation invocation) {
       logger.trace(">> converting %s", commandName);
       HttpRequest request = annotationProcessor.apply(invocation);
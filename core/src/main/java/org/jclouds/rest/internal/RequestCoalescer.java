@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.domain.Credentials;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.location.Provider;
+import org.jclouds.logging.Logger;
+import org.jclouds.rest.internal.SharedResponses.BufferedResponse;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.collect.Maps;
+import com.google.common.reflect.Invokable;
+import com.google.inject.Inject;
+
+/**
+ * Lets concurrent invocations of the same {@code GET} or {@code HEAD} request share a single call. The first caller
+ * issues the request; callers arriving while it is in flight wait for it. The response body is read into memory
+ * and every caller receives a copy of the response of its own, which it parses into a result of its own, or the
+ * same exception.
+ * <p>
+ * {@code GET} requests of methods whose results read the body lazily or expose it, such as streams, iterators,
+ * payloads and blobs, are invoked independently, as buffering their bodies would defeat streaming.
+ * <p>
+ * Requests are considered identical when they have the same request line and headers, as generated and before any
+ * filters are applied, and are sent on behalf of the same identity.
+ */
+@Beta
+@Singleton
+public class RequestCoalescer {
+
+   @Resource
+   private Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_COALESCE_REQUESTS)
+   boolean enabled = false;
+
+   private final Supplier<Credentials> creds;
+   private final ConcurrentMap<String, FutureTask<BufferedResponse>> inFlight = Maps.newConcurrentMap();
+   private final ConcurrentMap<Invokable<?, ?>, Boolean> bodies = Maps.newConcurrentMap();
+
+   @Inject
+   RequestCoalescer(@Provider Supplier<Credentials> creds) {
+      this.creds = checkNotNull(creds, "creds");
+   }
+
+   /**
+    * @return true if coalescing is enabled and {@code request} is a {@code HEAD}, or a {@code GET} of a method whose
+    *         result does not carry the response body, without payload
+    */
+   public boolean appliesTo(HttpRequest request) {
+      if (!enabled || request.getPayload() != null
+            || !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))
+            || !(request instanceof GeneratedHttpRequest))
+         return false;
+      if ("HEAD".equals(request.getMethod()))
+         return true;
+      Invokable<?, ?> invokable = GeneratedHttpRequest.class.cast(request).getInvocation().getInvokable();
+      Boolean carriesBody = bodies.get(invokable);
+      if (carriesBody == null) {
+         carriesBody = SharedResponses.carriesBody(invokable.getReturnType().getType());
+         bodies.put(invokable, carriesBody);
+      }
+      return !carriesBody;
+   }
+
+   /**
+    * Invokes {@code command} through {@code http}, unless an identical request is already in flight, in which case
+    * its outcome is shared.
+    * 
+    * @return a copy of the response, with a body of its own
+    */
+   public HttpResponse invoke(final HttpCommand command, final HttpCommandExecutorService http) {
+      HttpRequest request = command.getCurrentRequest();
+      String key = SharedResponses.key(creds.get(), request);
+      FutureTask<BufferedResponse> task = new FutureTask<BufferedResponse>(new Callable<BufferedResponse>() {
+         @Override
+         public BufferedResponse call() {
+            return new BufferedResponse(http.invoke(command));
+         }
+      });
+      FutureTask<BufferedResponse> leader = inFlight.putIfAbsent(key, task);
+      if (leader == null) {
+         try {
+            task.run();
+         } finally {
+            inFlight.remove(key, task);
+         }
+         return getDone(task).copy();
+      }
+      logger.trace(">> joining in-flight %s", request.getRequestLine());
+      return getDone(leader).copy();
+   }
+
+   /**
+    * @return an executor which coalesces the requests it is given through {@link #invoke}
+    */
+   public HttpCommandExecutorService coalescing(final HttpCommandExecutorService http) {
+      return new HttpCommandExecutorService() {
+         @Override
+         public HttpResponse invoke(HttpCommand command) {
+            return RequestCoalescer.this.invoke(command, http);
+         }
+      };
+   }
+
+   @VisibleForTesting
+   int inFlight() {
+      return inFlight.size();
+   }
+
+   private static BufferedResponse getDone(FutureTask<BufferedResponse> task) {
+      try {
+         return getUninterruptibly(task);
+      } catch (ExecutionException e) {
+         throw propagate(e.getCause());
+      }
+   }
+}
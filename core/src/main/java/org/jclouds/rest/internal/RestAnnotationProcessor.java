@@ -26,7 +26,7 @@ import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.get;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Iterables.tryFind;
-import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Lists.newArrayListWithCapacity;
 import static com.google.common.collect.Lists.newLinkedList;
 import static com.google.common.collect.Multimaps.transformValues;
 import static com.google.common.net.HttpHeaders.ACCEPT;
@@ -132,6 +132,7 @@ import com.google.common.reflect.Parameter;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 import com.google.inject.Key;
+import com.google.inject.Scopes;
 import com.google.inject.TypeLiteral;
 
 public class RestAnnotationProcessor implements Function<Invocation, HttpRequest> {
@@ -157,6 +158,7 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
    private final Invocation caller;
    private final boolean stripExpectHeader;
    private final boolean connectionCloseHeader;
+   private final Map<Key<?>, Object> singletons = Maps.newConcurrentMap();
 
    @Inject
    private RestAnnotationProcessor(Injector injector,
@@ -190,7 +192,9 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
    @Override
    public GeneratedHttpRequest apply(Invocation invocation) {
       checkNotNull(invocation, "invocation");
-      inputParamValidator.validateMethodParametersOrThrow(invocation, getInvokableParameters(invocation.getInvokable()));
+      RequestPlan plan = invokableToRequestPlan.getUnchecked(invocation.getInvokable());
+      RequestPlan callerPlan = caller != null ? invokableToRequestPlan.getUnchecked(caller.getInvokable()) : null;
+      inputParamValidator.validateMethodParametersOrThrow(invocation, plan.parameters);
 
       Optional<URI> endpoint = Optional.absent();
       HttpRequest r = findOrNull(invocation.getArgs(), HttpRequest.class);
@@ -224,11 +228,11 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
          requestMethod = r.getMethod();
          requestBuilder.fromHttpRequest(r);
       } else {
-         requestMethod = tryFindHttpMethod(invocation.getInvokable()).get();
+         requestMethod = plan.httpMethod().get();
          requestBuilder.method(requestMethod);
       }
 
-      requestBuilder.filters(getFiltersIfAnnotated(invocation));
+      requestBuilder.filters(getFiltersIfAnnotated(plan));
       if (stripExpectHeader) {
          requestBuilder.filter(new StripExpectHeader());
       }
@@ -244,34 +248,35 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       // URI template in rfc6570 form
       UriBuilder uriBuilder = uriBuilder(endpoint.get().toString());
 
-      overridePathEncoding(uriBuilder, invocation);
+      if (plan.skipEncoding != null)
+         uriBuilder.skipPathEncoding(plan.skipEncoding);
 
-      boolean encodeFullPath = !isEncodedUsed(invocation);
+      boolean encodeFullPath = plan.encodeFullPath;
       if (caller != null)
-         tokenValues.putAll(addPathAndGetTokens(caller, uriBuilder, encodeFullPath));
-      tokenValues.putAll(addPathAndGetTokens(invocation, uriBuilder, encodeFullPath));
+         tokenValues.putAll(addPathAndGetTokens(caller, callerPlan, uriBuilder, encodeFullPath));
+      tokenValues.putAll(addPathAndGetTokens(invocation, plan, uriBuilder, encodeFullPath));
       Multimap<String, Object> formParams;
       if (caller != null) {
-         formParams = addFormParams(tokenValues, caller);
-         formParams.putAll(addFormParams(tokenValues, invocation));
+         formParams = addFormParams(tokenValues, caller, callerPlan);
+         formParams.putAll(addFormParams(tokenValues, invocation, plan));
       } else {
-         formParams = addFormParams(tokenValues, invocation);
+         formParams = addFormParams(tokenValues, invocation, plan);
       }
 
-      Multimap<String, Object> queryParams = addQueryParams(tokenValues, invocation);
+      Multimap<String, Object> queryParams = addQueryParams(tokenValues, invocation, plan);
 
       Multimap<String, String> headers;
       if (caller != null) {
-         headers = buildHeaders(tokenValues, caller);
-         headers.putAll(buildHeaders(tokenValues, invocation));
+         headers = buildHeaders(tokenValues, caller, callerPlan);
+         headers.putAll(buildHeaders(tokenValues, invocation, plan));
       } else {
-         headers = buildHeaders(tokenValues, invocation);
+         headers = buildHeaders(tokenValues, invocation, plan);
       }
 
       if (r != null)
          headers.putAll(r.getHeaders());
 
-      if (shouldAddHostHeader(invocation)) {
+      if (plan.virtualHost) {
          StringBuilder hostHeader = new StringBuilder(endpoint.get().getHost());
          if (endpoint.get().getPort() != -1)
             hostHeader.append(":").append(endpoint.get().getPort());
@@ -316,7 +321,7 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
                Payload.class);
       }
 
-      List<? extends Part> parts = getParts(invocation, ImmutableMultimap.<String, Object> builder()
+      List<? extends Part> parts = getParts(invocation, plan, ImmutableMultimap.<String, Object> builder()
             .putAll(tokenValues).putAll(formParams).build());
 
       if (!parts.isEmpty()) {
@@ -336,22 +341,21 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       }
       GeneratedHttpRequest request = requestBuilder.build();
 
-      org.jclouds.rest.MapBinder mapBinder = getMapPayloadBinderOrNull(invocation);
+      org.jclouds.rest.MapBinder mapBinder = getMapPayloadBinderOrNull(invocation, plan);
       if (mapBinder != null) {
          Map<String, Object> mapParams;
          if (caller != null) {
-            mapParams = buildPayloadParams(caller);
-            mapParams.putAll(buildPayloadParams(invocation));
+            mapParams = buildPayloadParams(caller, callerPlan);
+            mapParams.putAll(buildPayloadParams(invocation, plan));
          } else {
-            mapParams = buildPayloadParams(invocation);
+            mapParams = buildPayloadParams(invocation, plan);
          }
-         if (invocation.getInvokable().isAnnotationPresent(PayloadParams.class)) {
-            PayloadParams params = invocation.getInvokable().getAnnotation(PayloadParams.class);
-            addMapPayload(mapParams, params, headers, tokenValues);
+         if (plan.payloadParams != null) {
+            addMapPayload(mapParams, plan.payloadParams, headers, tokenValues);
          }
          request = mapBinder.bindToRequest(request, mapParams);
       } else {
-         request = decorateRequest(request);
+         request = decorateRequest(request, plan);
       }
 
       if (request.getPayload() != null) {
@@ -376,16 +380,6 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return ImmutableMap.copyOf(out);
    }
 
-   private void overridePathEncoding(UriBuilder uriBuilder, Invocation invocation) {
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(SkipEncoding.class)) {
-         uriBuilder.skipPathEncoding(Chars.asList(invocation.getInvokable().getOwnerType().getRawType()
-               .getAnnotation(SkipEncoding.class).value()));
-      }
-      if (invocation.getInvokable().isAnnotationPresent(SkipEncoding.class)) {
-         uriBuilder.skipPathEncoding(Chars.asList(invocation.getInvokable().getAnnotation(SkipEncoding.class).value()));
-      }
-   }
-
    // different than guava as accepts null
    private static enum NullableToStringFunction implements Function<Object, String> {
       INSTANCE;
@@ -403,7 +397,7 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
          logger.trace("using endpoint %s for %s", endpoint, invocation);
       if (!endpoint.isPresent()) {
          logger.trace("looking up default endpoint for %s", invocation);
-         endpoint = Optional.fromNullable(injector.getInstance(
+         endpoint = Optional.fromNullable(getInstance(
                Key.get(uriSupplierLiteral, org.jclouds.location.Provider.class)).get());
          if (endpoint.isPresent())
             logger.trace("using default endpoint %s for %s", endpoint, invocation);
@@ -411,46 +405,38 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return endpoint;
    }
 
-   private Multimap<String, Object> addPathAndGetTokens(Invocation invocation, UriBuilder uriBuilder,
-                                                        boolean encodeFullPath) {
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(Path.class))
-         uriBuilder.appendPath(invocation.getInvokable().getOwnerType().getRawType().getAnnotation(Path.class).value());
-      if (invocation.getInvokable().isAnnotationPresent(Path.class))
-         uriBuilder.appendPath(invocation.getInvokable().getAnnotation(Path.class).value());
-      return getPathParamKeyValues(invocation, encodeFullPath);
+   private Multimap<String, Object> addPathAndGetTokens(Invocation invocation, RequestPlan plan,
+                                                        UriBuilder uriBuilder, boolean encodeFullPath) {
+      if (plan.ownerPath != null)
+         uriBuilder.appendPath(plan.ownerPath);
+      if (plan.path != null)
+         uriBuilder.appendPath(plan.path);
+      return getPathParamKeyValues(invocation, plan, encodeFullPath);
    }
 
-   private Multimap<String, Object> addFormParams(Multimap<String, ?> tokenValues, Invocation invocation) {
+   private Multimap<String, Object> addFormParams(Multimap<String, ?> tokenValues, Invocation invocation,
+         RequestPlan plan) {
       Multimap<String, Object> formMap = LinkedListMultimap.create();
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(FormParams.class)) {
-         FormParams form = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(FormParams.class);
-         addForm(formMap, form, tokenValues);
-      }
-
-      if (invocation.getInvokable().isAnnotationPresent(FormParams.class)) {
-         FormParams form = invocation.getInvokable().getAnnotation(FormParams.class);
-         addForm(formMap, form, tokenValues);
-      }
+      if (plan.ownerFormParams != null)
+         addForm(formMap, plan.ownerFormParams, tokenValues);
+      if (plan.formParams != null)
+         addForm(formMap, plan.formParams, tokenValues);
 
-      for (Entry<String, Object> form : getFormParamKeyValues(invocation).entries()) {
+      for (Entry<String, Object> form : getFormParamKeyValues(invocation, plan).entries()) {
          formMap.put(form.getKey(), replaceTokens(form.getValue().toString(), tokenValues));
       }
       return formMap;
    }
 
-   private Multimap<String, Object> addQueryParams(Multimap<String, ?> tokenValues, Invocation invocation) {
+   private Multimap<String, Object> addQueryParams(Multimap<String, ?> tokenValues, Invocation invocation,
+         RequestPlan plan) {
       Multimap<String, Object> queryMap = LinkedListMultimap.create();
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(QueryParams.class)) {
-         QueryParams query = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(QueryParams.class);
-         addQuery(queryMap, query, tokenValues);
-      }
-
-      if (invocation.getInvokable().isAnnotationPresent(QueryParams.class)) {
-         QueryParams query = invocation.getInvokable().getAnnotation(QueryParams.class);
-         addQuery(queryMap, query, tokenValues);
-      }
+      if (plan.ownerQueryParams != null)
+         addQuery(queryMap, plan.ownerQueryParams, tokenValues);
+      if (plan.queryParams != null)
+         addQuery(queryMap, plan.queryParams, tokenValues);
 
-      for (Entry<String, Object> query : getQueryParamKeyValues(invocation, tokenValues).entries()) {
+      for (Entry<String, Object> query : getQueryParamKeyValues(invocation, plan, tokenValues).entries()) {
          queryMap.put(query.getKey(), query.getValue());
       }
       return queryMap;
@@ -490,33 +476,37 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       }
    }
 
-   private List<HttpRequestFilter> getFiltersIfAnnotated(Invocation invocation) {
-      List<HttpRequestFilter> filters = newArrayList();
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(RequestFilters.class)) {
-         for (Class<? extends HttpRequestFilter> clazz : invocation.getInvokable().getOwnerType().getRawType()
-               .getAnnotation(RequestFilters.class).value()) {
-            HttpRequestFilter instance = injector.getInstance(clazz);
-            filters.add(instance);
-            logger.trace("adding filter %s from annotation on %s", instance, invocation.getInvokable().getOwnerType()
-                  .getRawType().getName());
-         }
-      }
-      if (invocation.getInvokable().isAnnotationPresent(RequestFilters.class)) {
-         if (invocation.getInvokable().isAnnotationPresent(OverrideRequestFilters.class))
-            filters.clear();
-         for (Class<? extends HttpRequestFilter> clazz : invocation.getInvokable().getAnnotation(RequestFilters.class)
-               .value()) {
-            HttpRequestFilter instance = injector.getInstance(clazz);
-            filters.add(instance);
-            logger.trace("adding filter %s from annotation on %s", instance, invocation.getInvokable().getName());
-         }
+   private List<HttpRequestFilter> getFiltersIfAnnotated(RequestPlan plan) {
+      List<HttpRequestFilter> filters = newArrayListWithCapacity(plan.filters.size());
+      for (Class<? extends HttpRequestFilter> clazz : plan.filters) {
+         filters.add(getInstance(clazz));
       }
       return filters;
    }
 
+   private <T> T getInstance(Class<T> type) {
+      return getInstance(Key.get(type));
+   }
+
+   /**
+    * Looks up an instance of the given key, remembering it when the binding is a singleton, so that filters,
+    * binders, parsers and endpoint suppliers are only resolved through the injector once per processor.
+    */
+   @SuppressWarnings("unchecked")
+   private <T> T getInstance(Key<T> key) {
+      Object instance = singletons.get(key);
+      if (instance == null) {
+         instance = injector.getInstance(key);
+         if (Scopes.isSingleton(injector.getBinding(key)))
+            singletons.put(key, instance);
+      }
+      return (T) instance;
+   }
+
    @VisibleForTesting
    static URI getEndpointInParametersOrNull(Invocation invocation, Injector injector) {
-      Collection<Parameter> endpointParams = parametersWithAnnotation(invocation.getInvokable(), EndpointParam.class);
+      Collection<Parameter> endpointParams = invokableToRequestPlan.getUnchecked(invocation.getInvokable())
+            .endpointParams;
       if (endpointParams.isEmpty())
          return null;
       checkState(endpointParams.size() == 1, "invocation.getInvoked() %s has too many EndpointParam annotations",
@@ -535,13 +525,13 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       }
    }
 
-   private static Collection<Parameter> parametersWithAnnotation(Invokable<?, ?> invokable,
+   private static List<Parameter> parametersWithAnnotation(Invokable<?, ?> invokable,
          final Class<? extends Annotation> annotationType) {
-      return filter(getInvokableParameters(invokable), new Predicate<Parameter>() {
+      return ImmutableList.copyOf(filter(getInvokableParameters(invokable), new Predicate<Parameter>() {
          public boolean apply(Parameter in) {
             return in.isAnnotationPresent(annotationType);
          }
-      });
+      }));
    }
 
    private static final TypeLiteral<Supplier<URI>> uriSupplierLiteral = new TypeLiteral<Supplier<URI>>() {
@@ -550,18 +540,14 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
    protected Optional<URI> getEndpointFor(Invocation invocation) {
       URI endpoint = getEndpointInParametersOrNull(invocation, injector);
       if (endpoint == null) {
-         Endpoint annotation;
-         if (invocation.getInvokable().isAnnotationPresent(Endpoint.class)) {
-            annotation = invocation.getInvokable().getAnnotation(Endpoint.class);
-         } else if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(Endpoint.class)) {
-            annotation = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(Endpoint.class);
-         } else {
+         Endpoint annotation = invokableToRequestPlan.getUnchecked(invocation.getInvokable()).endpoint;
+         if (annotation == null) {
             logger.trace("no annotations on class or invocation.getInvoked(): %s", invocation.getInvokable());
             return Optional.absent();
          }
-         endpoint = injector.getInstance(Key.get(uriSupplierLiteral, annotation.value())).get();
+         endpoint = getInstance(Key.get(uriSupplierLiteral, annotation.value())).get();
       }
-      URI provider = injector.getInstance(Key.get(uriSupplierLiteral, org.jclouds.location.Provider.class)).get();
+      URI provider = getInstance(Key.get(uriSupplierLiteral, org.jclouds.location.Provider.class)).get();
       return Optional.fromNullable(addHostIfMissing(endpoint, provider));
    }
 
@@ -578,7 +564,7 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return baseURI.resolve(original);
    }
 
-   private org.jclouds.rest.MapBinder getMapPayloadBinderOrNull(Invocation invocation) {
+   private org.jclouds.rest.MapBinder getMapPayloadBinderOrNull(Invocation invocation, RequestPlan plan) {
       if (invocation.getArgs() != null) {
          for (Object arg : invocation.getArgs()) {
             if (arg instanceof Object[]) {
@@ -604,36 +590,28 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
             }
          }
       }
-      if (invocation.getInvokable().isAnnotationPresent(MapBinder.class)) {
-         return injector.getInstance(invocation.getInvokable().getAnnotation(MapBinder.class).value());
-      } else if (invocation.getInvokable().isAnnotationPresent(org.jclouds.rest.annotations.Payload.class)) {
-         return injector.getInstance(BindMapToStringPayload.class);
-      } else if (invocation.getInvokable().isAnnotationPresent(WrapWith.class)) {
-         return injector.getInstance(BindToJsonPayloadWrappedWith.Factory.class).create(
-               invocation.getInvokable().getAnnotation(WrapWith.class).value());
+      if (plan.mapBinder != null) {
+         return getInstance(plan.mapBinder.value());
+      } else if (plan.stringPayload) {
+         return getInstance(BindMapToStringPayload.class);
+      } else if (plan.wrapWith != null) {
+         return getInstance(BindToJsonPayloadWrappedWith.Factory.class).create(plan.wrapWith.value());
       }
       return null;
    }
 
-   private boolean shouldAddHostHeader(Invocation invocation) {
-      return invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(VirtualHost.class) || invocation
-            .getInvokable().isAnnotationPresent(VirtualHost.class);
-   }
-
-   private GeneratedHttpRequest decorateRequest(GeneratedHttpRequest request) throws NegativeArraySizeException {
+   private GeneratedHttpRequest decorateRequest(GeneratedHttpRequest request, RequestPlan plan)
+         throws NegativeArraySizeException {
       Invocation invocation = request.getInvocation();
       List<Object> args = request.getInvocation().getArgs();
-      Set<Parameter> binderOrWrapWith = ImmutableSet.copyOf(concat(
-            parametersWithAnnotation(invocation.getInvokable(), BinderParam.class),
-            parametersWithAnnotation(invocation.getInvokable(), WrapWith.class)));
-      OUTER: for (Parameter entry : binderOrWrapWith) {
+      OUTER: for (Parameter entry : plan.binderOrWrapWithParams) {
          int position = entry.hashCode();
          boolean shouldBreak = false;
          Binder binder;
          if (entry.isAnnotationPresent(BinderParam.class))
-            binder = injector.getInstance(entry.getAnnotation(BinderParam.class).value());
+            binder = getInstance(entry.getAnnotation(BinderParam.class).value());
          else
-            binder = injector.getInstance(BindToJsonPayloadWrappedWith.Factory.class).create(
+            binder = getInstance(BindToJsonPayloadWrappedWith.Factory.class).create(
                   entry.getAnnotation(WrapWith.class).value());
          Object arg = args.size() >= position + 1 ? args.get(position) : null;
          if (args.size() >= position + 1 && arg != null) {
@@ -642,7 +620,7 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
             if (!argType.isArray() && parameterType.isArray()) {// TODO: &&
                                                                 // invocation.getInvokable().isVarArgs())
                                                                 // {
-               int arrayLength = args.size() - getInvokableParameters(invocation.getInvokable()).size() + 1;
+               int arrayLength = args.size() - plan.parameters.size() + 1;
                if (arrayLength == 0)
                   break OUTER;
                arg = (Object[]) Array.newInstance(arg.getClass(), arrayLength);
@@ -664,7 +642,7 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
             if (shouldBreak)
                break OUTER;
          } else {
-            if (position + 1 == getInvokableParameters(invocation.getInvokable()).size() && entry.getType().isArray())// TODO:
+            if (position + 1 == plan.parameters.size() && entry.getType().isArray())// TODO:
                                                                                                               // &&
                                                                                                               // invocation.getInvokable().isVarArgs())
                continue OUTER;
@@ -693,6 +671,115 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
             }
          });
 
+   private static final LoadingCache<Invokable<?, ?>, RequestPlan> invokableToRequestPlan = CacheBuilder
+         .newBuilder().build(new CacheLoader<Invokable<?, ?>, RequestPlan>() {
+            @Override
+            public RequestPlan load(Invokable<?, ?> invokable) {
+               return new RequestPlan(invokable);
+            }
+         });
+
+   /**
+    * Everything {@link #apply} needs from the annotations of an invokable and its owner type, read once per
+    * invokable so that building a request only binds the arguments. Where both the type and the method carry an
+    * annotation, the same precedence as the annotations themselves applies.
+    */
+   private static final class RequestPlan {
+      private final List<Parameter> parameters;
+      private final Optional<String> httpMethod;
+      private final IllegalStateException httpMethodError;
+      private final List<Class<? extends HttpRequestFilter>> filters;
+      private final Iterable<Character> skipEncoding;
+      private final boolean encodeFullPath;
+      private final String ownerPath;
+      private final String path;
+      private final FormParams ownerFormParams;
+      private final FormParams formParams;
+      private final QueryParams ownerQueryParams;
+      private final QueryParams queryParams;
+      private final Headers ownerHeaders;
+      private final Headers headers;
+      private final List<String> produces;
+      private final boolean virtualHost;
+      private final Endpoint endpoint;
+      private final PayloadParams payloadParams;
+      private final MapBinder mapBinder;
+      private final boolean stringPayload;
+      private final WrapWith wrapWith;
+      private final List<Parameter> endpointParams;
+      private final List<Parameter> pathParams;
+      private final List<Parameter> formParamParams;
+      private final List<Parameter> queryParamParams;
+      private final List<Parameter> headerParams;
+      private final List<Parameter> partParams;
+      private final List<Parameter> payloadParamParams;
+      private final List<Parameter> binderOrWrapWithParams;
+
+      private RequestPlan(Invokable<?, ?> invokable) {
+         Class<?> owner = invokable.getOwnerType().getRawType();
+         parameters = getInvokableParameters(invokable);
+
+         Optional<String> httpMethod = Optional.absent();
+         IllegalStateException httpMethodError = null;
+         try {
+            httpMethod = tryFindHttpMethod(invokable);
+         } catch (IllegalStateException e) {
+            httpMethodError = e;
+         }
+         this.httpMethod = httpMethod;
+         this.httpMethodError = httpMethodError;
+
+         ImmutableList.Builder<Class<? extends HttpRequestFilter>> filters = ImmutableList.builder();
+         if (owner.isAnnotationPresent(RequestFilters.class)
+               && !(invokable.isAnnotationPresent(RequestFilters.class) && invokable
+                     .isAnnotationPresent(OverrideRequestFilters.class)))
+            filters.add(owner.getAnnotation(RequestFilters.class).value());
+         if (invokable.isAnnotationPresent(RequestFilters.class))
+            filters.add(invokable.getAnnotation(RequestFilters.class).value());
+         this.filters = filters.build();
+
+         SkipEncoding skipEncoding = invokable.isAnnotationPresent(SkipEncoding.class) ? invokable
+               .getAnnotation(SkipEncoding.class) : owner.getAnnotation(SkipEncoding.class);
+         this.skipEncoding = skipEncoding != null ? ImmutableSet.copyOf(Chars.asList(skipEncoding.value())) : null;
+
+         ownerPath = owner.isAnnotationPresent(Path.class) ? owner.getAnnotation(Path.class).value() : null;
+         path = invokable.isAnnotationPresent(Path.class) ? invokable.getAnnotation(Path.class).value() : null;
+         ownerFormParams = owner.getAnnotation(FormParams.class);
+         formParams = invokable.getAnnotation(FormParams.class);
+         ownerQueryParams = owner.getAnnotation(QueryParams.class);
+         queryParams = invokable.getAnnotation(QueryParams.class);
+         ownerHeaders = owner.getAnnotation(Headers.class);
+         headers = invokable.getAnnotation(Headers.class);
+         Produces produces = invokable.isAnnotationPresent(Produces.class) ? invokable.getAnnotation(Produces.class)
+               : owner.getAnnotation(Produces.class);
+         this.produces = produces != null ? ImmutableList.copyOf(asList(produces.value())) : null;
+         virtualHost = owner.isAnnotationPresent(VirtualHost.class) || invokable.isAnnotationPresent(VirtualHost.class);
+         endpoint = invokable.isAnnotationPresent(Endpoint.class) ? invokable.getAnnotation(Endpoint.class) : owner
+               .getAnnotation(Endpoint.class);
+         payloadParams = invokable.getAnnotation(PayloadParams.class);
+         mapBinder = invokable.getAnnotation(MapBinder.class);
+         stringPayload = invokable.isAnnotationPresent(org.jclouds.rest.annotations.Payload.class);
+         wrapWith = invokable.getAnnotation(WrapWith.class);
+
+         endpointParams = parametersWithAnnotation(invokable, EndpointParam.class);
+         pathParams = parametersWithAnnotation(invokable, PathParam.class);
+         formParamParams = parametersWithAnnotation(invokable, FormParam.class);
+         queryParamParams = parametersWithAnnotation(invokable, QueryParam.class);
+         headerParams = parametersWithAnnotation(invokable, HeaderParam.class);
+         partParams = parametersWithAnnotation(invokable, PartParam.class);
+         payloadParamParams = parametersWithAnnotation(invokable, PayloadParam.class);
+         binderOrWrapWithParams = ImmutableSet.copyOf(concat(parametersWithAnnotation(invokable, BinderParam.class),
+               parametersWithAnnotation(invokable, WrapWith.class))).asList();
+         encodeFullPath = parametersWithAnnotation(invokable, Encoded.class).isEmpty();
+      }
+
+      private Optional<String> httpMethod() {
+         if (httpMethodError != null)
+            throw httpMethodError;
+         return httpMethod;
+      }
+   }
+
    private Set<HttpRequestOptions> findOptionsIn(Invocation invocation) {
       ImmutableSet.Builder<HttpRequestOptions> result = ImmutableSet.builder();
       for (int index : invokableToIndexesOfOptions.getUnchecked(invocation.getInvokable())) {
@@ -716,16 +803,21 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return result.build();
    }
 
-   private Multimap<String, String> buildHeaders(Multimap<String, ?> tokenValues, Invocation invocation) {
+   private Multimap<String, String> buildHeaders(Multimap<String, ?> tokenValues, Invocation invocation,
+         RequestPlan plan) {
       Multimap<String, String> headers = LinkedHashMultimap.create();
-      addHeaderIfAnnotationPresentOnMethod(headers, invocation, tokenValues);
-      for (Parameter headerParam : parametersWithAnnotation(invocation.getInvokable(), HeaderParam.class)) {
+      if (plan.ownerHeaders != null)
+         addHeader(headers, plan.ownerHeaders, tokenValues);
+      if (plan.headers != null)
+         addHeader(headers, plan.headers, tokenValues);
+      for (Parameter headerParam : plan.headerParams) {
          Annotation key = headerParam.getAnnotation(HeaderParam.class);
          String value = invocation.getArgs().get(headerParam.hashCode()).toString();
          value = replaceTokens(value, tokenValues);
          headers.put(((HeaderParam) key).value(), value);
       }
-      addProducesIfPresentOnTypeOrMethod(headers, invocation);
+      if (plan.produces != null)
+         headers.replaceValues(CONTENT_TYPE, plan.produces);
       addConsumesIfPresentOnTypeOrMethod(headers, invocation);
       return headers;
    }
@@ -736,29 +828,6 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
          headers.replaceValues(ACCEPT, accept);
    }
 
-   private void addProducesIfPresentOnTypeOrMethod(Multimap<String, String> headers, Invocation invocation) {
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(Produces.class)) {
-         Produces header = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(Produces.class);
-         headers.replaceValues(CONTENT_TYPE, asList(header.value()));
-      }
-      if (invocation.getInvokable().isAnnotationPresent(Produces.class)) {
-         Produces header = invocation.getInvokable().getAnnotation(Produces.class);
-         headers.replaceValues(CONTENT_TYPE, asList(header.value()));
-      }
-   }
-
-   private void addHeaderIfAnnotationPresentOnMethod(Multimap<String, String> headers, Invocation invocation,
-         Multimap<String, ?> tokenValues) {
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(Headers.class)) {
-         Headers header = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(Headers.class);
-         addHeader(headers, header, tokenValues);
-      }
-      if (invocation.getInvokable().isAnnotationPresent(Headers.class)) {
-         Headers header = invocation.getInvokable().getAnnotation(Headers.class);
-         addHeader(headers, header, tokenValues);
-      }
-   }
-
    private static void addHeader(Multimap<String, String> headers, Headers header, Multimap<String, ?> tokenValues) {
       for (int i = 0; i < header.keys().length; i++) {
          String value = header.values()[i];
@@ -770,9 +839,9 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       }
    }
 
-   private static List<Part> getParts(Invocation invocation, Multimap<String, ?> tokenValues) {
+   private static List<Part> getParts(Invocation invocation, RequestPlan plan, Multimap<String, ?> tokenValues) {
       ImmutableList.Builder<Part> parts = ImmutableList.<Part> builder();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), PartParam.class)) {
+      for (Parameter param : plan.partParams) {
          PartParam partParam = param.getAnnotation(PartParam.class);
          PartOptions options = new PartOptions();
          if (!PartParam.NO_CONTENT_TYPE.equals(partParam.contentType()))
@@ -799,13 +868,10 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return request;
    }
 
-   private boolean isEncodedUsed(Invocation invocation) {
-      return !parametersWithAnnotation(invocation.getInvokable(), Encoded.class).isEmpty();
-   }
-
-   private Multimap<String, Object> getPathParamKeyValues(Invocation invocation, boolean encodeFullPath) {
+   private Multimap<String, Object> getPathParamKeyValues(Invocation invocation, RequestPlan plan,
+         boolean encodeFullPath) {
       Multimap<String, Object> pathParamValues = LinkedHashMultimap.create();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), PathParam.class)) {
+      for (Parameter param : plan.pathParams) {
          PathParam pathParam = param.getAnnotation(PathParam.class);
          String paramKey = pathParam.value();
          Optional<?> paramValue = getParamValue(invocation, param.getAnnotation(ParamParser.class), param.hashCode(),
@@ -826,22 +892,23 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       Object arg = invocation.getArgs().get(argIndex);
       if (extractor != null && checkPresentOrNullable(invocation, paramKey, argIndex, arg)) {
          // ParamParsers can deal with nullable parameters
-         arg = injector.getInstance(extractor.value()).apply(arg);
+         arg = getInstance(extractor.value()).apply(arg);
       }
       checkPresentOrNullable(invocation, paramKey, argIndex, arg);
       return Optional.fromNullable(arg);
    }
 
    private boolean checkPresentOrNullable(Invocation invocation, String paramKey, int argIndex, Object arg) {
-      if (arg == null && !getInvokableParameters(invocation.getInvokable()).get(argIndex).isAnnotationPresent(Nullable.class))
+      if (arg == null && !invokableToRequestPlan.getUnchecked(invocation.getInvokable()).parameters.get(argIndex)
+            .isAnnotationPresent(Nullable.class))
          throw new NullPointerException(format("param{%s} for invocation %s.%s", paramKey, invocation.getInvokable()
                .getOwnerType().getRawType().getSimpleName(), invocation.getInvokable().getName()));
       return true;
    }
 
-   private Multimap<String, Object> getFormParamKeyValues(Invocation invocation) {
+   private Multimap<String, Object> getFormParamKeyValues(Invocation invocation, RequestPlan plan) {
       Multimap<String, Object> formParamValues = LinkedHashMultimap.create();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), FormParam.class)) {
+      for (Parameter param : plan.formParamParams) {
          FormParam formParam = param.getAnnotation(FormParam.class);
          String paramKey = formParam.value();
          Optional<?> paramValue = getParamValue(invocation, param.getAnnotation(ParamParser.class), param.hashCode(),
@@ -852,9 +919,10 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return formParamValues;
    }
 
-   private Multimap<String, Object> getQueryParamKeyValues(Invocation invocation, Multimap<String, ?> tokenValues) {
+   private Multimap<String, Object> getQueryParamKeyValues(Invocation invocation, RequestPlan plan,
+         Multimap<String, ?> tokenValues) {
       Multimap<String, Object> queryParamValues = LinkedHashMultimap.create();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), QueryParam.class)) {
+      for (Parameter param : plan.queryParamParams) {
          QueryParam queryParam = param.getAnnotation(QueryParam.class);
          String paramKey = urlEncode(queryParam.value(), '/', ',');
          Optional<?> paramValue = getParamValue(invocation, param.getAnnotation(ParamParser.class), param.hashCode(),
@@ -877,9 +945,9 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return queryParamValues;
    }
 
-   private Map<String, Object> buildPayloadParams(Invocation invocation) {
+   private Map<String, Object> buildPayloadParams(Invocation invocation, RequestPlan plan) {
       Map<String, Object> payloadParamValues = Maps.newLinkedHashMap();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), PayloadParam.class)) {
+      for (Parameter param : plan.payloadParamParams) {
          PayloadParam payloadParam = param.getAnnotation(PayloadParam.class);
          String paramKey = payloadParam.value();
          Optional<?> paramValue = getParamValue(invocation, param.getAnnotation(ParamParser.class), param.hashCode(),
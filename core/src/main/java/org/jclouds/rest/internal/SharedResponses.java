@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.jclouds.http.HttpUtils.toByteArrayOrNull;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.jclouds.domain.Credentials;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.io.Payload;
+import org.jclouds.io.PayloadEnclosing;
+import org.jclouds.io.Payloads;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.primitives.Primitives;
+import com.google.common.reflect.TypeToken;
+
+/**
+ * Helpers for handing the result of one request to several callers.
+ */
+final class SharedResponses {
+
+   /**
+    * Types whose values are read as the response body is consumed.
+    */
+   private static final ImmutableList<Class<?>> BODIES = ImmutableList.<Class<?>> of(InputStream.class,
+         Iterator.class, Payload.class, PayloadEnclosing.class, HttpResponse.class);
+
+   /**
+    * @return a key identifying {@code request}, as generated and before filters are applied, for the caller
+    *         authenticated by {@code credentials}
+    */
+   static String key(Credentials credentials, HttpRequest request) {
+      StringBuilder key = new StringBuilder();
+      if (credentials != null && credentials.identity != null)
+         key.append(credentials.identity);
+      key.append('\n').append(request.getRequestLine());
+      for (Map.Entry<String, String> header : request.getHeaders().entries())
+         key.append('\n').append(header.getKey()).append(": ").append(header.getValue());
+      return key.toString();
+   }
+
+   /**
+    * @return true if values of {@code type} can be handed to several callers as is: primitives and their wrappers,
+    *         strings, enums, {@link URI}s and Guava immutable collections and {@link Optional}s of those
+    */
+   static boolean isImmutable(Type type) {
+      if (type instanceof WildcardType)
+         return isImmutable(WildcardType.class.cast(type).getUpperBounds()[0]);
+      Class<?> raw = TypeToken.of(type).getRawType();
+      if (raw.isPrimitive() || Primitives.isWrapperType(raw) || raw.isEnum() || raw == String.class
+            || raw == URI.class)
+         return true;
+      if (!(ImmutableCollection.class.isAssignableFrom(raw) || ImmutableMap.class.isAssignableFrom(raw)
+            || ImmutableMultimap.class.isAssignableFrom(raw) || raw == Optional.class))
+         return false;
+      if (!(type instanceof ParameterizedType))
+         return false;
+      for (Type argument : ParameterizedType.class.cast(type).getActualTypeArguments()) {
+         if (!isImmutable(argument))
+            return false;
+      }
+      return true;
+   }
+
+   /**
+    * @return true if values of {@code type} read the response body lazily, or expose it, as streams, iterators,
+    *         payloads and objects with content do; such responses are not buffered
+    */
+   static boolean carriesBody(Type type) {
+      Class<?> raw = TypeToken.of(type).getRawType();
+      for (Class<?> body : BODIES) {
+         if (body.isAssignableFrom(raw))
+            return true;
+      }
+      for (Method method : raw.getMethods()) {
+         if (method.getParameterTypes().length == 0 && (Payload.class.isAssignableFrom(method.getReturnType())
+               || InputStream.class.isAssignableFrom(method.getReturnType())))
+            return true;
+      }
+      return false;
+   }
+
+   /**
+    * A response whose body has been read into memory, so that each caller can parse a copy of its own.
+    */
+   static final class BufferedResponse {
+      private final HttpResponse response;
+      private final byte[] body;
+
+      /**
+       * Reads and closes the body of {@code response}.
+       */
+      BufferedResponse(HttpResponse response) {
+         this.response = response;
+         this.body = toByteArrayOrNull(response);
+      }
+
+      /**
+       * @return the status and headers of the response, with a payload of its own over the buffered body
+       */
+      HttpResponse copy() {
+         if (body == null)
+            return response.toBuilder().build();
+         Payload payload = Payloads.newByteArrayPayload(body);
+         HttpUtils.copy(response.getPayload().getContentMetadata(), payload.getContentMetadata());
+         return response.toBuilder().payload(payload).build();
+      }
+   }
+
+   private SharedResponses() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
@@ -24,6 +24,7 @@ import java.io.InputStream;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.net.URI;
+import java.util.Iterator;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -35,6 +36,7 @@ import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.functions.ParseFirstJsonValueNamed;
 import org.jclouds.http.functions.ParseJson;
+import org.jclouds.http.functions.ParseJsonArrayElements;
 import org.jclouds.http.functions.ParseSax;
 import org.jclouds.http.functions.ParseSax.Factory;
 import org.jclouds.http.functions.ParseSax.HandlerWithResult;
@@ -44,6 +46,7 @@ import org.jclouds.http.functions.ReleasePayloadAndReturn;
 import org.jclouds.http.functions.ReturnInputStream;
 import org.jclouds.http.functions.ReturnStringIf2xx;
 import org.jclouds.http.functions.ReturnTrueIf2xx;
+import org.jclouds.http.functions.ThreadLocalHandlers;
 import org.jclouds.http.functions.UnwrapOnlyJsonValue;
 import org.jclouds.json.internal.GsonWrapper;
 import org.jclouds.reflect.Invocation;
@@ -60,23 +63,44 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Functions;
 import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.reflect.Invokable;
 import com.google.common.reflect.TypeToken;
 import com.google.inject.Injector;
 import com.google.inject.Key;
+import com.google.inject.Provider;
 import com.google.inject.TypeLiteral;
 
 public class TransformerForRequest implements Function<HttpRequest, Function<HttpResponse, ?>> {
    private final ParseSax.Factory parserFactory;
    private final Injector injector;
    private final GetAcceptHeaders getAcceptHeaders;
+   private final ThreadLocalHandlers handlers;
+   private final LoadingCache<Class<? extends HandlerWithResult<?>>, Provider<? extends HandlerWithResult<?>>>
+         providers;
 
-   @Inject TransformerForRequest(Injector injector, Factory parserFactory, GetAcceptHeaders getAcceptHeaders) {
+   @Inject TransformerForRequest(final Injector injector, Factory parserFactory, GetAcceptHeaders getAcceptHeaders,
+         ThreadLocalHandlers handlers) {
       this.injector = injector;
       this.parserFactory = parserFactory;
       this.getAcceptHeaders = getAcceptHeaders;
+      this.handlers = handlers;
+      this.providers = CacheBuilder.newBuilder().build(
+            new CacheLoader<Class<? extends HandlerWithResult<?>>, Provider<? extends HandlerWithResult<?>>>() {
+               @Override
+               public Provider<? extends HandlerWithResult<?>> load(Class<? extends HandlerWithResult<?>> key) {
+                  return injector.getProvider(key);
+               }
+            });
    }
 
+   /**
+    * Handlers that are {@link ParseSax.ReusableHandler reusable} are borrowed from {@link ThreadLocalHandlers} and
+    * handed back once the response is parsed; all others are created for each response, as they keep the state of
+    * the parse.
+    */
    @SuppressWarnings("unchecked")
    @Override
    public Function<HttpResponse, ?> apply(HttpRequest in) {
@@ -85,8 +109,14 @@ public class TransformerForRequest implements Function<HttpRequest, Function<Htt
       Class<? extends HandlerWithResult<?>> handler = getSaxResponseParserClassOrNull(request.getInvocation()
             .getInvokable());
       if (handler != null) {
-         HandlerWithResult<?> h = injector.getInstance(handler);
-         transformer = parserFactory.create(h);
+         HandlerWithResult<?> h = handlers.acquire(handler, providers.getUnchecked(handler));
+         if (h instanceof ParseSax.StreamingHandler) {
+            ParseSax.ElementCallback<?> callback = findElementCallbackOrNull(request.getInvocation());
+            if (callback != null) {
+               ParseSax.StreamingHandler.class.cast(h).setElementCallback(callback);
+            }
+         }
+         transformer = parserFactory.create(h).releaseHandlerTo(handlers, handler);
       } else {
          transformer = getTransformerForMethod(request.getInvocation(), injector);
       }
@@ -104,6 +134,19 @@ public class TransformerForRequest implements Function<HttpRequest, Function<Htt
       return transformer;
    }
 
+   /**
+    * Methods using a {@link ParseSax.StreamingHandler} opt in to receiving the parsed elements as they arrive by taking
+    * an {@link ParseSax.ElementCallback} argument.
+    */
+   private static ParseSax.ElementCallback<?> findElementCallbackOrNull(Invocation invocation) {
+      for (Object arg : invocation.getArgs()) {
+         if (arg instanceof ParseSax.ElementCallback) {
+            return (ParseSax.ElementCallback<?>) arg;
+         }
+      }
+      return null;
+   }
+
    @SuppressWarnings("unchecked")
    @VisibleForTesting
    Key<? extends Function<HttpResponse, ?>> getParserOrThrowException(Invocation invocation) {
@@ -179,7 +222,13 @@ public class TransformerForRequest implements Function<HttpRequest, Function<Htt
    public Function<HttpResponse, ?> getTransformerForMethod(Invocation invocation, Injector injector) {
       Invokable<?, ?> invoked = invocation.getInvokable();
       Function<HttpResponse, ?> transformer;
-      if (invoked.isAnnotationPresent(SelectJson.class)) {
+      if (streamsJsonArray(invocation)) {
+         // elements are parsed as the caller iterates
+         Type elementType = invoked.getReturnType().resolveType(Iterator.class.getTypeParameters()[0]).getType();
+         String[] nameChoices = invoked.isAnnotationPresent(SelectJson.class) ? invoked.getAnnotation(SelectJson.class)
+               .value() : new String[0];
+         transformer = new ParseJsonArrayElements(injector.getInstance(GsonWrapper.class), elementType, nameChoices);
+      } else if (invoked.isAnnotationPresent(SelectJson.class)) {
          Type returnVal = getReturnTypeFor(invoked.getReturnType());
          if (invoked.isAnnotationPresent(OnlyElement.class))
             returnVal = newParameterizedType(Set.class, returnVal);
@@ -193,6 +242,18 @@ public class TransformerForRequest implements Function<HttpRequest, Function<Htt
       return transformer;
    }
 
+   /**
+    * Methods returning an {@link Iterator} of json array elements stream them, unless they name their own parser or
+    * transform the response, as the paging iterators of list calls do.
+    */
+   private boolean streamsJsonArray(Invocation invocation) {
+      Invokable<?, ?> invoked = invocation.getInvokable();
+      return invoked.getReturnType().getRawType().equals(Iterator.class)
+            && !invoked.isAnnotationPresent(ResponseParser.class) && !invoked.isAnnotationPresent(Transform.class)
+            && (invoked.isAnnotationPresent(SelectJson.class)
+                  || getAcceptHeaders.apply(invocation).contains(APPLICATION_JSON));
+   }
+
    static Class<? extends HandlerWithResult<?>> getSaxResponseParserClassOrNull(Invokable<?, ?> invoked) {
       XMLResponseParser annotation = invoked.getAnnotation(XMLResponseParser.class);
       if (annotation != null) {
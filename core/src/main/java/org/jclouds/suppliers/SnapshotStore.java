@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.suppliers;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_CREDENTIAL;
+import static org.jclouds.Constants.PROPERTY_SNAPSHOT_DIR;
+import static org.jclouds.Constants.PROPERTY_SNAPSHOT_TTL;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.domain.Credentials;
+import org.jclouds.json.Json;
+import org.jclouds.location.Provider;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.Inject;
+
+/**
+ * Persists provider catalogs (locations, images, ...) between runs so that a new context can be served from the
+ * previous run's listing while the live listing is fetched in the background.
+ * <p>
+ * Snapshots are stored as one JSON record per line, preceded by a header line. They are keyed on the provider, the
+ * endpoint, the identity and the properties bound to the context, so a change of account or query filters never
+ * reuses a stale catalog. As catalogs may contain default login credentials, the files are only readable by their
+ * owner.
+ * <p>
+ * Disabled unless {@link org.jclouds.Constants#PROPERTY_SNAPSHOT_DIR} is set.
+ */
+@Beta
+@Singleton
+public class SnapshotStore {
+
+   private static final Set<String> UNKEYED_PROPERTIES = ImmutableSet.of(PROPERTY_CREDENTIAL, PROPERTY_SNAPSHOT_DIR,
+         PROPERTY_SNAPSHOT_TTL);
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_SNAPSHOT_DIR)
+   private String dir = null;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_SNAPSHOT_TTL)
+   private long ttlSeconds = TimeUnit.DAYS.toSeconds(1);
+
+   private final Json json;
+   private final ListeningExecutorService userExecutor;
+   private final Supplier<String> key;
+   private final Ticker wallClock;
+
+   @Inject
+   SnapshotStore(Json json, @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         @Provider final String provider, @Provider final Supplier<URI> endpoint,
+         @Provider final Supplier<Credentials> creds,
+         final Function<Predicate<String>, Map<String, String>> filterStringsBoundByName) {
+      this(json, userExecutor, new Supplier<String>() {
+         @Override
+         public String get() {
+            return key(provider, endpoint.get(), creds.get().identity,
+                  filterStringsBoundByName.apply(Predicates.not(Predicates.in(UNKEYED_PROPERTIES))));
+         }
+      }, WALL_CLOCK);
+   }
+
+   @VisibleForTesting
+   SnapshotStore(Json json, ListeningExecutorService userExecutor, Supplier<String> key, Ticker wallClock) {
+      this.json = checkNotNull(json, "json");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.key = Suppliers.memoize(checkNotNull(key, "key"));
+      this.wallClock = checkNotNull(wallClock, "wallClock");
+   }
+
+   @VisibleForTesting
+   SnapshotStore withDir(String dir, long ttlSeconds) {
+      this.dir = dir;
+      this.ttlSeconds = ttlSeconds;
+      return this;
+   }
+
+   public boolean isEnabled() {
+      return dir != null;
+   }
+
+   /**
+    * Executor used to revalidate snapshots in the background.
+    */
+   public ListeningExecutorService executor() {
+      return userExecutor;
+   }
+
+   /**
+    * Reads the records of the given catalog, if a snapshot for the current key exists and is younger than the
+    * configured ttl. Unreadable snapshots are logged and ignored.
+    */
+   public <R> Optional<List<R>> read(String catalog, Class<R> recordType) {
+      if (!isEnabled())
+         return Optional.absent();
+      File file = file(catalog);
+      if (!file.isFile())
+         return Optional.absent();
+      try {
+         BufferedReader reader = Files.newBufferedReader(file.toPath(), UTF_8);
+         try {
+            String line = reader.readLine();
+            Header header = line != null ? json.fromJson(line, Header.class) : null;
+            if (header == null || !key.get().equals(header.key)) {
+               logger.debug("<< ignoring snapshot %s: key mismatch", file);
+               return Optional.absent();
+            }
+            long ageMillis = currentTimeMillis() - header.created;
+            if (ageMillis < 0 || ageMillis > TimeUnit.SECONDS.toMillis(ttlSeconds)) {
+               logger.debug("<< ignoring snapshot %s: expired", file);
+               return Optional.absent();
+            }
+            ImmutableList.Builder<R> records = ImmutableList.builder();
+            while ((line = reader.readLine()) != null) {
+               if (!line.isEmpty())
+                  records.add(json.fromJson(line, recordType));
+            }
+            List<R> result = records.build();
+            logger.debug("<< read %d %s from snapshot %s", result.size(), catalog, file);
+            return Optional.of(result);
+         } finally {
+            reader.close();
+         }
+      } catch (IOException e) {
+         logger.warn(e, "<< could not read snapshot %s", file);
+      } catch (RuntimeException e) {
+         logger.warn(e, "<< ignoring corrupt snapshot %s", file);
+      }
+      return Optional.absent();
+   }
+
+   /**
+    * Atomically replaces the snapshot of the given catalog. Failures are logged, as the snapshot is only an
+    * optimization.
+    */
+   public void write(String catalog, Iterable<?> records) {
+      if (!isEnabled())
+         return;
+      File file = file(catalog);
+      Path tmp = null;
+      try {
+         Path parent = Files.createDirectories(file.getParentFile().toPath());
+         tmp = createOwnerOnlyTempFile(parent, file.getName());
+         Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(tmp), UTF_8));
+         try {
+            writer.write(json.toJson(new Header(key.get(), currentTimeMillis())));
+            writer.write('\n');
+            for (Object record : records) {
+               writer.write(json.toJson(record));
+               writer.write('\n');
+            }
+         } finally {
+            writer.close();
+         }
+         Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         tmp = null;
+         logger.debug(">> wrote snapshot %s", file);
+      } catch (IOException e) {
+         logger.warn(e, ">> could not write snapshot %s", file);
+      } catch (RuntimeException e) {
+         logger.warn(e, ">> could not write snapshot %s", file);
+      } finally {
+         if (tmp != null)
+            tmp.toFile().delete();
+      }
+   }
+
+   @VisibleForTesting
+   File file(String catalog) {
+      return new File(dir, catalog + "-" + key.get() + ".json");
+   }
+
+   private long currentTimeMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(wallClock.read());
+   }
+
+   private static Path createOwnerOnlyTempFile(Path parent, String name) throws IOException {
+      if (parent.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+         FileAttribute<Set<PosixFilePermission>> ownerOnly = PosixFilePermissions.asFileAttribute(PosixFilePermissions
+               .fromString("rw-------"));
+         return Files.createTempFile(parent, name, ".tmp", ownerOnly);
+      }
+      Path tmp = Files.createTempFile(parent, name, ".tmp");
+      File file = tmp.toFile();
+      file.setReadable(false, false);
+      file.setReadable(true, true);
+      file.setWritable(false, false);
+      file.setWritable(true, true);
+      return tmp;
+   }
+
+   @VisibleForTesting
+   static String key(String provider, URI endpoint, String identity, Map<String, String> properties) {
+      Hasher hasher = Hashing.sha256().newHasher();
+      hasher.putString(provider, UTF_8).putChar('\n');
+      hasher.putString(String.valueOf(endpoint), UTF_8).putChar('\n');
+      hasher.putString(String.valueOf(identity), UTF_8).putChar('\n');
+      SortedMap<String, String> sorted = Maps.newTreeMap();
+      sorted.putAll(properties);
+      for (Map.Entry<String, String> property : sorted.entrySet()) {
+         hasher.putString(property.getKey(), UTF_8).putChar('=');
+         hasher.putString(String.valueOf(property.getValue()), UTF_8).putChar('\n');
+      }
+      return provider + "-" + hasher.hash().toString();
+   }
+
+   private static final Ticker WALL_CLOCK = new Ticker() {
+      @Override
+      public long read() {
+         return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+      }
+   };
+
+   private static final class Header {
+      private String key;
+      private long created;
+
+      private Header(String key, long created) {
+         this.key = key;
+         this.created = created;
+      }
+   }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.suppliers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Resource;
+
+import org.jclouds.logging.Logger;
+import org.jclouds.rest.suppliers.ValueLoadedCallback;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Decorates a catalog supplier so that the first call of a new context is answered from the {@link SnapshotStore},
+ * while the live catalog is fetched in the background. Every live listing refreshes the snapshot.
+ * <p>
+ * Once the background revalidation completes, the live value is passed to the {@link ValueLoadedCallback}, if any,
+ * and returned by the next call to {@link #get()}. Subsequent calls always hit the delegate.
+ * 
+ * @param <T>
+ *           catalog element type
+ * @param <R>
+ *           serializable record type the elements are persisted as
+ */
+@Beta
+public abstract class WarmStartSupplier<T, R> implements Supplier<Set<? extends T>> {
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final SnapshotStore store;
+   private final String catalog;
+   private final Class<R> recordType;
+   private final Supplier<Set<? extends T>> delegate;
+   private final AtomicBoolean started = new AtomicBoolean();
+   private final AtomicReference<Set<? extends T>> revalidated = new AtomicReference<Set<? extends T>>();
+   private volatile ValueLoadedCallback<Set<? extends T>> callback;
+
+   protected WarmStartSupplier(SnapshotStore store, String catalog, Class<R> recordType,
+         Supplier<Set<? extends T>> delegate) {
+      this.store = checkNotNull(store, "store");
+      this.catalog = checkNotNull(catalog, "catalog");
+      this.recordType = checkNotNull(recordType, "recordType");
+      this.delegate = checkNotNull(delegate, "delegate");
+   }
+
+   protected abstract R toRecord(T in);
+
+   protected abstract T fromRecord(R in);
+
+   /**
+    * Registers a callback to be notified when the background revalidation of the snapshot completes.
+    */
+   public WarmStartSupplier<T, R> onRevalidated(ValueLoadedCallback<Set<? extends T>> callback) {
+      this.callback = callback;
+      return this;
+   }
+
+   @Override
+   public Set<? extends T> get() {
+      if (!started.getAndSet(true)) {
+         Optional<Set<? extends T>> snapshot = readSnapshot();
+         if (snapshot.isPresent()) {
+            store.executor().submit(new Runnable() {
+               @Override
+               public void run() {
+                  revalidate();
+               }
+            });
+            return snapshot.get();
+         }
+      }
+      Set<? extends T> fresh = revalidated.getAndSet(null);
+      return fresh != null ? fresh : load();
+   }
+
+   private void revalidate() {
+      try {
+         Set<? extends T> fresh = load();
+         revalidated.set(fresh);
+         ValueLoadedCallback<Set<? extends T>> callback = this.callback;
+         if (callback != null)
+            callback.valueLoaded(Optional.<Set<? extends T>> of(fresh));
+      } catch (RuntimeException e) {
+         logger.warn(e, "<< could not revalidate %s snapshot", catalog);
+      }
+   }
+
+   private Set<? extends T> load() {
+      Set<? extends T> fresh = delegate.get();
+      ImmutableList.Builder<R> records = ImmutableList.builder();
+      try {
+         for (T in : fresh)
+            records.add(toRecord(in));
+      } catch (RuntimeException e) {
+         logger.warn(e, ">> not snapshotting %s", catalog);
+         return fresh;
+      }
+      store.write(catalog, records.build());
+      return fresh;
+   }
+
+   private Optional<Set<? extends T>> readSnapshot() {
+      Optional<List<R>> records = store.read(catalog, recordType);
+      if (!records.isPresent())
+         return Optional.absent();
+      try {
+         ImmutableSet.Builder<T> elements = ImmutableSet.builder();
+         for (R record : records.get())
+            elements.add(fromRecord(record));
+         return Optional.<Set<? extends T>> of(elements.build());
+      } catch (RuntimeException e) {
+         logger.warn(e, "<< ignoring unusable %s snapshot", catalog);
+         return Optional.absent();
+      }
+   }
+}
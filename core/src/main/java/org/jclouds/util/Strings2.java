@@ -179,6 +179,9 @@ public class Strings2 {
    private static final Pattern TOKEN_PATTERN = Pattern.compile("\\{(.+?)\\}");
 
    public static String replaceTokens(String input, Multimap<String, ?> tokenValues) {
+      // tokens are always of the form {name}; most constant values have none
+      if (input.indexOf('{') == -1)
+         return input;
       for (Entry<String, ?> tokenValue : tokenValues.entries()) {
          Pattern pattern = TOKEN_TO_PATTERN.getUnchecked(tokenValue.getKey());
          input = pattern.matcher(input).replaceAll(tokenValue.getValue().toString().replace("\\", "\\\\").replace("$", "\\$"));
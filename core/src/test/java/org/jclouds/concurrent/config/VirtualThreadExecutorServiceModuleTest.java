@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.concurrent.config;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.metrics.internal.NullMetricsRecorder;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+@Test(groups = "unit", testName = "VirtualThreadExecutorServiceModuleTest")
+public class VirtualThreadExecutorServiceModuleTest {
+
+   public void testBoundedRunsAtMostPermitsTasksAtOnce() throws Exception {
+      ExecutorService pool = Executors.newCachedThreadPool();
+      ExecutorService bounded = VirtualThreadExecutorServiceModule.bounded(pool, new Semaphore(2));
+      final AtomicInteger running = new AtomicInteger();
+      final AtomicInteger maxRunning = new AtomicInteger();
+      final CountDownLatch allSubmitted = new CountDownLatch(1);
+      try {
+         List<Future<Void>> futures = Lists.newArrayList();
+         for (int i = 0; i < 10; i++) {
+            futures.add(bounded.submit(new Callable<Void>() {
+               @Override
+               public Void call() throws Exception {
+                  int now = running.incrementAndGet();
+                  for (;;) {
+                     int max = maxRunning.get();
+                     if (now <= max || maxRunning.compareAndSet(max, now))
+                        break;
+                  }
+                  allSubmitted.await(10, TimeUnit.SECONDS);
+                  Thread.sleep(5);
+                  running.decrementAndGet();
+                  return null;
+               }
+            }));
+         }
+         // submitting never blocks, even though only two tasks can run
+         allSubmitted.countDown();
+         for (Future<Void> future : futures)
+            future.get(10, TimeUnit.SECONDS);
+         assertTrue(maxRunning.get() <= 2, "ran " + maxRunning.get() + " tasks at once");
+         assertEquals(running.get(), 0);
+      } finally {
+         bounded.shutdownNow();
+      }
+   }
+
+   public void testBoundedCancelsTaskInterruptedWhileWaitingForPermit() throws Exception {
+      ExecutorService pool = Executors.newCachedThreadPool();
+      ExecutorService bounded = VirtualThreadExecutorServiceModule.bounded(pool, new Semaphore(0));
+      Future<?> future = bounded.submit(new Runnable() {
+         @Override
+         public void run() {
+            fail("ran without a permit");
+         }
+      });
+      bounded.shutdownNow();
+      assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+      assertTrue(future.isCancelled());
+      try {
+         future.get(10, TimeUnit.SECONDS);
+         fail("expected CancellationException");
+      } catch (CancellationException e) {
+         // expected
+      }
+   }
+
+   public void testUserExecutorRunsTasksOnVirtualThreads() throws Exception {
+      if (!VirtualThreadExecutorServiceModule.isAvailable())
+         throw new SkipException("virtual threads require Java 21 or later");
+      final Method isVirtual = Thread.class.getMethod("isVirtual");
+      ListeningExecutorService executor = new VirtualThreadExecutorServiceModule().provideListeningUserExecutorService(
+            2, new Closer(), NullMetricsRecorder.INSTANCE);
+      try {
+         List<ListenableFuture<Boolean>> futures = Lists.newArrayList();
+         for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(new Callable<Boolean>() {
+               @Override
+               public Boolean call() throws Exception {
+                  return (Boolean) isVirtual.invoke(Thread.currentThread());
+               }
+            }));
+         }
+         for (ListenableFuture<Boolean> future : futures)
+            assertTrue(future.get(10, TimeUnit.SECONDS));
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   public void testConstructorFailsWithoutVirtualThreads() {
+      if (VirtualThreadExecutorServiceModule.isAvailable())
+         return;
+      try {
+         new VirtualThreadExecutorServiceModule();
+         fail("expected UnsupportedOperationException");
+      } catch (UnsupportedOperationException e) {
+         assertTrue(e.getMessage().contains("Java 21"), e.getMessage());
+      }
+   }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.io.Payloads;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.json.internal.GsonWrapper;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
+
+@Test(groups = "unit", testName = "ParseJsonArrayElementsTest")
+public class ParseJsonArrayElementsTest {
+
+   GsonWrapper json = Guice.createInjector(new GsonModule()).getInstance(GsonWrapper.class);
+
+   static class Event {
+      private String name;
+      private String source;
+
+      @Override
+      public String toString() {
+         return String.format("(name=%s, source=%s)", name, source);
+      }
+   }
+
+   static class TrackingStream extends ByteArrayInputStream {
+      boolean closed;
+
+      TrackingStream(String json) {
+         super(json.getBytes(StandardCharsets.UTF_8));
+      }
+
+      @Override
+      public void close() throws IOException {
+         closed = true;
+         super.close();
+      }
+   }
+
+   public void testParsesTopLevelArray() {
+      Iterator<Event> events = parse("[{name:'GREETINGS',source:'guest'},{name:'FAREWELL',source:'hôte'}]");
+      assertEquals(ImmutableList.copyOf(events).toString(),
+            "[(name=GREETINGS, source=guest), (name=FAREWELL, source=hôte)]");
+   }
+
+   public void testParsesNamedArray() {
+      Iterator<Event> events = parse("{ \"count\":2, \"meta\": {\"event\": []}, \"_event\" : [ {name:'GREETINGS'} ] }",
+            "event", "_event");
+      // the first value with one of the names wins, wherever it is
+      assertFalse(events.hasNext());
+
+      events = parse("{ \"count\":1, \"meta\": {\"next\": null}, \"_event\" : [ {name:'GREETINGS'} ] }", "_event");
+      assertEquals(ImmutableList.copyOf(events).toString(), "[(name=GREETINGS, source=null)]");
+   }
+
+   public void testMissingOrNullArrayIsEmpty() {
+      assertFalse(parse("{ \"count\":0 }", "event").hasNext());
+      assertFalse(parse("{ \"event\":null }", "event").hasNext());
+   }
+
+   public void testClosesResponseWhenExhausted() {
+      TrackingStream stream = new TrackingStream("[{name:'GREETINGS'},{name:'FAREWELL'}]");
+      Iterator<Event> events = parse(stream);
+      events.next();
+      assertFalse(stream.closed);
+      events.next();
+      assertFalse(events.hasNext());
+      assertTrue(stream.closed);
+   }
+
+   public void testCloseReleasesResponse() throws IOException {
+      TrackingStream stream = new TrackingStream("[{name:'GREETINGS'},{name:'FAREWELL'}]");
+      Iterator<Event> events = parse(stream);
+      events.next();
+      ((Closeable) events).close();
+      assertTrue(stream.closed);
+   }
+
+   private Iterator<Event> parse(String body, String... names) {
+      return parse(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), names);
+   }
+
+   private Iterator<Event> parse(InputStream body, String... names) {
+      HttpResponse response = HttpResponse.builder().statusCode(200).message("ok")
+            .payload(Payloads.newInputStreamPayload(body)).build();
+      return new ParseJsonArrayElements<Event>(json, Event.class, names).apply(response);
+   }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.inject.Provider;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.functions.ParseSax.HandlerWithResult;
+import org.jclouds.logging.Logger;
+import org.testng.annotations.Test;
+import org.xml.sax.Attributes;
+
+@Test(groups = "unit", testName = "ThreadLocalHandlersTest")
+public class ThreadLocalHandlersTest {
+
+   static class CountElements extends HandlerWithResult<Integer> implements ParseSax.ReusableHandler {
+      private int elements;
+
+      @Override
+      public void startElement(String uri, String localName, String qName, Attributes attributes) {
+         elements++;
+      }
+
+      @Override
+      public Integer getResult() {
+         return elements;
+      }
+
+      @Override
+      public void reset() {
+         elements = 0;
+      }
+   }
+
+   static class NotReusable extends HandlerWithResult<Integer> {
+      @Override
+      public Integer getResult() {
+         return 0;
+      }
+   }
+
+   private static final Provider<CountElements> NEW_COUNT_ELEMENTS = new Provider<CountElements>() {
+      @Override
+      public CountElements get() {
+         return new CountElements();
+      }
+   };
+
+   public void testReleasedHandlerIsResetAndReusedOnSameThread() {
+      ThreadLocalHandlers handlers = new ThreadLocalHandlers();
+      CountElements handler = (CountElements) handlers.acquire(CountElements.class, NEW_COUNT_ELEMENTS);
+      handler.elements = 2;
+      handlers.release(CountElements.class, handler);
+      assertSame(handlers.acquire(CountElements.class, NEW_COUNT_ELEMENTS), handler);
+      assertEquals(handler.getResult(), Integer.valueOf(0));
+   }
+
+   public void testHandlerInUseIsNotShared() {
+      ThreadLocalHandlers handlers = new ThreadLocalHandlers();
+      assertNotSame(handlers.acquire(CountElements.class, NEW_COUNT_ELEMENTS),
+            handlers.acquire(CountElements.class, NEW_COUNT_ELEMENTS));
+   }
+
+   public void testHandlerThatIsNotReusableIsNotKept() {
+      ThreadLocalHandlers handlers = new ThreadLocalHandlers();
+      NotReusable handler = new NotReusable();
+      handlers.release(NotReusable.class, handler);
+      assertNotSame(handlers.acquire(NotReusable.class, new Provider<NotReusable>() {
+         @Override
+         public NotReusable get() {
+            return new NotReusable();
+         }
+      }), handler);
+   }
+
+   public void testParseReleasesHandlerWithoutItsRequest() {
+      ThreadLocalHandlers handlers = new ThreadLocalHandlers();
+      ThreadLocalXMLReaders readers = new ThreadLocalXMLReaders(SAXParserFactory.newInstance());
+      CountElements handler = (CountElements) handlers.acquire(CountElements.class, NEW_COUNT_ELEMENTS);
+      ParseSax<Integer> parser = new ParseSax<Integer>(readers, handler, Logger.NULL).releaseHandlerTo(handlers,
+            CountElements.class);
+      parser.setContext(HttpRequest.builder().method("GET").endpoint("http://localhost/").build());
+
+      assertEquals(parser.parse(new ByteArrayInputStream("<a><b/><b/></a>".getBytes(StandardCharsets.UTF_8))),
+            Integer.valueOf(3));
+      assertSame(handlers.acquire(CountElements.class, NEW_COUNT_ELEMENTS), handler);
+      assertEquals(handler.getResult(), Integer.valueOf(0));
+      assertNull(handler.getRequest());
+   }
+}
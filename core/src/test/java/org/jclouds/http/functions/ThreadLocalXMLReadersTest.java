@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.jclouds.logging.Logger;
+import org.testng.annotations.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.XMLReader;
+
+@Test(groups = "unit", testName = "ThreadLocalXMLReadersTest")
+public class ThreadLocalXMLReadersTest {
+
+   static class CountElements extends ParseSax.HandlerWithResult<Integer> {
+      private int elements;
+
+      @Override
+      public void startElement(String uri, String localName, String qName, Attributes attributes) {
+         elements++;
+      }
+
+      @Override
+      public Integer getResult() {
+         return elements;
+      }
+   }
+
+   public void testReleasedReaderIsReusedOnSameThread() {
+      ThreadLocalXMLReaders readers = new ThreadLocalXMLReaders(SAXParserFactory.newInstance());
+      XMLReader reader = readers.acquire();
+      readers.release(reader);
+      assertSame(readers.acquire(), reader);
+   }
+
+   public void testReaderInUseIsNotShared() {
+      ThreadLocalXMLReaders readers = new ThreadLocalXMLReaders(SAXParserFactory.newInstance());
+      assertNotSame(readers.acquire(), readers.acquire());
+   }
+
+   public void testParsesSuccessiveDocumentsWithPooledReader() {
+      ThreadLocalXMLReaders readers = new ThreadLocalXMLReaders(SAXParserFactory.newInstance());
+      assertEquals(parse(readers, "<a><b/><b/></a>"), Integer.valueOf(3));
+      assertEquals(parse(readers, "<a/>"), Integer.valueOf(1));
+   }
+
+   private static Integer parse(ThreadLocalXMLReaders readers, String xml) {
+      return new ParseSax<Integer>(readers, new CountElements(), Logger.NULL)
+            .parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+   }
+}
@@ -16,9 +16,11 @@
  */
 package org.jclouds.http.internal;
 
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
@@ -32,6 +34,7 @@ import static org.testng.Assert.fail;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -51,6 +54,9 @@ import org.jclouds.io.ContentMetadataCodec;
 import org.jclouds.rest.internal.BaseHttpApiMetadata;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -236,6 +242,34 @@ public class BaseHttpCommandExecutorServiceTest {
       verify(ioRetryHandler);
    }
 
+   public void testFailedHedgedRequestIsCleanedUpOnce() throws IOException {
+      HttpCommand command = new HttpCommand(HttpRequest.builder().endpoint("http://localhost").method("GET").build());
+      final IOExceptionRetryHandler ioRetryHandler = EasyMock.createMock(IOExceptionRetryHandler.class);
+      expect(ioRetryHandler.shouldRetryRequest(eq(command), isA(IOException.class))).andReturn(false);
+      replay(ioRetryHandler);
+
+      Injector injector = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            Names.bindProperties(binder(), BaseHttpApiMetadata.defaultProperties());
+            bind(IOExceptionRetryHandler.class).toInstance(ioRetryHandler);
+            bind(BaseHttpCommandExecutorService.class).to(FailingHttpCommandExecutorService.class);
+         }
+      });
+      FailingHttpCommandExecutorService service = (FailingHttpCommandExecutorService) injector
+            .getInstance(BaseHttpCommandExecutorService.class);
+      service.hedger = new HttpRequestHedger(MoreExecutors.newDirectExecutorService());
+      service.hedger.enabled = true;
+      service.hedger.delayMillis = 50;
+      try {
+         service.invoke(command);
+         fail("Expected to fail due to throwing invoke");
+      } catch (Exception e) {}
+
+      verify(ioRetryHandler);
+      assertEquals(service.cleanedUp, ImmutableList.of(service.nativeRequest));
+   }
+
    private HttpCommand mockHttpCommand() {
       return new HttpCommand(HttpRequest.builder().endpoint("http://localhost").method("mock").build());
    }
@@ -331,4 +365,33 @@ public class BaseHttpCommandExecutorServiceTest {
 
    }
 
+   private static class FailingHttpCommandExecutorService extends MockHttpCommandExecutorService {
+      private final Object nativeRequest = new Object();
+      private final List<Object> cleanedUp = Lists.newArrayList();
+
+      @Inject
+      FailingHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
+            DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
+            DelegatingErrorHandler errorHandler, HttpWire wire,
+            @Named(PROPERTY_IDEMPOTENT_METHODS) String idempotentMethods) {
+         super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, idempotentMethods);
+      }
+
+      @Override
+      protected Object convert(HttpRequest request) {
+         return nativeRequest;
+      }
+
+      @Override
+      protected HttpResponse invoke(Object nativeRequest) throws IOException {
+         throw new IOException("connection reset");
+      }
+
+      @Override
+      protected void cleanup(Object nativeRequest) {
+         if (nativeRequest != null)
+            cleanedUp.add(nativeRequest);
+      }
+   }
+
 }
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.http.HttpResponse;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "HttpRequestHedgerTest", singleThreaded = true)
+public class HttpRequestHedgerTest {
+
+   private ListeningExecutorService userExecutor;
+   private HttpRequestHedger hedger;
+
+   @BeforeMethod
+   public void createHedger() {
+      userExecutor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+      hedger = new HttpRequestHedger(userExecutor);
+      hedger.enabled = true;
+      hedger.delayMillis = 50;
+      hedger.budgetPercent = 100;
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void shutdownUserExecutor() {
+      userExecutor.shutdownNow();
+   }
+
+   /**
+    * Native requests are the time in milliseconds the request takes; negative values fail.
+    */
+   private static class SleepingAttempt implements HttpRequestHedger.Attempt<Integer> {
+      private final Queue<Integer> hedges = new ConcurrentLinkedQueue<Integer>();
+      private final List<Integer> cleanedUp = new CopyOnWriteArrayList<Integer>();
+      private final CountDownLatch cleanup = new CountDownLatch(1);
+
+      private SleepingAttempt(Integer... hedges) {
+         for (Integer hedge : hedges)
+            this.hedges.add(hedge);
+      }
+
+      @Override
+      public Integer convert() {
+         return hedges.remove();
+      }
+
+      @Override
+      public HttpResponse invoke(Integer millis) throws IOException, InterruptedException {
+         TimeUnit.MILLISECONDS.sleep(Math.abs(millis));
+         if (millis < 0)
+            throw new IOException("failed after " + -millis);
+         return HttpResponse.builder().statusCode(200).message(String.valueOf(millis)).build();
+      }
+
+      @Override
+      public void cleanup(Integer nativeRequest) {
+         cleanedUp.add(nativeRequest);
+         cleanup.countDown();
+      }
+   }
+
+   public void testFastPrimaryIsNotHedged() throws Exception {
+      SleepingAttempt attempt = new SleepingAttempt(1);
+      assertEquals(hedger.invoke("GET", 0, attempt).getMessage(), "0");
+      assertEquals(attempt.hedges.size(), 1);
+   }
+
+   public void testSlowPrimaryLosesToHedge() throws Exception {
+      SleepingAttempt attempt = new SleepingAttempt(0);
+      assertEquals(hedger.invoke("GET", 5000, attempt).getMessage(), "0");
+      assertTrue(attempt.cleanup.await(5, TimeUnit.SECONDS));
+      assertEquals(attempt.cleanedUp, ImmutableList.of(5000));
+   }
+
+   public void testFailedHedgeWaitsForPrimary() throws Exception {
+      SleepingAttempt attempt = new SleepingAttempt(-1);
+      assertEquals(hedger.invoke("GET", 200, attempt).getMessage(), "200");
+   }
+
+   @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = "failed after 100")
+   public void testPrimaryFailureIsRethrownWhenBothFail() throws Exception {
+      hedger.invoke("GET", -100, new SleepingAttempt(-1));
+   }
+
+   public void testFailedAttemptsAreCleanedUpOnce() throws Exception {
+      SleepingAttempt attempt = new SleepingAttempt(-1);
+      try {
+         hedger.invoke("GET", -100, attempt);
+         fail("expected the primary failure");
+      } catch (IOException e) {
+      }
+      assertEquals(attempt.cleanedUp, ImmutableList.of(-100, -1));
+   }
+
+   public void testUnhedgedFailureIsCleanedUp() throws Exception {
+      hedger.delayMillis = 0;
+      SleepingAttempt attempt = new SleepingAttempt();
+      try {
+         hedger.invoke("GET", -1, attempt);
+         fail("expected the primary failure");
+      } catch (IOException e) {
+      }
+      assertEquals(attempt.cleanedUp, ImmutableList.of(-1));
+   }
+
+   public void testBudgetLimitsHedges() throws Exception {
+      hedger.budgetPercent = 0;
+      // the initial budget allows a single hedge
+      SleepingAttempt attempt = new SleepingAttempt(0, 0);
+      assertEquals(hedger.invoke("GET", 200, attempt).getMessage(), "0");
+      assertEquals(hedger.invoke("GET", 200, attempt).getMessage(), "200");
+      assertEquals(attempt.hedges.size(), 1);
+   }
+
+   public void testAttemptsWaitingForAThreadRunOnTheCallingThread() throws Exception {
+      userExecutor.shutdownNow();
+      userExecutor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
+      hedger = new HttpRequestHedger(userExecutor);
+      hedger.enabled = true;
+      hedger.delayMillis = 50;
+      hedger.budgetPercent = 100;
+      final CountDownLatch busy = new CountDownLatch(1);
+      userExecutor.submit(new Callable<Void>() {
+         @Override
+         public Void call() throws InterruptedException {
+            busy.await();
+            return null;
+         }
+      });
+      try {
+         SleepingAttempt attempt = new SleepingAttempt(0);
+         assertEquals(hedger.invoke("GET", 100, attempt).getMessage(), "100");
+         // no thread picked up the primary, so it was not hedged either
+         assertEquals(attempt.hedges.size(), 1);
+      } finally {
+         busy.countDown();
+      }
+   }
+
+   public void testObservedPercentile() {
+      assertEquals(hedger.percentile("GET", 0.95), -1);
+      for (int i = 1; i <= 100; i++)
+         hedger.record("GET", i);
+      assertEquals(hedger.percentile("GET", 0.95), 95);
+   }
+}
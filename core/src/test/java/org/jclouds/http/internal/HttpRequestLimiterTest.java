@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.internal.HttpRequestLimiter.AdaptiveConcurrencyLimit;
+import org.jclouds.http.internal.HttpRequestLimiter.Permit;
+import org.jclouds.http.internal.HttpRequestLimiter.TokenBucket;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Ticker;
+
+@Test(groups = "unit", testName = "HttpRequestLimiterTest")
+public class HttpRequestLimiterTest {
+
+   private static final HttpRequest GET = HttpRequest.builder().method("GET").endpoint("https://api.example.com/foo")
+         .build();
+
+   private static class FakeTicker extends Ticker {
+      private final AtomicLong nanos = new AtomicLong();
+
+      @Override
+      public long read() {
+         return nanos.get();
+      }
+
+      void advance(long time, TimeUnit unit) {
+         nanos.addAndGet(unit.toNanos(time));
+      }
+   }
+
+   public void testDisabledByDefault() throws InterruptedException {
+      HttpRequestLimiter limiter = new HttpRequestLimiter();
+      assertFalse(limiter.isEnabled());
+      limiter.acquire(GET).release(null);
+   }
+
+   public void testTokenBucketAllowsBurstThenSpacesRequests() {
+      FakeTicker ticker = new FakeTicker();
+      TokenBucket bucket = new TokenBucket(10, 2, ticker);
+      assertEquals(bucket.reserve(Long.MAX_VALUE), 0);
+      assertEquals(bucket.reserve(Long.MAX_VALUE), 0);
+      assertEquals(bucket.reserve(Long.MAX_VALUE), TimeUnit.MILLISECONDS.toNanos(100));
+      assertEquals(bucket.reserve(Long.MAX_VALUE), TimeUnit.MILLISECONDS.toNanos(200));
+      ticker.advance(1, TimeUnit.SECONDS);
+      assertEquals(bucket.reserve(Long.MAX_VALUE), 0);
+   }
+
+   public void testTokenBucketDoesNotTakeTokenWhenWaitIsCutShort() {
+      FakeTicker ticker = new FakeTicker();
+      TokenBucket bucket = new TokenBucket(10, 1, ticker);
+      long cap = TimeUnit.MILLISECONDS.toNanos(50);
+      assertEquals(bucket.reserve(cap), 0);
+      for (int i = 0; i < 5; i++)
+         assertEquals(bucket.reserve(cap), -1);
+      ticker.advance(100, TimeUnit.MILLISECONDS);
+      assertEquals(bucket.reserve(cap), 0);
+   }
+
+   public void testTokenBucketCancelGivesTokenBack() {
+      FakeTicker ticker = new FakeTicker();
+      TokenBucket bucket = new TokenBucket(10, 1, ticker);
+      assertEquals(bucket.reserve(Long.MAX_VALUE), 0);
+      assertEquals(bucket.reserve(Long.MAX_VALUE), TimeUnit.MILLISECONDS.toNanos(100));
+      bucket.cancel();
+      assertEquals(bucket.reserve(Long.MAX_VALUE), TimeUnit.MILLISECONDS.toNanos(100));
+   }
+
+   public void testConcurrencyLimitHalvesOnThrottleAndGrowsBack() throws InterruptedException {
+      AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8);
+      assertTrue(limit.acquire(0));
+      limit.release(true, true, 10);
+      assertEquals(limit.limit(), 4.0);
+      for (int i = 0; i < 4; i++) {
+         assertTrue(limit.acquire(0));
+         limit.release(true, false, 10);
+      }
+      assertEquals(limit.limit(), 5.0, 0.1);
+   }
+
+   public void testConcurrencyLimitDoesNotGrowWhenLatencyDegrades() throws InterruptedException {
+      AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8);
+      limit.acquire(0);
+      limit.release(true, true, 10);
+      limit.acquire(0);
+      limit.release(true, false, 10);
+      double before = limit.limit();
+      limit.acquire(0);
+      limit.release(true, false, 100);
+      assertEquals(limit.limit(), before);
+   }
+
+   public void testConcurrencyLimitTimesOutWhenFull() throws InterruptedException {
+      AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1);
+      assertTrue(limit.acquire(0));
+      assertFalse(limit.acquire(TimeUnit.MILLISECONDS.toNanos(10)));
+   }
+
+   public void testThrottleResponsesShrinkTheSharedLimit() throws InterruptedException {
+      HttpRequestLimiter limiter = new HttpRequestLimiter(new FakeTicker());
+      limiter.maxConcurrency = 4;
+      Permit permit = limiter.acquire(GET);
+      permit.release(HttpResponse.builder().statusCode(429).build());
+      // releasing twice has no effect
+      permit.release(HttpResponse.builder().statusCode(429).build());
+      assertEquals(limiter.concurrencyLimit("api.example.com:-1"), 2.0);
+   }
+
+   public void testScopeByCommand() {
+      HttpRequestLimiter limiter = new HttpRequestLimiter();
+      assertEquals(limiter.key(GET), "api.example.com:-1");
+      limiter.scope = "command";
+      assertEquals(limiter.key(GET), "GET");
+   }
+}
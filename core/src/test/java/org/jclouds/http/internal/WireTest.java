@@ -17,6 +17,7 @@
 package org.jclouds.http.internal;
 
 import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpUtils;
 import org.jclouds.io.PayloadEnclosing;
 import org.jclouds.io.payloads.StringPayload;
 import org.jclouds.logging.Logger;
@@ -27,7 +28,9 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
 
 @Test(groups = "unit", sequential = true)
 public class WireTest {
@@ -123,6 +126,51 @@ public class WireTest {
       assertEquals(((BufferLogger) wire.getWireLog()).buff.toString(), ">> \"foo\"");
    }
 
+   public void testInputInputStreamLogsAsRead() throws Exception {
+      HttpWire wire = setUp();
+      InputStream in = wire.input(new ByteArrayInputStream("foo\nbar".getBytes()));
+      BufferLogger wireLog = (BufferLogger) wire.getWireLog();
+      assertEquals(wireLog.buff.toString(), "", "Expected nothing logged before the stream is read");
+      byte[] buffer = new byte[4];
+      assertEquals(in.read(buffer), 4);
+      assertEquals(wireLog.buff.toString(), "<< \"foo[\\n]\"");
+      assertEquals(Strings2.toStringAndClose(in), "bar");
+      assertEquals(wireLog.buff.toString(), "<< \"foo[\\n]\"<< \"bar\"");
+   }
+
+   public void testInputInputStreamTruncatesAtMaxBytes() throws Exception {
+      HttpWire wire = setUp();
+      wire.maxBytes = 2;
+      InputStream in = wire.input(new ByteArrayInputStream("foo".getBytes()));
+      assertEquals(Strings2.toStringAndClose(in), "foo");
+      assertEquals(((BufferLogger) wire.getWireLog()).buff.toString(),
+            "<< \"fo\"<< ... truncated after 2 bytes");
+   }
+
+   public void testSampleCommandsFiltersRequests() throws Exception {
+      HttpWire wire = setUp();
+      HttpRequest request = HttpRequest.builder().method("GET").endpoint("http://foo").build();
+      assertTrue(wire.enabled(request));
+      wire.sampleCommands = "HEAD";
+      assertFalse(wire.enabled(request));
+      wire.sampleCommands = "";
+      wire.sampleRate = 0;
+      assertFalse(wire.enabled(request));
+   }
+
+   public void testWirePayloadIfEnabledHonorsSampling() throws Exception {
+      HttpWire wire = setUp();
+      wire.sampleRate = 0;
+      HttpRequest request = HttpRequest.builder().method("PUT").endpoint("http://foo")
+            .payload(new StringPayload("foo")).build();
+      HttpUtils.wirePayloadIfEnabled(wire, request);
+      assertEquals(((BufferLogger) wire.getWireLog()).buff.toString(), "");
+
+      wire.sampleRate = 1;
+      HttpUtils.wirePayloadIfEnabled(wire, request);
+      assertEquals(((BufferLogger) wire.getWireLog()).buff.toString(), ">> \"foo\"");
+   }
+
    public void testOutputBytes() throws Exception {
       HttpWire wire = setUp();
       wire.output("foo".getBytes());
@@ -157,6 +205,14 @@ public class WireTest {
       assertEquals(wireLog.buff.toString(), "<< \"foo\"", "Expected payload to be printed in logs");
    }
 
+   public void testInputStringPayloadIsLoggedAsUtf8() throws Exception {
+      HttpWire wire = setUp();
+      PayloadEnclosing request = HttpRequest.builder().method("foo").endpoint("http://foo")
+            .payload(new StringPayload("caf\u00e9")).build();
+      wire.input(request);
+      assertEquals(((BufferLogger) wire.getWireLog()).buff.toString(), "<< \"caf[0xc3][0xa9]\"");
+   }
+
    @Test
    public void testOutputPayload() throws Exception {
       HttpWire wire = setUp();
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.metrics;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "LatencyHistogramTest")
+public class LatencyHistogramTest {
+
+   public void testBucketsAreContiguous() {
+      for (int i = 1; i < LatencyHistogram.BUCKETS; i++) {
+         assertEquals(LatencyHistogram.lowestEquivalentValue(i), LatencyHistogram.highestEquivalentValue(i - 1) + 1);
+         assertEquals(LatencyHistogram.indexOf(LatencyHistogram.lowestEquivalentValue(i)), i);
+         assertEquals(LatencyHistogram.indexOf(LatencyHistogram.highestEquivalentValue(i)), i);
+      }
+   }
+
+   public void testValuesBeyondRangeLandInLastBucket() {
+      assertEquals(LatencyHistogram.indexOf(Long.MAX_VALUE), LatencyHistogram.BUCKETS - 1);
+   }
+
+   public void testPercentilesWithinPrecision() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (int millis = 1; millis <= 100; millis++)
+         histogram.record(millis, MILLISECONDS);
+
+      assertEquals(histogram.getCount(), 100);
+      assertEquals(histogram.getMaxMicros(), 100000);
+      assertEquals(histogram.getMeanMicros(), 50500.0);
+      assertWithinPrecision(histogram.getValueAtPercentile(50), 50000);
+      assertWithinPrecision(histogram.getValueAtPercentile(99), 99000);
+      assertEquals(histogram.getValueAtPercentile(100), 100000);
+   }
+
+   public void testEmptyHistogram() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      assertEquals(histogram.getValueAtPercentile(99), 0);
+      assertEquals(histogram.getMeanMicros(), 0.0);
+   }
+
+   public void testSubMicrosecondLatencies() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histogram.record(500, NANOSECONDS);
+      histogram.record(7, MICROSECONDS);
+      assertEquals(histogram.getValueAtPercentile(50), 0);
+      assertEquals(histogram.getValueAtPercentile(100), 7);
+   }
+
+   private static void assertWithinPrecision(long actual, long expected) {
+      assertTrue(Math.abs(actual - expected) <= expected / LatencyHistogram.SUB_BUCKETS, actual + " != " + expected);
+   }
+}
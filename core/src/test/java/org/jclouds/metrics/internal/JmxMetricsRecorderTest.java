@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.metrics.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Suppliers;
+
+@Test(groups = "unit", testName = "JmxMetricsRecorderTest")
+public class JmxMetricsRecorderTest {
+
+   private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+   public void testExportsCommandsAndGaugesUntilClosed() throws Exception {
+      JmxMetricsRecorder recorder = new JmxMetricsRecorder("test", server);
+      ObjectName command = new ObjectName("org.jclouds:type=Command,context=\"test\",name=\"Api.get\"");
+      ObjectName gauge = new ObjectName("org.jclouds:type=Gauge,context=\"test\",name=\"executor.user.queue\"");
+      try {
+         recorder.recordInvocation("Api.get", 2000000, false);
+         recorder.recordInvocation("Api.get", 4000000, true);
+         recorder.recordResponse("Api.get", 200);
+         recorder.recordResponse("Api.get", 503);
+         recorder.recordRetry("Api.get");
+         recorder.recordPayload("Api.get", 10, 20);
+         recorder.registerGauge("executor.user.queue", Suppliers.ofInstance(3));
+
+         assertEquals(server.getAttribute(command, "Count"), 2L);
+         assertEquals(server.getAttribute(command, "Failures"), 1L);
+         assertEquals(server.getAttribute(command, "Retries"), 1L);
+         assertEquals(server.getAttribute(command, "Responses2xx"), 1L);
+         assertEquals(server.getAttribute(command, "Responses5xx"), 1L);
+         assertEquals(server.getAttribute(command, "BytesIn"), 20L);
+         assertEquals(server.getAttribute(command, "MaxMillis"), 4.0);
+         assertEquals(server.getAttribute(gauge, "Value"), 3.0);
+      } finally {
+         recorder.close();
+      }
+      assertFalse(server.isRegistered(command));
+      assertFalse(server.isRegistered(gauge));
+   }
+}
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.jclouds.Fallback;
+import org.jclouds.domain.Credentials;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.annotations.ConditionalGet;
+import org.jclouds.rest.config.InvocationConfig;
+import org.jclouds.util.Strings2;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Optional;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+@Test(groups = "unit", testName = "ConditionalGetCacheTest")
+public class ConditionalGetCacheTest {
+
+   public interface ThingApi {
+      @ConditionalGet
+      ImmutableList<String> list();
+
+      @ConditionalGet
+      List<String> listMutable();
+
+      @ConditionalGet
+      InputStream stream();
+
+      List<String> listUncached();
+   }
+
+   private final Function<HttpResponse, List<String>> parse = new Function<HttpResponse, List<String>>() {
+      @Override
+      public List<String> apply(HttpResponse input) {
+         return ImmutableList.of(input.getMessage());
+      }
+   };
+
+   /**
+    * Parses the body into a new list, counting its calls.
+    */
+   private static class ParseBody implements Function<HttpResponse, List<String>> {
+      int calls;
+
+      @Override
+      public List<String> apply(HttpResponse input) {
+         calls++;
+         try {
+            return Lists.newArrayList(Strings2.toStringAndClose(input.getPayload().openStream()));
+         } catch (IOException e) {
+            throw new AssertionError(e);
+         }
+      }
+   }
+
+   /**
+    * Answers with the queued responses, remembering the requests it was sent.
+    */
+   private static class QueuedResponses implements HttpCommandExecutorService {
+      final List<Object> responses = Lists.newArrayList();
+      final List<HttpRequest> requests = Lists.newArrayList();
+
+      @Override
+      public HttpResponse invoke(HttpCommand command) {
+         requests.add(command.getCurrentRequest());
+         Object next = responses.remove(0);
+         if (next instanceof HttpResponse)
+            return (HttpResponse) next;
+         throw new HttpResponseException(command, HttpResponse.builder().statusCode(304).message(next.toString())
+               .build());
+      }
+   }
+
+   private static HttpRequest request(String methodName, String identity) {
+      Invocation invocation = Invocation.create(method(ThingApi.class, methodName), ImmutableList.of());
+      return GeneratedHttpRequest.builder().method("GET").endpoint("http://things/" + identity)
+            .addHeader("Accept", "application/json").invocation(invocation).build();
+   }
+
+   private static ConditionalGetCache cache() {
+      return new ConditionalGetCache(Suppliers.ofInstance(new Credentials("identity", "credential")));
+   }
+
+   public void testAppliesOnlyToAnnotatedGets() {
+      ConditionalGetCache cache = cache();
+      assertTrue(cache.appliesTo(request("list", "a")));
+      assertFalse(cache.appliesTo(request("listUncached", "a")));
+      assertFalse(cache.appliesTo(request("list", "a").toBuilder().method("HEAD").build()));
+      assertFalse(cache.appliesTo(HttpRequest.builder().method("GET").endpoint("http://things").build()));
+   }
+
+   public void testNotModifiedReturnsPreviousResultWithoutParsing() {
+      ConditionalGetCache cache = cache();
+      QueuedResponses http = new QueuedResponses();
+      http.responses.add(HttpResponse.builder().statusCode(200).message("v1").addHeader("ETag", "\"1\"").build());
+      http.responses.add(HttpResponse.builder().statusCode(304).message("unparsed").build());
+
+      Object first = cache.invoke(new HttpCommand(request("list", "a")), parse, http);
+      Object second = cache.invoke(new HttpCommand(request("list", "a")), parse, http);
+
+      assertEquals(first, ImmutableList.of("v1"));
+      assertSame(second, first);
+      assertNull(http.requests.get(0).getFirstHeaderOrNull("If-None-Match"));
+      assertEquals(http.requests.get(1).getFirstHeaderOrNull("If-None-Match"), "\"1\"");
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testNotModifiedThroughInvokeHttpMethodReturnsPreviousResult() {
+      HttpRequest list = request("list", "a");
+      Invocation invocation = GeneratedHttpRequest.class.cast(list).getInvocation();
+      QueuedResponses http = new QueuedResponses();
+      http.responses.add(HttpResponse.builder().statusCode(200).message("v1").addHeader("ETag", "\"1\"").build());
+      http.responses.add(HttpResponse.builder().statusCode(304).message("unparsed").build());
+
+      InvocationConfig config = createMock(InvocationConfig.class);
+      expect(config.getTimeoutNanos(invocation)).andReturn(Optional.<Long> absent()).times(2);
+      expect(config.getCommandName(invocation)).andReturn("thing:list").times(2);
+      expect(config.getFallback(invocation)).andReturn(createMock(Fallback.class)).times(2);
+      replay(config);
+
+      InvokeHttpMethod invokeHttpMethod = new InvokeHttpMethod(Functions.forMap(ImmutableMap.of(invocation, list)),
+            http, Function.class.cast(Functions.constant(parse)), null, config);
+      invokeHttpMethod.conditionalGets = cache();
+
+      Object first = invokeHttpMethod.apply(invocation);
+      Object second = invokeHttpMethod.apply(invocation);
+
+      assertEquals(first, ImmutableList.of("v1"));
+      assertSame(second, first);
+      assertEquals(http.requests.get(1).getFirstHeaderOrNull("If-None-Match"), "\"1\"");
+      verify(config);
+   }
+
+   public void testNotModifiedParsesMutableResultsAgain() {
+      ConditionalGetCache cache = cache();
+      QueuedResponses http = new QueuedResponses();
+      http.responses.add(HttpResponse.builder().statusCode(200).payload("v1").addHeader("ETag", "\"1\"").build());
+      http.responses.add(HttpResponse.builder().statusCode(304).build());
+      ParseBody parseBody = new ParseBody();
+
+      @SuppressWarnings("unchecked")
+      List<String> first = (List<String>) cache.invoke(new HttpCommand(request("listMutable", "a")), parseBody, http);
+      first.add("changed by the first caller");
+      Object second = cache.invoke(new HttpCommand(request("listMutable", "a")), parseBody, http);
+
+      assertEquals(second, ImmutableList.of("v1"));
+      assertEquals(parseBody.calls, 2);
+      assertEquals(http.requests.get(1).getFirstHeaderOrNull("If-None-Match"), "\"1\"");
+   }
+
+   public void testStreamsAreNotCached() {
+      ConditionalGetCache cache = cache();
+      QueuedResponses http = new QueuedResponses();
+      http.responses.add(HttpResponse.builder().statusCode(200).payload("v1").addHeader("ETag", "\"1\"").build());
+
+      cache.invoke(new HttpCommand(request("stream", "a")), new ParseBody(), http);
+
+      assertEquals(cache.size(), 0);
+   }
+
+   public void testNotModifiedRaisedByErrorHandlerReturnsPreviousResult() {
+      ConditionalGetCache cache = cache();
+      QueuedResponses http = new QueuedResponses();
+      http.responses.add(HttpResponse.builder().statusCode(200).message("v1")
+            .addHeader("Last-Modified", "Mon, 19 Oct 2026 10:00:00 GMT").build());
+      http.responses.add("not modified");
+
+      Object first = cache.invoke(new HttpCommand(request("list", "a")), parse, http);
+      Object second = cache.invoke(new HttpCommand(request("list", "a")), parse, http);
+
+      assertSame(second, first);
+      assertEquals(http.requests.get(1).getFirstHeaderOrNull("If-Modified-Since"), "Mon, 19 Oct 2026 10:00:00 GMT");
+   }
+
+   public void testModifiedResponseReplacesEntry() {
+      ConditionalGetCache cache = cache();
+      QueuedResponses http = new QueuedResponses();
+      http.responses.add(HttpResponse.builder().statusCode(200).message("v1").addHeader("ETag", "\"1\"").build());
+      http.responses.add(HttpResponse.builder().statusCode(200).message("v2").addHeader("ETag", "\"2\"").build());
+      http.responses.add(HttpResponse.builder().statusCode(304).build());
+
+      cache.invoke(new HttpCommand(request("list", "a")), parse, http);
+      assertEquals(cache.invoke(new HttpCommand(request("list", "a")), parse, http), ImmutableList.of("v2"));
+      assertEquals(cache.invoke(new HttpCommand(request("list", "a")), parse, http), ImmutableList.of("v2"));
+      assertEquals(http.requests.get(2).getFirstHeaderOrNull("If-None-Match"), "\"2\"");
+   }
+
+   public void testResponsesWithoutValidatorsAreNotCached() {
+      ConditionalGetCache cache = cache();
+      QueuedResponses http = new QueuedResponses();
+      http.responses.add(HttpResponse.builder().statusCode(200).message("v1").build());
+
+      cache.invoke(new HttpCommand(request("list", "a")), parse, http);
+
+      assertEquals(cache.size(), 0);
+   }
+
+   public void testEntriesAreScopedPerRequestAndIdentity() {
+      QueuedResponses http = new QueuedResponses();
+      http.responses.add(HttpResponse.builder().statusCode(200).message("a").addHeader("ETag", "\"1\"").build());
+      http.responses.add(HttpResponse.builder().statusCode(200).message("b").addHeader("ETag", "\"1\"").build());
+      http.responses.add(HttpResponse.builder().statusCode(200).message("a").addHeader("ETag", "\"1\"").build());
+
+      ConditionalGetCache cache = cache();
+      cache.invoke(new HttpCommand(request("list", "a")), parse, http);
+      cache.invoke(new HttpCommand(request("list", "b")), parse, http);
+      ConditionalGetCache other = new ConditionalGetCache(Suppliers.ofInstance(new Credentials("other", "secret")));
+      other.invoke(new HttpCommand(request("list", "a")), parse, http);
+
+      assertEquals(cache.size(), 2);
+      assertNull(http.requests.get(1).getFirstHeaderOrNull("If-None-Match"));
+      assertNull(http.requests.get(2).getFirstHeaderOrNull("If-None-Match"));
+   }
+}
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.Fallback;
+import org.jclouds.domain.Credentials;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.config.InvocationConfig;
+import org.jclouds.util.Strings2;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Optional;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+@Test(groups = "unit", testName = "RequestCoalescerTest", singleThreaded = true)
+public class RequestCoalescerTest {
+   private static final int CALLERS = 8;
+
+   public interface ThingApi {
+      ImmutableList<String> list();
+
+      Map<String, String> metadata();
+
+      InputStream stream();
+
+      Iterator<String> iterate();
+   }
+
+   private final HttpRequest get = request("list");
+   private RequestCoalescer coalescer;
+   private ExecutorService executor;
+
+   @BeforeMethod
+   void setup() {
+      coalescer = new RequestCoalescer(Suppliers.ofInstance(new Credentials("identity", "credential")));
+      coalescer.enabled = true;
+      executor = Executors.newFixedThreadPool(CALLERS);
+   }
+
+   @AfterMethod
+   void shutdown() {
+      executor.shutdownNow();
+   }
+
+   /**
+    * Counts its calls and blocks until released, so that every caller joins the first one.
+    */
+   private static class BlockingHttp implements HttpCommandExecutorService {
+      final AtomicInteger calls = new AtomicInteger();
+      final CountDownLatch release = new CountDownLatch(1);
+      final Object result;
+
+      BlockingHttp(Object result) {
+         this.result = result;
+      }
+
+      @Override
+      public HttpResponse invoke(HttpCommand command) {
+         calls.incrementAndGet();
+         try {
+            release.await(10, TimeUnit.SECONDS);
+         } catch (InterruptedException e) {
+            throw new AssertionError(e);
+         }
+         if (result instanceof RuntimeException)
+            throw (RuntimeException) result;
+         return HttpResponse.builder().statusCode(200).addHeader("ETag", "\"1\"").payload(result.toString()).build();
+      }
+   }
+
+   private List<Future<HttpResponse>> invokeConcurrently(final HttpRequest request,
+         final HttpCommandExecutorService http) {
+      List<Future<HttpResponse>> results = Lists.newArrayList();
+      for (int i = 0; i < CALLERS; i++) {
+         results.add(executor.submit(new Callable<HttpResponse>() {
+            @Override
+            public HttpResponse call() {
+               return coalescer.invoke(new HttpCommand(request), http);
+            }
+         }));
+      }
+      return results;
+   }
+
+   private void awaitJoined(BlockingHttp http) throws InterruptedException {
+      while (http.calls.get() == 0)
+         Thread.sleep(5);
+      Thread.sleep(100);
+   }
+
+   private static HttpRequest request(String methodName) {
+      Invocation invocation = Invocation.create(method(ThingApi.class, methodName), ImmutableList.of());
+      return GeneratedHttpRequest.builder().method("GET").endpoint("http://things/a").invocation(invocation).build();
+   }
+
+   private static String body(HttpResponse response) throws IOException {
+      return Strings2.toStringAndClose(response.getPayload().openStream());
+   }
+
+   public void testAppliesOnlyToReadsWhenEnabled() {
+      assertTrue(coalescer.appliesTo(get));
+      assertTrue(coalescer.appliesTo(get.toBuilder().method("HEAD").build()));
+      assertFalse(coalescer.appliesTo(get.toBuilder().method("DELETE").build()));
+      assertFalse(coalescer.appliesTo(get.toBuilder().payload("body").build()));
+      assertFalse(coalescer.appliesTo(HttpRequest.builder().method("GET").endpoint("http://things/a").build()));
+      coalescer.enabled = false;
+      assertFalse(coalescer.appliesTo(get));
+   }
+
+   public void testAppliesToMutableResultsButNotToStreamedBodies() {
+      assertTrue(coalescer.appliesTo(request("metadata")));
+      assertFalse(coalescer.appliesTo(request("stream")));
+      assertFalse(coalescer.appliesTo(request("iterate")));
+      assertTrue(coalescer.appliesTo(request("stream").toBuilder().method("HEAD").build()));
+   }
+
+   public void testConcurrentCallersShareOneCallWithBodiesOfTheirOwn() throws Exception {
+      BlockingHttp http = new BlockingHttp("a");
+      List<Future<HttpResponse>> results = invokeConcurrently(get, http);
+      awaitJoined(http);
+      http.release.countDown();
+
+      for (Future<HttpResponse> future : results) {
+         assertEquals(future.get().getFirstHeaderOrNull("ETag"), "\"1\"");
+         assertEquals(body(future.get()), "a");
+      }
+      assertNotSame(results.get(0).get().getPayload(), results.get(1).get().getPayload());
+      assertEquals(http.calls.get(), 1);
+      assertEquals(coalescer.inFlight(), 0);
+   }
+
+   public void testConcurrentCallersShareFailure() throws Exception {
+      IllegalStateException failure = new IllegalStateException("boom");
+      BlockingHttp http = new BlockingHttp(failure);
+      List<Future<HttpResponse>> results = invokeConcurrently(get, http);
+      awaitJoined(http);
+      http.release.countDown();
+
+      for (Future<HttpResponse> future : results) {
+         try {
+            future.get();
+            fail("expected failure");
+         } catch (ExecutionException e) {
+            assertSame(e.getCause(), failure);
+         }
+      }
+      assertEquals(http.calls.get(), 1);
+   }
+
+   public void testInterruptedCallerStillReceivesSharedResult() throws Exception {
+      final BlockingHttp http = new BlockingHttp("a");
+      executor.submit(new Callable<HttpResponse>() {
+         @Override
+         public HttpResponse call() {
+            return coalescer.invoke(new HttpCommand(get), http);
+         }
+      });
+      awaitJoined(http);
+      Future<Boolean> joiner = executor.submit(new Callable<Boolean>() {
+         @Override
+         public Boolean call() throws IOException {
+            Thread.currentThread().interrupt();
+            assertEquals(body(coalescer.invoke(new HttpCommand(get), http)), "a");
+            return Thread.interrupted();
+         }
+      });
+      Thread.sleep(100);
+      http.release.countDown();
+
+      assertTrue(joiner.get());
+      assertEquals(http.calls.get(), 1);
+   }
+
+   public void testDifferentIdentitiesDoNotShare() throws Exception {
+      final RequestCoalescer other = new RequestCoalescer(Suppliers.ofInstance(new Credentials("other", "secret")));
+      other.enabled = true;
+      final BlockingHttp http = new BlockingHttp("a");
+      Future<HttpResponse> first = executor.submit(new Callable<HttpResponse>() {
+         @Override
+         public HttpResponse call() {
+            return coalescer.invoke(new HttpCommand(get), http);
+         }
+      });
+      Future<HttpResponse> second = executor.submit(new Callable<HttpResponse>() {
+         @Override
+         public HttpResponse call() {
+            return other.invoke(new HttpCommand(get), http);
+         }
+      });
+      while (http.calls.get() < 2)
+         Thread.sleep(5);
+      http.release.countDown();
+      first.get();
+      second.get();
+      assertEquals(http.calls.get(), 2);
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testConcurrentInvocationsParseResultsOfTheirOwn() throws Exception {
+      HttpRequest metadata = request("metadata");
+      final Invocation invocation = GeneratedHttpRequest.class.cast(metadata).getInvocation();
+      BlockingHttp http = new BlockingHttp("v1");
+      Function<HttpResponse, Map<String, String>> parse = new Function<HttpResponse, Map<String, String>>() {
+         @Override
+         public Map<String, String> apply(HttpResponse input) {
+            try {
+               Map<String, String> result = Maps.newHashMap();
+               result.put("version", body(input));
+               return result;
+            } catch (IOException e) {
+               throw new AssertionError(e);
+            }
+         }
+      };
+      InvocationConfig config = createMock(InvocationConfig.class);
+      expect(config.getTimeoutNanos(invocation)).andReturn(Optional.<Long> absent()).times(CALLERS);
+      expect(config.getCommandName(invocation)).andReturn("thing:metadata").times(CALLERS);
+      expect(config.getFallback(invocation)).andReturn(createMock(Fallback.class)).times(CALLERS);
+      replay(config);
+      final InvokeHttpMethod invokeHttpMethod = new InvokeHttpMethod(Functions.forMap(ImmutableMap.of(invocation,
+            metadata)), http, Function.class.cast(Functions.constant(parse)), null, config);
+      invokeHttpMethod.coalescer = coalescer;
+
+      List<Future<Map<String, String>>> results = Lists.newArrayList();
+      for (int i = 0; i < CALLERS; i++) {
+         results.add(executor.submit(new Callable<Map<String, String>>() {
+            @Override
+            public Map<String, String> call() {
+               return (Map<String, String>) invokeHttpMethod.apply(invocation);
+            }
+         }));
+      }
+      awaitJoined(http);
+      http.release.countDown();
+
+      results.get(0).get().put("version", "changed by the first caller");
+      for (Future<Map<String, String>> future : results.subList(1, CALLERS))
+         assertEquals(future.get(), ImmutableMap.of("version", "v1"));
+      assertEquals(http.calls.get(), 1);
+   }
+}
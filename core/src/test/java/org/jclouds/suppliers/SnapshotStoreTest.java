@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.suppliers;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.jclouds.json.Json;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.location.config.LocationModule;
+import org.jclouds.location.suppliers.LocationsSupplier;
+import org.jclouds.location.suppliers.WarmStartLocationsSupplier;
+import org.jclouds.logging.BufferLogger;
+import org.jclouds.logging.Logger;
+import org.jclouds.logging.config.LoggingModule;
+import org.jclouds.rest.AuthorizationException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+@Test(groups = "unit", testName = "SnapshotStoreTest", singleThreaded = true)
+public class SnapshotStoreTest {
+
+   private static final Location PROVIDER = new LocationBuilder().scope(LocationScope.PROVIDER).id("aws-ec2")
+         .description("aws-ec2").build();
+   private static final Location REGION = new LocationBuilder().scope(LocationScope.REGION).id("us-east-1")
+         .description("us-east-1").parent(PROVIDER).iso3166Codes(ImmutableSet.of("US-VA"))
+         .metadata(ImmutableMap.<String, Object> of("endpoint", "https://ec2.us-east-1.amazonaws.com")).build();
+
+   private final Json json = Guice.createInjector(new GsonModule()).getInstance(Json.class);
+   private final AtomicLong now = new AtomicLong(TimeUnit.DAYS.toNanos(1000));
+   private final Ticker clock = new Ticker() {
+      @Override
+      public long read() {
+         return now.get();
+      }
+   };
+   private File dir;
+
+   @BeforeMethod
+   public void createDir() {
+      dir = Files.createTempDir();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void deleteDir() {
+      for (File file : dir.listFiles())
+         file.delete();
+      dir.delete();
+   }
+
+   private SnapshotStore store(String key) {
+      return new SnapshotStore(json, MoreExecutors.newDirectExecutorService(), Suppliers.ofInstance(key), clock)
+            .withDir(dir.getAbsolutePath(), 3600);
+   }
+
+   private static Supplier<Set<? extends Location>> counting(final AtomicInteger calls) {
+      return new Supplier<Set<? extends Location>>() {
+         @Override
+         public Set<? extends Location> get() {
+            calls.incrementAndGet();
+            return ImmutableSet.of(REGION);
+         }
+      };
+   }
+
+   public void testColdStartLoadsAndWritesSnapshot() {
+      AtomicInteger calls = new AtomicInteger();
+      SnapshotStore store = store("key");
+      assertEquals(new WarmStartLocationsSupplier(store, counting(calls)).get(), ImmutableSet.of(REGION));
+      assertEquals(calls.get(), 1);
+      assertTrue(store.file("locations").isFile());
+   }
+
+   public void testWarmStartServesSnapshotAndRevalidates() {
+      new WarmStartLocationsSupplier(store("key"), counting(new AtomicInteger())).get();
+
+      AtomicInteger calls = new AtomicInteger();
+      WarmStartLocationsSupplier warm = new WarmStartLocationsSupplier(store("key"), counting(calls));
+      Set<? extends Location> snapshot = warm.get();
+      assertEquals(snapshot, ImmutableSet.of(REGION));
+      Location region = snapshot.iterator().next();
+      assertEquals(region.getParent(), PROVIDER);
+      assertEquals(region.getIso3166Codes(), ImmutableSet.of("US-VA"));
+      assertEquals(region.getMetadata(), REGION.getMetadata());
+      // revalidated on the direct executor
+      assertEquals(calls.get(), 1);
+      // the revalidated value is handed out once, then the delegate is used again
+      warm.get();
+      assertEquals(calls.get(), 1);
+      warm.get();
+      assertEquals(calls.get(), 2);
+   }
+
+   public void testExpiredSnapshotIsIgnored() {
+      new WarmStartLocationsSupplier(store("key"), counting(new AtomicInteger())).get();
+      now.addAndGet(TimeUnit.HOURS.toNanos(2));
+      assertFalse(store("key").read("locations", WarmStartLocationsSupplier.LocationRecord.class).isPresent());
+   }
+
+   public void testSnapshotOfOtherKeyIsIgnored() {
+      new WarmStartLocationsSupplier(store("key"), counting(new AtomicInteger())).get();
+      File written = store("key").file("locations");
+      assertTrue(written.renameTo(store("other").file("locations")));
+      assertFalse(store("other").read("locations", WarmStartLocationsSupplier.LocationRecord.class).isPresent());
+   }
+
+   public void testCorruptSnapshotIsIgnored() throws Exception {
+      Files.write("garbage\n{".getBytes(), store("key").file("locations"));
+      AtomicInteger calls = new AtomicInteger();
+      new WarmStartLocationsSupplier(store("key"), counting(calls)).get();
+      assertEquals(calls.get(), 1);
+   }
+
+   public void testLocationModuleInjectsWarmStartLogger() {
+      new WarmStartLocationsSupplier(store("key"), counting(new AtomicInteger())).get();
+      final BufferLogger log = new BufferLogger("warm-start");
+      Injector injector = Guice.createInjector(new LoggingModule() {
+         @Override
+         public Logger.LoggerFactory createLoggerFactory() {
+            return new Logger.LoggerFactory() {
+               @Override
+               public Logger getLogger(String category) {
+                  return log;
+               }
+            };
+         }
+      });
+      LocationsSupplier uncached = new LocationsSupplier() {
+         @Override
+         public Set<? extends Location> get() {
+            throw new IllegalStateException("offline");
+         }
+      };
+      Supplier<Set<? extends Location>> locations = new ExposedLocationModule().memoizedLocations(store("key"),
+            uncached, injector);
+      assertEquals(locations.get(), ImmutableSet.of(REGION));
+      log.assertLogContains("could not revalidate locations snapshot");
+   }
+
+   private static class ExposedLocationModule extends LocationModule {
+      Supplier<Set<? extends Location>> memoizedLocations(SnapshotStore store, LocationsSupplier uncached,
+            Injector injector) {
+         return memoizedLocationsSupplier(new AtomicReference<AuthorizationException>(), 60, uncached, store,
+               injector);
+      }
+   }
+
+   public void testDisabledWithoutDir() {
+      SnapshotStore store = new SnapshotStore(json, MoreExecutors.newDirectExecutorService(),
+            Suppliers.ofInstance("key"), clock);
+      assertFalse(store.isEnabled());
+      assertFalse(store.read("locations", WarmStartLocationsSupplier.LocationRecord.class).isPresent());
+   }
+
+   public void testKeyDependsOnIdentityAndProperties() {
+      String key = SnapshotStore.key("aws-ec2", null, "identity", ImmutableMap.of("a", "1"));
+      assertEquals(key, SnapshotStore.key("aws-ec2", null, "identity", ImmutableMap.of("a", "1")));
+      assertFalse(key.equals(SnapshotStore.key("aws-ec2", null, "other", ImmutableMap.of("a", "1"))));
+      assertFalse(key.equals(SnapshotStore.key("aws-ec2", null, "identity", ImmutableMap.of("a", "2"))));
+   }
+}
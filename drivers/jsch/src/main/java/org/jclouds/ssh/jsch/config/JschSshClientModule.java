@@ -19,11 +19,14 @@ package org.jclouds.ssh.jsch.config;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import javax.inject.Named;
+import javax.inject.Singleton;
 
 import org.jclouds.Constants;
+import org.jclouds.compute.reference.ComputeServiceConstants.SshPoolProperties;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.proxy.ProxyConfig;
+import org.jclouds.ssh.PooledSshClientFactory;
 import org.jclouds.ssh.SshClient;
 import org.jclouds.ssh.config.ConfiguresSshClient;
 import org.jclouds.ssh.jsch.JschSshClient;
@@ -33,6 +36,7 @@ import com.google.common.net.HostAndPort;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import com.jcraft.jsch.agentproxy.AgentProxyException;
 import com.jcraft.jsch.agentproxy.Connector;
@@ -42,7 +46,18 @@ import com.jcraft.jsch.agentproxy.ConnectorFactory;
 public class JschSshClientModule extends AbstractModule {
 
    protected void configure() {
-      bind(SshClient.Factory.class).to(Factory.class).in(Scopes.SINGLETON);
+      bind(Factory.class).in(Scopes.SINGLETON);
+   }
+
+   @Provides
+   @Singleton
+   SshClient.Factory provideSshClientFactory(Factory factory, SshPoolProperties pool, Injector injector) {
+      if (pool.maxSessionsPerNode <= 0)
+         return factory;
+      SshClient.Factory pooled = new PooledSshClientFactory(factory, pool.maxSessionsPerNode, pool.idleTimeout,
+            pool.leaseTimeout);
+      injector.injectMembers(pooled);  // add logger
+      return pooled;
    }
 
    private static class Factory implements SshClient.Factory {
@@ -295,6 +295,23 @@ public class SshjSshClient implements SshClient {
       return acquire(new GetConnection(path));
    }
 
+   /**
+    * sftp subsystem shared by consecutive puts on the same connection, so that uploads do not each open a channel
+    */
+   private SFTPClient putSftp;
+
+   private synchronized SFTPClient putSftp() {
+      if (putSftp == null || !putSftp.getSFTPEngine().getSubsystem().isOpen())
+         putSftp = acquire(sftpConnection);
+      return putSftp;
+   }
+
+   private synchronized void discardPutSftp(SFTPClient sftp) {
+      if (putSftp == sftp)
+         putSftp = null;
+      Closeables2.closeQuietly(sftp);
+   }
+
    class PutConnection implements Connection<Void> {
       private final String path;
       private final Payload contents;
@@ -307,19 +324,19 @@ public class SshjSshClient implements SshClient {
 
       @Override
       public void clear() {
-         if (sftp != null)
-            try {
-               sftp.close();
-            } catch (IOException e) {
-               Throwables.propagate(e);
-            }
+         // only a failed attempt leaves its subsystem here; successful ones keep it open for the next put
+         if (sftp != null) {
+            discardPutSftp(sftp);
+            sftp = null;
+         }
       }
 
       @Override
       public Void create() throws Exception {
-         sftp = acquire(sftpConnection);
+         SFTPClient shared = putSftp();
+         sftp = shared;
          try {
-            sftp.put(new InMemorySourceFile() {
+            shared.put(new InMemorySourceFile() {
 
                @Override
                public String getName() {
@@ -338,6 +355,7 @@ public class SshjSshClient implements SshClient {
                }
 
             }, path);
+            sftp = null;
          } finally {
             contents.release();
          }
@@ -403,6 +421,9 @@ public class SshjSshClient implements SshClient {
 
    @PreDestroy
    public void disconnect() {
+      synchronized (this) {
+         putSftp = null;
+      }
       try {
          sshClientConnection.clear();
       } catch (Exception e) {
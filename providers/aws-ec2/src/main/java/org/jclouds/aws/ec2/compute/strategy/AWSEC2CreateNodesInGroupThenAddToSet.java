@@ -17,6 +17,7 @@
 package org.jclouds.aws.ec2.compute.strategy;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.transform;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_RUNNING;
 import static org.jclouds.ec2.reference.EC2Constants.PROPERTY_EC2_GENERATE_INSTANCE_NAMES;
 
@@ -55,6 +56,7 @@ import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 @Singleton
 public class AWSEC2CreateNodesInGroupThenAddToSet extends EC2CreateNodesInGroupThenAddToSet {
@@ -78,9 +80,11 @@ public class AWSEC2CreateNodesInGroupThenAddToSet extends EC2CreateNodesInGroupT
          Function<RunningInstance, NodeMetadata> runningInstanceToNodeMetadata,
          LoadingCache<RunningInstance, Optional<LoginCredentials>> instanceToCredentials,
          Map<String, Credentials> credentialStore, ComputeUtils utils,
-         SpotInstanceRequestToAWSRunningInstance spotConverter) {
+         SpotInstanceRequestToAWSRunningInstance spotConverter,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
       super(client, elasticIpCache, nodeRunning, createKeyPairAndSecurityGroupsAsNeededAndReturncustomize,
-            instancePresent, runningInstanceToNodeMetadata, instanceToCredentials, credentialStore, utils);
+            instancePresent, runningInstanceToNodeMetadata, instanceToCredentials, credentialStore, utils,
+            userExecutor);
       this.client = checkNotNull(client, "client");
       this.spotConverter = checkNotNull(spotConverter, "spotConverter");
    }
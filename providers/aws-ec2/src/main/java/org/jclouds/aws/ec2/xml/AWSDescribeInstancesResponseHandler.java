@@ -26,6 +26,7 @@ import org.jclouds.date.DateService;
 import org.jclouds.ec2.domain.Reservation;
 import org.jclouds.ec2.domain.RunningInstance;
 import org.jclouds.ec2.xml.TagSetHandler;
+import org.jclouds.http.functions.ParseSax;
 import org.jclouds.location.Region;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -42,9 +43,11 @@ import com.google.common.collect.ImmutableSet.Builder;
  * @see <a href="http: />
  */
 public class AWSDescribeInstancesResponseHandler extends
-      BaseAWSReservationHandler<Set<Reservation<? extends RunningInstance>>> {
+      BaseAWSReservationHandler<Set<Reservation<? extends RunningInstance>>> implements
+      ParseSax.StreamingHandler<Reservation<? extends RunningInstance>>, ParseSax.ReusableHandler {
    private final TagSetHandler tagSetHandler;
    private Builder<Reservation<? extends RunningInstance>> reservations = ImmutableSet.<Reservation<? extends RunningInstance>>builder();
+   private ParseSax.ElementCallback<? super Reservation<? extends RunningInstance>> callback;
    private boolean inTagSet;
 
    @Inject
@@ -85,6 +88,17 @@ public class AWSDescribeInstancesResponseHandler extends
       super.endElement(uri, name, qName);
    }
 
+   @Override
+   public void setElementCallback(ParseSax.ElementCallback<? super Reservation<? extends RunningInstance>> callback) {
+      this.callback = callback;
+   }
+
+   @Override
+   public void reset() {
+      reservations = ImmutableSet.builder();
+      callback = null;
+   }
+
    @Override
    public Set<Reservation<? extends RunningInstance>> getResult() {
       return reservations.build();
@@ -97,7 +111,12 @@ public class AWSDescribeInstancesResponseHandler extends
    @Override
    protected void inItem() {
       if (endOfReservationItem()) {
-         reservations.add(super.newReservation());
+         Reservation<? extends RunningInstance> reservation = super.newReservation();
+         if (callback != null) {
+            callback.onElement(reservation);
+         } else {
+            reservations.add(reservation);
+         }
       } else {
          super.inItem();
       }
@@ -50,6 +50,8 @@ import org.jclouds.azurecompute.arm.compute.functions.CustomImageToVMImage;
 import org.jclouds.azurecompute.arm.compute.options.AzureTemplateOptions;
 import org.jclouds.azurecompute.arm.compute.options.IpOptions;
 import org.jclouds.azurecompute.arm.compute.strategy.CleanupResources;
+import org.jclouds.azurecompute.arm.compute.strategy.MarketplaceImageCrawler;
+import org.jclouds.azurecompute.arm.compute.strategy.NetworkResourceIndex;
 import org.jclouds.azurecompute.arm.domain.AvailabilitySet;
 import org.jclouds.azurecompute.arm.domain.CreationData;
 import org.jclouds.azurecompute.arm.domain.DataDisk;
@@ -67,12 +69,10 @@ import org.jclouds.azurecompute.arm.domain.NetworkProfile.NetworkInterface;
 import org.jclouds.azurecompute.arm.domain.NetworkProfile.NetworkInterface.NetworkInterfaceProperties;
 import org.jclouds.azurecompute.arm.domain.OSDisk;
 import org.jclouds.azurecompute.arm.domain.OSProfile;
-import org.jclouds.azurecompute.arm.domain.Offer;
 import org.jclouds.azurecompute.arm.domain.Plan;
 import org.jclouds.azurecompute.arm.domain.Provisionable;
 import org.jclouds.azurecompute.arm.domain.ResourceGroup;
 import org.jclouds.azurecompute.arm.domain.ResourceProviderMetaData;
-import org.jclouds.azurecompute.arm.domain.SKU;
 import org.jclouds.azurecompute.arm.domain.StorageAccountType;
 import org.jclouds.azurecompute.arm.domain.StorageProfile;
 import org.jclouds.azurecompute.arm.domain.VMHardware;
@@ -128,12 +128,15 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Virtual
    private final CustomImageToVMImage customImagetoVmImage;
    private final GroupNamingConvention namingConvention;
    private Predicate<Supplier<Provisionable>> resourceAvailable;
+   private final MarketplaceImageCrawler imageCrawler;
+   private final NetworkResourceIndex networkResources;
 
    @Inject
    AzureComputeServiceAdapter(final AzureComputeApi api, @Named(IMAGE_PUBLISHERS) String imagePublishers,
          CleanupResources cleanupResources, @Region Supplier<Set<String>> regionIds,
          PublicIpAvailablePredicateFactory publicIpAvailable, CustomImageToVMImage customImagetoVmImage,
-         GroupNamingConvention.Factory namingConvention, Predicate<Supplier<Provisionable>> resourceAvailable) {
+         GroupNamingConvention.Factory namingConvention, Predicate<Supplier<Provisionable>> resourceAvailable,
+         MarketplaceImageCrawler imageCrawler, NetworkResourceIndex networkResources) {
       this.api = api;
       this.imagePublishers = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(imagePublishers);
       this.cleanupResources = cleanupResources;
@@ -142,6 +145,8 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Virtual
       this.customImagetoVmImage = customImagetoVmImage;
       this.namingConvention = namingConvention.create();
       this.resourceAvailable = resourceAvailable;
+      this.imageCrawler = imageCrawler;
+      this.networkResources = networkResources;
    }
 
    @Override
@@ -185,49 +190,19 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Virtual
 
    @Override
    public Iterable<VMHardware> listHardwareProfiles() {
-      final List<VMHardware> hwProfiles = Lists.newArrayList();
-      for (Location location : listLocations()) {
-         Iterable<VMSize> vmSizes = api.getVMSizeApi(location.name()).list();
-         for (VMSize vmSize : vmSizes) {
-            VMHardware hwProfile = VMHardware
-                    .create(vmSize.name(), vmSize.numberOfCores(), vmSize.osDiskSizeInMB(),
-                            vmSize.resourceDiskSizeInMB(), vmSize.memoryInMB(), vmSize.maxDataDiskCount(), location.name());
-            hwProfiles.add(hwProfile);
-         }
-      }
-      return hwProfiles;
-   }
-
-   private List<VMImage> getImagesFromPublisher(String publisherName, String location) {
-      List<VMImage> osImagesRef = Lists.newArrayList();
-      OSImageApi osImageApi = api.getOSImageApi(location);
-      Iterable<Offer> offerList = osImageApi.listOffers(publisherName);
-
-      for (Offer offer : offerList) {
-         Iterable<SKU> skuList = osImageApi.listSKUs(publisherName, offer.name());
-
-         for (SKU sku : skuList) {
-            Iterable<Version> versionList = osImageApi.listVersions(publisherName, offer.name(), sku.name());
-            for (Version version : versionList) {
-               Version versionDetails = osImageApi.getVersion(publisherName, offer.name(), sku.name(), version.name());
-               VMImage vmImage = VMImage.azureImage().publisher(publisherName).offer(offer.name()).sku(sku.name())
-                       .version(versionDetails.name()).location(location).versionProperties(versionDetails.properties())
-                       .build();
-               osImagesRef.add(vmImage);
+      return imageCrawler.concatInParallel(listLocations(), new Function<Location, List<VMHardware>>() {
+         @Override
+         public List<VMHardware> apply(Location location) {
+            ImmutableList.Builder<VMHardware> hwProfiles = ImmutableList.builder();
+            for (VMSize vmSize : api.getVMSizeApi(location.name()).list()) {
+               hwProfiles.add(VMHardware.create(vmSize.name(), vmSize.numberOfCores(), vmSize.osDiskSizeInMB(),
+                     vmSize.resourceDiskSizeInMB(), vmSize.memoryInMB(), vmSize.maxDataDiskCount(), location.name()));
             }
+            return hwProfiles.build();
          }
-      }
-      return osImagesRef;
+      });
    }
 
-   private List<VMImage> listImagesByLocation(String location) {
-      final List<VMImage> osImages = Lists.newArrayList();
-      for (String publisher : imagePublishers) {
-         osImages.addAll(getImagesFromPublisher(publisher, location));
-      }
-      return osImages;
-   }
-   
    private List<VMImage> listCustomImagesByResourceGroup(String resourceGroup) {
       List<org.jclouds.azurecompute.arm.domain.Image> customImgs = api.getVirtualMachineImageApi(resourceGroup).list();
       return ImmutableList.copyOf(transform(
@@ -251,9 +226,7 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Virtual
                }
             }));
 
-      for (String locationName : availableLocationNames) {
-         osImages.addAll(listImagesByLocation(locationName));
-      }
+      osImages.addAll(imageCrawler.listImages(availableLocationNames, imagePublishers));
 
       // We need to look for custom images in all resource groups
       for (ResourceGroup resourceGroup : api.getResourceGroupApi().list()) {
@@ -358,7 +331,13 @@ public class AzureComputeServiceAdapter implements ComputeServiceAdapter<Virtual
             nodes.addAll(api.getVirtualMachineApi(null).listByLocation(location));
          }
       }
-      return nodes.build();
+      List<VirtualMachine> virtualMachines = nodes.build();
+      // Converting the nodes resolves their network interfaces and public ips. List them in bulk instead of
+      // getting them one by one.
+      if (virtualMachines.size() > 1) {
+         networkResources.index(virtualMachines);
+      }
+      return virtualMachines;
    }
 
    @Override
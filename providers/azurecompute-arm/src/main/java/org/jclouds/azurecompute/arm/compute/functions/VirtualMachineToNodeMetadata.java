@@ -22,7 +22,6 @@ import static com.google.common.collect.Iterables.find;
 import static org.jclouds.azurecompute.arm.compute.AzureComputeServiceAdapter.GROUP_KEY;
 import static org.jclouds.azurecompute.arm.compute.domain.LocationAndName.fromLocationAndName;
 import static org.jclouds.azurecompute.arm.compute.domain.ResourceGroupAndName.fromResourceGroupAndName;
-import static org.jclouds.azurecompute.arm.domain.IdReference.extractName;
 import static org.jclouds.azurecompute.arm.domain.IdReference.extractResourceGroup;
 import static org.jclouds.compute.util.ComputeServiceUtils.addMetadataAndParseTagsFromCommaDelimitedValue;
 import static org.jclouds.location.predicates.LocationPredicates.idEquals;
@@ -34,10 +33,9 @@ import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import org.jclouds.azurecompute.arm.AzureComputeApi;
 import org.jclouds.azurecompute.arm.compute.domain.LocationAndName;
 import org.jclouds.azurecompute.arm.compute.functions.VirtualMachineToStatus.StatusAndBackendStatus;
-import org.jclouds.azurecompute.arm.domain.IdReference;
+import org.jclouds.azurecompute.arm.compute.strategy.NetworkResourceIndex;
 import org.jclouds.azurecompute.arm.domain.IpConfiguration;
 import org.jclouds.azurecompute.arm.domain.NetworkInterfaceCard;
 import org.jclouds.azurecompute.arm.domain.NetworkProfile.NetworkInterface;
@@ -68,7 +66,7 @@ public class VirtualMachineToNodeMetadata implements Function<VirtualMachine, No
    @Named(ComputeServiceConstants.COMPUTE_LOGGER)
    protected Logger logger = Logger.NULL;
 
-   private final AzureComputeApi api;
+   private final NetworkResourceIndex networkResources;
    private final GroupNamingConvention nodeNamingConvention;
    private final Supplier<Set<? extends Location>> locations;
    private final Supplier<Map<String, ? extends Hardware>> hardwares;
@@ -76,11 +74,11 @@ public class VirtualMachineToNodeMetadata implements Function<VirtualMachine, No
    private final VirtualMachineToStatus virtualMachineToStatus;
 
    @Inject
-   VirtualMachineToNodeMetadata(AzureComputeApi api, GroupNamingConvention.Factory namingConvention,
+   VirtualMachineToNodeMetadata(NetworkResourceIndex networkResources, GroupNamingConvention.Factory namingConvention,
          Supplier<Map<String, ? extends Hardware>> hardwares, @Memoized Supplier<Set<? extends Location>> locations,
          Map<String, Credentials> credentialStore, @Memoized Supplier<Set<? extends Image>> imageCache,
          VirtualMachineToStatus virtualMachineToStatus) {
-      this.api = api;
+      this.networkResources = networkResources;
       this.nodeNamingConvention = namingConvention.createWithoutPrefix();
       this.locations = locations;
       this.hardwares = hardwares;
@@ -103,8 +101,9 @@ public class VirtualMachineToNodeMetadata implements Function<VirtualMachine, No
       builder.status(status.status());
       builder.backendStatus(status.backendStatus());
 
-      builder.publicAddresses(getPublicIpAddresses(virtualMachine.properties().networkProfile().networkInterfaces()));
-      builder.privateAddresses(getPrivateIpAddresses(virtualMachine.properties().networkProfile().networkInterfaces()));
+      List<NetworkInterfaceCard> networkInterfaceCards = getNetworkInterfaceCards(virtualMachine);
+      builder.publicAddresses(getPublicIpAddresses(virtualMachine, networkInterfaceCards));
+      builder.privateAddresses(getPrivateIpAddresses(networkInterfaceCards));
 
       String groupFromMetadata = null;
       if (virtualMachine.tags() != null) {
@@ -137,40 +136,42 @@ public class VirtualMachineToNodeMetadata implements Function<VirtualMachine, No
       return builder.build();
    }
 
-   private Iterable<String> getPrivateIpAddresses(List<NetworkInterface> networkInterfaces) {
-      List<String> privateIpAddresses = Lists.newArrayList();
-      for (NetworkInterface networkInterfaceCardIdReference : networkInterfaces) {
-         NetworkInterfaceCard networkInterfaceCard = getNetworkInterfaceCard(networkInterfaceCardIdReference);
+   private List<NetworkInterfaceCard> getNetworkInterfaceCards(VirtualMachine virtualMachine) {
+      List<NetworkInterfaceCard> networkInterfaceCards = Lists.newArrayList();
+      for (NetworkInterface networkInterfaceCardIdReference : virtualMachine.properties().networkProfile()
+            .networkInterfaces()) {
+         NetworkInterfaceCard networkInterfaceCard = networkResources.networkInterfaceCard(virtualMachine,
+               networkInterfaceCardIdReference);
          if (networkInterfaceCard != null && networkInterfaceCard.properties() != null
                && networkInterfaceCard.properties().ipConfigurations() != null) {
-            for (IpConfiguration ipConfiguration : networkInterfaceCard.properties().ipConfigurations()) {
-               if (ipConfiguration.properties().privateIPAddress() != null) {
-                  privateIpAddresses.add(ipConfiguration.properties().privateIPAddress());
-               }
-            }
+            networkInterfaceCards.add(networkInterfaceCard);
          }
       }
-      return privateIpAddresses;
+      return networkInterfaceCards;
    }
 
-   private NetworkInterfaceCard getNetworkInterfaceCard(NetworkInterface nic) {
-      return api.getNetworkInterfaceCardApi(extractResourceGroup(nic.id())).get(extractName(nic.id()));
+   private Iterable<String> getPrivateIpAddresses(List<NetworkInterfaceCard> networkInterfaceCards) {
+      List<String> privateIpAddresses = Lists.newArrayList();
+      for (NetworkInterfaceCard networkInterfaceCard : networkInterfaceCards) {
+         for (IpConfiguration ipConfiguration : networkInterfaceCard.properties().ipConfigurations()) {
+            if (ipConfiguration.properties().privateIPAddress() != null) {
+               privateIpAddresses.add(ipConfiguration.properties().privateIPAddress());
+            }
+         }
+      }
+      return privateIpAddresses;
    }
 
-   private Iterable<String> getPublicIpAddresses(List<NetworkInterface> networkInterfaces) {
+   private Iterable<String> getPublicIpAddresses(VirtualMachine virtualMachine,
+         List<NetworkInterfaceCard> networkInterfaceCards) {
       List<String> publicIpAddresses = Lists.newArrayList();
-      for (NetworkInterface networkInterfaceCardIdReference : networkInterfaces) {
-         NetworkInterfaceCard networkInterfaceCard = getNetworkInterfaceCard(networkInterfaceCardIdReference);
-         if (networkInterfaceCard != null && networkInterfaceCard.properties() != null
-               && networkInterfaceCard.properties().ipConfigurations() != null) {
-            for (IpConfiguration ipConfiguration : networkInterfaceCard.properties().ipConfigurations()) {
-               if (ipConfiguration.properties().publicIPAddress() != null) {
-                  IdReference publicIpId = ipConfiguration.properties().publicIPAddress();
-                  PublicIPAddress publicIp = api.getPublicIPAddressApi(publicIpId.resourceGroup()).get(
-                        publicIpId.name());
-                  if (publicIp != null && publicIp.properties().ipAddress() != null) {
-                     publicIpAddresses.add(publicIp.properties().ipAddress());
-                  }
+      for (NetworkInterfaceCard networkInterfaceCard : networkInterfaceCards) {
+         for (IpConfiguration ipConfiguration : networkInterfaceCard.properties().ipConfigurations()) {
+            if (ipConfiguration.properties().publicIPAddress() != null) {
+               PublicIPAddress publicIp = networkResources.publicIPAddress(virtualMachine, ipConfiguration
+                     .properties().publicIPAddress());
+               if (publicIp != null && publicIp.properties().ipAddress() != null) {
+                  publicIpAddresses.add(publicIp.properties().ipAddress());
                }
             }
          }
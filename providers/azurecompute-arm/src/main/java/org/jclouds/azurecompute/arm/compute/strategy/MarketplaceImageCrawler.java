@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.arm.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.azurecompute.arm.config.AzureComputeProperties.IMAGE_CRAWL_CONCURRENCY;
+import static org.jclouds.azurecompute.arm.config.AzureComputeProperties.IMAGE_CRAWL_REFRESH;
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.azurecompute.arm.AzureComputeApi;
+import org.jclouds.azurecompute.arm.config.AzureComputeProperties;
+import org.jclouds.azurecompute.arm.domain.Offer;
+import org.jclouds.azurecompute.arm.domain.SKU;
+import org.jclouds.azurecompute.arm.domain.VMImage;
+import org.jclouds.azurecompute.arm.domain.Version;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.logging.Logger;
+import org.jclouds.rest.AuthorizationException;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Lists marketplace images by walking publisher, offer, SKU and version level by level, with the requests of each
+ * level running in parallel, at most {@link AzureComputeProperties#IMAGE_CRAWL_CONCURRENCY} at a time.
+ * <p>
+ * Each level is cached. Offer, SKU and version lists are refreshed on first use after
+ * {@link AzureComputeProperties#IMAGE_CRAWL_REFRESH} seconds, keeping the previous list if the refresh fails; version
+ * details never change and are kept. A branch that cannot be listed is logged and skipped, so the images of the other
+ * branches are still returned; authorization errors are not skipped but thrown, as they affect every branch.
+ */
+@Singleton
+public class MarketplaceImageCrawler {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final ListeningExecutorService userExecutor;
+   private final int concurrency;
+   private final LoadingCache<List<String>, List<Offer>> offers;
+   private final LoadingCache<List<String>, List<SKU>> skus;
+   private final LoadingCache<List<String>, List<Version>> versions;
+   private final LoadingCache<List<String>, Optional<Version>> versionDetails;
+
+   @Inject
+   MarketplaceImageCrawler(final AzureComputeApi api,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         @Named(IMAGE_CRAWL_CONCURRENCY) int concurrency, @Named(IMAGE_CRAWL_REFRESH) long refreshSeconds) {
+      checkNotNull(api, "api");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.concurrency = concurrency;
+      // keys are location, publisher, offer, sku and version, as deep as the level requires
+      this.offers = CacheBuilder.newBuilder().refreshAfterWrite(refreshSeconds, SECONDS)
+            .build(new CacheLoader<List<String>, List<Offer>>() {
+               @Override
+               public List<Offer> load(List<String> key) {
+                  return api.getOSImageApi(key.get(0)).listOffers(key.get(1));
+               }
+            });
+      this.skus = CacheBuilder.newBuilder().refreshAfterWrite(refreshSeconds, SECONDS)
+            .build(new CacheLoader<List<String>, List<SKU>>() {
+               @Override
+               public List<SKU> load(List<String> key) {
+                  return api.getOSImageApi(key.get(0)).listSKUs(key.get(1), key.get(2));
+               }
+            });
+      this.versions = CacheBuilder.newBuilder().refreshAfterWrite(refreshSeconds, SECONDS)
+            .build(new CacheLoader<List<String>, List<Version>>() {
+               @Override
+               public List<Version> load(List<String> key) {
+                  return api.getOSImageApi(key.get(0)).listVersions(key.get(1), key.get(2), key.get(3));
+               }
+            });
+      this.versionDetails = CacheBuilder.newBuilder().build(new CacheLoader<List<String>, Optional<Version>>() {
+         @Override
+         public Optional<Version> load(List<String> key) {
+            return Optional.fromNullable(api.getOSImageApi(key.get(0)).getVersion(key.get(1), key.get(2), key.get(3),
+                  key.get(4)));
+         }
+      });
+   }
+
+   /**
+    * @return the images of {@code publishers} available in each of {@code locations}
+    */
+   public List<VMImage> listImages(Iterable<String> locations, Iterable<String> publishers) {
+      List<List<String>> publisherKeys = Lists.newArrayList();
+      for (String location : locations) {
+         for (String publisher : publishers) {
+            publisherKeys.add(ImmutableList.of(location, publisher));
+         }
+      }
+      List<List<String>> offerKeys = concatInParallel(publisherKeys,
+            skippingFailures(new Function<List<String>, List<List<String>>>() {
+               @Override
+               public List<List<String>> apply(List<String> key) {
+                  ImmutableList.Builder<List<String>> children = ImmutableList.builder();
+                  for (Offer offer : offers.getUnchecked(key)) {
+                     children.add(child(key, offer.name()));
+                  }
+                  return children.build();
+               }
+            }));
+      List<List<String>> skuKeys = concatInParallel(offerKeys,
+            skippingFailures(new Function<List<String>, List<List<String>>>() {
+               @Override
+               public List<List<String>> apply(List<String> key) {
+                  ImmutableList.Builder<List<String>> children = ImmutableList.builder();
+                  for (SKU sku : skus.getUnchecked(key)) {
+                     children.add(child(key, sku.name()));
+                  }
+                  return children.build();
+               }
+            }));
+      List<List<String>> versionKeys = concatInParallel(skuKeys,
+            skippingFailures(new Function<List<String>, List<List<String>>>() {
+               @Override
+               public List<List<String>> apply(List<String> key) {
+                  ImmutableList.Builder<List<String>> children = ImmutableList.builder();
+                  for (Version version : versions.getUnchecked(key)) {
+                     children.add(child(key, version.name()));
+                  }
+                  return children.build();
+               }
+            }));
+      return concatInParallel(versionKeys, skippingFailures(new Function<List<String>, List<VMImage>>() {
+         @Override
+         public List<VMImage> apply(List<String> key) {
+            Optional<Version> version = versionDetails.getUnchecked(key);
+            if (!version.isPresent()) {
+               return ImmutableList.of();
+            }
+            return ImmutableList.of(VMImage.azureImage().publisher(key.get(1)).offer(key.get(2)).sku(key.get(3))
+                  .version(version.get().name()).location(key.get(0)).versionProperties(version.get().properties())
+                  .build());
+         }
+      }));
+   }
+
+   /**
+    * Applies {@code function} to each of {@code inputs} on the user executor, at most {@code concurrency} at a time.
+    * If it fails for any input, the first failure in input order is rethrown and the remaining work is cancelled.
+    *
+    * @return the concatenated results, in the order of {@code inputs}
+    */
+   public <I, O> List<O> concatInParallel(Iterable<I> inputs, final Function<I, ? extends Iterable<O>> function) {
+      final Semaphore permits = new Semaphore(concurrency);
+      List<ListenableFuture<List<O>>> results = Lists.newArrayList();
+      for (final I input : inputs) {
+         permits.acquireUninterruptibly();
+         try {
+            results.add(userExecutor.submit(new Callable<List<O>>() {
+               @Override
+               public List<O> call() {
+                  try {
+                     return ImmutableList.copyOf(function.apply(input));
+                  } finally {
+                     permits.release();
+                  }
+               }
+            }));
+         } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+         }
+      }
+      ImmutableList.Builder<O> concatenated = ImmutableList.builder();
+      try {
+         for (ListenableFuture<List<O>> result : results) {
+            concatenated.addAll(getUninterruptibly(result));
+         }
+      } catch (ExecutionException e) {
+         for (ListenableFuture<List<O>> result : results) {
+            result.cancel(true);
+         }
+         throw propagate(e.getCause());
+      }
+      return concatenated.build();
+   }
+
+   /**
+    * @return {@code function}, except that a failure other than an authorization error is logged and yields nothing
+    */
+   private <I, O> Function<I, List<O>> skippingFailures(final Function<I, List<O>> function) {
+      return new Function<I, List<O>>() {
+         @Override
+         public List<O> apply(I input) {
+            try {
+               return function.apply(input);
+            } catch (RuntimeException e) {
+               AuthorizationException authorization = getFirstThrowableOfType(e, AuthorizationException.class);
+               if (authorization != null) {
+                  throw authorization;
+               }
+               logger.warn(e, "<< skipping %s: %s", input, e.getMessage());
+               return ImmutableList.of();
+            }
+         }
+      };
+   }
+
+   private static List<String> child(List<String> key, String name) {
+      return ImmutableList.<String> builder().addAll(key).add(name).build();
+   }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.arm.compute.strategy;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.jclouds.Constants.PROPERTY_SESSION_INTERVAL;
+import static org.jclouds.azurecompute.arm.domain.IdReference.extractName;
+import static org.jclouds.azurecompute.arm.domain.IdReference.extractResourceGroup;
+
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.azurecompute.arm.AzureComputeApi;
+import org.jclouds.azurecompute.arm.domain.IdReference;
+import org.jclouds.azurecompute.arm.domain.IpConfiguration;
+import org.jclouds.azurecompute.arm.domain.NetworkInterfaceCard;
+import org.jclouds.azurecompute.arm.domain.NetworkProfile.NetworkInterface;
+import org.jclouds.azurecompute.arm.domain.VirtualMachine;
+import org.jclouds.azurecompute.arm.domain.publicipaddress.PublicIPAddress;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.logging.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+
+/**
+ * Resolves the network interfaces and public IP addresses of virtual machines.
+ * <p>
+ * When a batch of virtual machines is listed, {@link #index(Iterable)} lists their network resources once per
+ * resource group, or once for the whole subscription when they span several groups, so that converting the batch does
+ * not issue a GET per resource. Only the virtual machine instances of an indexed batch are resolved through the index;
+ * any other, such as one returned by a single {@code getNode}, gets its resources fresh. Lookups that miss the index,
+ * such as resources created after it was built, also fall back to a GET.
+ */
+@Singleton
+public class NetworkResourceIndex {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final AzureComputeApi api;
+   // resource ids are case insensitive in ARM, and references do not always use the same case as the resource
+   private final Cache<String, NetworkInterfaceCard> nics;
+   private final Cache<String, PublicIPAddress> publicIps;
+   // weak keys are compared by identity, so only the very instances of an indexed listing are matched
+   private final Cache<VirtualMachine, Boolean> indexed;
+
+   @Inject
+   NetworkResourceIndex(AzureComputeApi api, @Named(PROPERTY_SESSION_INTERVAL) long sessionIntervalSeconds) {
+      this.api = api;
+      this.nics = CacheBuilder.newBuilder().expireAfterWrite(sessionIntervalSeconds, SECONDS).build();
+      this.publicIps = CacheBuilder.newBuilder().expireAfterWrite(sessionIntervalSeconds, SECONDS).build();
+      this.indexed = CacheBuilder.newBuilder().weakKeys().expireAfterWrite(sessionIntervalSeconds, SECONDS).build();
+   }
+
+   /**
+    * Lists the network interfaces referenced by the given virtual machines, and the public IP addresses attached to
+    * them, and indexes them by id.
+    */
+   public void index(Iterable<VirtualMachine> virtualMachines) {
+      Set<String> nicResourceGroups = Sets.newHashSet();
+      for (VirtualMachine virtualMachine : virtualMachines) {
+         indexed.put(virtualMachine, Boolean.TRUE);
+         if (virtualMachine.properties().networkProfile() == null) {
+            continue;
+         }
+         for (NetworkInterface nic : virtualMachine.properties().networkProfile().networkInterfaces()) {
+            addLowerCase(nicResourceGroups, extractResourceGroup(nic.id()));
+         }
+      }
+      if (nicResourceGroups.isEmpty()) {
+         return;
+      }
+
+      List<NetworkInterfaceCard> listedNics = nicResourceGroups.size() == 1 ? api.getNetworkInterfaceCardApi(
+            Iterables.getOnlyElement(nicResourceGroups)).list() : api.getNetworkInterfaceCardApi(null)
+            .listAllInSubscription();
+      Set<String> ipResourceGroups = Sets.newHashSet();
+      for (NetworkInterfaceCard nic : listedNics) {
+         if (nic.id() != null) {
+            nics.put(nic.id().toLowerCase(), nic);
+         }
+         for (IdReference publicIp : publicIpReferences(nic)) {
+            addLowerCase(ipResourceGroups, publicIp.resourceGroup());
+         }
+      }
+      if (ipResourceGroups.isEmpty()) {
+         return;
+      }
+
+      List<PublicIPAddress> listedIps = ipResourceGroups.size() == 1 ? api.getPublicIPAddressApi(
+            Iterables.getOnlyElement(ipResourceGroups)).list() : api.getPublicIPAddressApi(null)
+            .listAllInSubscription();
+      for (PublicIPAddress publicIp : listedIps) {
+         // addresses that are still being allocated are left out so that they are looked up again
+         if (publicIp.id() != null && publicIp.properties().ipAddress() != null) {
+            publicIps.put(publicIp.id().toLowerCase(), publicIp);
+         }
+      }
+      logger.debug("<< indexed %d network interfaces and %d public ip addresses", listedNics.size(), listedIps.size());
+   }
+
+   /**
+    * @return the network interface {@code nic} of {@code virtualMachine}, from the index if the virtual machine was
+    *         part of an indexed listing
+    */
+   public NetworkInterfaceCard networkInterfaceCard(VirtualMachine virtualMachine, NetworkInterface nic) {
+      NetworkInterfaceCard fromIndex = nic.id() == null || !isIndexed(virtualMachine) ? null : nics.getIfPresent(nic
+            .id().toLowerCase());
+      if (fromIndex != null) {
+         return fromIndex;
+      }
+      return api.getNetworkInterfaceCardApi(extractResourceGroup(nic.id())).get(extractName(nic.id()));
+   }
+
+   /**
+    * @return the public IP address {@code publicIpId} of {@code virtualMachine}, from the index if the virtual machine
+    *         was part of an indexed listing
+    */
+   public PublicIPAddress publicIPAddress(VirtualMachine virtualMachine, IdReference publicIpId) {
+      PublicIPAddress fromIndex = publicIpId.id() == null || !isIndexed(virtualMachine) ? null : publicIps
+            .getIfPresent(publicIpId.id().toLowerCase());
+      if (fromIndex != null) {
+         return fromIndex;
+      }
+      return api.getPublicIPAddressApi(publicIpId.resourceGroup()).get(publicIpId.name());
+   }
+
+   private boolean isIndexed(VirtualMachine virtualMachine) {
+      return indexed.getIfPresent(virtualMachine) != null;
+   }
+
+   private static void addLowerCase(Set<String> resourceGroups, String resourceGroup) {
+      if (resourceGroup != null) {
+         resourceGroups.add(resourceGroup.toLowerCase());
+      }
+   }
+
+   private static Iterable<IdReference> publicIpReferences(NetworkInterfaceCard nic) {
+      Set<IdReference> references = Sets.newHashSet();
+      if (nic.properties() != null && nic.properties().ipConfigurations() != null) {
+         for (IpConfiguration ipConfiguration : nic.properties().ipConfigurations()) {
+            if (ipConfiguration.properties().publicIPAddress() != null) {
+               references.add(ipConfiguration.properties().publicIPAddress());
+            }
+         }
+      }
+      return references;
+   }
+}
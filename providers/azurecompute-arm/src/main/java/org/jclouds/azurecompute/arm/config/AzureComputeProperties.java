@@ -26,6 +26,16 @@ public class AzureComputeProperties {
    
    public static final String IMAGE_PUBLISHERS = "jclouds.azurecompute.arm.publishers";
 
+   /**
+    * Maximum number of requests in flight while listing marketplace images and VM sizes.
+    */
+   public static final String IMAGE_CRAWL_CONCURRENCY = "jclouds.azurecompute.arm.imagecrawl.concurrency";
+
+   /**
+    * Seconds after which cached marketplace offer, SKU and version lists are refreshed, on their next use.
+    */
+   public static final String IMAGE_CRAWL_REFRESH = "jclouds.azurecompute.arm.imagecrawl.refresh";
+
    public static final String TIMEOUT_RESOURCE_DELETED = "jclouds.azurecompute.arm.timeout.resourcedeleted";
 
    public static final String DEFAULT_VNET_ADDRESS_SPACE_PREFIX = "jclouds.azurecompute.arm.vnet.addressprefix";
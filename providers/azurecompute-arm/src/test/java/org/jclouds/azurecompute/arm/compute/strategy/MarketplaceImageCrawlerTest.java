@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.arm.compute.strategy;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+
+import org.jclouds.azurecompute.arm.AzureComputeApi;
+import org.jclouds.azurecompute.arm.domain.Offer;
+import org.jclouds.azurecompute.arm.domain.SKU;
+import org.jclouds.azurecompute.arm.domain.VMImage;
+import org.jclouds.azurecompute.arm.domain.Version;
+import org.jclouds.azurecompute.arm.domain.Version.VersionProperties;
+import org.jclouds.azurecompute.arm.domain.Version.VersionProperties.OSDiskImage;
+import org.jclouds.azurecompute.arm.features.OSImageApi;
+import org.jclouds.rest.AuthorizationException;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "MarketplaceImageCrawlerTest")
+public class MarketplaceImageCrawlerTest {
+
+   private static final VersionProperties PROPERTIES = VersionProperties.create(null, OSDiskImage.create("Linux"));
+
+   public void testFailedBranchIsSkippedAndRetried() {
+      AzureComputeApi api = createMock(AzureComputeApi.class);
+      OSImageApi osImageApi = createMock(OSImageApi.class);
+
+      expect(api.getOSImageApi("westus")).andReturn(osImageApi).anyTimes();
+      expect(osImageApi.listOffers("Canonical")).andReturn(ImmutableList.of(Offer.create("westus", "UbuntuServer",
+            "offer"))).times(1);
+      expect(osImageApi.listSKUs("Canonical", "UbuntuServer")).andReturn(ImmutableList.of(
+            SKU.create("westus", "16.04-LTS", "sku1", null), SKU.create("westus", "18.04-LTS", "sku2", null)))
+            .times(1);
+      expect(osImageApi.listVersions("Canonical", "UbuntuServer", "16.04-LTS")).andReturn(
+            ImmutableList.of(version("1.0.0"))).times(1);
+      expect(osImageApi.listVersions("Canonical", "UbuntuServer", "18.04-LTS")).andThrow(
+            new IllegalStateException("throttled"));
+      expect(osImageApi.listVersions("Canonical", "UbuntuServer", "18.04-LTS")).andReturn(
+            ImmutableList.of(version("2.0.0"))).times(1);
+      expect(osImageApi.getVersion("Canonical", "UbuntuServer", "16.04-LTS", "1.0.0")).andReturn(version("1.0.0"))
+            .times(1);
+      expect(osImageApi.getVersion("Canonical", "UbuntuServer", "18.04-LTS", "2.0.0")).andReturn(version("2.0.0"))
+            .times(1);
+      replay(api, osImageApi);
+
+      MarketplaceImageCrawler crawler = crawler(api);
+
+      List<VMImage> images = crawler.listImages(ImmutableList.of("westus"), ImmutableList.of("Canonical"));
+      assertEquals(versions(images), ImmutableList.of("1.0.0"));
+
+      images = crawler.listImages(ImmutableList.of("westus"), ImmutableList.of("Canonical"));
+      assertEquals(versions(images), ImmutableList.of("1.0.0", "2.0.0"));
+      assertEquals(images.get(1).sku(), "18.04-LTS");
+      assertEquals(images.get(1).location(), "westus");
+
+      verify(api, osImageApi);
+   }
+
+   @Test(expectedExceptions = AuthorizationException.class)
+   public void testAuthorizationErrorIsNotSkipped() {
+      AzureComputeApi api = createMock(AzureComputeApi.class);
+      OSImageApi osImageApi = createMock(OSImageApi.class);
+
+      expect(api.getOSImageApi("westus")).andReturn(osImageApi).anyTimes();
+      expect(osImageApi.listOffers("Canonical")).andThrow(new AuthorizationException("forbidden"));
+      replay(api, osImageApi);
+
+      crawler(api).listImages(ImmutableList.of("westus"), ImmutableList.of("Canonical"));
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "2")
+   public void testConcatInParallelPropagatesFailures() {
+      MarketplaceImageCrawler crawler = crawler(createMock(AzureComputeApi.class));
+
+      crawler.concatInParallel(ImmutableList.of(1, 2, 3), new Function<Integer, List<Integer>>() {
+         @Override
+         public List<Integer> apply(Integer input) {
+            if (input == 2) {
+               throw new IllegalStateException(input.toString());
+            }
+            return ImmutableList.of(input);
+         }
+      });
+   }
+
+   public void testConcatInParallelKeepsInputOrder() {
+      MarketplaceImageCrawler crawler = crawler(createMock(AzureComputeApi.class));
+
+      List<Integer> result = crawler.concatInParallel(ImmutableList.of(1, 2, 3),
+            new Function<Integer, List<Integer>>() {
+               @Override
+               public List<Integer> apply(Integer input) {
+                  return ImmutableList.of(input, input * 10);
+               }
+            });
+      assertEquals(result, ImmutableList.of(1, 10, 2, 20, 3, 30));
+   }
+
+   private static MarketplaceImageCrawler crawler(AzureComputeApi api) {
+      return new MarketplaceImageCrawler(api, MoreExecutors.newDirectExecutorService(), 2, 3600);
+   }
+
+   private static Version version(String name) {
+      return Version.create("westus", name, "id", PROPERTIES);
+   }
+
+   private static List<String> versions(List<VMImage> images) {
+      ImmutableList.Builder<String> versions = ImmutableList.builder();
+      for (VMImage image : images) {
+         versions.add(image.version());
+      }
+      return versions.build();
+   }
+}
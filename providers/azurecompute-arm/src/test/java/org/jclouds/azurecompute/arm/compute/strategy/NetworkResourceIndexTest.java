@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azurecompute.arm.compute.strategy;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import org.jclouds.azurecompute.arm.AzureComputeApi;
+import org.jclouds.azurecompute.arm.domain.IdReference;
+import org.jclouds.azurecompute.arm.domain.IpConfiguration;
+import org.jclouds.azurecompute.arm.domain.IpConfigurationProperties;
+import org.jclouds.azurecompute.arm.domain.NetworkInterfaceCard;
+import org.jclouds.azurecompute.arm.domain.NetworkInterfaceCardProperties;
+import org.jclouds.azurecompute.arm.domain.NetworkProfile;
+import org.jclouds.azurecompute.arm.domain.NetworkProfile.NetworkInterface;
+import org.jclouds.azurecompute.arm.domain.VirtualMachine;
+import org.jclouds.azurecompute.arm.domain.VirtualMachineProperties;
+import org.jclouds.azurecompute.arm.domain.publicipaddress.PublicIPAddress;
+import org.jclouds.azurecompute.arm.domain.publicipaddress.PublicIPAddressProperties;
+import org.jclouds.azurecompute.arm.features.NetworkInterfaceCardApi;
+import org.jclouds.azurecompute.arm.features.PublicIPAddressApi;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+@Test(groups = "unit", testName = "NetworkResourceIndexTest")
+public class NetworkResourceIndexTest {
+
+   private static final String PREFIX = "/subscriptions/subscription/resourceGroups/";
+
+   public void testIndexesWholeSubscriptionAcrossResourceGroups() {
+      AzureComputeApi api = createMock(AzureComputeApi.class);
+      NetworkInterfaceCardApi nicApi = createMock(NetworkInterfaceCardApi.class);
+      PublicIPAddressApi ipApi = createMock(PublicIPAddressApi.class);
+
+      NetworkInterfaceCard nic1 = nic("rg1", "nic1", "ip1");
+      NetworkInterfaceCard nic2 = nic("rg2", "nic2", "ip2");
+      PublicIPAddress ip1 = publicIp("rg1", "ip1", "1.1.1.1");
+      PublicIPAddress ip2 = publicIp("rg2", "ip2", null);
+      PublicIPAddress ip2Allocated = publicIp("rg2", "ip2", "2.2.2.2");
+
+      expect(api.getNetworkInterfaceCardApi(null)).andReturn(nicApi);
+      expect(nicApi.listAllInSubscription()).andReturn(ImmutableList.of(nic1, nic2));
+      expect(api.getPublicIPAddressApi(null)).andReturn(ipApi);
+      expect(ipApi.listAllInSubscription()).andReturn(ImmutableList.of(ip1, ip2));
+      // ip2 was still being allocated when listed, and is looked up again
+      expect(api.getPublicIPAddressApi("rg2")).andReturn(ipApi);
+      expect(ipApi.get("ip2")).andReturn(ip2Allocated);
+      // nic3 was created after the listing
+      NetworkInterfaceCard nic3 = nic("rg1", "nic3", "ip1");
+      expect(api.getNetworkInterfaceCardApi("rg1")).andReturn(nicApi);
+      expect(nicApi.get("nic3")).andReturn(nic3);
+      replay(api, nicApi, ipApi);
+
+      NetworkResourceIndex index = new NetworkResourceIndex(api, 300);
+      VirtualMachine vm1 = vm("rg1", "nic1");
+      VirtualMachine vm2 = vm("rg2", "nic2");
+      index.index(ImmutableList.of(vm1, vm2));
+
+      // references do not always use the same case as the resources
+      assertSame(index.networkInterfaceCard(vm1, NetworkInterface.create(PREFIX + "RG1/providers/Microsoft.Network/"
+            + "networkInterfaces/nic1", null)), nic1);
+      assertSame(index.networkInterfaceCard(vm2, nicReference("rg2", "nic2")), nic2);
+      assertSame(index.networkInterfaceCard(vm1, nicReference("rg1", "nic3")), nic3);
+      assertSame(index.publicIPAddress(vm1, IdReference.create(ip1.id())), ip1);
+      assertEquals(index.publicIPAddress(vm2, IdReference.create(ip2.id())).properties().ipAddress(), "2.2.2.2");
+
+      verify(api, nicApi, ipApi);
+   }
+
+   public void testIndexesSingleResourceGroup() {
+      AzureComputeApi api = createMock(AzureComputeApi.class);
+      NetworkInterfaceCardApi nicApi = createMock(NetworkInterfaceCardApi.class);
+      PublicIPAddressApi ipApi = createMock(PublicIPAddressApi.class);
+
+      NetworkInterfaceCard nic1 = nic("rg1", "nic1", "ip1");
+      NetworkInterfaceCard nic2 = nic("rg1", "nic2", "ip2");
+
+      expect(api.getNetworkInterfaceCardApi("rg1")).andReturn(nicApi);
+      expect(nicApi.list()).andReturn(ImmutableList.of(nic1, nic2));
+      expect(api.getPublicIPAddressApi("rg1")).andReturn(ipApi);
+      expect(ipApi.list()).andReturn(ImmutableList.of(publicIp("rg1", "ip1", "1.1.1.1"),
+            publicIp("rg1", "ip2", "2.2.2.2")));
+      replay(api, nicApi, ipApi);
+
+      NetworkResourceIndex index = new NetworkResourceIndex(api, 300);
+      VirtualMachine vm2 = vm("rg1", "nic2");
+      index.index(ImmutableList.of(vm("rg1", "nic1"), vm2));
+
+      assertSame(index.networkInterfaceCard(vm2, nicReference("rg1", "nic2")), nic2);
+      assertEquals(index.publicIPAddress(vm2, IdReference.create(PREFIX + "rg1/providers/Microsoft.Network/"
+            + "publicIPAddresses/ip2")).properties().ipAddress(), "2.2.2.2");
+
+      verify(api, nicApi, ipApi);
+   }
+
+   public void testVirtualMachineNotFromIndexedListingGetsFreshResources() {
+      AzureComputeApi api = createMock(AzureComputeApi.class);
+      NetworkInterfaceCardApi nicApi = createMock(NetworkInterfaceCardApi.class);
+      PublicIPAddressApi ipApi = createMock(PublicIPAddressApi.class);
+
+      NetworkInterfaceCard nic1 = nic("rg1", "nic1", "ip1");
+      PublicIPAddress ip1 = publicIp("rg1", "ip1", "1.1.1.1");
+      NetworkInterfaceCard nic1Updated = nic("rg1", "nic1", "ip1");
+      PublicIPAddress ip1Updated = publicIp("rg1", "ip1", "3.3.3.3");
+
+      expect(api.getNetworkInterfaceCardApi("rg1")).andReturn(nicApi);
+      expect(nicApi.list()).andReturn(ImmutableList.of(nic1, nic("rg1", "nic2", "ip2")));
+      expect(api.getPublicIPAddressApi("rg1")).andReturn(ipApi);
+      expect(ipApi.list()).andReturn(ImmutableList.of(ip1, publicIp("rg1", "ip2", "2.2.2.2")));
+      // the same virtual machine, as returned by a single getNode
+      expect(api.getNetworkInterfaceCardApi("rg1")).andReturn(nicApi);
+      expect(nicApi.get("nic1")).andReturn(nic1Updated);
+      expect(api.getPublicIPAddressApi("rg1")).andReturn(ipApi);
+      expect(ipApi.get("ip1")).andReturn(ip1Updated);
+      replay(api, nicApi, ipApi);
+
+      NetworkResourceIndex index = new NetworkResourceIndex(api, 300);
+      index.index(ImmutableList.of(vm("rg1", "nic1"), vm("rg1", "nic2")));
+
+      VirtualMachine fetched = vm("rg1", "nic1");
+      assertSame(index.networkInterfaceCard(fetched, nicReference("rg1", "nic1")), nic1Updated);
+      assertSame(index.publicIPAddress(fetched, IdReference.create(ip1.id())), ip1Updated);
+
+      verify(api, nicApi, ipApi);
+   }
+
+   private static NetworkInterface nicReference(String resourceGroup, String name) {
+      return NetworkInterface.create(PREFIX + resourceGroup + "/providers/Microsoft.Network/networkInterfaces/" + name,
+            null);
+   }
+
+   private static VirtualMachine vm(String resourceGroup, String nicName) {
+      NetworkProfile networkProfile = NetworkProfile.create(ImmutableList.of(nicReference(resourceGroup, nicName)));
+      return VirtualMachine.builder().id(PREFIX + resourceGroup + "/providers/Microsoft.Compute/virtualMachines/vm")
+            .name("vm").type("Microsoft.Compute/virtualMachines").location("westeurope")
+            .properties(VirtualMachineProperties.builder().networkProfile(networkProfile).build()).build();
+   }
+
+   private static NetworkInterfaceCard nic(String resourceGroup, String name, String publicIpName) {
+      IdReference publicIp = IdReference.create(PREFIX + resourceGroup + "/providers/Microsoft.Network/"
+            + "publicIPAddresses/" + publicIpName);
+      IpConfiguration ipConfiguration = IpConfiguration.builder()
+            .properties(IpConfigurationProperties.builder().privateIPAddress("10.0.0.4").publicIPAddress(publicIp)
+                  .build()).build();
+      return NetworkInterfaceCard.create(name, nicReference(resourceGroup, name).id(), "etag", "westeurope",
+            NetworkInterfaceCardProperties.builder().ipConfigurations(ImmutableList.of(ipConfiguration)).build(),
+            null);
+   }
+
+   private static PublicIPAddress publicIp(String resourceGroup, String name, String ipAddress) {
+      return PublicIPAddress.create(name, PREFIX + resourceGroup + "/providers/Microsoft.Network/publicIPAddresses/"
+            + name, "etag", "westeurope", null, null, PublicIPAddressProperties.builder().ipAddress(ipAddress)
+            .publicIPAllocationMethod("Dynamic").build());
+   }
+}
@@ -44,6 +44,7 @@ import org.jclouds.googlecloudstorage.options.UpdateBucketOptions;
 import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.oauth.v2.filters.OAuthFilter;
 import org.jclouds.rest.annotations.BinderParam;
+import org.jclouds.rest.annotations.ConditionalGet;
 import org.jclouds.rest.annotations.Fallback;
 import org.jclouds.rest.annotations.PATCH;
 import org.jclouds.rest.annotations.RequestFilters;
@@ -181,6 +182,7 @@ public interface BucketApi {
     */
    @Named("Bucket:list")
    @GET
+   @ConditionalGet
    @Produces(APPLICATION_JSON)
    @Path("/b")
    ListPage<Bucket> listBucket(@QueryParam("project") String projectId);
@@ -195,6 +197,7 @@ public interface BucketApi {
     */
    @Named("Bucket:list")
    @GET
+   @ConditionalGet
    @Produces(APPLICATION_JSON)
    @Path("/b")
    ListPage<Bucket> listBucket(@QueryParam("project") String projectId, ListOptions options);
@@ -53,6 +53,7 @@ import org.jclouds.io.PayloadEnclosing;
 import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.oauth.v2.filters.OAuthFilter;
 import org.jclouds.rest.annotations.BinderParam;
+import org.jclouds.rest.annotations.ConditionalGet;
 import org.jclouds.rest.annotations.Fallback;
 import org.jclouds.rest.annotations.MapBinder;
 import org.jclouds.rest.annotations.PATCH;
@@ -230,6 +231,7 @@ public interface ObjectApi {
     */
    @Named("Object:list")
    @GET
+   @ConditionalGet
    @Consumes(APPLICATION_JSON)
    @Path("storage/v1/b/{bucket}/o")
    @Fallback(NullOnNotFoundOr404.class)
@@ -246,6 +248,7 @@ public interface ObjectApi {
     */
    @Named("Object:list")
    @GET
+   @ConditionalGet
    @Consumes(APPLICATION_JSON)
    @Path("storage/v1/b/{bucket}/o")
    @Fallback(NullOnNotFoundOr404.class)
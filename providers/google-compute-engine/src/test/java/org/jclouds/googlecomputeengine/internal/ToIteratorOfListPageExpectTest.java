@@ -18,6 +18,7 @@ package org.jclouds.googlecomputeengine.internal;
 
 import static org.jclouds.googlecomputeengine.options.ListOptions.Builder.maxResults;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 
 import java.util.Iterator;
 import java.util.List;
@@ -27,12 +28,15 @@ import org.jclouds.googlecloud.domain.ListPage;
 import org.jclouds.googlecomputeengine.GoogleComputeEngineApi;
 import org.jclouds.googlecomputeengine.config.GoogleComputeEngineParserModule;
 import org.jclouds.googlecomputeengine.domain.Address;
+import org.jclouds.googlecomputeengine.domain.ForwardingRule;
 import org.jclouds.googlecomputeengine.domain.Image;
 import org.jclouds.googlecomputeengine.domain.Instance;
 import org.jclouds.googlecomputeengine.features.AddressApi;
+import org.jclouds.googlecomputeengine.features.ForwardingRuleApi;
 import org.jclouds.googlecomputeengine.features.ImageApi;
 import org.jclouds.googlecomputeengine.features.InstanceApi;
 import org.jclouds.googlecomputeengine.parse.ParseAddressTest;
+import org.jclouds.googlecomputeengine.parse.ParseForwardingRuleListTest;
 import org.jclouds.googlecomputeengine.parse.ParseImageTest;
 import org.jclouds.googlecomputeengine.parse.ParseInstanceTest;
 import org.jclouds.http.HttpRequest;
@@ -69,6 +73,27 @@ public class ToIteratorOfListPageExpectTest extends BaseGoogleComputeEngineExpec
       assertEquals(images.next().size(), 3);
    }
 
+   public void transformedListIsParsedAsPages() {
+      HttpRequest list = HttpRequest
+              .builder()
+              .method("GET")
+              .endpoint(BASE_URL + "/party/regions/europe-west1/forwardingRules")
+              .addHeader("Accept", "application/json")
+              .addHeader("Authorization", "Bearer " + TOKEN).build();
+
+      HttpResponse listResponse = HttpResponse.builder().statusCode(200)
+              .payload(payloadFromResource("/forwardingrule_list.json")).build();
+
+      ForwardingRuleApi forwardingRuleApi = requestsSendResponses(requestForScopes(COMPUTE_READONLY_SCOPE),
+              TOKEN_RESPONSE, list, listResponse).forwardingRulesInRegion("europe-west1");
+
+      // the list document is an object, so it must reach the @Transform rather than be streamed as an array
+      Iterator<ListPage<ForwardingRule>> rules = forwardingRuleApi.list();
+
+      assertEquals(rules.next(), new ParseForwardingRuleListTest().expected());
+      assertFalse(rules.hasNext());
+   }
+
    public void multiplePagesProjectScoped() {
       HttpRequest list1 = HttpRequest
               .builder()
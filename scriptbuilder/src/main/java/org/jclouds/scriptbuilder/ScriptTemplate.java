@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.scriptbuilder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jclouds.scriptbuilder.domain.OsFamily;
+import org.jclouds.scriptbuilder.domain.Statement;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * A script rendered once, with placeholders for the values that differ between nodes.
+ * <p/>
+ * Rendering a {@link Statement} loads function bodies and walks the whole statement tree. When many nodes run the
+ * same statement, build it once using {@link #variable(String)} wherever a per-node value belongs, then
+ * {@link #compile} it and call {@link #render(Map)} for each node, which only concatenates the fixed text with the
+ * substituted values. ex.
+ * 
+ * <pre>
+ * String name = ScriptTemplate.variable(&quot;INSTANCE_NAME&quot;);
+ * ScriptTemplate template = ScriptTemplate.compile(
+ *       InitScript.builder().name(name).home(&quot;/tmp/&quot; + name).run(statement).build(), OsFamily.UNIX);
+ * 
+ * String script = template.render(ImmutableMap.of(&quot;INSTANCE_NAME&quot;, &quot;bootstrap-1&quot;));
+ * </pre>
+ * 
+ * Values are substituted verbatim, so they must already be in the form they would take in the rendered script. For
+ * example, a password an {@code AdminAccess} statement would hash must be passed hashed.
+ */
+public final class ScriptTemplate {
+
+   private static final Pattern VARIABLE_NAME = Pattern.compile("[A-Za-z0-9]+(_[A-Za-z0-9]+)*");
+   private static final Pattern VARIABLE = Pattern.compile("__JCLOUDS_TEMPLATE_(" + VARIABLE_NAME.pattern() + ")__");
+
+   /**
+    * @param name
+    *           letters and digits, optionally separated by single underscores
+    * @return the placeholder to use in statements where the value of {@code name} belongs
+    */
+   public static String variable(String name) {
+      checkArgument(VARIABLE_NAME.matcher(checkNotNull(name, "name")).matches(), "invalid variable name %s", name);
+      return "__JCLOUDS_TEMPLATE_" + name + "__";
+   }
+
+   /**
+    * renders {@code statement} once, recording where its {@link #variable variables} appear.
+    */
+   public static ScriptTemplate compile(Statement statement, OsFamily family) {
+      return parse(checkNotNull(statement, "statement").render(checkNotNull(family, "family")));
+   }
+
+   /**
+    * @param rendered
+    *           text containing placeholders created by {@link #variable(String)}
+    */
+   public static ScriptTemplate parse(String rendered) {
+      ImmutableList.Builder<String> text = ImmutableList.builder();
+      ImmutableList.Builder<String> variables = ImmutableList.builder();
+      Matcher matcher = VARIABLE.matcher(checkNotNull(rendered, "rendered"));
+      int last = 0;
+      while (matcher.find()) {
+         text.add(rendered.substring(last, matcher.start()));
+         variables.add(matcher.group(1));
+         last = matcher.end();
+      }
+      text.add(rendered.substring(last));
+      return new ScriptTemplate(text.build(), variables.build());
+   }
+
+   // text.size() == variables.size() + 1; variables.get(i) goes between text.get(i) and text.get(i + 1)
+   private final List<String> text;
+   private final List<String> variables;
+   private final int fixedLength;
+
+   private ScriptTemplate(List<String> text, List<String> variables) {
+      this.text = text;
+      this.variables = variables;
+      int length = 0;
+      for (String segment : text)
+         length += segment.length();
+      this.fixedLength = length;
+   }
+
+   /**
+    * @return names of the variables this template needs to render
+    */
+   public Set<String> getVariables() {
+      return ImmutableSet.copyOf(variables);
+   }
+
+   /**
+    * @param values
+    *           by variable name; every variable in {@link #getVariables()} must have a value
+    * @return the script, as the original statement would have rendered with these values
+    */
+   public String render(Map<String, String> values) {
+      checkNotNull(values, "values");
+      StringBuilder builder = new StringBuilder(fixedLength + 32 * variables.size());
+      builder.append(text.get(0));
+      for (int i = 0; i < variables.size(); i++) {
+         String value = values.get(variables.get(i));
+         checkArgument(value != null, "no value for template variable %s", variables.get(i));
+         builder.append(value).append(text.get(i + 1));
+      }
+      return builder.toString();
+   }
+
+   @Override
+   public String toString() {
+      return "ScriptTemplate(variables=" + getVariables() + ")";
+   }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.scriptbuilder.functionloader;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jclouds.scriptbuilder.domain.OsFamily;
+
+import com.google.common.collect.Maps;
+
+/**
+ * FunctionLoader decorator which keeps the body of each function once it has been loaded, so that rendering the same
+ * script for many nodes does not read and filter the function resources each time.
+ * <p/>
+ * Functions that could not be found are not cached.
+ */
+public class CachingFunctionLoader implements FunctionLoader {
+
+   /** The target function loader. */
+   private final FunctionLoader delegate;
+
+   /** Loaded functions, by operating system family and then function name. */
+   private final Map<OsFamily, ConcurrentMap<String, String>> functions;
+
+   public CachingFunctionLoader(FunctionLoader delegate) {
+      this.delegate = checkNotNull(delegate, "delegate");
+      this.functions = new EnumMap<OsFamily, ConcurrentMap<String, String>>(OsFamily.class);
+      for (OsFamily family : OsFamily.values())
+         functions.put(family, Maps.<String, String> newConcurrentMap());
+   }
+
+   @Override
+   public String loadFunction(String function, OsFamily family) throws FunctionNotFoundException {
+      ConcurrentMap<String, String> loaded = functions.get(checkNotNull(family, "family"));
+      String body = loaded.get(checkNotNull(function, "function"));
+      if (body == null) {
+         body = delegate.loadFunction(function, family);
+         String existing = loaded.putIfAbsent(function, body);
+         if (existing != null)
+            body = existing;
+      }
+      return body;
+   }
+
+   /**
+    * @return the function loader this instance caches
+    */
+   public FunctionLoader getDelegate() {
+      return delegate;
+   }
+}
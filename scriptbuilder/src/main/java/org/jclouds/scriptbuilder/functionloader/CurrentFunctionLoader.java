@@ -30,17 +30,25 @@ public class CurrentFunctionLoader {
    private static final AtomicReference<FunctionLoader> ref = Atomics.<FunctionLoader>newReference(
             BasicFunctionLoader.INSTANCE);
 
+   // Filter out license headers in function scripts, and keep the result for later renders
+   private static final AtomicReference<FunctionLoader> filtered = Atomics.<FunctionLoader>newReference(
+            filterAndCache(BasicFunctionLoader.INSTANCE));
+
    public static FunctionLoader get() {
-      // Filter out license headers in function scripts
-      return new LicenseHeaderFilter(ref.get());
+      return filtered.get();
    }
 
-   public static FunctionLoader set(FunctionLoader loader) {
+   public static synchronized FunctionLoader set(FunctionLoader loader) {
+      filtered.set(filterAndCache(loader));
       return ref.getAndSet(loader);
    }
 
    public static FunctionLoader reset() {
-      return ref.getAndSet(BasicFunctionLoader.INSTANCE);
+      return set(BasicFunctionLoader.INSTANCE);
+   }
+
+   private static FunctionLoader filterAndCache(FunctionLoader loader) {
+      return new CachingFunctionLoader(new LicenseHeaderFilter(loader));
    }
 
 }
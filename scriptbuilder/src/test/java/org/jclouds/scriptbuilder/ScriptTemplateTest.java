@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.scriptbuilder;
+
+import static org.jclouds.scriptbuilder.domain.Statements.appendFile;
+import static org.jclouds.scriptbuilder.domain.Statements.exec;
+import static org.testng.Assert.assertEquals;
+
+import org.jclouds.scriptbuilder.domain.OsFamily;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+@Test(groups = "unit", testName = "ScriptTemplateTest")
+public class ScriptTemplateTest {
+
+   private static InitScript initScript(String name) {
+      return InitScript.builder().name(name).home("/tmp/" + name)
+            .run(appendFile("{tmp}{fs}{uid}{fs}scripttest{fs}temp.txt", ImmutableList.of("hello world")),
+                  exec("find /")).build();
+   }
+
+   public void testRendersLikeStatement() {
+      ScriptTemplate template = ScriptTemplate.compile(initScript(ScriptTemplate.variable("INSTANCE_NAME")),
+            OsFamily.UNIX);
+      assertEquals(template.getVariables(), ImmutableSet.of("INSTANCE_NAME"));
+      for (String name : ImmutableList.of("bootstrap-1", "bootstrap-2")) {
+         assertEquals(template.render(ImmutableMap.of("INSTANCE_NAME", name)),
+               initScript(name).render(OsFamily.UNIX));
+      }
+   }
+
+   public void testParseWithoutVariables() {
+      ScriptTemplate template = ScriptTemplate.parse("echo hello\n");
+      assertEquals(template.getVariables(), ImmutableSet.of());
+      assertEquals(template.render(ImmutableMap.<String, String> of()), "echo hello\n");
+   }
+
+   public void testParseMultipleVariables() {
+      ScriptTemplate template = ScriptTemplate.parse("useradd " + ScriptTemplate.variable("USER") + " -p "
+            + ScriptTemplate.variable("PASSWORD_HASH") + "\n");
+      assertEquals(template.render(ImmutableMap.of("USER", "web", "PASSWORD_HASH", "$6$abc")),
+            "useradd web -p $6$abc\n");
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testMissingValue() {
+      ScriptTemplate.parse(ScriptTemplate.variable("USER")).render(ImmutableMap.<String, String> of());
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testInvalidVariableName() {
+      ScriptTemplate.variable("bad__name");
+   }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.scriptbuilder.functionloader;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import org.jclouds.scriptbuilder.domain.OsFamily;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "CachingFunctionLoaderTest")
+public class CachingFunctionLoaderTest {
+
+   public void testLoadsEachFunctionOncePerFamily() {
+      FunctionLoader delegate = createMock(FunctionLoader.class);
+      expect(delegate.loadFunction("abort", OsFamily.UNIX)).andReturn("unix");
+      expect(delegate.loadFunction("abort", OsFamily.WINDOWS)).andReturn("windows");
+      replay(delegate);
+
+      FunctionLoader loader = new CachingFunctionLoader(delegate);
+      for (int i = 0; i < 3; i++) {
+         assertEquals(loader.loadFunction("abort", OsFamily.UNIX), "unix");
+         assertEquals(loader.loadFunction("abort", OsFamily.WINDOWS), "windows");
+      }
+      verify(delegate);
+   }
+
+   public void testDoesNotCacheMissingFunctions() {
+      FunctionLoader delegate = createMock(FunctionLoader.class);
+      expect(delegate.loadFunction("missing", OsFamily.UNIX)).andThrow(
+            new FunctionNotFoundException("missing", OsFamily.UNIX));
+      // registered after the first lookup failed
+      expect(delegate.loadFunction("missing", OsFamily.UNIX)).andReturn("found");
+      replay(delegate);
+
+      FunctionLoader loader = new CachingFunctionLoader(delegate);
+      try {
+         loader.loadFunction("missing", OsFamily.UNIX);
+         fail("expected FunctionNotFoundException");
+      } catch (FunctionNotFoundException expected) {
+         // expected
+      }
+      assertEquals(loader.loadFunction("missing", OsFamily.UNIX), "found");
+      verify(delegate);
+   }
+}